@@ -0,0 +1,226 @@
+package org.kiwiproject.registry.benchmark;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+import org.kiwiproject.consul.model.catalog.CatalogService;
+import org.kiwiproject.consul.model.catalog.ImmutableCatalogService;
+import org.kiwiproject.registry.model.Port;
+import org.kiwiproject.registry.model.Port.PortType;
+import org.kiwiproject.registry.model.Port.Security;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServicePaths;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Generates synthetic registries for the benchmarks, in the shapes that Eureka and Consul return them and as
+ * {@link ServiceInstance}s.
+ * <p>
+ * Instances are spread over one service per {@value #INSTANCES_PER_SERVICE} instances, and each service runs a mix of
+ * {@link #VERSIONS versions}, so that version filtering has work to do. The same index always produces the same
+ * instance, whichever shape it is generated in.
+ */
+public final class SyntheticRegistry {
+
+    /**
+     * The average number of instances of each service.
+     */
+    public static final int INSTANCES_PER_SERVICE = 25;
+
+    /**
+     * The versions that instances of each service run, from oldest to newest.
+     */
+    public static final List<String> VERSIONS = List.of("1.4.0", "1.4.1", "1.5.0", "1.5.1-SNAPSHOT", "2.0.0");
+
+    private static final long BASE_TIMESTAMP = 1_700_000_000_000L;
+
+    private SyntheticRegistry() {
+        // utility class
+    }
+
+    /**
+     * @param instanceCount the total number of instances in the registry
+     * @return the number of distinct services the instances are spread over
+     */
+    public static int serviceCount(int instanceCount) {
+        return Math.max(1, instanceCount / INSTANCES_PER_SERVICE);
+    }
+
+    /**
+     * @param index the index of a service, which wraps around the service count
+     * @return the name of the service
+     */
+    public static String serviceName(int index) {
+        return "service-" + index;
+    }
+
+    /**
+     * Create the parsed JSON of a Eureka {@code /apps} response, with one application per service.
+     *
+     * @param instanceCount the total number of instances
+     * @return the response as Eureka's JSON codec would produce it once read into a map
+     */
+    public static Map<String, Object> eurekaApplicationsResponse(int instanceCount) {
+        var serviceCount = serviceCount(instanceCount);
+
+        var instancesByApp = IntStream.range(0, instanceCount)
+                .boxed()
+                .collect(groupingBy(index -> index % serviceCount, LinkedHashMap::new, toList()));
+
+        var applications = instancesByApp.entrySet().stream()
+                .map(entry -> Map.<String, Object>of(
+                        "name", appName(entry.getKey()),
+                        "instance", entry.getValue().stream()
+                                .map(index -> eurekaInstanceData(index, serviceCount))
+                                .toList()))
+                .toList();
+
+        return Map.of("applications", Map.of(
+                "versions__delta", "1",
+                "apps__hashcode", "UP_" + instanceCount + "_",
+                "application", applications));
+    }
+
+    private static String appName(int serviceIndex) {
+        return serviceName(serviceIndex).toUpperCase();
+    }
+
+    private static Map<String, Object> eurekaInstanceData(int index, int serviceCount) {
+        var serviceIndex = index % serviceCount;
+        var hostName = hostName(index);
+
+        var data = new HashMap<String, Object>();
+        data.put("instanceId", hostName + ":" + serviceName(serviceIndex));
+        data.put("hostName", hostName);
+        data.put("app", appName(serviceIndex));
+        data.put("ipAddr", ipAddress(index));
+        data.put("status", "UP");
+        data.put("overriddenStatus", "UNKNOWN");
+        data.put("port", Map.of("$", 8080, "@enabled", "false"));
+        data.put("securePort", Map.of("$", 8443, "@enabled", "true"));
+        data.put("countryId", 1);
+        data.put("dataCenterInfo", Map.of(
+                "@class", "com.netflix.appinfo.InstanceInfo$DefaultDataCenterInfo",
+                "name", "MyOwn"));
+        data.put("leaseInfo", Map.of(
+                "renewalIntervalInSecs", 30,
+                "durationInSecs", 90,
+                "registrationTimestamp", BASE_TIMESTAMP + index,
+                "lastRenewalTimestamp", BASE_TIMESTAMP + index,
+                "evictionTimestamp", 0,
+                "serviceUpTimestamp", BASE_TIMESTAMP + index));
+        data.put("metadata", Map.of(
+                "commitRef", "abcdef0",
+                "description", "Service " + serviceIndex,
+                "version", version(index, serviceCount),
+                "category", "CORE",
+                "zone", "us-east-1a"));
+        data.put("homePageUrl", "https://" + hostName + ":8443/");
+        data.put("statusPageUrl", "https://" + hostName + ":8081/ping");
+        data.put("healthCheckUrl", "https://" + hostName + ":8081/healthcheck");
+        data.put("vipAddress", serviceName(serviceIndex));
+        data.put("secureVipAddress", serviceName(serviceIndex));
+        data.put("isCoordinatingDiscoveryServer", "false");
+        data.put("lastUpdatedTimestamp", Long.toString(BASE_TIMESTAMP + index));
+        data.put("lastDirtyTimestamp", Long.toString(BASE_TIMESTAMP + index));
+        data.put("actionType", "ADDED");
+        return data;
+    }
+
+    /**
+     * Create the catalog entries that Consul would return for the instances.
+     *
+     * @param instanceCount the total number of instances
+     * @return the catalog entries
+     */
+    public static List<CatalogService> catalogServices(int instanceCount) {
+        var serviceCount = serviceCount(instanceCount);
+
+        return IntStream.range(0, instanceCount)
+                .mapToObj(index -> catalogService(index, serviceCount))
+                .toList();
+    }
+
+    private static CatalogService catalogService(int index, int serviceCount) {
+        var serviceIndex = index % serviceCount;
+
+        return ImmutableCatalogService.builder()
+                .node("node-" + (index % 20))
+                .address(ipAddress(index))
+                .serviceName(serviceName(serviceIndex))
+                .serviceId(serviceName(serviceIndex) + "-" + index)
+                .serviceAddress(hostName(index))
+                .servicePort(8080)
+                .serviceTags(List.of("service-type:default", "category:CORE", "zone:us-east-1a", "canary"))
+                .serviceMeta(Map.of(
+                        "scheme", "https",
+                        "adminPort", "8081",
+                        "serviceUpTimestamp", Long.toString(BASE_TIMESTAMP + index),
+                        "commitRef", "abcdef0",
+                        "description", "Service " + serviceIndex,
+                        "version", version(index, serviceCount),
+                        "ipAddress", ipAddress(index),
+                        "homePagePath", "/",
+                        "statusPath", "/ping",
+                        "healthCheckPath", "/healthcheck"))
+                .modifyIndex((long) index)
+                .build();
+    }
+
+    /**
+     * Create the instances as registry clients return them.
+     *
+     * @param instanceCount the total number of instances
+     * @return the instances
+     */
+    public static List<ServiceInstance> serviceInstances(int instanceCount) {
+        var serviceCount = serviceCount(instanceCount);
+
+        return IntStream.range(0, instanceCount)
+                .mapToObj(index -> serviceInstance(index, serviceCount))
+                .toList();
+    }
+
+    private static ServiceInstance serviceInstance(int index, int serviceCount) {
+        var serviceIndex = index % serviceCount;
+        var hostName = hostName(index);
+
+        return ServiceInstance.builder()
+                .instanceId(hostName + ":" + serviceName(serviceIndex))
+                .status(ServiceInstance.Status.UP)
+                .serviceName(serviceName(serviceIndex))
+                .hostName(hostName)
+                .ip(ipAddress(index))
+                .ports(List.of(
+                        Port.of(8080, PortType.APPLICATION, Security.NOT_SECURE),
+                        Port.of(8443, PortType.APPLICATION, Security.SECURE),
+                        Port.of(8081, PortType.ADMIN, Security.SECURE)))
+                .paths(ServicePaths.builder().build())
+                .commitRef("abcdef0")
+                .description("Service " + serviceIndex)
+                .version(version(index, serviceCount))
+                .metadata(Map.of("category", "CORE", "zone", "us-east-1a"))
+                .nativeRegistryData(Map.of())
+                .build();
+    }
+
+    private static String hostName(int index) {
+        return "host-" + index + ".example.com";
+    }
+
+    private static String ipAddress(int index) {
+        return "10." + ((index >> 16) & 0xFF) + "." + ((index >> 8) & 0xFF) + "." + (index & 0xFF);
+    }
+
+    /**
+     * Spreads the versions over the instances of each service, rather than over the services.
+     */
+    private static String version(int index, int serviceCount) {
+        return VERSIONS.get((index / serviceCount) % VERSIONS.size());
+    }
+}
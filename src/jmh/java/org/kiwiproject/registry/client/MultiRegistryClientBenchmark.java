@@ -0,0 +1,78 @@
+package org.kiwiproject.registry.client;
+
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.kiwiproject.registry.client.RegistryClient.InstanceQuery;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures merging the results of two registries that each hold half of the instances. The registries are
+ * {@link FakeRegistryClient}s, so only the merging and the version filtering are measured. Run with the GC profiler
+ * ({@code -prof gc}) to see the allocation per lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiRegistryClientBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private MultiRegistryClient client;
+    private InstanceQuery query;
+    private List<InstanceQuery> queriesForAllServices;
+
+    @Setup
+    public void setUp() {
+        var instances = SyntheticRegistry.serviceInstances(instanceCount);
+        var half = instances.size() / 2;
+        client = MultiRegistryClient.of(
+                new FakeRegistryClient(instances.subList(0, half)),
+                new FakeRegistryClient(instances.subList(half, instances.size())));
+
+        query = newQuery(0);
+        queriesForAllServices = IntStream.range(0, SyntheticRegistry.serviceCount(instanceCount))
+                .mapToObj(MultiRegistryClientBenchmark::newQuery)
+                .toList();
+    }
+
+    private static InstanceQuery newQuery(int serviceIndex) {
+        return InstanceQuery.builder()
+                .serviceName(SyntheticRegistry.serviceName(serviceIndex))
+                .minimumVersion("1.4.1")
+                .build();
+    }
+
+    @Benchmark
+    public List<ServiceInstance> retrieveAllRegisteredInstances() {
+        return client.retrieveAllRegisteredInstances();
+    }
+
+    @Benchmark
+    public List<ServiceInstance> findAllServiceInstancesBy() {
+        return client.findAllServiceInstancesBy(query);
+    }
+
+    @Benchmark
+    public Map<InstanceQuery, List<ServiceInstance>> findAllServiceInstancesByForAllServices() {
+        return client.findAllServiceInstancesBy(queriesForAllServices);
+    }
+}
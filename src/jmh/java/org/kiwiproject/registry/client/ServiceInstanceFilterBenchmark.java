@@ -0,0 +1,76 @@
+package org.kiwiproject.registry.client;
+
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.kiwiproject.registry.client.RegistryClient.InstanceQuery;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filtering the instances of a service by version. Every instance is treated as an instance of the same
+ * service, so the instance count is the number of instances being filtered. Run with the GC profiler
+ * ({@code -prof gc}) to see the allocation per filtering.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceInstanceFilterBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private List<ServiceInstance> serviceInstances;
+    private InstanceQuery minimumVersionQuery;
+    private InstanceQuery preferredVersionQuery;
+    private InstanceQuery minimumAndPreferredVersionQuery;
+
+    @Setup
+    public void setUp() {
+        serviceInstances = SyntheticRegistry.serviceInstances(instanceCount);
+
+        var serviceName = SyntheticRegistry.serviceName(0);
+        minimumVersionQuery = InstanceQuery.builder()
+                .serviceName(serviceName)
+                .minimumVersion("1.5.0")
+                .build();
+        preferredVersionQuery = InstanceQuery.builder()
+                .serviceName(serviceName)
+                .preferredVersion("1.5.0")
+                .build();
+        minimumAndPreferredVersionQuery = InstanceQuery.builder()
+                .serviceName(serviceName)
+                .minimumVersion("1.4.1")
+                .preferredVersion("1.5.0")
+                .build();
+    }
+
+    @Benchmark
+    public List<ServiceInstance> filterByMinimumVersion() {
+        return ServiceInstanceFilter.filterInstancesByVersion(serviceInstances, minimumVersionQuery);
+    }
+
+    @Benchmark
+    public List<ServiceInstance> filterByPreferredVersion() {
+        return ServiceInstanceFilter.filterInstancesByVersion(serviceInstances, preferredVersionQuery);
+    }
+
+    @Benchmark
+    public List<ServiceInstance> filterByMinimumAndPreferredVersion() {
+        return ServiceInstanceFilter.filterInstancesByVersion(serviceInstances, minimumAndPreferredVersionQuery);
+    }
+}
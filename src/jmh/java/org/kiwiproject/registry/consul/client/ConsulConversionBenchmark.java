@@ -0,0 +1,55 @@
+package org.kiwiproject.registry.consul.client;
+
+import static org.mockito.Mockito.mock;
+
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.consul.model.catalog.CatalogService;
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.kiwiproject.registry.consul.config.ConsulConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting Consul catalog entries to {@code ServiceInstance}s, bypassing the conversion cache. Run with
+ * the GC profiler ({@code -prof gc}) to see the allocation per conversion.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsulConversionBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private ConsulRegistryClient client;
+    private List<CatalogService> catalogServices;
+
+    @Setup
+    public void setUp() {
+        client = new ConsulRegistryClient(mock(Consul.class), new ConsulConfig());
+        catalogServices = SyntheticRegistry.catalogServices(instanceCount);
+    }
+
+    @Benchmark
+    public void convertCatalogServices(Blackhole blackhole) {
+        for (var catalogService : catalogServices) {
+            blackhole.consume(client.fromCatalogService(catalogService));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.kiwiproject.registry.eureka.common;
+
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.kiwiproject.registry.model.NativeRegistryData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting Eureka instances to {@code ServiceInstance}s. Run with the GC profiler ({@code -prof gc}) to
+ * see the allocation per conversion.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EurekaConversionBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private List<EurekaInstance> eurekaInstances;
+
+    @Setup
+    public void setUp() {
+        eurekaInstances = EurekaResponseParser.parseEurekaApplicationsResponse(
+                SyntheticRegistry.eurekaApplicationsResponse(instanceCount));
+    }
+
+    @Benchmark
+    public void convertEurekaInstances(Blackhole blackhole) {
+        for (var eurekaInstance : eurekaInstances) {
+            blackhole.consume(eurekaInstance.toServiceInstance(NativeRegistryData.IGNORE_NATIVE_DATA));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.kiwiproject.registry.eureka.common;
+
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a Eureka {@code /apps} response, once read into a map, into {@link EurekaInstance}s. Run with the
+ * GC profiler ({@code -prof gc}) to see the allocation per response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EurekaResponseParserBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private Map<String, Object> eurekaResponse;
+
+    @Setup
+    public void setUp() {
+        eurekaResponse = SyntheticRegistry.eurekaApplicationsResponse(instanceCount);
+    }
+
+    @Benchmark
+    public List<EurekaInstance> parseEurekaApplicationsResponse() {
+        return EurekaResponseParser.parseEurekaApplicationsResponse(eurekaResponse);
+    }
+}
@@ -0,0 +1,60 @@
+package org.kiwiproject.registry.util;
+
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.kiwiproject.registry.model.Port;
+import org.kiwiproject.registry.model.Port.PortType;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding the preferred port of every instance in a registry, as is done when building URLs for them. Run
+ * with the GC profiler ({@code -prof gc}) to see the allocation per lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PortsBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private List<List<Port>> portLists;
+
+    @Setup
+    public void setUp() {
+        portLists = SyntheticRegistry.serviceInstances(instanceCount).stream()
+                .map(ServiceInstance::getPorts)
+                .toList();
+    }
+
+    @Benchmark
+    public void findFirstApplicationPortPreferSecure(Blackhole blackhole) {
+        for (var ports : portLists) {
+            blackhole.consume(Ports.findFirstPortPreferSecure(ports, PortType.APPLICATION));
+        }
+    }
+
+    @Benchmark
+    public void findFirstAdminPortPreferSecure(Blackhole blackhole) {
+        for (var ports : portLists) {
+            blackhole.consume(Ports.findFirstPortPreferSecure(ports, PortType.ADMIN));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.kiwiproject.registry.util;
+
+import org.kiwiproject.registry.benchmark.SyntheticRegistry;
+import org.kiwiproject.registry.model.Port.PortType;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a URL for every instance in a registry. Run with the GC profiler ({@code -prof gc}) to see the
+ * allocation per URL.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceInstancePathsBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int instanceCount;
+
+    private List<ServiceInstance> serviceInstances;
+
+    @Setup
+    public void setUp() {
+        serviceInstances = SyntheticRegistry.serviceInstances(instanceCount);
+    }
+
+    @Benchmark
+    public void urlForApplicationPath(Blackhole blackhole) {
+        for (var instance : serviceInstances) {
+            blackhole.consume(ServiceInstancePaths.urlForPath(
+                    instance.getHostName(), instance.getPorts(), PortType.APPLICATION, "/api/orders"));
+        }
+    }
+
+    @Benchmark
+    public void urlForStatusPath(Blackhole blackhole) {
+        for (var instance : serviceInstances) {
+            blackhole.consume(ServiceInstancePaths.urlForPath(
+                    instance.getHostName(), instance.getPorts(), PortType.ADMIN, instance.getPaths().getStatusPath()));
+        }
+    }
+}
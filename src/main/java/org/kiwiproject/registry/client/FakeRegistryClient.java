@@ -1,11 +1,11 @@
 package org.kiwiproject.registry.client;
 
+import static java.util.Objects.isNull;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 
 import org.kiwiproject.registry.model.ServiceInstance;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,8 +13,9 @@ import java.util.Optional;
 
 /**
  * A fake {@link RegistryClient} implementation intended for use in tests. It maintains an in-memory
- * mapping of service names to {@link ServiceInstance} lists, allowing tests to pre-register instances
- * and verify lookup behavior without connecting to a real service registry.
+ * mapping of service names to {@link ServiceInstance}s, allowing tests to pre-register instances
+ * and verify lookup behavior without connecting to a real service registry. The instances of each service are kept
+ * in a {@link VersionIndex}, so lookups return them in order of version.
  * <p>
  * Example usage:
  * <pre>
@@ -31,7 +32,7 @@ import java.util.Optional;
  */
 public class FakeRegistryClient implements RegistryClient {
 
-    private final Map<String, List<ServiceInstance>> serviceInstances;
+    private final Map<String, VersionIndex<ServiceInstance>> serviceInstances;
 
     /**
      * Creates an empty {@code FakeRegistryClient} with no pre-registered instances.
@@ -59,10 +60,30 @@ public class FakeRegistryClient implements RegistryClient {
     public void addServiceInstance(ServiceInstance instance) {
         checkArgumentNotNull(instance, "instance must not be null");
         serviceInstances
-                .computeIfAbsent(instance.getServiceName(), k -> new ArrayList<>())
+                .computeIfAbsent(instance.getServiceName(), k -> new VersionIndex<>(ServiceInstance::getVersion))
                 .add(instance);
     }
 
+    /**
+     * Deregisters a {@link ServiceInstance} from this client.
+     *
+     * @param instance the instance to remove; must not be null
+     * @return true if the instance was registered
+     */
+    public boolean removeServiceInstance(ServiceInstance instance) {
+        checkArgumentNotNull(instance, "instance must not be null");
+
+        var index = serviceInstances.get(instance.getServiceName());
+        if (isNull(index) || !index.remove(instance)) {
+            return false;
+        }
+
+        if (index.isEmpty()) {
+            serviceInstances.remove(instance.getServiceName());
+        }
+        return true;
+    }
+
     /**
      * Registers multiple {@link ServiceInstance} objects with this client.
      *
@@ -86,14 +107,15 @@ public class FakeRegistryClient implements RegistryClient {
     /** {@inheritDoc} */
     @Override
     public List<ServiceInstance> findAllServiceInstancesBy(InstanceQuery query) {
-        var instances = serviceInstances.getOrDefault(query.getServiceName(), List.of());
-        return ServiceInstanceFilter.filterInstancesByVersion(instances, query);
+        var index = serviceInstances.get(query.getServiceName());
+        return isNull(index) ? List.of() : index.find(query);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<ServiceInstance> retrieveAllRegisteredInstances() {
         return serviceInstances.values().stream()
+                .map(VersionIndex::all)
                 .flatMap(List::stream)
                 .toList();
     }
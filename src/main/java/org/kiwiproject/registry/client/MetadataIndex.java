@@ -0,0 +1,109 @@
+package org.kiwiproject.registry.client;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import com.google.common.collect.Sets;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A secondary index of instances by their metadata keys and metadata values, so that the instances satisfying each
+ * of the {@link MetadataPredicates} are looked up instead of checking the metadata of every instance.
+ * <p>
+ * Instances are held by identity, so that an instance is removed only when that same instance is removed. The
+ * metadata of an instance must not change while it is in the index.
+ * <p>
+ * This is not thread-safe. {@link VersionIndex} builds and updates it.
+ *
+ * @param <T> the type of instance
+ */
+class MetadataIndex<T> {
+
+    private final Function<T, Map<String, String>> metadataOf;
+    private final Map<String, Set<T>> instancesByKey;
+    private final Map<Map.Entry<String, String>, Set<T>> instancesByValue;
+
+    MetadataIndex(Function<T, Map<String, String>> metadataOf) {
+        this.metadataOf = metadataOf;
+        this.instancesByKey = new HashMap<>();
+        this.instancesByValue = new HashMap<>();
+    }
+
+    void add(T instance) {
+        var metadata = metadataOf.apply(instance);
+        if (isNull(metadata)) {
+            return;
+        }
+
+        for (var entry : metadata.entrySet()) {
+            instancesByKey.computeIfAbsent(entry.getKey(), key -> Sets.newIdentityHashSet()).add(instance);
+            if (hasKeyAndValue(entry)) {
+                instancesByValue.computeIfAbsent(Map.entry(entry.getKey(), entry.getValue()),
+                        key -> Sets.newIdentityHashSet()).add(instance);
+            }
+        }
+    }
+
+    void remove(T instance) {
+        var metadata = metadataOf.apply(instance);
+        if (isNull(metadata)) {
+            return;
+        }
+
+        for (var entry : metadata.entrySet()) {
+            removeFrom(instancesByKey, entry.getKey(), instance);
+            if (hasKeyAndValue(entry)) {
+                removeFrom(instancesByValue, Map.entry(entry.getKey(), entry.getValue()), instance);
+            }
+        }
+    }
+
+    private static boolean hasKeyAndValue(Map.Entry<String, String> entry) {
+        return nonNull(entry.getKey()) && nonNull(entry.getValue());
+    }
+
+    private static <K, T> void removeFrom(Map<K, Set<T>> instancesByKey, K key, T instance) {
+        var instances = instancesByKey.get(key);
+        if (isNull(instances)) {
+            return;
+        }
+
+        instances.remove(instance);
+        if (instances.isEmpty()) {
+            instancesByKey.remove(key);
+        }
+    }
+
+    /**
+     * @return the instances satisfying each of the predicates, one set for each predicate, smallest first; any of
+     * them may be empty
+     */
+    List<Set<T>> instancesSatisfying(MetadataPredicates predicates) {
+        var instancesSatisfyingEach = new ArrayList<Set<T>>();
+
+        predicates.metadataValues().forEach((key, value) ->
+                instancesSatisfyingEach.add(instancesWithValue(key, value)));
+        predicates.metadataKeys().forEach(key ->
+                instancesSatisfyingEach.add(instancesByKey.getOrDefault(key, Set.of())));
+        predicates.tags().forEach(tag ->
+                instancesSatisfyingEach.add(instancesWithValue(tag, tag)));
+
+        instancesSatisfyingEach.sort(Comparator.comparingInt(Set::size));
+        return instancesSatisfyingEach;
+    }
+
+    private Set<T> instancesWithValue(String key, String value) {
+        if (isNull(key) || isNull(value)) {
+            return Set.of();
+        }
+
+        return instancesByValue.getOrDefault(Map.entry(key, value), Set.of());
+    }
+}
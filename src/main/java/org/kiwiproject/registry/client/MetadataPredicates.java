@@ -0,0 +1,52 @@
+package org.kiwiproject.registry.client;
+
+import static java.util.Objects.isNull;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The metadata predicates of an {@link RegistryClient.InstanceQuery}, so that {@link ServiceInstanceFilter} and
+ * {@link VersionIndex} apply them in the same way.
+ * <p>
+ * Each tag is treated as a metadata value having the tag as both its key and value.
+ */
+record MetadataPredicates(Map<String, String> metadataValues, Set<String> metadataKeys, Set<String> tags) {
+
+    static MetadataPredicates of(RegistryClient.InstanceQuery query) {
+        return new MetadataPredicates(
+                query.hasNoMetadataValues() ? Map.of() : query.getMetadataValues(),
+                query.hasNoMetadataKeys() ? Set.of() : query.getMetadataKeys(),
+                query.hasNoTags() ? Set.of() : query.getTags());
+    }
+
+    /**
+     * Does the metadata have every metadata value, metadata key, and tag?
+     */
+    boolean accepts(Map<String, String> metadata) {
+        if (isNull(metadata)) {
+            return false;
+        }
+
+        for (var entry : metadataValues.entrySet()) {
+            var value = metadata.get(entry.getKey());
+            if (isNull(value) || !value.equals(entry.getValue())) {
+                return false;
+            }
+        }
+
+        for (var key : metadataKeys) {
+            if (!metadata.containsKey(key)) {
+                return false;
+            }
+        }
+
+        for (var tag : tags) {
+            if (!tag.equals(metadata.get(tag))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -3,15 +3,24 @@ package org.kiwiproject.registry.client;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotEmpty;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.collect.KiwiLists.isNotNullOrEmpty;
 
 import com.google.common.annotations.VisibleForTesting;
 import lombok.AccessLevel;
 import lombok.Getter;
 import org.kiwiproject.collect.KiwiLists;
 import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServiceSummary;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 /**
  * A {@link RegistryClient} that finds services in more than one registry.
@@ -62,15 +71,53 @@ public class MultiRegistryClient implements RegistryClient {
      * {@inheritDoc}
      * <p>
      * Returns all services that match the query from all {@link RegistryClient}s that return any results, checking
-     * each {@link RegistryClient} in order.
+     * each {@link RegistryClient} in order. The {@link RegistryClient}s are queried without the limit, which is
+     * applied once to the combined services, so that every matching service is equally likely to be sampled.
      */
     @Override
     public List<ServiceInstance> findAllServiceInstancesBy(InstanceQuery query) {
-        return registryClients.stream()
-                .map(registryClient -> registryClient.findAllServiceInstancesBy(query))
+        var unlimitedQuery = withoutLimit(query);
+        var instances = registryClients.stream()
+                .map(registryClient -> registryClient.findAllServiceInstancesBy(unlimitedQuery))
                 .filter(KiwiLists::isNotNullOrEmpty)
                 .flatMap(List::stream)
                 .toList();
+
+        return ServiceInstanceFilter.limit(instances, query);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Performs the batch lookup once against each {@link RegistryClient}, in order, and combines the services that each
+     * returns for a query. As for a single query, the {@link RegistryClient}s are queried without the limits, and the
+     * limit of each query is applied once to its combined services.
+     */
+    @Override
+    public Map<InstanceQuery, List<ServiceInstance>> findAllServiceInstancesBy(Collection<InstanceQuery> queries) {
+        checkArgumentNotNull(queries, "The queries cannot be null");
+
+        var unlimitedQueries = queries.stream().map(MultiRegistryClient::withoutLimit).distinct().toList();
+
+        var combinedInstances = new HashMap<InstanceQuery, List<ServiceInstance>>();
+        unlimitedQueries.forEach(query -> combinedInstances.put(query, new ArrayList<>()));
+
+        for (var registryClient : registryClients) {
+            registryClient.findAllServiceInstancesBy(unlimitedQueries).forEach((query, instances) -> {
+                if (isNotNullOrEmpty(instances)) {
+                    combinedInstances.get(query).addAll(instances);
+                }
+            });
+        }
+
+        var results = new LinkedHashMap<InstanceQuery, List<ServiceInstance>>();
+        queries.forEach(query -> results.put(query,
+                ServiceInstanceFilter.limit(List.copyOf(combinedInstances.get(withoutLimit(query))), query)));
+        return results;
+    }
+
+    private static InstanceQuery withoutLimit(InstanceQuery query) {
+        return query.hasNoLimit() ? query : query.toBuilder().limit(null).build();
     }
 
     /**
@@ -87,4 +134,34 @@ public class MultiRegistryClient implements RegistryClient {
                 .flatMap(List::stream)
                 .toList();
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Streams the registered services from each {@link RegistryClient} in order, only retrieving them from a
+     * {@link RegistryClient} once the stream reaches it.
+     */
+    @Override
+    public Stream<ServiceInstance> streamAllRegisteredInstances() {
+        return registryClients.stream()
+                .flatMap(RegistryClient::streamAllRegisteredInstances);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves the summaries from each {@link RegistryClient} and combines the summaries of services having the same
+     * name.
+     */
+    @Override
+    public List<ServiceSummary> retrieveServiceSummaries() {
+        var tallies = new TreeMap<String, ServiceSummary.Tally>();
+        for (var registryClient : registryClients) {
+            for (var summary : registryClient.retrieveServiceSummaries()) {
+                tallies.computeIfAbsent(summary.getServiceName(), ServiceSummary::tally).add(summary);
+            }
+        }
+
+        return tallies.values().stream().map(ServiceSummary.Tally::toSummary).toList();
+    }
 }
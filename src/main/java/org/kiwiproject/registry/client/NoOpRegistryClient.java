@@ -2,6 +2,7 @@ package org.kiwiproject.registry.client;
 
 import lombok.extern.slf4j.Slf4j;
 import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServiceSummary;
 
 import java.util.List;
 import java.util.Optional;
@@ -47,4 +48,15 @@ public class NoOpRegistryClient implements RegistryClient {
         LOG.warn("NoOpRegistryClient#retrieveAllRegisteredInstances always returns empty List<ServiceInstance>");
         return List.of();
     }
+
+    /**
+     * Always returns an empty, unmodifiable list.
+     *
+     * @return empty unmodifiable list
+     */
+    @Override
+    public List<ServiceSummary> retrieveServiceSummaries() {
+        LOG.warn("NoOpRegistryClient#retrieveServiceSummaries always returns empty List<ServiceSummary>");
+        return List.of();
+    }
 }
@@ -1,14 +1,31 @@
 package org.kiwiproject.registry.client;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.collect.KiwiSets.isNullOrEmpty;
 
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+import org.kiwiproject.collect.KiwiMaps;
 import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServiceSummary;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 /**
  * Base of all registry client implementations in order to find running services
@@ -19,26 +36,161 @@ public interface RegistryClient {
      * Encapsulates search parameters for finding service instances
      * <p>
      * Note: serviceName is required
+     * <p>
+     * Instances can be selected by version:
+     * <ul>
+     *     <li>{@code minimumVersion}, {@code maximumVersion}, and {@code exclusiveMaximumVersion} bound the versions,
+     *     e.g. a minimum version with an exclusive maximum version gives a half-open range</li>
+     *     <li>{@code excludedVersions} are never selected</li>
+     *     <li>{@code latestVersionCount} keeps only the instances running one of that many latest versions among
+     *     those that satisfy the other predicates</li>
+     *     <li>{@code preferredVersion} selects the instances running that version among those that satisfy the
+     *     other predicates, or the instances running the latest version if there are none</li>
+     * </ul>
+     * Versions are compared in the same way as Kiwi's
+     * {@link org.kiwiproject.base.Versions#versionCompare(String, String) Versions#versionCompare}.
+     * <p>
+     * Instances can also be selected by their {@link ServiceInstance#getMetadata() metadata}. An instance is selected
+     * only if it has every one of the {@code metadataValues}, has a value for every one of the {@code metadataKeys},
+     * and has every one of the {@code tags}. A tag is present when the metadata has an entry having the tag as both
+     * its key and value, which is how registries such as Consul surface tags that are not of the form
+     * {@code key:value}; tags of that form surface as the metadata value of their key. The metadata predicates are
+     * applied to the instances selected by version.
+     * <p>
+     * An optional {@code limit} bounds the number of instances found. When more instances satisfy the predicates, the
+     * {@link Sampling sampling} chooses which of them are found, by default at random.
+     * <p>
+     * An optional deadline bounds the total time spent looking up instances, including any retries. It can be set
+     * directly using {@code deadline(Instant)} or relative to now using {@code timeout(Duration)}. Implementations
+     * that retry must stop once the deadline has passed; implementations that do not retry are bounded by their
+     * configured timeouts.
+     * <p>
+     * Queries with equal values are equal, so they can be used as map keys, e.g. in the results of
+     * {@link #findAllServiceInstancesBy(Collection)}.
      */
-    @Builder
+    @Builder(toBuilder = true)
     @Getter
+    @EqualsAndHashCode
+    @ToString
     class InstanceQuery {
 
+        /**
+         * How to choose the instances found when more instances than the limit satisfy the predicates.
+         */
+        public enum Sampling {
+
+            /**
+             * Choose instances at random, each equally likely, in random order.
+             */
+            RANDOM,
+
+            /**
+             * Choose the first instances, in the order the registry client finds them.
+             */
+            FIRST
+        }
+
         private final String serviceName;
         private final String minimumVersion;
+        private final String maximumVersion;
+        private final String exclusiveMaximumVersion;
+        @Singular
+        private final Set<String> excludedVersions;
+        private final Integer latestVersionCount;
         private final String preferredVersion;
+        @Singular
+        private final Map<String, String> metadataValues;
+        @Singular
+        private final Set<String> metadataKeys;
+        @Singular
+        private final Set<String> tags;
+        private final Integer limit;
+        @Builder.Default
+        private final Sampling sampling = Sampling.RANDOM;
+        private final Instant deadline;
+
+        public static class InstanceQueryBuilder {
+
+            /**
+             * Set the deadline to the given amount of time from now.
+             *
+             * @param timeout the maximum time to spend looking up instances
+             * @return this builder
+             */
+            public InstanceQueryBuilder timeout(Duration timeout) {
+                checkArgumentNotNull(timeout, "timeout must not be null");
+                return deadline(Instant.now().plus(timeout));
+            }
+        }
+
+        public boolean hasDeadline() {
+            return nonNull(deadline);
+        }
+
+        /**
+         * @return the time remaining until the deadline, which is negative if the deadline has passed
+         * @throws IllegalStateException if this query has no deadline
+         */
+        public Duration remainingTime() {
+            if (!hasDeadline()) {
+                throw new IllegalStateException("This query has no deadline");
+            }
+
+            return Duration.between(Instant.now(), deadline);
+        }
 
         public boolean hasNoVersionPredicates() {
-            return hasNoMinimumVersion() && hasNoPreferredVersion();
+            return hasNoMinimumVersion()
+                    && hasNoMaximumVersion()
+                    && hasNoExclusiveMaximumVersion()
+                    && hasNoExcludedVersions()
+                    && hasNoLatestVersionCount()
+                    && hasNoPreferredVersion();
         }
 
         public boolean hasNoMinimumVersion() {
             return isBlank(minimumVersion);
         }
 
+        public boolean hasNoMaximumVersion() {
+            return isBlank(maximumVersion);
+        }
+
+        public boolean hasNoExclusiveMaximumVersion() {
+            return isBlank(exclusiveMaximumVersion);
+        }
+
+        public boolean hasNoExcludedVersions() {
+            return isNullOrEmpty(excludedVersions);
+        }
+
+        public boolean hasNoLatestVersionCount() {
+            return isNull(latestVersionCount);
+        }
+
         public boolean hasNoPreferredVersion() {
             return isBlank(preferredVersion);
         }
+
+        public boolean hasNoLimit() {
+            return isNull(limit);
+        }
+
+        public boolean hasNoMetadataPredicates() {
+            return hasNoMetadataValues() && hasNoMetadataKeys() && hasNoTags();
+        }
+
+        public boolean hasNoMetadataValues() {
+            return KiwiMaps.isNullOrEmpty(metadataValues);
+        }
+
+        public boolean hasNoMetadataKeys() {
+            return isNullOrEmpty(metadataKeys);
+        }
+
+        public boolean hasNoTags() {
+            return isNullOrEmpty(tags);
+        }
     }
 
     /**
@@ -68,18 +220,23 @@ public interface RegistryClient {
      * <p>
      * If there are more than one instance, the implementation should decide the order in which the service is returned
      * (e.g. round-robin, random, LIFO, FIFO, etc.)
+     * <p>
+     * The default implementation chooses one of the instances found using the sampling of the query. Unless the query
+     * has a limit, it asks for at most one instance, so that implementations which support limits can choose it
+     * without building the list of every instance.
      *
      * @param query a {@link InstanceQuery} containing the search parameters to find the instance
      * @return an {@link Optional} containing the found service or {@code Optional.empty()}
      */
     default Optional<ServiceInstance> findServiceInstanceBy(InstanceQuery query) {
-        var instances = findAllServiceInstancesBy(query);
+        var instances = findAllServiceInstancesBy(query.hasNoLimit() ? query.toBuilder().limit(1).build() : query);
 
         if (instances.isEmpty()) {
             return Optional.empty();
         }
 
-        return Optional.of(selectRandom(instances));
+        var first = query.getSampling() == InstanceQuery.Sampling.FIRST;
+        return Optional.of(first ? instances.get(0) : selectRandom(instances));
     }
 
     /**
@@ -100,6 +257,26 @@ public interface RegistryClient {
      */
     List<ServiceInstance> findAllServiceInstancesBy(InstanceQuery query);
 
+    /**
+     * Attempts to find all service instances for each of the given {@link InstanceQuery} objects.
+     * <p>
+     * The default implementation performs each query in turn. Implementations should override this when the registry
+     * can answer many queries more efficiently, e.g. using a single request.
+     *
+     * @param queries the queries to perform
+     * @return a map from each query to the instances found for it, in the iteration order of {@code queries}
+     */
+    default Map<InstanceQuery, List<ServiceInstance>> findAllServiceInstancesBy(Collection<InstanceQuery> queries) {
+        checkArgumentNotNull(queries, "The queries cannot be null");
+
+        var results = new LinkedHashMap<InstanceQuery, List<ServiceInstance>>();
+        for (var query : queries) {
+            results.computeIfAbsent(query, this::findAllServiceInstancesBy);
+        }
+
+        return results;
+    }
+
     private static <T> T selectRandom(List<T> items) {
         var index = selectRandomIndex(items);
         return items.get(index);
@@ -115,4 +292,38 @@ public interface RegistryClient {
      * @return a {@link List} containing all registered service instances
      */
     List<ServiceInstance> retrieveAllRegisteredInstances();
+
+    /**
+     * Retrieves all registered service instances from the registry as a stream, so that callers that process each
+     * instance in turn do not need to hold the whole registry in memory.
+     * <p>
+     * The default implementation streams the results of {@link #retrieveAllRegisteredInstances()}. Implementations
+     * should override this when they can convert instances lazily as they are read from the registry.
+     * <p>
+     * The returned stream may hold open resources, such as an HTTP response, so it should be closed after use, e.g.
+     * using try-with-resources.
+     *
+     * @return a {@link Stream} of all registered service instances
+     */
+    default Stream<ServiceInstance> streamAllRegisteredInstances() {
+        return retrieveAllRegisteredInstances().stream();
+    }
+
+    /**
+     * Retrieves a summary of each service in the registry: its instance count, the number of instances having each
+     * status, and the set of versions of its instances.
+     * <p>
+     * The default implementation summarizes the results of {@link #retrieveAllRegisteredInstances()}. Implementations
+     * should override this when the registry can provide the summaries without converting every instance.
+     *
+     * @return a {@link List} containing a summary of each registered service, sorted by service name
+     */
+    default List<ServiceSummary> retrieveServiceSummaries() {
+        var tallies = new TreeMap<String, ServiceSummary.Tally>();
+        for (var instance : retrieveAllRegisteredInstances()) {
+            tallies.computeIfAbsent(instance.getServiceName(), ServiceSummary::tally).add(instance);
+        }
+
+        return tallies.values().stream().map(ServiceSummary.Tally::toSummary).toList();
+    }
 }
@@ -1,27 +1,44 @@
 package org.kiwiproject.registry.client;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 
+import com.google.common.collect.Sets;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
 import org.kiwiproject.base.Versions;
 import org.kiwiproject.registry.model.ServiceInstance;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 /**
- * Utility class that provides version filtering of lists of {@link ServiceInstance} objects.
+ * Utility class that provides version filtering of lists of {@link ServiceInstance} objects, or of any other
+ * representation of service instances.
  * <p>
  * NOTE: For all {@link List} of {@link ServiceInstance} being passed into the utility methods, the assumption is that
  * all instances are for the same service name.
+ * <p>
+ * Versions are compared in the same way as Kiwi's {@link Versions#versionCompare(String, String)}, but each distinct
+ * version string is parsed only once and then cached. Filtering reads the version of each instance only once.
  */
 @Slf4j
 @UtilityClass
 public class ServiceInstanceFilter {
 
     /**
-     * Filter the given service instances using the {@code query}, by minimum and/or preferred versions if specified.
+     * Filter the given service instances using the version predicates of the {@code query}, if any.
      *
      * @param serviceInstances list of service instances to filter
      * @param query            service instance query object
@@ -29,37 +46,215 @@ public class ServiceInstanceFilter {
      */
     public static List<ServiceInstance> filterInstancesByVersion(List<ServiceInstance> serviceInstances,
                                                                  RegistryClient.InstanceQuery query) {
+        return filterByVersion(serviceInstances, ServiceInstance::getVersion, query);
+    }
+
+    /**
+     * Filter the given instances using the version predicates of the {@code query}, if any, in the same way as
+     * {@link #filterInstancesByVersion(List, RegistryClient.InstanceQuery)}.
+     * <p>
+     * The instances can be of any type, e.g. the registry's own representation of an instance, so that registry
+     * clients can filter instances before paying to convert them into {@link ServiceInstance}s.
+     *
+     * @param instances list of instances to filter
+     * @param versionOf function that returns the version of an instance
+     * @param query     service instance query object
+     * @param <T>       the type of instance
+     * @return an immutable list containing instances meeting the version criteria
+     */
+    public static <T> List<T> filterByVersion(List<T> instances,
+                                              Function<T, String> versionOf,
+                                              RegistryClient.InstanceQuery query) {
 
-        if (serviceInstances.isEmpty()) {
+        if (instances.isEmpty()) {
             LOG.trace("No running instances were found for service name {}", query.getServiceName());
             return List.of();
         }
 
         if (query.hasNoVersionPredicates()) {
-            return List.copyOf(serviceInstances);
+            return List.copyOf(instances);
         }
 
-        var instancesSatisfyingMinVersion = serviceInstances.stream()
-                .filter(instance -> query.hasNoMinimumVersion() || versionIsAtLeast(instance, query.getMinimumVersion()))
-                .toList();
+        var predicates = VersionPredicates.of(query);
+
+        // Only needed to find the latest version when no instances match the preferred version
+        var versionKeys = predicates.hasPreferredVersion() ? new VersionKey[instances.size()] : null;
+        VersionKey latestVersion = null;
+
+        // Only needed to keep the latest versions
+        var acceptedVersions = predicates.hasLatestVersionCount() ? new TreeSet<VersionKey>() : null;
+        var matchingVersions = predicates.hasLatestVersionCount() ? new ArrayList<VersionKey>() : null;
+
+        var matchingInstances = new ArrayList<T>();
+        var acceptedCount = 0;
+        var index = 0;
+
+        for (var instance : instances) {
+            var versionKey = VersionKey.ofInstanceVersion(versionOf.apply(instance));
 
-        if (instancesSatisfyingMinVersion.isEmpty()) {
-            LOG.trace("No running instances for service name {} satisfy the minimum version {}",
-                    query.getServiceName(), query.getMinimumVersion());
+            if (nonNull(versionKeys)) {
+                versionKeys[index] = versionKey;
+                if (predicates.isEligibleAsLatest(versionKey)) {
+                    latestVersion = higherOf(latestVersion, versionKey);
+                }
+            }
+            index++;
+
+            if (!predicates.accepts(versionKey)) {
+                continue;
+            }
+
+            acceptedCount++;
+            if (nonNull(acceptedVersions)) {
+                acceptedVersions.add(versionKey);
+            }
+
+            if (predicates.isPreferred(versionKey)) {
+                matchingInstances.add(instance);
+                if (nonNull(matchingVersions)) {
+                    matchingVersions.add(versionKey);
+                }
+            }
+        }
+
+        if (acceptedCount == 0) {
+            LOG.trace("No running instances for service name {} satisfy the version predicates of {}",
+                    query.getServiceName(), query);
             return List.of();
         }
 
-        var instancesSatisfyingPreferredVersion = instancesSatisfyingMinVersion.stream()
-                .filter(instance -> query.hasNoPreferredVersion() || versionIsExactly(instance, query.getPreferredVersion()))
-                .toList();
+        if (nonNull(acceptedVersions)) {
+            var oldestLatestVersion = oldestOfLatest(acceptedVersions, predicates.latestVersionCount());
+            matchingInstances = withVersionAtLeast(matchingInstances, matchingVersions, oldestLatestVersion);
+        }
 
-        if (instancesSatisfyingPreferredVersion.isEmpty()) {
+        if (matchingInstances.isEmpty()) {
             LOG.trace("No running instances for service name {} match preferred version {}; finding latest instead",
                     query.getServiceName(), query.getPreferredVersion());
-            return List.copyOf(findInstancesWithLatestVersion(serviceInstances));
+            return List.copyOf(withVersion(instances, versionKeys, latestVersion));
+        }
+
+        return List.copyOf(matchingInstances);
+    }
+
+    /**
+     * Filter the given service instances using the metadata predicates of the {@code query}, if any.
+     *
+     * @param serviceInstances list of service instances to filter
+     * @param query            service instance query object
+     * @return an immutable list containing instances meeting the metadata criteria
+     */
+    public static List<ServiceInstance> filterInstancesByMetadata(List<ServiceInstance> serviceInstances,
+                                                                  RegistryClient.InstanceQuery query) {
+        return filterByMetadata(serviceInstances, ServiceInstance::getMetadata, query);
+    }
+
+    /**
+     * Filter the given instances using the metadata predicates of the {@code query}, if any, in the same way as
+     * {@link #filterInstancesByMetadata(List, RegistryClient.InstanceQuery)}.
+     *
+     * @param instances  list of instances to filter
+     * @param metadataOf function that returns the metadata of an instance, as it is in its {@link ServiceInstance}
+     * @param query      service instance query object
+     * @param <T>        the type of instance
+     * @return an immutable list containing instances meeting the metadata criteria
+     */
+    public static <T> List<T> filterByMetadata(List<T> instances,
+                                               Function<T, Map<String, String>> metadataOf,
+                                               RegistryClient.InstanceQuery query) {
+
+        if (query.hasNoMetadataPredicates()) {
+            return List.copyOf(instances);
+        }
+
+        var predicates = MetadataPredicates.of(query);
+        return instances.stream()
+                .filter(instance -> predicates.accepts(metadataOf.apply(instance)))
+                .toList();
+    }
+
+    /**
+     * Limit the given instances to the limit of the {@code query}, if any, choosing which of them to keep using the
+     * sampling of the query.
+     * <p>
+     * The instances are not copied, so the cost depends on the limit rather than on the number of instances: random
+     * sampling only allocates the instances it chooses, and choosing the first instances returns a view of them.
+     *
+     * @param instances list of instances to limit, which should not be changed while the result is in use
+     * @param query     service instance query object
+     * @param <T>       the type of instance
+     * @return an unmodifiable list containing at most {@code limit} of the instances
+     */
+    public static <T> List<T> limit(List<T> instances, RegistryClient.InstanceQuery query) {
+        if (query.hasNoLimit()) {
+            return instances;
+        }
+
+        var limit = query.getLimit();
+        checkArgument(limit > 0, "limit must be positive");
+
+        if (instances.size() <= limit) {
+            return instances;
         }
 
-        return List.copyOf(instancesSatisfyingPreferredVersion);
+        if (query.getSampling() == RegistryClient.InstanceQuery.Sampling.FIRST) {
+            return Collections.unmodifiableList(instances.subList(0, limit));
+        }
+
+        return sampleRandomly(instances, limit);
+    }
+
+    /**
+     * Chooses the indexes of the instances using Floyd's algorithm, which picks each distinct set of indexes with
+     * equal probability using only as many random numbers as the limit, then shuffles the chosen instances since the
+     * algorithm does not choose them in a random order.
+     */
+    private static <T> List<T> sampleRandomly(List<T> instances, int limit) {
+        var random = ThreadLocalRandom.current();
+        var size = instances.size();
+        var chosenIndexes = Sets.<Integer>newHashSetWithExpectedSize(limit);
+        var sample = new ArrayList<T>(limit);
+
+        for (var candidate = size - limit; candidate < size; candidate++) {
+            var index = random.nextInt(candidate + 1);
+            if (!chosenIndexes.add(index)) {
+                index = candidate;
+                chosenIndexes.add(index);
+            }
+            sample.add(instances.get(index));
+        }
+
+        Collections.shuffle(sample, random);
+        return Collections.unmodifiableList(sample);
+    }
+
+    /**
+     * Select the instances satisfying the version predicates, metadata predicates, and limit of the {@code query},
+     * converting them to {@link ServiceInstance}s.
+     * <p>
+     * The version predicates are applied before converting the instances. When the query has no metadata predicates,
+     * so is the limit, so only the instances that are found are converted.
+     *
+     * @param instances         list of instances to select from
+     * @param versionOf         function that returns the version of an instance
+     * @param toServiceInstance function that converts an instance to a {@link ServiceInstance}
+     * @param query             service instance query object
+     * @param <T>               the type of instance
+     * @return an immutable list containing the converted instances meeting the criteria
+     */
+    public static <T> List<ServiceInstance> filterAndConvert(List<T> instances,
+                                                             Function<T, String> versionOf,
+                                                             Function<T, ServiceInstance> toServiceInstance,
+                                                             RegistryClient.InstanceQuery query) {
+
+        var instancesWithVersion = filterByVersion(instances, versionOf, query);
+
+        if (query.hasNoMetadataPredicates()) {
+            return limit(instancesWithVersion, query).stream().map(toServiceInstance).toList();
+        }
+
+        var serviceInstances = instancesWithVersion.stream().map(toServiceInstance).toList();
+        return limit(filterInstancesByMetadata(serviceInstances, query), query);
     }
 
     /**
@@ -68,12 +263,16 @@ public class ServiceInstanceFilter {
      * @param instance the service instance to check
      * @param version  the version to compare
      * @return true if the {@code instance} version is equal to or greater than the given {@code version}, else false
-     * @implNote Compares versions using Kiwi's {@link Versions#isHigherOrSameVersion(String, String)}
+     * @implNote Compares versions in the same way as Kiwi's {@link Versions#isHigherOrSameVersion(String, String)}
      */
     public static boolean versionIsAtLeast(ServiceInstance instance, String version) {
-        validateVersions(instance, version);
+        return versionIsAtLeast(instance.getVersion(), version);
+    }
+
+    private static boolean versionIsAtLeast(String instanceVersion, String version) {
+        validateVersions(instanceVersion, version);
 
-        return Versions.isHigherOrSameVersion(instance.getVersion(), version);
+        return VersionKey.of(instanceVersion).compareTo(VersionKey.of(version)) >= 0;
     }
 
     /**
@@ -82,17 +281,21 @@ public class ServiceInstanceFilter {
      * @param instance the service instance to check
      * @param version  the version to compare
      * @return true if the {@code instance} version is equal to the given {@code version}, else false
-     * @implNote Compares versions using Kiwi's {@link Versions#isSameVersion(String, String)}
+     * @implNote Compares versions in the same way as Kiwi's {@link Versions#isSameVersion(String, String)}
      */
     public static boolean versionIsExactly(ServiceInstance instance, String version) {
-        validateVersions(instance, version);
+        return versionIsExactly(instance.getVersion(), version);
+    }
 
-        return Versions.isSameVersion(instance.getVersion(), version);
+    private static boolean versionIsExactly(String instanceVersion, String version) {
+        validateVersions(instanceVersion, version);
+
+        return VersionKey.of(instanceVersion).compareTo(VersionKey.of(version)) == 0;
     }
 
-    private static void validateVersions(ServiceInstance instance, String version) {
+    private static void validateVersions(String instanceVersion, String version) {
         checkArgumentNotBlank(version, "version to compare cannot be blank");
-        checkArgumentNotNull(instance.getVersion(), "instance version cannot be null");
+        checkArgumentNotNull(instanceVersion, "instance version cannot be null");
     }
 
     /**
@@ -101,16 +304,70 @@ public class ServiceInstanceFilter {
      *
      * @param serviceInstances list of service instances to filter
      * @return a list containing service instances having the latest version seen in {@code serviceInstances}
-     * @implNote Compares versions using Kiwi's {@link Versions#versionCompare(String, String)}
+     * @implNote Compares versions in the same way as Kiwi's {@link Versions#versionCompare(String, String)}
      */
     public static List<ServiceInstance> findInstancesWithLatestVersion(List<ServiceInstance> serviceInstances) {
-        var maxVersion = serviceInstances.stream()
-                .map(ServiceInstance::getVersion)
-                .max(Versions::versionCompare)
-                .orElseThrow(IllegalStateException::new);
+        return findWithLatestVersion(serviceInstances, ServiceInstance::getVersion);
+    }
 
-        return serviceInstances.stream()
-                .filter(instance -> versionIsExactly(instance, maxVersion))
-                .toList();
+    private static <T> List<T> findWithLatestVersion(List<T> instances, Function<T, String> versionOf) {
+        var versionKeys = new VersionKey[instances.size()];
+        VersionKey latestVersion = null;
+
+        var index = 0;
+        for (var instance : instances) {
+            var versionKey = VersionKey.ofInstanceVersion(versionOf.apply(instance));
+            versionKeys[index++] = versionKey;
+            latestVersion = higherOf(latestVersion, versionKey);
+        }
+
+        checkState(nonNull(latestVersion), "cannot find the latest version of an empty list of instances");
+
+        return withVersion(instances, versionKeys, latestVersion);
+    }
+
+    /**
+     * Keeps the current latest version unless the candidate is strictly higher, in the same way as
+     * {@link java.util.stream.Stream#max(java.util.Comparator)}, so that the same latest version is chosen.
+     */
+    private static VersionKey higherOf(@Nullable VersionKey latestVersion, VersionKey candidate) {
+        return (isNull(latestVersion) || latestVersion.compareTo(candidate) < 0) ? candidate : latestVersion;
+    }
+
+    private static VersionKey oldestOfLatest(NavigableSet<VersionKey> versions, int latestVersionCount) {
+        var latestVersions = versions.descendingIterator();
+        var oldest = latestVersions.next();
+        for (var i = 1; i < latestVersionCount && latestVersions.hasNext(); i++) {
+            oldest = latestVersions.next();
+        }
+        return oldest;
+    }
+
+    private static <T> ArrayList<T> withVersionAtLeast(List<T> instances,
+                                                       List<VersionKey> versionKeys,
+                                                       VersionKey version) {
+        var instancesWithVersion = new ArrayList<T>(instances.size());
+        for (var i = 0; i < instances.size(); i++) {
+            if (versionKeys.get(i).compareTo(version) >= 0) {
+                instancesWithVersion.add(instances.get(i));
+            }
+        }
+        return instancesWithVersion;
+    }
+
+    /**
+     * Select the instances having the given version, using the version keys already found for them, in order.
+     */
+    private static <T> List<T> withVersion(List<T> instances, VersionKey[] versionKeys, VersionKey version) {
+        var instancesWithVersion = new ArrayList<T>();
+
+        var index = 0;
+        for (var instance : instances) {
+            if (versionKeys[index++].compareTo(version) == 0) {
+                instancesWithVersion.add(instance);
+            }
+        }
+
+        return instancesWithVersion;
     }
 }
@@ -0,0 +1,480 @@
+package org.kiwiproject.registry.client;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An index of the instances of one service, grouped by version and sorted from the oldest to the latest version, so
+ * that instances can be found using the version predicates of an {@link RegistryClient.InstanceQuery} by searching
+ * the versions instead of checking every instance.
+ * <p>
+ * Finding instances gives the same instances as {@link ServiceInstanceFilter#filterByVersion(List, Function,
+ * RegistryClient.InstanceQuery)} gives for the indexed instances, but in order of version, and in the order they were
+ * added for instances of the same version.
+ * <p>
+ * Versions are only searched when they are all numeric, since comparing versions that have non-numeric segments,
+ * e.g. {@code 1.0-SNAPSHOT}, is not transitive, and so they have no order that a search could rely on. When any indexed
+ * version or any version in the query has a non-numeric segment, the instances are filtered instead, and are found in
+ * the order of {@link #all()}.
+ * <p>
+ * When the index is given the metadata of its instances, it can also find instances using the metadata predicates of
+ * a query. The instances are then also indexed by their metadata keys and values, the first time a query has
+ * metadata predicates.
+ * <p>
+ * The index is updated as instances are added and removed. It is not thread-safe, but once it is no longer updated
+ * any number of threads can find instances in it.
+ * <p>
+ * The instances found for each distinct set of predicates are remembered until the instances in the index
+ * next change, so repeating a query returns the same immutable list without searching again. Each change starts a new
+ * {@link #generation() generation} of the index. At most {@value #MAX_MEMOIZED_QUERIES} sets of predicates are
+ * remembered per generation. The limit of a query is applied to the remembered instances each time, without copying
+ * them, so sampling them at random chooses different instances each time.
+ *
+ * @param <T> the type of instance, e.g. {@link ServiceInstance} or the registry's own representation of an instance
+ */
+public class VersionIndex<T> {
+
+    private static final int MAX_MEMOIZED_QUERIES = 100;
+
+    /**
+     * The parts of a query that decide which instances are found. The service name and deadline do not.
+     */
+    private record VersionPredicatesKey(String minimumVersion,
+                                        String maximumVersion,
+                                        String exclusiveMaximumVersion,
+                                        Set<String> excludedVersions,
+                                        Integer latestVersionCount,
+                                        String preferredVersion,
+                                        Map<String, String> metadataValues,
+                                        Set<String> metadataKeys,
+                                        Set<String> tags) {
+
+        static VersionPredicatesKey of(RegistryClient.InstanceQuery query) {
+            return new VersionPredicatesKey(
+                    query.getMinimumVersion(),
+                    query.getMaximumVersion(),
+                    query.getExclusiveMaximumVersion(),
+                    query.getExcludedVersions(),
+                    query.getLatestVersionCount(),
+                    query.getPreferredVersion(),
+                    query.getMetadataValues(),
+                    query.getMetadataKeys(),
+                    query.getTags());
+        }
+    }
+
+    private final Function<T, String> versionOf;
+    private final Function<T, Map<String, String>> metadataOf;
+    private final NavigableMap<VersionKey, List<T>> instancesByVersion;
+    private final List<T> unversionedInstances;
+    private final Map<VersionPredicatesKey, List<T>> memoizedResults;
+    private int size;
+    private int nonNumericVersionCount;
+    private long generation;
+    private volatile MetadataIndex<T> metadataIndex;
+
+    /**
+     * Create an empty index that cannot find instances using metadata predicates.
+     *
+     * @param versionOf function that returns the version of an instance
+     */
+    public VersionIndex(Function<T, String> versionOf) {
+        this(versionOf, null);
+    }
+
+    /**
+     * Create an empty index.
+     *
+     * @param versionOf  function that returns the version of an instance
+     * @param metadataOf function that returns the metadata of an instance, as it is in its {@link ServiceInstance},
+     *                   or null if the index cannot find instances using metadata predicates
+     */
+    public VersionIndex(Function<T, String> versionOf, @Nullable Function<T, Map<String, String>> metadataOf) {
+        checkArgumentNotNull(versionOf, "versionOf must not be null");
+        this.versionOf = versionOf;
+        this.metadataOf = metadataOf;
+        this.instancesByVersion = new TreeMap<>();
+        this.unversionedInstances = new ArrayList<>();
+        this.memoizedResults = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create an index containing the given instances that cannot find instances using metadata predicates.
+     *
+     * @param instances the instances to add
+     * @param versionOf function that returns the version of an instance
+     * @param <T>       the type of instance
+     * @return a new index
+     */
+    public static <T> VersionIndex<T> of(Collection<T> instances, Function<T, String> versionOf) {
+        return of(instances, versionOf, null);
+    }
+
+    /**
+     * Create an index containing the given instances.
+     *
+     * @param instances  the instances to add
+     * @param versionOf  function that returns the version of an instance
+     * @param metadataOf function that returns the metadata of an instance, as it is in its {@link ServiceInstance},
+     *                   or null if the index cannot find instances using metadata predicates
+     * @param <T>        the type of instance
+     * @return a new index
+     */
+    public static <T> VersionIndex<T> of(Collection<T> instances,
+                                         Function<T, String> versionOf,
+                                         @Nullable Function<T, Map<String, String>> metadataOf) {
+        checkArgumentNotNull(instances, "instances must not be null");
+
+        var index = new VersionIndex<>(versionOf, metadataOf);
+        instances.forEach(index::add);
+        return index;
+    }
+
+    /**
+     * Create an index containing the given service instances, indexed by {@link ServiceInstance#getVersion()}, which
+     * can also find them using metadata predicates.
+     *
+     * @param serviceInstances the service instances to add
+     * @return a new index
+     */
+    public static VersionIndex<ServiceInstance> ofServiceInstances(Collection<ServiceInstance> serviceInstances) {
+        return of(serviceInstances, ServiceInstance::getVersion, ServiceInstance::getMetadata);
+    }
+
+    /**
+     * Add an instance to the index. Instances without a version can be added, but an index containing any cannot be
+     * searched using version predicates.
+     *
+     * @param instance the instance to add
+     */
+    public void add(T instance) {
+        checkArgumentNotNull(instance, "instance must not be null");
+
+        var versionKey = versionKeyOrNull(instance);
+        if (isNull(versionKey)) {
+            unversionedInstances.add(instance);
+        } else {
+            instancesByVersion.computeIfAbsent(versionKey, key -> new ArrayList<>()).add(instance);
+            if (!versionKey.isAllNumeric()) {
+                nonNumericVersionCount++;
+            }
+        }
+        if (nonNull(metadataIndex)) {
+            metadataIndex.add(instance);
+        }
+        size++;
+        startNewGeneration();
+    }
+
+    /**
+     * Remove an instance from the index. The instance must have the same version as when it was added.
+     *
+     * @param instance the instance to remove
+     * @return true if the instance was in the index
+     */
+    public boolean remove(T instance) {
+        checkArgumentNotNull(instance, "instance must not be null");
+
+        var versionKey = versionKeyOrNull(instance);
+        if (isNull(versionKey)) {
+            return removeFrom(unversionedInstances, instance);
+        }
+
+        var removed = removeVersioned(versionKey, instance);
+        if (removed && !versionKey.isAllNumeric()) {
+            nonNumericVersionCount--;
+        }
+        return removed;
+    }
+
+    /**
+     * Versions with non-numeric segments may not be in a consistent order, so looking up their version can miss
+     * instances that are in the index. They are then found by checking every version.
+     */
+    private boolean removeVersioned(VersionKey versionKey, T instance) {
+        var instances = instancesByVersion.get(versionKey);
+        if (nonNull(instances) && removeFrom(instances, instance)) {
+            if (instances.isEmpty()) {
+                instancesByVersion.remove(versionKey);
+            }
+            return true;
+        }
+
+        if (nonNumericVersionCount == 0) {
+            return false;
+        }
+
+        for (var iterator = instancesByVersion.entrySet().iterator(); iterator.hasNext(); ) {
+            var entry = iterator.next();
+            if (entry.getKey().compareTo(versionKey) == 0 && removeFrom(entry.getValue(), instance)) {
+                if (entry.getValue().isEmpty()) {
+                    iterator.remove();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the first instance equal to the given one, which need not be the same instance.
+     */
+    private boolean removeFrom(List<T> instances, T instance) {
+        var index = instances.indexOf(instance);
+        if (index < 0) {
+            return false;
+        }
+
+        var removedInstance = instances.remove(index);
+        if (nonNull(metadataIndex)) {
+            metadataIndex.remove(removedInstance);
+        }
+        size--;
+        startNewGeneration();
+        return true;
+    }
+
+    private void startNewGeneration() {
+        generation++;
+        memoizedResults.clear();
+    }
+
+    @Nullable
+    private VersionKey versionKeyOrNull(T instance) {
+        var version = versionOf.apply(instance);
+        return isBlank(version) ? null : VersionKey.of(version);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of times instances have been added to or removed from this index
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * @return all instances, starting with any that have no version, then in order of version
+     */
+    public List<T> all() {
+        var instances = new ArrayList<T>(size);
+        instances.addAll(unversionedInstances);
+        instancesByVersion.values().forEach(instances::addAll);
+        return List.copyOf(instances);
+    }
+
+    /**
+     * Find the instances that satisfy the version and metadata predicates of the query, up to its limit. The service
+     * name of the query is not checked, since an index holds the instances of one service.
+     *
+     * @param query service instance query object
+     * @return an immutable list containing instances meeting the criteria, in order of version unless sampled at
+     *         random
+     * @throws IllegalArgumentException if the query has version predicates and any instance has no version
+     * @throws IllegalStateException    if the query has metadata predicates and this index was not given the metadata
+     *                                  of its instances
+     */
+    public List<T> find(RegistryClient.InstanceQuery query) {
+        checkArgumentNotNull(query, "query must not be null");
+
+        var key = VersionPredicatesKey.of(query);
+        var memoized = memoizedResults.get(key);
+        if (nonNull(memoized)) {
+            return ServiceInstanceFilter.limit(memoized, query);
+        }
+
+        var instances = search(query);
+        if (!query.hasNoMetadataPredicates()) {
+            instances = withMetadata(instances, MetadataPredicates.of(query));
+        }
+
+        if (memoizedResults.size() < MAX_MEMOIZED_QUERIES) {
+            memoizedResults.putIfAbsent(key, instances);
+        }
+        return ServiceInstanceFilter.limit(instances, query);
+    }
+
+    private List<T> search(RegistryClient.InstanceQuery query) {
+        if (isEmpty()) {
+            return List.of();
+        }
+
+        if (query.hasNoVersionPredicates()) {
+            return all();
+        }
+
+        if (!unversionedInstances.isEmpty()) {
+            // Fails in the same way as filtering the instances would
+            VersionKey.ofInstanceVersion(versionOf.apply(unversionedInstances.get(0)));
+        }
+
+        var predicates = VersionPredicates.of(query);
+        if (nonNumericVersionCount > 0 || !allNumeric(predicates)) {
+            return ServiceInstanceFilter.filterByVersion(all(), versionOf, query);
+        }
+
+        var acceptedVersions = acceptedVersions(predicates);
+
+        // The accepted versions, from the latest, leaving out excluded versions and any beyond the latest version count
+        var selectedVersions = new ArrayList<Map.Entry<VersionKey, List<T>>>();
+        for (var entry : acceptedVersions.descendingMap().entrySet()) {
+            if (predicates.isExcluded(entry.getKey())) {
+                continue;
+            }
+
+            selectedVersions.add(entry);
+
+            if (selectedVersions.size() == predicates.latestVersionCount()
+                    || (predicates.hasPreferredVersion() && !predicates.hasLatestVersionCount())) {
+                break;
+            }
+        }
+
+        if (selectedVersions.isEmpty()) {
+            return List.of();
+        }
+
+        if (predicates.hasPreferredVersion()) {
+            return List.copyOf(preferredOrLatest(predicates, acceptedVersions, selectedVersions));
+        }
+
+        var instances = new ArrayList<T>();
+        for (var i = selectedVersions.size() - 1; i >= 0; i--) {
+            instances.addAll(selectedVersions.get(i).getValue());
+        }
+        return List.copyOf(instances);
+    }
+
+    /**
+     * Are the versions the search navigates by all numeric? Excluded versions are only checked for equality, so they
+     * can have non-numeric segments.
+     */
+    private static boolean allNumeric(VersionPredicates predicates) {
+        return Stream.of(predicates.minimumVersion(), predicates.maximumVersion(),
+                        predicates.exclusiveMaximumVersion(), predicates.preferredVersion())
+                .filter(Objects::nonNull)
+                .allMatch(VersionKey::isAllNumeric);
+    }
+
+    private List<T> withMetadata(List<T> instances, MetadataPredicates predicates) {
+        checkState(nonNull(metadataOf), "this index cannot find instances using metadata predicates");
+
+        if (instances.isEmpty()) {
+            return instances;
+        }
+
+        var instancesSatisfyingEach = metadataIndex().instancesSatisfying(predicates);
+        if (instancesSatisfyingEach.get(0).isEmpty()) {
+            return List.of();
+        }
+
+        return instances.stream()
+                .filter(instance -> instancesSatisfyingEach.stream().allMatch(each -> each.contains(instance)))
+                .toList();
+    }
+
+    /**
+     * The metadata index is only built once it is needed. Since finding instances can happen on any number of
+     * threads, it is built while holding a lock.
+     */
+    private MetadataIndex<T> metadataIndex() {
+        var index = metadataIndex;
+        if (nonNull(index)) {
+            return index;
+        }
+
+        synchronized (this) {
+            if (isNull(metadataIndex)) {
+                var newIndex = new MetadataIndex<>(metadataOf);
+                unversionedInstances.forEach(newIndex::add);
+                instancesByVersion.values().forEach(instances -> instances.forEach(newIndex::add));
+                metadataIndex = newIndex;
+            }
+            return metadataIndex;
+        }
+    }
+
+    /**
+     * The versions between the minimum and maximum versions, found using binary searches of the sorted versions.
+     */
+    private NavigableMap<VersionKey, List<T>> acceptedVersions(VersionPredicates predicates) {
+        var lowest = predicates.minimumVersion();
+
+        VersionKey highest = null;
+        var highestInclusive = true;
+        var maximumVersion = predicates.maximumVersion();
+        var exclusiveMaximumVersion = predicates.exclusiveMaximumVersion();
+        if (nonNull(exclusiveMaximumVersion)
+                && (isNull(maximumVersion) || exclusiveMaximumVersion.compareTo(maximumVersion) <= 0)) {
+            highest = exclusiveMaximumVersion;
+            highestInclusive = false;
+        } else if (nonNull(maximumVersion)) {
+            highest = maximumVersion;
+        }
+
+        if (isNull(highest)) {
+            return isNull(lowest) ? instancesByVersion : instancesByVersion.tailMap(lowest, true);
+        }
+
+        if (isNull(lowest)) {
+            return instancesByVersion.headMap(highest, highestInclusive);
+        }
+
+        if (lowest.compareTo(highest) > 0) {
+            return Collections.emptyNavigableMap();
+        }
+
+        return instancesByVersion.subMap(lowest, true, highest, highestInclusive);
+    }
+
+    /**
+     * When only the latest versions are selected, the preferred version must be one of them. Otherwise, the search
+     * for selected versions stops at the latest version, and the preferred version is looked up directly.
+     */
+    private List<T> preferredOrLatest(VersionPredicates predicates,
+                                      NavigableMap<VersionKey, List<T>> acceptedVersions,
+                                      List<Map.Entry<VersionKey, List<T>>> selectedVersions) {
+        var preferredVersion = predicates.preferredVersion();
+
+        if (predicates.hasLatestVersionCount()) {
+            for (var entry : selectedVersions) {
+                if (entry.getKey().compareTo(preferredVersion) == 0) {
+                    return entry.getValue();
+                }
+            }
+        } else if (!predicates.isExcluded(preferredVersion)) {
+            var preferredInstances = acceptedVersions.get(preferredVersion);
+            if (nonNull(preferredInstances)) {
+                return preferredInstances;
+            }
+        }
+
+        return selectedVersions.get(0).getValue();
+    }
+}
@@ -0,0 +1,126 @@
+package org.kiwiproject.registry.client;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps a {@link VersionIndex} of the instances of each service, for registry clients that fetch all instances of a
+ * service on every lookup, so that they can still search an index, and repeated queries reuse the instances it
+ * remembers finding.
+ * <p>
+ * Each index is kept along with the revision of every instance in it, i.e. a value that the registry changes
+ * whenever the instance changes, such as its Consul {@code ModifyIndex} or Eureka {@code lastDirtyTimestamp}, together
+ * with the instance's identity. A lookup that finds the same set of revisions reuses the index; otherwise a new index
+ * is built for the instances it found. An index is never updated once it is built, so it can be shared by concurrent
+ * lookups. An instance without a revision cannot be told apart from a changed one, so the instances of a lookup that
+ * includes any such instance are indexed without caching the index.
+ * <p>
+ * The indexes of services that are not looked up for {@value #EXPIRE_AFTER_ACCESS_MINUTES} minutes are dropped.
+ *
+ * @param <T> the type of instance, e.g. the registry's own representation of an instance
+ */
+public class VersionIndexCache<T> {
+
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+
+    private record CachedIndex<T>(Set<Object> revisions, VersionIndex<T> index) {
+    }
+
+    private final Function<T, String> versionOf;
+    private final Function<T, Map<String, String>> metadataOf;
+    private final Function<T, @Nullable Object> revisionOf;
+    private final Cache<String, CachedIndex<T>> cache;
+
+    /**
+     * Create an empty cache.
+     *
+     * @param versionOf  function that returns the version of an instance
+     * @param metadataOf function that returns the metadata of an instance, as it is in its
+     *                   {@link org.kiwiproject.registry.model.ServiceInstance ServiceInstance}
+     * @param revisionOf function that returns a value which is equal for two instances only if they are the same
+     *                   instance and it has not changed, or null if the instance has no revision
+     */
+    public VersionIndexCache(Function<T, String> versionOf,
+                             Function<T, Map<String, String>> metadataOf,
+                             Function<T, @Nullable Object> revisionOf) {
+        this(versionOf, metadataOf, revisionOf, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    VersionIndexCache(Function<T, String> versionOf,
+                      Function<T, Map<String, String>> metadataOf,
+                      Function<T, @Nullable Object> revisionOf,
+                      Ticker ticker) {
+        checkArgumentNotNull(versionOf, "versionOf must not be null");
+        checkArgumentNotNull(metadataOf, "metadataOf must not be null");
+        checkArgumentNotNull(revisionOf, "revisionOf must not be null");
+
+        this.versionOf = versionOf;
+        this.metadataOf = metadataOf;
+        this.revisionOf = revisionOf;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Get an index of the given instances of a service, reusing the index of its previous lookup if none of its
+     * instances have been added, removed, or changed since.
+     *
+     * @param serviceKey the key of the service, e.g. its name or normalized VIP address
+     * @param instances  all current instances of the service
+     * @return an index of the instances, which must not be updated
+     */
+    public VersionIndex<T> indexFor(String serviceKey, List<T> instances) {
+        checkArgumentNotNull(serviceKey, "serviceKey must not be null");
+        checkArgumentNotNull(instances, "instances must not be null");
+
+        var revisions = revisionsOrNull(instances);
+        if (isNull(revisions)) {
+            return VersionIndex.of(instances, versionOf, metadataOf);
+        }
+
+        var cached = cache.getIfPresent(serviceKey);
+        if (nonNull(cached) && cached.revisions().equals(revisions)) {
+            return cached.index();
+        }
+
+        var index = VersionIndex.of(instances, versionOf, metadataOf);
+        cache.put(serviceKey, new CachedIndex<>(revisions, index));
+        return index;
+    }
+
+    @Nullable
+    private Set<Object> revisionsOrNull(List<T> instances) {
+        var revisions = Sets.newHashSetWithExpectedSize(instances.size());
+        for (var instance : instances) {
+            var revision = revisionOf.apply(instance);
+            if (isNull(revision)) {
+                return null;
+            }
+            revisions.add(revision);
+        }
+        return revisions;
+    }
+
+    @VisibleForTesting
+    long size() {
+        cache.cleanUp();
+        return cache.size();
+    }
+}
@@ -0,0 +1,151 @@
+package org.kiwiproject.registry.client;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.apache.commons.lang3.StringUtils;
+import org.kiwiproject.base.Versions;
+
+/**
+ * A version string that has been parsed once into the segments that {@link Versions#versionCompare(String, String)}
+ * compares, so that it can be compared with other versions many times without being parsed again.
+ * <p>
+ * Keys are cached per distinct version string, since the instances of a service usually run only a few distinct
+ * versions. The cache holds at most {@value #MAX_CACHED_VERSIONS} versions.
+ * <p>
+ * Comparing keys gives the same result as {@link Versions#versionCompare(String, String)} gives for their version
+ * strings, including its quirks, e.g. that {@code 1.0} and {@code 1-0} compare as the same version. As with
+ * {@link Versions#versionCompare(String, String)}, numeric segments that are too large for an {@code int} cause a
+ * {@link NumberFormatException}, but only when the comparison reaches them.
+ */
+final class VersionKey implements Comparable<VersionKey> {
+
+    private static final int MAX_CACHED_VERSIONS = 10_000;
+
+    private static final LoadingCache<String, VersionKey> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_VERSIONS)
+            .build(CacheLoader.from(VersionKey::new));
+
+    private final String version;
+    private final String[] segments;
+    private final boolean[] numeric;
+    private final int[] numericValues;
+    private final boolean[] overflows;
+    private final boolean allNumeric;
+
+    @VisibleForTesting
+    VersionKey(String version) {
+        this.version = version;
+        this.segments = version.toLowerCase().split("[.-]");
+        this.numeric = new boolean[segments.length];
+        this.numericValues = new int[segments.length];
+        this.overflows = new boolean[segments.length];
+
+        var allSegmentsNumeric = true;
+        for (var i = 0; i < segments.length; i++) {
+            numeric[i] = StringUtils.isNumeric(segments[i]);
+            allSegmentsNumeric &= numeric[i];
+
+            if (numeric[i]) {
+                try {
+                    numericValues[i] = Integer.parseInt(segments[i]);
+                } catch (NumberFormatException e) {
+                    overflows[i] = true;
+                }
+            }
+        }
+        this.allNumeric = allSegmentsNumeric;
+    }
+
+    /**
+     * Get the key for the given version, parsing the version only if it is not already cached.
+     *
+     * @param version the version
+     * @return the key for the version
+     * @throws IllegalArgumentException if the version is blank
+     */
+    static VersionKey of(String version) {
+        checkArgumentNotBlank(version, "version cannot be blank");
+        return CACHE.getUnchecked(version);
+    }
+
+    /**
+     * Get the key for the version of an instance, in the same way as {@link #of(String)}.
+     *
+     * @param instanceVersion the version of the instance
+     * @return the key for the version
+     * @throws IllegalArgumentException if the version is null or blank
+     */
+    static VersionKey ofInstanceVersion(String instanceVersion) {
+        checkArgumentNotNull(instanceVersion, "instance version cannot be null");
+        return of(instanceVersion);
+    }
+
+    /**
+     * Compare this version with another, in the same way as {@link Versions#versionCompare(String, String)}.
+     *
+     * @param other the version to compare with
+     * @return a negative number, zero, or a positive number as this version is lower than, the same as, or higher
+     * than the other version
+     */
+    @Override
+    public int compareTo(VersionKey other) {
+        if (this == other || version.equals(other.version)) {
+            return 0;
+        }
+
+        var index = indexOfFirstUnequalSegment(other);
+
+        if (index < segments.length && index < other.segments.length) {
+            return compareSegment(index, other);
+        }
+
+        if (allNumeric && other.allNumeric) {
+            return Integer.signum(segments.length - other.segments.length);
+        }
+
+        return Integer.signum(other.segments.length - segments.length);
+    }
+
+    private int indexOfFirstUnequalSegment(VersionKey other) {
+        var index = 0;
+        while (index < segments.length && index < other.segments.length
+                && segments[index].equals(other.segments[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    private int compareSegment(int index, VersionKey other) {
+        if (numeric[index] && other.numeric[index]) {
+            if (overflows[index] || other.overflows[index]) {
+                return Integer.signum(
+                        Integer.valueOf(segments[index]).compareTo(Integer.valueOf(other.segments[index])));
+            }
+
+            return Integer.compare(numericValues[index], other.numericValues[index]);
+        }
+
+        return Integer.compare(segments[index].compareTo(other.segments[index]), 0);
+    }
+
+    /**
+     * Keys whose segments are all numeric are in a total order. Comparing keys that have a non-numeric segment is not
+     * transitive, e.g. {@code 1.0} is higher than {@code 1.0-snapshot}, which is higher than {@code 1.0.1}, but
+     * {@code 1.0} is lower than {@code 1.0.1}.
+     *
+     * @return true if every segment of this version is numeric
+     */
+    boolean isAllNumeric() {
+        return allNumeric;
+    }
+
+    @Override
+    public String toString() {
+        return version;
+    }
+}
@@ -0,0 +1,84 @@
+package org.kiwiproject.registry.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * The version predicates of an {@link RegistryClient.InstanceQuery}, with each version parsed into a
+ * {@link VersionKey}, so that {@link ServiceInstanceFilter} and {@link VersionIndex} apply them in the same way.
+ *
+ * @param latestVersionCount the number of latest versions to keep, or zero to keep all of them
+ */
+record VersionPredicates(@Nullable VersionKey minimumVersion,
+                         @Nullable VersionKey maximumVersion,
+                         @Nullable VersionKey exclusiveMaximumVersion,
+                         List<VersionKey> excludedVersions,
+                         int latestVersionCount,
+                         @Nullable VersionKey preferredVersion) {
+
+    static VersionPredicates of(RegistryClient.InstanceQuery query) {
+        var latestVersionCount = query.hasNoLatestVersionCount() ? 0 : query.getLatestVersionCount();
+        checkArgument(query.hasNoLatestVersionCount() || latestVersionCount > 0,
+                "latestVersionCount must be positive");
+
+        return new VersionPredicates(
+                versionKeyOrNull(query.hasNoMinimumVersion(), query.getMinimumVersion()),
+                versionKeyOrNull(query.hasNoMaximumVersion(), query.getMaximumVersion()),
+                versionKeyOrNull(query.hasNoExclusiveMaximumVersion(), query.getExclusiveMaximumVersion()),
+                query.hasNoExcludedVersions()
+                        ? List.of() : query.getExcludedVersions().stream().map(VersionKey::of).toList(),
+                latestVersionCount,
+                versionKeyOrNull(query.hasNoPreferredVersion(), query.getPreferredVersion()));
+    }
+
+    private static VersionKey versionKeyOrNull(boolean absent, String version) {
+        return absent ? null : VersionKey.of(version);
+    }
+
+    boolean hasLatestVersionCount() {
+        return latestVersionCount > 0;
+    }
+
+    boolean hasPreferredVersion() {
+        return nonNull(preferredVersion);
+    }
+
+    /**
+     * Does the version satisfy the minimum and maximum versions, and is it not excluded?
+     */
+    boolean accepts(VersionKey version) {
+        return (isNull(minimumVersion) || version.compareTo(minimumVersion) >= 0) && isEligibleAsLatest(version);
+    }
+
+    /**
+     * Can the version be the latest version, which is used when no instances run the preferred version? As before
+     * there were other predicates, the minimum version is not checked: when any instance satisfies the minimum
+     * version, so does the latest version.
+     */
+    boolean isEligibleAsLatest(VersionKey version) {
+        return (isNull(maximumVersion) || version.compareTo(maximumVersion) <= 0)
+                && (isNull(exclusiveMaximumVersion) || version.compareTo(exclusiveMaximumVersion) < 0)
+                && !isExcluded(version);
+    }
+
+    boolean isExcluded(VersionKey version) {
+        for (var excludedVersion : excludedVersions) {
+            if (version.compareTo(excludedVersion) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Is the version the preferred version? Every version is when there is no preferred version.
+     */
+    boolean isPreferred(VersionKey version) {
+        return isNull(preferredVersion) || version.compareTo(preferredVersion) == 0;
+    }
+}
@@ -0,0 +1,57 @@
+package org.kiwiproject.registry.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Client-side limits on calls to the service registry. Lookups and registration calls (which include heartbeats) are
+ * limited separately, so that a flood of lookups can never delay registration or heartbeats.
+ * <p>
+ * All limits default to zero, which means unlimited.
+ * <p>
+ * The concurrency limits count calls until the registry starts answering. For Eureka, whose calls return an HTTP
+ * response, that means sending the request and receiving the response headers; reading the response body, e.g. the
+ * instances of a full fetch, is not counted.
+ *
+ * @see org.kiwiproject.registry.util.RegistryCallLimiter
+ */
+@Getter
+@Setter
+public class RegistryCallLimitsConfig {
+
+    public static final int DEFAULT_MAX_WAIT_MILLIS = 500;
+
+    /**
+     * The maximum number of lookups that can be in progress at once, not counting the reading of Eureka response
+     * bodies.
+     */
+    @Min(0)
+    private int maxConcurrentLookups;
+
+    /**
+     * The maximum number of lookups that can be started per second.
+     */
+    @Min(0)
+    private int maxLookupsPerSecond;
+
+    /**
+     * The maximum number of registration, status update, unregistration, and heartbeat calls that can be in progress
+     * at once.
+     */
+    @Min(0)
+    private int maxConcurrentRegistrationCalls;
+
+    /**
+     * The maximum number of registration, status update, unregistration, and heartbeat calls that can be started per
+     * second.
+     */
+    @Min(0)
+    private int maxRegistrationCallsPerSecond;
+
+    /**
+     * How long a call waits for a limit to permit it before it is rejected (in milliseconds).
+     */
+    @Min(0)
+    private int maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+}
@@ -0,0 +1,92 @@
+package org.kiwiproject.registry.consul.client;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.kiwiproject.consul.model.catalog.CatalogService;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches the {@link ServiceInstance} converted from each Consul catalog entry, keyed by the node and service ID of
+ * the entry, along with the entry's {@code ModifyIndex}.
+ * <p>
+ * Consul increments the {@code ModifyIndex} of a catalog entry whenever the entry changes, so an entry whose index
+ * matches the cached one is unchanged and the previously converted (immutable) instance is returned as-is. Repeated
+ * lookups therefore only convert the entries that changed, and return identical objects for the rest.
+ * <p>
+ * Entries of a service that are no longer in the catalog are dropped whenever all entries of the service are looked
+ * up, so the cache only holds instances that were registered at the most recent lookup of their service.
+ */
+class ConsulInstanceCache {
+
+    private record InstanceKey(String node, String serviceId) {
+    }
+
+    private record CachedInstance(long modifyIndex, ServiceInstance instance) {
+    }
+
+    private final Map<String, Map<InstanceKey, CachedInstance>> instancesByServiceName = new ConcurrentHashMap<>();
+
+    /**
+     * Get the instance converted from the given catalog entry, converting it only if it has not been converted before
+     * or has changed since. Entries without a {@code ModifyIndex} are always converted, and are not cached.
+     *
+     * @param catalogService the catalog entry
+     * @param converter      converts a catalog entry to an immutable {@link ServiceInstance}
+     * @return the converted instance
+     */
+    ServiceInstance instanceFor(CatalogService catalogService, Function<CatalogService, ServiceInstance> converter) {
+        var modifyIndex = catalogService.getModifyIndex().orElse(null);
+        if (isNull(modifyIndex)) {
+            return converter.apply(catalogService);
+        }
+
+        var cachedInstances = instancesByServiceName.computeIfAbsent(catalogService.getServiceName(),
+                serviceName -> new ConcurrentHashMap<>());
+        var key = keyOf(catalogService);
+
+        var cached = cachedInstances.get(key);
+        if (nonNull(cached) && cached.modifyIndex() == modifyIndex) {
+            return cached.instance();
+        }
+
+        var instance = converter.apply(catalogService);
+        cachedInstances.put(key, new CachedInstance(modifyIndex, instance));
+        return instance;
+    }
+
+    /**
+     * Drop the cached instances of a service that are not among its current catalog entries.
+     *
+     * @param serviceName    the name of the service
+     * @param catalogServices all current catalog entries of the service
+     */
+    void retainOnly(String serviceName, List<CatalogService> catalogServices) {
+        if (catalogServices.isEmpty()) {
+            instancesByServiceName.remove(serviceName);
+            return;
+        }
+
+        var cachedInstances = instancesByServiceName.get(serviceName);
+        if (nonNull(cachedInstances)) {
+            var currentKeys = catalogServices.stream().map(ConsulInstanceCache::keyOf).collect(toSet());
+            cachedInstances.keySet().retainAll(currentKeys);
+        }
+    }
+
+    private static InstanceKey keyOf(CatalogService catalogService) {
+        return new InstanceKey(catalogService.getNode(), catalogService.getServiceId());
+    }
+
+    @VisibleForTesting
+    int size() {
+        return instancesByServiceName.values().stream().mapToInt(Map::size).sum();
+    }
+}
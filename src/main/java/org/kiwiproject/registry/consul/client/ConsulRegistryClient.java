@@ -1,88 +1,369 @@
 package org.kiwiproject.registry.consul.client;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
-import static org.kiwiproject.collect.KiwiLists.isNotNullOrEmpty;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import org.jspecify.annotations.Nullable;
 import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.model.catalog.CatalogService;
 import org.kiwiproject.json.JsonHelper;
 import org.kiwiproject.registry.client.RegistryClient;
-import org.kiwiproject.registry.client.ServiceInstanceFilter;
+import org.kiwiproject.registry.client.VersionIndexCache;
 import org.kiwiproject.registry.consul.config.ConsulConfig;
+import org.kiwiproject.registry.model.LazyNativeRegistryData;
 import org.kiwiproject.registry.model.Port;
 import org.kiwiproject.registry.model.Port.PortType;
 import org.kiwiproject.registry.model.Port.Security;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.model.ServicePaths;
+import org.kiwiproject.registry.model.ServiceSummary;
+import org.kiwiproject.registry.util.CompactServiceInstances;
+import org.kiwiproject.registry.util.RegistryCallLimiter;
+import org.kiwiproject.registry.util.RegistryCallLimiter.Lane;
 
+import java.io.Closeable;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-public class ConsulRegistryClient implements RegistryClient {
+/**
+ * A {@link RegistryClient} that looks up service instances in the Consul catalog.
+ * <p>
+ * Batch lookups and service summaries look up services on a pool of at most
+ * {@value #MAX_CONCURRENT_BATCH_LOOKUPS} threads that is shared by all calls to the client, and which idle threads
+ * leave after a minute. Once the client is closed, those lookups run on the calling thread instead.
+ * <p>
+ * The client does not retry calls to Consul, so the timeouts of the given {@link Consul} instance bound how long a
+ * call can take. Build it using {@link ConsulConfig#applyTimeoutsTo(Consul.Builder)} to use the configured timeouts.
+ * A query with a deadline is additionally bounded by that deadline.
+ */
+public class ConsulRegistryClient implements RegistryClient, Closeable {
 
     private static final String ADMIN_PORT_FIELD = "adminPort";
     private static final String SERVICE_UP_TIMESTAMP_FIELD = "serviceUpTimestamp";
-    private static final List<String> METADATA_EXCLUDED_KEYS = List.of("commitRef", "description", "version", "homePagePath", "healthCheckPath", "statusPath",
+    private static final String VERSION_FIELD = "version";
+    private static final Set<String> METADATA_EXCLUDED_KEYS = Set.of("commitRef", "description", VERSION_FIELD, "homePagePath", "healthCheckPath", "statusPath",
             "scheme", ADMIN_PORT_FIELD, "ipAddress");
 
     private static final Set<String> TAGS_EXCLUDED = Set.of("service-type:default");
     private static final JsonHelper JSON_HELPER = new JsonHelper();
+    private static final int MAX_CONCURRENT_BATCH_LOOKUPS = 8;
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
 
     private final Consul consul;
     private final ConsulConfig config;
+    private final RegistryCallLimiter limiter;
+    private final ConsulInstanceCache instanceCache;
+    private final VersionIndexCache<CatalogService> versionIndexCache;
+    private final ExecutorService lookupExecutor;
 
+    /**
+     * Create a client that looks up service instances using the given {@link Consul} instance, which should have been
+     * built with the timeouts in the given configuration, i.e. using {@link ConsulConfig#applyTimeoutsTo}.
+     *
+     * @param consul the Consul instance to use
+     * @param config the Consul configuration
+     */
     public ConsulRegistryClient(Consul consul, ConsulConfig config) {
+        this(consul, config, newLookupExecutor());
+    }
+
+    @VisibleForTesting
+    ConsulRegistryClient(Consul consul, ConsulConfig config, ExecutorService lookupExecutor) {
         this.config = requireNotNull(config);
         this.consul = requireNotNull(consul);
+        this.limiter = new RegistryCallLimiter(config.getCallLimits());
+        this.instanceCache = new ConsulInstanceCache();
+        this.versionIndexCache = new VersionIndexCache<>(ConsulRegistryClient::versionOf, this::metadataOf,
+                ConsulRegistryClient::revisionOf);
+        this.lookupExecutor = requireNotNull(lookupExecutor);
+    }
+
+    /**
+     * Lookups from concurrent batches queue for the same threads, so the client never has more than
+     * {@value #MAX_CONCURRENT_BATCH_LOOKUPS} batch lookups in progress at a time.
+     */
+    private static ExecutorService newLookupExecutor() {
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("consul-batch-lookup-%d")
+                .setDaemon(true)
+                .build();
+
+        var executor = new ThreadPoolExecutor(MAX_CONCURRENT_BATCH_LOOKUPS, MAX_CONCURRENT_BATCH_LOOKUPS,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
     public Optional<ServiceInstance> findServiceInstanceBy(String serviceName, String instanceId) {
         checkArgumentNotBlank(instanceId, "The instance ID cannot be blank");
+        checkArgumentNotBlank(serviceName, "The service name cannot be blank");
 
-        var instances = findAllServiceInstancesBy(serviceName);
-
-        return instances.stream()
-                .filter(instance -> instance.getInstanceId().equals(instanceId))
-                .findFirst();
+        return findCatalogServices(serviceName).stream()
+                .filter(catalogService -> instanceId.equals(catalogService.getServiceId()))
+                .findFirst()
+                .map(this::toServiceInstance);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The version predicates are evaluated against the version in each catalog entry's service metadata, so only the
+     * matching entries are converted to {@link ServiceInstance}s. The metadata predicates are evaluated against the
+     * metadata of the converted instances, which includes the service tags. The limit is applied before converting
+     * the entries.
+     * <p>
+     * The catalog entries of each service are indexed by version, and the index is kept until any of the entries
+     * change, so repeated queries reuse the instances found for them. The instances are found in order of version.
+     * <p>
+     * If the query has a deadline, the lookup fails with an {@link UncheckedTimeoutException} when the deadline passes
+     * before Consul answers. The call to Consul is then cancelled.
+     */
     @Override
     public List<ServiceInstance> findAllServiceInstancesBy(InstanceQuery query) {
         checkArgumentNotNull(query, "The query cannot be null");
         checkArgumentNotBlank(query.getServiceName(), "The service name cannot be blank");
 
-        var services = consul.catalogClient().getService(query.getServiceName()).getResponse();
-        var convertedServices = services.stream().map(this::fromCatalogService).toList();
+        var catalogServices = query.hasDeadline()
+                ? findCatalogServicesBefore(query.getServiceName(), query.getDeadline())
+                : findCatalogServices(query.getServiceName());
+
+        return findAndConvert(catalogServices, query);
+    }
+
+    private List<ServiceInstance> findAndConvert(List<CatalogService> catalogServices, InstanceQuery query) {
+        return versionIndexCache.indexFor(query.getServiceName(), catalogServices).find(query).stream()
+                .map(this::toServiceInstance)
+                .toList();
+    }
+
+    /**
+     * Since this returns every catalog entry of the service, cached instances of entries that have been deregistered
+     * are dropped here.
+     */
+    private List<CatalogService> findCatalogServices(String serviceName) {
+        var catalogServices = limiter.call(Lane.LOOKUP,
+                () -> consul.catalogClient().getService(serviceName).getResponse());
+
+        instanceCache.retainOnly(serviceName, catalogServices);
+        return catalogServices;
+    }
+
+    private List<CatalogService> findCatalogServicesBefore(String serviceName, Instant deadline) {
+        var description = "lookup of " + serviceName;
+        checkDeadline(description, deadline);
+
+        return await(submit(() -> findCatalogServices(serviceName)), deadline, description);
+    }
+
+    private static void checkDeadline(String description, Instant deadline) {
+        if (!Instant.now().isBefore(deadline)) {
+            throw new UncheckedTimeoutException("Deadline passed before " + description + " could complete");
+        }
+    }
+
+    private List<ServiceInstance> findAllServiceInstances(String serviceName) {
+        return findCatalogServices(serviceName).stream().map(this::toServiceInstance).toList();
+    }
+
+    private static String versionOf(CatalogService catalogService) {
+        return catalogService.getServiceMeta().get(VERSION_FIELD);
+    }
+
+    private Map<String, String> metadataOf(CatalogService catalogService) {
+        return toServiceInstance(catalogService).getMetadata();
+    }
+
+    /**
+     * Consul increments the {@code ModifyIndex} of a catalog entry whenever the entry changes.
+     */
+    @Nullable
+    private static Object revisionOf(CatalogService catalogService) {
+        return catalogService.getModifyIndex()
+                .map(modifyIndex -> new EntryRevision(catalogService.getNode(), catalogService.getServiceId(),
+                        modifyIndex))
+                .orElse(null);
+    }
+
+    private record EntryRevision(String node, String serviceId, long modifyIndex) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each distinct service name is looked up once, with up to {@value #MAX_CONCURRENT_BATCH_LOOKUPS} lookups in
+     * progress at a time, and then each query's predicates are applied to the kept index of the catalog entries of its
+     * service before they are converted. If any query has a deadline, the earliest deadline applies to all the lookups.
+     */
+    @Override
+    public Map<InstanceQuery, List<ServiceInstance>> findAllServiceInstancesBy(Collection<InstanceQuery> queries) {
+        checkArgumentNotNull(queries, "The queries cannot be null");
+        queries.forEach(query -> {
+            checkArgumentNotNull(query, "The query cannot be null");
+            checkArgumentNotBlank(query.getServiceName(), "The service name cannot be blank");
+        });
+
+        var serviceNames = queries.stream()
+                .map(InstanceQuery::getServiceName)
+                .collect(toCollection(LinkedHashSet::new));
+
+        var deadline = queries.stream()
+                .map(InstanceQuery::getDeadline)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
 
-        return ServiceInstanceFilter.filterInstancesByVersion(convertedServices, query);
+        var catalogServicesByServiceName = lookUpConcurrently(serviceNames, this::findCatalogServices, deadline);
+
+        var results = new LinkedHashMap<InstanceQuery, List<ServiceInstance>>();
+        for (var query : queries) {
+            results.computeIfAbsent(query, theQuery ->
+                    findAndConvert(catalogServicesByServiceName.get(theQuery.getServiceName()), theQuery));
+        }
+
+        return results;
     }
 
-    private ServiceInstance fromCatalogService(CatalogService catalogService) {
+    private <T> Map<String, T> lookUpConcurrently(Set<String> serviceNames,
+                                                  Function<String, T> lookup,
+                                                  @Nullable Instant deadline) {
+        if (isNull(deadline) && serviceNames.size() <= 1) {
+            return serviceNames.stream().collect(toMap(identity(), lookup));
+        }
+
+        var description = "lookup of " + serviceNames.size() + " services";
+        if (nonNull(deadline)) {
+            checkDeadline(description, deadline);
+        }
+
+        var futures = serviceNames.stream()
+                .collect(toMap(identity(), serviceName -> submit(() -> lookup.apply(serviceName))));
+
+        try {
+            var resultsByServiceName = new HashMap<String, T>();
+            futures.forEach((serviceName, future) ->
+                    resultsByServiceName.put(serviceName, await(future, deadline, description)));
+            return resultsByServiceName;
+        } catch (RuntimeException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Once the client is closed, the executor rejects lookups, and they run on the calling thread instead.
+     */
+    private <T> Future<T> submit(Supplier<T> supplier) {
+        try {
+            return lookupExecutor.submit(supplier::get);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(supplier.get());
+        }
+    }
+
+    /**
+     * Wait for the lookup to complete, but no later than the deadline, if there is one. A lookup that is still in
+     * progress at the deadline is cancelled, which interrupts its call to Consul.
+     */
+    private static <T> T await(Future<T> future, @Nullable Instant deadline, String description) {
+        try {
+            if (isNull(deadline)) {
+                return future.get();
+            }
+
+            var remainingMillis = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+            return future.get(remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new UncheckedTimeoutException("Deadline passed before " + description + " could complete", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + description, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Unchanged catalog entries reuse the instance converted from them by an earlier lookup, so queries for the same
+     * service share conversions of the entries that match more than one of them, as do repeated lookups.
+     */
+    private ServiceInstance toServiceInstance(CatalogService catalogService) {
+        return instanceCache.instanceFor(catalogService,
+                entry -> compactIfEnabled(fromCatalogService(entry)));
+    }
+
+    private ServiceInstance compactIfEnabled(ServiceInstance instance) {
+        return config.isCompactInstances() ? CompactServiceInstances.compact(instance) : instance;
+    }
+
+    /**
+     * The converted instance may be shared by many callers via the {@link ConsulInstanceCache}, so its ports and
+     * metadata are unmodifiable.
+     */
+    @VisibleForTesting
+    ServiceInstance fromCatalogService(CatalogService catalogService) {
         var metadata = catalogService.getServiceMeta();
         var scheme = metadata.get("scheme");
 
-        var ports = new ArrayList<Port>();
-        var port = Port.of(catalogService.getServicePort(), PortType.APPLICATION, Security.fromScheme(scheme));
-        ports.add(port);
+        var security = Security.fromScheme(scheme);
+        var port = Port.of(catalogService.getServicePort(), PortType.APPLICATION, security);
 
+        List<Port> ports;
         if (isNotBlank(metadata.get(ADMIN_PORT_FIELD))) {
             var adminPortNumber = getAdminPortNumberOrThrow(metadata);
-            var adminPort = Port.of(adminPortNumber, PortType.ADMIN, Security.fromScheme(scheme));
-            ports.add(adminPort);
+            ports = List.of(port, Port.of(adminPortNumber, PortType.ADMIN, security));
+        } else {
+            ports = List.of(port);
         }
 
-        var serviceMetadata = filterMetadata(metadata);
-        addTagsToMetadata(serviceMetadata, catalogService.getServiceTags());
+        var tags = catalogService.getServiceTags();
+        var serviceMetadata = Maps.<String, String>newHashMapWithExpectedSize(metadata.size() + tags.size() + 1);
+        addFilteredMetadata(serviceMetadata, metadata);
+        addTagsToMetadata(serviceMetadata, tags);
         serviceMetadata.put("registryType", "CONSUL");
 
         var upSince = metadata.containsKey(SERVICE_UP_TIMESTAMP_FIELD)
@@ -100,15 +381,16 @@ public class ConsulRegistryClient implements RegistryClient {
                         .build())
                 .commitRef(metadata.get("commitRef"))
                 .description(metadata.get("description"))
-                .version(metadata.get("version"))
+                .version(metadata.get(VERSION_FIELD))
                 .status(ServiceInstance.Status.UP)
                 .ip(metadata.get("ipAddress"))
-                .metadata(serviceMetadata)
+                .metadata(Collections.unmodifiableMap(serviceMetadata))
                 .upSince(upSince)
                 .build();
 
         if (config.isIncludeNativeData()) {
-            return instance.withNativeRegistryData(JSON_HELPER.convertToMap(catalogService));
+            return instance.withNativeRegistryData(
+                    LazyNativeRegistryData.of(() -> JSON_HELPER.convertToMap(catalogService)));
         }
 
         return instance.withNativeRegistryData(Map.of());
@@ -134,26 +416,35 @@ public class ConsulRegistryClient implements RegistryClient {
         }
     }
 
-    private Map<String, String> filterMetadata(Map<String, String> metadata) {
-        return metadata.entrySet().stream()
-                .filter(entry -> !METADATA_EXCLUDED_KEYS.contains(entry.getKey()))
-                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private static void addFilteredMetadata(Map<String, String> serviceMetadata, Map<String, String> metadata) {
+        for (var entry : metadata.entrySet()) {
+            if (!METADATA_EXCLUDED_KEYS.contains(entry.getKey())) {
+                serviceMetadata.put(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
-    private void addTagsToMetadata(Map<String, String> metadata, List<String> tags) {
-        var filteredTags = tags.stream()
-                .filter(tag -> !TAGS_EXCLUDED.contains(tag))
-                .toList();
+    /**
+     * A tag of the form {@code key:value} is added as that key and value; any further {@code :value} parts are
+     * ignored. Any other tag is added with itself as both key and value.
+     */
+    @VisibleForTesting
+    static void addTagsToMetadata(Map<String, String> metadata, List<String> tags) {
+        for (var tag : tags) {
+            if (TAGS_EXCLUDED.contains(tag)) {
+                continue;
+            }
 
-        if (isNotNullOrEmpty(filteredTags)) {
-            filteredTags.forEach(tag -> {
-                if (tag.contains(":")) {
-                    var tagSplit = tag.split(":");
-                    metadata.put(tagSplit[0], tagSplit[1]);
-                } else {
-                    metadata.put(tag, tag);
-                }
-            });
+            var separatorIndex = tag.indexOf(':');
+            if (separatorIndex < 0) {
+                metadata.put(tag, tag);
+                continue;
+            }
+
+            var valueEndIndex = tag.indexOf(':', separatorIndex + 1);
+            var value = valueEndIndex < 0
+                    ? tag.substring(separatorIndex + 1) : tag.substring(separatorIndex + 1, valueEndIndex);
+            metadata.put(tag.substring(0, separatorIndex), value);
         }
     }
 
@@ -166,9 +457,60 @@ public class ConsulRegistryClient implements RegistryClient {
      */
     @Override
     public List<ServiceInstance> retrieveAllRegisteredInstances() {
-        return consul.catalogClient().getServices().getResponse().keySet().stream()
+        return limiter.call(Lane.LOOKUP, () -> consul.catalogClient().getServices().getResponse()).keySet().stream()
                 .map(this::findAllServiceInstancesBy)
                 .flatMap(List::stream)
                 .toList();
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The service names are retrieved first, and then each service is looked up only when the stream reaches it, so
+     * that memory use is proportional to the instances of one service rather than to the whole catalog.
+     */
+    @Override
+    public Stream<ServiceInstance> streamAllRegisteredInstances() {
+        var serviceNames = limiter.call(Lane.LOOKUP, () -> consul.catalogClient().getServices().getResponse()).keySet();
+
+        return serviceNames.stream()
+                .flatMap(serviceName -> findAllServiceInstances(serviceName).stream());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The service names come from the catalog's list of services. Each service is then looked up, with up to
+     * {@value #MAX_CONCURRENT_BATCH_LOOKUPS} lookups in progress at a time, and summarized directly from its catalog
+     * entries without converting them to {@link ServiceInstance}s or including native data. As with the other lookups,
+     * every instance in the catalog is counted as {@code UP}.
+     */
+    @Override
+    public List<ServiceSummary> retrieveServiceSummaries() {
+        var serviceNames = new TreeSet<>(
+                limiter.call(Lane.LOOKUP, () -> consul.catalogClient().getServices().getResponse()).keySet());
+
+        var summariesByServiceName = lookUpConcurrently(serviceNames, this::summarizeService, null);
+
+        return serviceNames.stream().map(summariesByServiceName::get).toList();
+    }
+
+    private ServiceSummary summarizeService(String serviceName) {
+        var services = limiter.call(Lane.LOOKUP,
+                () -> consul.catalogClient().getService(serviceName).getResponse());
+
+        var tally = ServiceSummary.tally(serviceName);
+        services.forEach(catalogService ->
+                tally.add(ServiceInstance.Status.UP.name(), versionOf(catalogService)));
+
+        return tally.toSummary();
+    }
+
+    /**
+     * Stops the threads used for batch lookups and service summaries. Lookups already in progress are completed.
+     */
+    @Override
+    public void close() {
+        lookupExecutor.shutdown();
+    }
 }
@@ -1,7 +1,14 @@
 package org.kiwiproject.registry.consul.config;
 
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+import org.kiwiproject.consul.Consul;
+import org.kiwiproject.registry.config.RegistryCallLimitsConfig;
 import org.kiwiproject.registry.model.ServiceInstance;
 
 import java.util.ArrayList;
@@ -14,6 +21,10 @@ import java.util.List;
 @Setter
 public class ConsulConfig {
 
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 2_000;
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 5_000;
+    public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 5_000;
+
     /**
      * List of keys from the {@link ServiceInstance} metadata that should become tags, otherwise they will be in metadata
      */
@@ -23,4 +34,61 @@ public class ConsulConfig {
      * If true, enables the addition of Consul specific data to ServiceInstance.
      */
     private boolean includeNativeData;
+
+    /**
+     * If true, returned ServiceInstances share equal strings, metadata, ports, and paths with each other, which
+     * reduces memory use when many instances are held, e.g. in a cache of the full registry.
+     *
+     * @see org.kiwiproject.registry.util.CompactServiceInstances
+     */
+    private boolean compactInstances;
+
+    /**
+     * Connect timeout in milliseconds for calls to Consul. Zero means no timeout.
+     */
+    @Min(0)
+    private long connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+    /**
+     * Read timeout in milliseconds for calls to Consul. Zero means no timeout.
+     * <p>
+     * Note that blocking queries wait on the server for up to the requested wait time, so this must be longer than
+     * any wait time used with the {@link Consul} instance.
+     */
+    @Min(0)
+    private long readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+    /**
+     * Write timeout in milliseconds for calls to Consul. Zero means no timeout.
+     */
+    @Min(0)
+    private long writeTimeoutMillis = DEFAULT_WRITE_TIMEOUT_MILLIS;
+
+    /**
+     * Client-side concurrency and rate limits on calls to Consul. Lookups and registration calls are limited
+     * separately.
+     */
+    @Valid
+    @NotNull
+    private RegistryCallLimitsConfig callLimits = new RegistryCallLimitsConfig();
+
+    /**
+     * Apply the timeouts in this configuration to the given {@link Consul.Builder}. The registry client does not
+     * retry Consul calls, so these timeouts bound how long a lookup can take.
+     * <p>
+     * The registry client and service use the {@link Consul} instance they are given rather than building one, so
+     * callers must apply the timeouts when building it, e.g.
+     * {@code config.applyTimeoutsTo(Consul.builder().withHostAndPort(hostAndPort)).build()}.
+     *
+     * @param builder the builder that will create the {@link Consul} instance
+     * @return the same builder
+     */
+    public Consul.Builder applyTimeoutsTo(Consul.Builder builder) {
+        checkArgumentNotNull(builder, "builder must not be null");
+
+        return builder
+                .withConnectTimeoutMillis(connectTimeoutMillis)
+                .withReadTimeoutMillis(readTimeoutMillis)
+                .withWriteTimeoutMillis(writeTimeoutMillis);
+    }
 }
@@ -26,6 +26,8 @@ import org.kiwiproject.registry.exception.RegistrationException;
 import org.kiwiproject.registry.model.Port.PortType;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.server.RegistryService;
+import org.kiwiproject.registry.util.RegistryCallLimiter;
+import org.kiwiproject.registry.util.RegistryCallLimiter.Lane;
 import org.kiwiproject.retry.SimpleRetryer;
 
 import java.util.ArrayList;
@@ -88,9 +90,12 @@ public class ConsulRegistryService implements RegistryService {
 
     private final AtomicReference<ServiceInstance> registeredService;
 
+    private final RegistryCallLimiter limiter;
+
     public ConsulRegistryService(Consul consul, ConsulRegistrationConfig config, KiwiEnvironment environment) {
         this.consul = consul;
         this.config = config;
+        this.limiter = new RegistryCallLimiter(config.getCallLimits());
         this.registeredService = new AtomicReference<>();
         this.metadataTags = config.getMetadataTags();
 
@@ -122,7 +127,10 @@ public class ConsulRegistryService implements RegistryService {
         var registration = fromServiceInstance(serviceToRegister);
 
         var serviceOptional = registerRetryer.tryGetObject("registered ServiceInstance", () -> {
-            consul.agentClient().register(registration);
+            limiter.call(Lane.REGISTRATION, () -> {
+                consul.agentClient().register(registration);
+                return registration;
+            });
             return serviceToRegister.withInstanceId(registration.getId())
                     .withHostName(registration.getAddress().orElse(null));  // necessary for domain override
         });
@@ -159,10 +167,11 @@ public class ConsulRegistryService implements RegistryService {
 
         LOG.info("Unregistering service {} with id {}", serviceName, instanceId);
 
-        var result = unregisterRetryer.tryGetObject("unregister result", () -> {
-            consul.agentClient().deregister(getRegisteredServiceInstance().getInstanceId());
-            return instanceId;
-        });
+        var result = unregisterRetryer.tryGetObject("unregister result", () ->
+                limiter.call(Lane.REGISTRATION, () -> {
+                    consul.agentClient().deregister(instanceId);
+                    return instanceId;
+                }));
 
         Optionals.ifPresentOrElseThrow(result,
                 id -> {
@@ -0,0 +1,193 @@
+package org.kiwiproject.registry.eureka.client;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import com.google.common.util.concurrent.Uninterruptibles;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.registry.client.VersionIndex;
+import org.kiwiproject.registry.eureka.common.EurekaInstance;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when looking up a VIP address should use a fetch of the full registry instead of a per-VIP lookup, and
+ * shares the result of that fetch across the VIP lookups it covers.
+ * <p>
+ * A single {@code /apps} fetch is cheaper than many {@code /vips/{vip}} lookups, but more expensive than one or two.
+ * This tracks the distinct VIP addresses looked up within the configured window, and once there are at least
+ * {@code fullFetchVipThreshold} of them, lookups are answered from a full fetch that is reused until it is older than
+ * {@code fullFetchMaxAgeMillis}. Only one thread fetches at a time; other threads that need a fresh fetch wait for it
+ * and then use its result.
+ */
+@Slf4j
+class EurekaFullFetchCache {
+
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private record Snapshot(Map<String, List<EurekaInstance>> instancesByVip,
+                            Map<String, VersionIndex<EurekaInstance>> versionIndexesByVip,
+                            long fetchedAtNanos) {
+
+        Snapshot(Map<String, List<EurekaInstance>> instancesByVip, long fetchedAtNanos) {
+            this(instancesByVip, new ConcurrentHashMap<>(), fetchedAtNanos);
+        }
+
+        /**
+         * Each index is not updated once it is built, so it can be shared by concurrent lookups.
+         */
+        VersionIndex<EurekaInstance> versionIndexFor(
+                String vipKey,
+                BiFunction<String, List<EurekaInstance>, VersionIndex<EurekaInstance>> indexer) {
+            return versionIndexesByVip.computeIfAbsent(vipKey,
+                    key -> indexer.apply(key, instancesByVip.getOrDefault(key, List.of())));
+        }
+    }
+
+    private final int vipThreshold;
+    private final long windowNanos;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, Long> lastLookupNanosByVip;
+    private final AtomicLong nextPruneNanos;
+    private final ReentrantLock fetchLock;
+    private volatile Snapshot snapshot;
+
+    EurekaFullFetchCache(EurekaConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    EurekaFullFetchCache(EurekaConfig config, LongSupplier nanoTime) {
+        this.vipThreshold = config.getFullFetchVipThreshold();
+        this.windowNanos = TimeUnit.SECONDS.toNanos(config.getFullFetchWindowSeconds());
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(config.getFullFetchMaxAgeMillis());
+        this.nanoTime = nanoTime;
+        this.lastLookupNanosByVip = new ConcurrentHashMap<>();
+        this.nextPruneNanos = new AtomicLong(nanoTime.getAsLong());
+        this.fetchLock = new ReentrantLock();
+    }
+
+    /**
+     * Record a lookup of the given VIP address.
+     *
+     * @param vipKey the normalized VIP address
+     * @return true if enough distinct VIP addresses have been looked up recently that lookups should use a full fetch
+     */
+    boolean recordLookup(String vipKey) {
+        var now = nanoTime.getAsLong();
+        lastLookupNanosByVip.put(vipKey, now);
+
+        if (lastLookupNanosByVip.size() < vipThreshold) {
+            return false;
+        }
+
+        pruneExpiredLookups(now);
+        return lastLookupNanosByVip.size() >= vipThreshold;
+    }
+
+    /**
+     * Pruning is at most once per interval, so a VIP address may be counted for up to that long after its window ends.
+     */
+    private void pruneExpiredLookups(long now) {
+        var nextPrune = nextPruneNanos.get();
+        if (now - nextPrune < 0 || !nextPruneNanos.compareAndSet(nextPrune, now + PRUNE_INTERVAL_NANOS)) {
+            return;
+        }
+
+        lastLookupNanosByVip.values().removeIf(lastLookupNanos -> now - lastLookupNanos > windowNanos);
+    }
+
+    @VisibleForTesting
+    int recentVipCount() {
+        return lastLookupNanosByVip.size();
+    }
+
+    /**
+     * Get all instances from the most recent full fetch, first fetching again if that is too old.
+     *
+     * @param deadline the deadline for the lookup, or null if there is none
+     * @param fetchAll fetches all registered instances, grouped by normalized VIP address, before the given deadline
+     * @return the instances, grouped by normalized VIP address
+     */
+    Map<String, List<EurekaInstance>> instancesByVip(@Nullable Instant deadline,
+                                                     Function<Instant, Map<String, List<EurekaInstance>>> fetchAll) {
+        return currentSnapshot(deadline, fetchAll).instancesByVip();
+    }
+
+    /**
+     * Get the instances for a VIP address from the most recent full fetch, indexed by version, first fetching again if
+     * that is too old. The indexer is called the first time the VIP address is looked up after each fetch, and may
+     * return an index it kept from an earlier fetch if the instances have not changed.
+     *
+     * @param vipKey   the normalized VIP address
+     * @param deadline the deadline for the lookup, or null if there is none
+     * @param fetchAll fetches all registered instances, grouped by normalized VIP address, before the given deadline
+     * @param indexer  returns an index of the given instances having the given VIP address
+     * @return the index of the instances having the VIP address
+     */
+    VersionIndex<EurekaInstance> versionIndexFor(
+            String vipKey,
+            @Nullable Instant deadline,
+            Function<Instant, Map<String, List<EurekaInstance>>> fetchAll,
+            BiFunction<String, List<EurekaInstance>, VersionIndex<EurekaInstance>> indexer) {
+        return currentSnapshot(deadline, fetchAll).versionIndexFor(vipKey, indexer);
+    }
+
+    private Snapshot currentSnapshot(@Nullable Instant deadline,
+                                     Function<Instant, Map<String, List<EurekaInstance>>> fetchAll) {
+        var current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+
+        lock(deadline);
+        try {
+            // Another thread may have fetched while this one was waiting for the lock
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+
+            var fetchStartNanos = nanoTime.getAsLong();
+            var instancesByVip = Map.copyOf(fetchAll.apply(deadline));
+            current = new Snapshot(instancesByVip, fetchStartNanos);
+            snapshot = current;
+
+            LOG.debug("Fetched all instances to share across lookups of {} VIP addresses", instancesByVip.size());
+            return current;
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private boolean isFresh(@Nullable Snapshot current) {
+        return nonNull(current) && nanoTime.getAsLong() - current.fetchedAtNanos() < maxAgeNanos;
+    }
+
+    private void lock(@Nullable Instant deadline) {
+        if (isNull(deadline)) {
+            fetchLock.lock();
+            return;
+        }
+
+        var remaining = Duration.between(Instant.now(), deadline);
+        if (remaining.isNegative() || !Uninterruptibles.tryLockUninterruptibly(fetchLock, remaining)) {
+            throw new UncheckedTimeoutException("Deadline passed while waiting for a fetch of all service instances");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.kiwiproject.registry.eureka.client;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.kiwiproject.registry.eureka.common.EurekaInstance;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caches the {@link ServiceInstance} converted from each Eureka instance, keyed by the app and instance ID, along
+ * with the instance's {@code lastDirtyTimestamp}, {@code actionType}, and status.
+ * <p>
+ * Eureka updates the {@code lastDirtyTimestamp} of an instance whenever the instance changes its registration, so an
+ * instance whose timestamp, action type, and status all match the cached ones is unchanged and the previously
+ * converted (immutable) instance is returned as-is. Status is compared too, because a status override made on the
+ * Eureka server does not change the timestamp.
+ * <p>
+ * Instances that are no longer registered are dropped whenever all registered instances are fetched. Instances that
+ * are not used for {@value #EXPIRE_AFTER_ACCESS_MINUTES} minutes are dropped as well, so that instances only ever
+ * looked up by VIP address do not accumulate after they are deregistered.
+ */
+class EurekaInstanceCache {
+
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+
+    private record InstanceKey(String app, String instanceId) {
+    }
+
+    private record CachedInstance(long lastDirtyTimestamp,
+                                  String actionType,
+                                  String status,
+                                  ServiceInstance instance) {
+
+        boolean matches(EurekaInstance eurekaInstance) {
+            return lastDirtyTimestamp == eurekaInstance.getLastDirtyTimestamp()
+                    && Objects.equals(actionType, eurekaInstance.getActionType())
+                    && Objects.equals(status, eurekaInstance.getStatus());
+        }
+    }
+
+    private final Cache<InstanceKey, CachedInstance> cache;
+
+    EurekaInstanceCache() {
+        this(Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    EurekaInstanceCache(Ticker ticker) {
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Get the instance converted from the given Eureka instance, converting it only if it has not been converted
+     * before or has changed since. Instances without a {@code lastDirtyTimestamp} are always converted, and are not
+     * cached.
+     *
+     * @param eurekaInstance the Eureka instance
+     * @param converter      converts a Eureka instance to an immutable {@link ServiceInstance}
+     * @return the converted instance
+     */
+    ServiceInstance instanceFor(EurekaInstance eurekaInstance, Function<EurekaInstance, ServiceInstance> converter) {
+        if (isNull(eurekaInstance.getLastDirtyTimestamp())) {
+            return converter.apply(eurekaInstance);
+        }
+
+        var key = keyOf(eurekaInstance);
+        var cached = cache.getIfPresent(key);
+        if (nonNull(cached) && cached.matches(eurekaInstance)) {
+            return cached.instance();
+        }
+
+        var instance = converter.apply(eurekaInstance);
+        cache.put(key, new CachedInstance(eurekaInstance.getLastDirtyTimestamp(),
+                eurekaInstance.getActionType(),
+                eurekaInstance.getStatus(),
+                instance));
+        return instance;
+    }
+
+    /**
+     * Drop the cached instances that are not among the given instances.
+     *
+     * @param eurekaInstances all currently registered instances
+     */
+    void retainOnly(Collection<EurekaInstance> eurekaInstances) {
+        var currentKeys = eurekaInstances.stream().map(EurekaInstanceCache::keyOf).collect(toSet());
+        cache.asMap().keySet().retainAll(currentKeys);
+    }
+
+    private static InstanceKey keyOf(EurekaInstance eurekaInstance) {
+        return new InstanceKey(eurekaInstance.getApp(), eurekaInstance.getInstanceId());
+    }
+
+    @VisibleForTesting
+    long size() {
+        cache.cleanUp();
+        return cache.size();
+    }
+}
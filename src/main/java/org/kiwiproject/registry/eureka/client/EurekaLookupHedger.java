@@ -0,0 +1,316 @@
+package org.kiwiproject.registry.eureka.client;
+
+import static java.util.Objects.isNull;
+import static org.kiwiproject.jaxrs.KiwiResponses.closeQuietly;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Sends a lookup to the current Eureka server and, if it has not completed within the hedge delay, sends the same
+ * lookup to a different server. Whichever succeeds first is returned; the other is cancelled and its response (if it
+ * arrives) is closed.
+ * <p>
+ * The hedge delay is the configured percentile of recent lookup latencies, but never less than the configured minimum.
+ * The number of hedged lookups is capped by a token bucket that earns {@code maxHedgePercent / 100} of a token per
+ * lookup, so hedging adds at most that fraction of extra load on the Eureka servers (plus a small burst).
+ * <p>
+ * Lookups run on a pool of at most {@value #MAX_LOOKUP_THREADS} threads, which idle threads leave after a minute. When
+ * every thread is busy, or once the hedger is closed, a lookup runs on the calling thread and is not hedged.
+ */
+@Slf4j
+class EurekaLookupHedger implements Closeable {
+
+    @VisibleForTesting
+    static final int LATENCY_SAMPLE_SIZE = 128;
+
+    @VisibleForTesting
+    static final int MIN_LATENCY_SAMPLES = 20;
+
+    @VisibleForTesting
+    static final int MAX_LOOKUP_THREADS = 32;
+
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final int DELAY_RECALCULATION_INTERVAL = 16;
+    private static final long MILLI_TOKENS_PER_HEDGE = 1_000;
+    private static final long MAX_HEDGE_BURST = 10;
+
+    private final EurekaUrlProvider urlProvider;
+    private final ExecutorService executor;
+    private final int delayPercentile;
+    private final long minDelayNanos;
+    private final long milliTokensPerLookup;
+    private final AtomicLongArray latencySamples;
+    private final AtomicLong sampleCount;
+    private final AtomicLong hedgeDelayNanos;
+    private final AtomicLong hedgeMilliTokens;
+
+    EurekaLookupHedger(EurekaConfig config, EurekaUrlProvider urlProvider) {
+        this(config, urlProvider, newLookupExecutor());
+    }
+
+    @VisibleForTesting
+    EurekaLookupHedger(EurekaConfig config, EurekaUrlProvider urlProvider, ExecutorService executor) {
+        this.urlProvider = urlProvider;
+        this.executor = executor;
+        this.delayPercentile = config.getHedgeDelayPercentile();
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getMinHedgeDelayMillis());
+        this.milliTokensPerLookup = config.getMaxHedgePercent() * MILLI_TOKENS_PER_HEDGE / 100;
+        this.latencySamples = new AtomicLongArray(LATENCY_SAMPLE_SIZE);
+        this.sampleCount = new AtomicLong();
+        this.hedgeDelayNanos = new AtomicLong(minDelayNanos);
+        this.hedgeMilliTokens = new AtomicLong();
+    }
+
+    /**
+     * Lookups are handed directly to a thread, rather than queued, so that a lookup never waits behind others. A
+     * lookup that no thread can take is rejected, and then runs on the calling thread.
+     */
+    private static ExecutorService newLookupExecutor() {
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("eureka-hedged-lookup-%d")
+                .setDaemon(true)
+                .build();
+
+        return new ThreadPoolExecutor(0, MAX_LOOKUP_THREADS,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory);
+    }
+
+    /**
+     * Perform a (possibly hedged) lookup.
+     *
+     * @param lookupFunction performs the lookup against the given Eureka URL
+     * @return the first successful response
+     * @throws Exception the error from the primary lookup if all lookups fail
+     */
+    Response lookup(Function<String, Response> lookupFunction) throws Exception {
+        earnHedgeTokens();
+
+        var primaryUrl = urlProvider.getCurrentEurekaUrl();
+        var primary = submit(primaryUrl, lookupFunction);
+
+        if (isNull(primary)) {
+            LOG.trace("No thread available for hedged lookup; looking up on the calling thread instead");
+            primary = new Attempt(primaryUrl);
+            perform(primary, lookupFunction);
+        }
+
+        try {
+            return primary.result.get(hedgeDelayNanos.get(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOG.trace("Lookup from {} did not complete within hedge delay", primaryUrl);
+        } catch (ExecutionException e) {
+            throw failOver(primaryUrl, e);
+        }
+
+        var alternateUrl = urlProvider.getAlternateEurekaUrl(primaryUrl)
+                .filter(url -> tryAcquireHedgeToken());
+
+        if (alternateUrl.isEmpty()) {
+            try {
+                return primary.result.get();
+            } catch (ExecutionException e) {
+                throw failOver(primaryUrl, e);
+            }
+        }
+
+        LOG.debug("Sending hedged lookup to {} since {} has not responded", alternateUrl.get(), primaryUrl);
+        var hedge = submit(alternateUrl.get(), lookupFunction);
+
+        try {
+            if (isNull(hedge)) {
+                LOG.trace("No thread available to send hedged lookup to {}", alternateUrl.get());
+                return primary.result.get();
+            }
+
+            return firstSuccessful(primary, hedge);
+        } catch (ExecutionException e) {
+            throw failOver(primaryUrl, e);
+        }
+    }
+
+    private Exception failOver(String primaryUrl, ExecutionException e) {
+        var cause = e.getCause();
+        if (cause instanceof Exception exception && EurekaRegistryClient.isServerFailure(exception)) {
+            urlProvider.failOverFrom(primaryUrl);
+        }
+
+        if (cause instanceof Exception exception) {
+            return exception;
+        }
+
+        if (cause instanceof Error error) {
+            throw error;
+        }
+
+        return e;
+    }
+
+    /**
+     * @return the submitted attempt, or null if no thread is available to perform it
+     */
+    @Nullable
+    private Attempt submit(String eurekaUrl, Function<String, Response> lookupFunction) {
+        var attempt = new Attempt(eurekaUrl);
+
+        try {
+            attempt.future = executor.submit(() -> perform(attempt, lookupFunction));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+
+        return attempt;
+    }
+
+    private void perform(Attempt attempt, Function<String, Response> lookupFunction) {
+        var eurekaUrl = attempt.eurekaUrl;
+        urlProvider.acquirePermission(eurekaUrl);
+        var startNanos = System.nanoTime();
+        try {
+            var response = lookupFunction.apply(eurekaUrl);
+            var elapsedNanos = System.nanoTime() - startNanos;
+            recordLatency(elapsedNanos);
+            urlProvider.recordSuccess(eurekaUrl, elapsedNanos);
+            attempt.result.complete(response);
+        } catch (Exception e) {
+            if (!attempt.cancelled.get() && EurekaRegistryClient.isServerFailure(e)) {
+                urlProvider.recordFailure(eurekaUrl);
+            } else {
+                urlProvider.releasePermission(eurekaUrl);
+            }
+            attempt.result.completeExceptionally(e);
+        }
+    }
+
+    private static Response firstSuccessful(Attempt primary, Attempt hedge)
+            throws ExecutionException, InterruptedException {
+
+        var winner = new CompletableFuture<Attempt>();
+        var failures = new AtomicInteger();
+
+        for (var attempt : List.of(primary, hedge)) {
+            attempt.result.whenComplete((response, error) -> {
+                if (isNull(error)) {
+                    if (!winner.complete(attempt)) {
+                        // Lost the race; nobody else will read this response
+                        closeQuietly(response);
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    // Report the primary's error, as would happen without hedging
+                    winner.completeExceptionally(primary.result.handle((r, e) -> e).join());
+                }
+            });
+        }
+
+        Attempt firstAttempt;
+        try {
+            firstAttempt = winner.get();
+        } catch (InterruptedException e) {
+            primary.cancel();
+            hedge.cancel();
+
+            // Nobody will read the winning response, whether it has already arrived or arrives later
+            winner.thenAccept(attempt -> closeQuietly(attempt.result.join()));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+
+        var loser = firstAttempt == primary ? hedge : primary;
+        loser.cancel();
+
+        LOG.trace("Hedged lookup won by {}", firstAttempt.eurekaUrl);
+        return firstAttempt.result.get();
+    }
+
+    private void earnHedgeTokens() {
+        hedgeMilliTokens.updateAndGet(tokens ->
+                Math.min(tokens + milliTokensPerLookup, MAX_HEDGE_BURST * MILLI_TOKENS_PER_HEDGE));
+    }
+
+    private boolean tryAcquireHedgeToken() {
+        while (true) {
+            var tokens = hedgeMilliTokens.get();
+            if (tokens < MILLI_TOKENS_PER_HEDGE) {
+                return false;
+            }
+            if (hedgeMilliTokens.compareAndSet(tokens, tokens - MILLI_TOKENS_PER_HEDGE)) {
+                return true;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void recordLatency(long elapsedNanos) {
+        var count = sampleCount.getAndIncrement();
+        latencySamples.set((int) (count % LATENCY_SAMPLE_SIZE), elapsedNanos);
+
+        if ((count + 1) >= MIN_LATENCY_SAMPLES && (count + 1) % DELAY_RECALCULATION_INTERVAL == 0) {
+            hedgeDelayNanos.set(Math.max(minDelayNanos, latencyPercentileNanos()));
+        }
+    }
+
+    private long latencyPercentileNanos() {
+        var size = (int) Math.min(sampleCount.get(), LATENCY_SAMPLE_SIZE);
+        var samples = new long[size];
+        for (var i = 0; i < size; i++) {
+            samples[i] = latencySamples.get(i);
+        }
+        Arrays.sort(samples);
+
+        var index = (int) Math.ceil(delayPercentile / 100.0 * size) - 1;
+        return samples[Math.max(0, index)];
+    }
+
+    @VisibleForTesting
+    long hedgeDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos.get());
+    }
+
+    /**
+     * Stop the lookup threads once their lookups complete. Later lookups run on the calling thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static class Attempt {
+        final String eurekaUrl;
+        final CompletableFuture<Response> result = new CompletableFuture<>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        volatile Future<?> future;
+
+        Attempt(String eurekaUrl) {
+            this.eurekaUrl = eurekaUrl;
+        }
+
+        void cancel() {
+            cancelled.set(true);
+            future.cancel(true);
+        }
+    }
+}
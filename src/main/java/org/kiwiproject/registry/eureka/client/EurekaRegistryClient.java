@@ -1,9 +1,14 @@
 package org.kiwiproject.registry.eureka.client;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toSet;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.base.KiwiStrings.splitOnCommas;
 import static org.kiwiproject.base.KiwiThrowables.typeOfNullable;
+import static org.kiwiproject.jaxrs.KiwiResponses.closeQuietly;
 import static org.kiwiproject.logging.LazyLogParameterSupplier.lazy;
 import static org.kiwiproject.retry.KiwiRetryerPredicates.CONNECTION_ERROR;
 import static org.kiwiproject.retry.KiwiRetryerPredicates.NO_ROUTE_TO_HOST;
@@ -12,34 +17,62 @@ import static org.kiwiproject.retry.KiwiRetryerPredicates.SSL_HANDSHAKE_ERROR;
 import static org.kiwiproject.retry.KiwiRetryerPredicates.UNKNOWN_HOST;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 import jakarta.ws.rs.ServerErrorException;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.jspecify.annotations.Nullable;
 import org.kiwiproject.jaxrs.KiwiGenericTypes;
 import org.kiwiproject.registry.client.RegistryClient;
 import org.kiwiproject.registry.client.ServiceInstanceFilter;
+import org.kiwiproject.registry.client.VersionIndex;
+import org.kiwiproject.registry.client.VersionIndexCache;
+import org.kiwiproject.registry.eureka.common.EurekaCircuitBreaker;
+import org.kiwiproject.registry.eureka.common.EurekaConnectionWarmer;
 import org.kiwiproject.registry.eureka.common.EurekaInstance;
 import org.kiwiproject.registry.eureka.common.EurekaResponseParser;
 import org.kiwiproject.registry.eureka.common.EurekaRestClient;
 import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
 import org.kiwiproject.registry.eureka.config.EurekaConfig;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
 import org.kiwiproject.registry.model.NativeRegistryData;
 import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServiceSummary;
+import org.kiwiproject.registry.util.CompactServiceInstances;
 import org.kiwiproject.retry.KiwiRetryer;
 import org.kiwiproject.retry.WaitStrategies;
 import org.kiwiproject.retry.WaitStrategy;
 
+import java.io.Closeable;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * {@link RegistryClient} implementation for looking up services from Eureka registry server.
+ * <p>
+ * When connections are pre-warmed, the client warms them in the background until it is closed. Likewise, when lookups
+ * are hedged, the client keeps threads for them until it is closed.
  */
 @Slf4j
-public class EurekaRegistryClient implements RegistryClient {
+public class EurekaRegistryClient implements RegistryClient, Closeable {
 
     /**
      * This number is multiplied by the number of Eureka URLs to determine the number of attempts that will be made
@@ -50,27 +83,104 @@ public class EurekaRegistryClient implements RegistryClient {
     private static final int RETRY_MULTIPLIER = 100;
     private static final int RETRY_MAX_TIME = 30;
     private static final TimeUnit RETRY_MAX_TIME_UNIT = TimeUnit.SECONDS;
+    private static final String VERSION_METADATA_KEY = "version";
 
     private final EurekaRestClient client;
     private final EurekaUrlProvider urlProvider;
     private final KiwiRetryer<Response> clientRetryer;
     private final EurekaConfig config;
+    private final EurekaLookupHedger lookupHedger;
+    private final EurekaFullFetchCache fullFetchCache;
+    private final EurekaInstanceCache instanceCache;
+    private final VersionIndexCache<EurekaInstance> versionIndexCache;
+    private final EurekaConnectionWarmer connectionWarmer;
+    private final int maxAttempts;
+
+    /**
+     * Create a new instance that uses the JVM-wide pooled {@link EurekaRestClient} and the JVM-wide
+     * {@link EurekaUrlProvider} for the given configuration.
+     *
+     * @param config the Eureka configuration
+     * @see EurekaRestClient#shared(EurekaConfig)
+     * @see EurekaUrlProvider#shared(EurekaConfig)
+     */
+    public EurekaRegistryClient(EurekaConfig config) {
+        this(config, EurekaRestClient.shared(config), EurekaUrlProvider.shared(config));
+    }
 
     public EurekaRegistryClient(EurekaConfig config, EurekaRestClient client) {
+        this(config, client, new EurekaUrlProvider(config));
+    }
+
+    /**
+     * Create a new instance that selects Eureka servers using the given {@link EurekaUrlProvider}, which may be shared
+     * with other Eureka clients and services so that they all use the same server latency and error measurements.
+     *
+     * @param config      the Eureka configuration
+     * @param client      the client to use when calling Eureka
+     * @param urlProvider the provider that chooses which Eureka server to call
+     */
+    public EurekaRegistryClient(EurekaConfig config, EurekaRestClient client, EurekaUrlProvider urlProvider) {
         this.client = client;
-        this.urlProvider = new EurekaUrlProvider(config.getRegistryUrls());
-        var maxAttempts = urlProvider.urlCount() * EUREKA_ATTEMPT_MULTIPLIER;
-        this.clientRetryer = KiwiRetryer.<Response>builder()
+        this.urlProvider = urlProvider;
+        this.maxAttempts = urlProvider.urlCount() * EUREKA_ATTEMPT_MULTIPLIER;
+        this.config = config;
+        this.clientRetryer = newRetryerBuilder()
+                .stopStrategy(attempt -> attempt.getAttemptNumber() >= maxAttempts || retryBudgetExhausted())
+                .waitStrategy(getWaitStrategy())
+                .build();
+        this.lookupHedger = config.isHedgeLookups() ? new EurekaLookupHedger(config, urlProvider) : null;
+        this.fullFetchCache = config.getFullFetchVipThreshold() > 0 ? new EurekaFullFetchCache(config) : null;
+
+        // Native data includes lease renewal timestamps, which change without changing lastDirtyTimestamp
+        this.instanceCache = config.isIncludeNativeData() ? null : new EurekaInstanceCache();
+        this.versionIndexCache = config.isIncludeNativeData() ? null : new VersionIndexCache<>(
+                EurekaRegistryClient::versionOf, this::metadataOf, EurekaRegistryClient::revisionOf);
+
+        this.connectionWarmer = EurekaConnectionWarmer.startIfEnabled(config, client, urlProvider).orElse(null);
+    }
+
+    private KiwiRetryer.KiwiRetryerBuilder<Response> newRetryerBuilder() {
+        return KiwiRetryer.<Response>builder()
                 .retryerId(config.getRetryId())
                 .processingLogLevel(config.getRetryProcessingLogLevel())
                 .exceptionLogLevel(config.getRetryExceptionLogLevel())
                 .exceptionPredicates(List.of(
                         CONNECTION_ERROR, NO_ROUTE_TO_HOST, SOCKET_TIMEOUT, SSL_HANDSHAKE_ERROR, UNKNOWN_HOST, temporaryServerSideStatusCodes()
-                ))
-                .maxAttempts(maxAttempts)
-                .waitStrategy(getWaitStrategy())
+                ));
+    }
+
+    /**
+     * Retries draw from the retry budget shared with every other client using the same
+     * {@link EurekaUrlProvider}, so that a struggling Eureka cluster is not flooded with retries.
+     */
+    private boolean retryBudgetExhausted() {
+        if (urlProvider.getRetryBudget().tryAcquireRetry()) {
+            return false;
+        }
+
+        LOG.warn("Not retrying Eureka lookup because the retry budget is exhausted");
+        return true;
+    }
+
+    /**
+     * Build a retryer that stops after the usual number of attempts, once the deadline has passed, or when the retry
+     * budget is exhausted, whichever comes first, and that never waits past the deadline between attempts.
+     */
+    private KiwiRetryer<Response> newDeadlineRetryer(Instant deadline) {
+        var waitStrategy = getWaitStrategy();
+
+        return newRetryerBuilder()
+                .stopStrategy(attempt -> attempt.getAttemptNumber() >= maxAttempts
+                        || !Instant.now().isBefore(deadline)
+                        || retryBudgetExhausted())
+                .waitStrategy(attempt ->
+                        Math.min(waitStrategy.computeSleepTime(attempt), Math.max(0, millisUntil(deadline))))
                 .build();
-        this.config = config;
+    }
+
+    private static long millisUntil(Instant deadline) {
+        return Duration.between(Instant.now(), deadline).toMillis();
     }
 
     private static Predicate<Exception> temporaryServerSideStatusCodes() {
@@ -107,96 +217,479 @@ public class EurekaRegistryClient implements RegistryClient {
         return WaitStrategies.exponentialWait(RETRY_MULTIPLIER, RETRY_MAX_TIME, RETRY_MAX_TIME_UNIT);
     }
 
+    /**
+     * Stop warming connections to the Eureka servers, and stop the threads that send hedged lookups. The client can
+     * still be used, but its connections are no longer kept warm and its lookups are no longer hedged.
+     */
+    @Override
+    public void close() {
+        if (nonNull(connectionWarmer)) {
+            connectionWarmer.close();
+        }
+
+        if (nonNull(lookupHedger)) {
+            lookupHedger.close();
+        }
+    }
+
+    /**
+     * @return the circuit breaker state of each Eureka URL used by this client
+     */
+    public Map<String, EurekaCircuitBreaker.State> circuitBreakerStates() {
+        return urlProvider.circuitBreakerStates();
+    }
+
     @Override
     public Optional<ServiceInstance> findServiceInstanceBy(String serviceName, String instanceId) {
         checkArgumentNotBlank(instanceId, "The instance ID cannot be blank");
+        checkArgumentNotBlank(serviceName, "The service name cannot be blank");
 
-        var instances = findAllServiceInstancesBy(serviceName);
+        var eurekaInstances = getRunningServiceInstancesFromEureka(
+                InstanceQuery.builder().serviceName(serviceName).build());
 
-        return instances.stream()
-                .filter(instance -> instance.getInstanceId().equals(instanceId))
-                .findFirst();
+        return eurekaInstances.stream()
+                .filter(eurekaInstance -> instanceId.equals(eurekaInstance.getInstanceId()))
+                .findFirst()
+                .map(this::toServiceInstance);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The version predicates are evaluated against the version in each instance's Eureka metadata, so only the
+     * matching instances are converted to {@link ServiceInstance}s. The metadata predicates are evaluated against the
+     * metadata of the converted instances. The limit is applied before converting the instances.
+     */
     @Override
     public List<ServiceInstance> findAllServiceInstancesBy(InstanceQuery query) {
         checkArgumentNotNull(query, "The query cannot be null");
         checkArgumentNotBlank(query.getServiceName(), "The service name cannot be blank");
 
-        var eurekaInstances = getRunningServiceInstancesFromEureka(query.getServiceName());
+        return getRunningServiceInstancesFromEureka(query).stream()
+                .map(this::toServiceInstance)
+                .toList();
+    }
 
-        var includeNativeData = config.isIncludeNativeData()
-                ? NativeRegistryData.INCLUDE_NATIVE_DATA : NativeRegistryData.IGNORE_NATIVE_DATA;
+    private static String versionOf(EurekaInstance eurekaInstance) {
+        var metadata = eurekaInstance.getMetadata();
+        return isNull(metadata) ? null : metadata.get(VERSION_METADATA_KEY);
+    }
 
-        var serviceInstances = eurekaInstances.stream()
-                .map(eurekaInstance -> eurekaInstance.toServiceInstance(includeNativeData))
-                .toList();
+    /**
+     * Eureka updates the {@code lastDirtyTimestamp} of an instance whenever it changes its registration, but not when
+     * its status is overridden on the Eureka server, so the status is part of the revision as well.
+     */
+    @Nullable
+    private static Object revisionOf(EurekaInstance eurekaInstance) {
+        if (isNull(eurekaInstance.getLastDirtyTimestamp())) {
+            return null;
+        }
+
+        return new InstanceRevision(eurekaInstance.getApp(), eurekaInstance.getInstanceId(),
+                eurekaInstance.getLastDirtyTimestamp(), eurekaInstance.getActionType(), eurekaInstance.getStatus());
+    }
 
-        return ServiceInstanceFilter.filterInstancesByVersion(serviceInstances, query);
+    private record InstanceRevision(String app,
+                                    String instanceId,
+                                    long lastDirtyTimestamp,
+                                    String actionType,
+                                    String status) {
     }
 
-    private List<EurekaInstance> getRunningServiceInstancesFromEureka(String vipAddress) {
-        var response = getRegisteredServicesFromEureka(vipAddress);
+    /**
+     * Unless native data is included, unchanged instances reuse the instance converted from them by an earlier
+     * lookup.
+     */
+    private ServiceInstance toServiceInstance(EurekaInstance eurekaInstance) {
+        if (isNull(instanceCache)) {
+            return compactIfEnabled(eurekaInstance.toServiceInstance(nativeRegistryData()));
+        }
+
+        return instanceCache.instanceFor(eurekaInstance,
+                instance -> compactIfEnabled(instance.toServiceInstance(NativeRegistryData.IGNORE_NATIVE_DATA)));
+    }
+
+    private ServiceInstance compactIfEnabled(ServiceInstance instance) {
+        return config.isCompactInstances() ? CompactServiceInstances.compact(instance) : instance;
+    }
+
+    private NativeRegistryData nativeRegistryData() {
+        return config.isIncludeNativeData()
+                ? NativeRegistryData.INCLUDE_NATIVE_DATA : NativeRegistryData.IGNORE_NATIVE_DATA;
+    }
+
+    /**
+     * Get the running instances that satisfy the version and metadata predicates of the query, if any, up to its
+     * limit.
+     * <p>
+     * Once enough distinct VIP addresses are being looked up, a single shared fetch of all instances is cheaper than
+     * looking up each VIP address, so the lookup is answered from that. The instances of each VIP address in a shared
+     * fetch are indexed by version the first time it is looked up, so later lookups search the index instead of
+     * checking every instance. The instances are also indexed by metadata the first time a lookup of the VIP address
+     * has metadata predicates.
+     * <p>
+     * Unless native data is included, the index of a VIP address is kept until any of its instances change, both
+     * across shared fetches and across per-VIP lookups, so an unchanged VIP address is not indexed again and repeated
+     * queries reuse the instances found for them. Indexed instances are found in order of version.
+     */
+    private List<EurekaInstance> getRunningServiceInstancesFromEureka(InstanceQuery query) {
+        var vipKey = vipKey(query.getServiceName());
+        if (nonNull(fullFetchCache) && fullFetchCache.recordLookup(vipKey)) {
+            return fullFetchCache
+                    .versionIndexFor(vipKey, query.getDeadline(), this::fetchRunningInstancesByVip,
+                            this::versionIndexOf)
+                    .find(query);
+        }
+
+        var response = getRegisteredServicesFromEureka(query);
 
         if (isNull(response)) {
             return List.of();
         }
 
-        return parseEurekaInstances(response);
+        var eurekaInstances = parseEurekaInstances(response);
+        if (nonNull(versionIndexCache)) {
+            return versionIndexCache.indexFor(vipKey, eurekaInstances).find(query);
+        }
+
+        var instancesWithVersion =
+                ServiceInstanceFilter.filterByVersion(eurekaInstances, EurekaRegistryClient::versionOf, query);
+        var instancesWithMetadata =
+                ServiceInstanceFilter.filterByMetadata(instancesWithVersion, this::metadataOf, query);
+        return ServiceInstanceFilter.limit(instancesWithMetadata, query);
     }
 
-    private Response getRegisteredServicesFromEureka(String vipAddress) {
-        return clientRetryer.call(() -> {
+    private VersionIndex<EurekaInstance> versionIndexOf(String vipKey, List<EurekaInstance> eurekaInstances) {
+        if (isNull(versionIndexCache)) {
+            return VersionIndex.of(eurekaInstances, EurekaRegistryClient::versionOf, this::metadataOf);
+        }
+
+        return versionIndexCache.indexFor(vipKey, eurekaInstances);
+    }
+
+    private Map<String, String> metadataOf(EurekaInstance eurekaInstance) {
+        return toServiceInstance(eurekaInstance).getMetadata();
+    }
+
+    private Response getRegisteredServicesFromEureka(InstanceQuery query) {
+        var vipAddress = query.getServiceName();
+        var retryer = clientRetryer;
+        Function<String, Response> lookupFunction = targetUrl -> client.findInstancesByVipAddress(targetUrl, vipAddress);
+
+        if (query.hasDeadline()) {
+            var deadline = query.getDeadline();
+            checkDeadline("lookup of " + vipAddress, deadline);
+
+            retryer = newDeadlineRetryer(deadline);
+            lookupFunction = targetUrl ->
+                    client.findInstancesByVipAddress(targetUrl, vipAddress, readTimeoutMillisBefore(deadline));
+        }
+
+        var uncheckedLookup = lookupFunction;
+        Function<String, Response> lookup = targetUrl -> requireOk(uncheckedLookup.apply(targetUrl));
+
+        if (nonNull(lookupHedger)) {
+            return retryer.call(() -> lookupHedger.lookup(targetUrl -> {
+                LOG.debug("Attempting to lookup {} using {}", vipAddress, targetUrl);
+                return lookup.apply(targetUrl);
+            }));
+        }
+
+        return retryer.call(() -> {
             var targetUrl = urlProvider.getCurrentEurekaUrl();
 
             LOG.debug("Attempting to lookup {} using {}", vipAddress, targetUrl);
 
+            urlProvider.acquirePermission(targetUrl);
             try {
-                return client.findInstancesByVipAddress(targetUrl, vipAddress);
+                var startNanos = System.nanoTime();
+                var response = lookup.apply(targetUrl);
+                urlProvider.recordSuccess(targetUrl, System.nanoTime() - startNanos);
+                return response;
             } catch (Exception e) {
-                urlProvider.getNextEurekaUrl();
+                if (isServerFailure(e)) {
+                    urlProvider.recordFailure(targetUrl);
+                    urlProvider.failOverFrom(targetUrl);
+                } else {
+                    urlProvider.releasePermission(targetUrl);
+                }
                 throw e;
             }
         });
     }
 
+    /**
+     * Only a 200 OK response answers a lookup. Any other response is closed and thrown, so that it is not counted as a
+     * success. Server errors are thrown as {@link ServerErrorException}s so that temporary ones are retried.
+     */
+    private static Response requireOk(Response response) {
+        var status = response.getStatus();
+        if (status == Response.Status.OK.getStatusCode()) {
+            return response;
+        }
+
+        closeQuietly(response);
+
+        if (Response.Status.Family.familyOf(status) == Response.Status.Family.SERVER_ERROR) {
+            throw new ServerErrorException(status);
+        }
+
+        throw new WebApplicationException(status);
+    }
+
+    /**
+     * Is the error a failure of the Eureka server that was called? I/O errors and server errors are. A response with
+     * any other status, e.g. a 404 for an unknown VIP address, is an answer to the request, and says nothing about the
+     * health of the server, so it is not charged to it.
+     */
+    static boolean isServerFailure(Exception e) {
+        if (e instanceof RegistryCallRejectedException) {
+            // Rejected locally by the call limits, so the Eureka server is not at fault
+            return false;
+        }
+
+        if (e instanceof WebApplicationException webApplicationException) {
+            var status = webApplicationException.getResponse().getStatus();
+            return Response.Status.Family.familyOf(status) == Response.Status.Family.SERVER_ERROR;
+        }
+
+        return true;
+    }
+
+    private static void checkDeadline(String description, Instant deadline) {
+        if (!Instant.now().isBefore(deadline)) {
+            throw new UncheckedTimeoutException("Deadline passed before " + description + " could complete");
+        }
+    }
+
+    /**
+     * The read timeout for a single lookup attempt: the configured lookup (or read) timeout, but no later than the
+     * deadline.
+     */
+    private int readTimeoutMillisBefore(Instant deadline) {
+        var configuredMillis = config.getLookupTimeoutMillis() > 0
+                ? config.getLookupTimeoutMillis() : config.getReadTimeoutMillis();
+
+        return (int) Math.max(1, Math.min(configuredMillis, millisUntil(deadline)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All queries are answered from a single fetch of all registered instances, which is partitioned by VIP address.
+     * If any query has a deadline, the earliest deadline applies to the fetch. A recent fetch that is shared across
+     * VIP address lookups is used instead, if there is one. Unless native data is included, the queries search the
+     * kept index of each VIP address, as single lookups do.
+     */
+    @Override
+    public Map<InstanceQuery, List<ServiceInstance>> findAllServiceInstancesBy(Collection<InstanceQuery> queries) {
+        checkArgumentNotNull(queries, "The queries cannot be null");
+        queries.forEach(query -> {
+            checkArgumentNotNull(query, "The query cannot be null");
+            checkArgumentNotBlank(query.getServiceName(), "The service name cannot be blank");
+        });
+
+        if (queries.isEmpty()) {
+            return Map.of();
+        }
+
+        var deadline = queries.stream()
+                .map(InstanceQuery::getDeadline)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+
+        var vipKeys = queries.stream().map(query -> vipKey(query.getServiceName())).collect(toSet());
+        Map<String, List<EurekaInstance>> instancesByVip;
+        if (nonNull(fullFetchCache)) {
+            vipKeys.forEach(fullFetchCache::recordLookup);
+            instancesByVip = fullFetchCache.instancesByVip(deadline, this::fetchRunningInstancesByVip);
+        } else {
+            var response = getAllRegisteredServicesFromEureka(deadline);
+            var eurekaInstances = isNull(response) ? List.<EurekaInstance>of() : parseAllEurekaInstances(response);
+            instancesByVip = partitionByVipAddress(eurekaInstances, vipKeys::contains);
+        }
+
+        // Queries for the same VIP address share conversions of the instances that match more than one of them
+        var convertedInstances = new IdentityHashMap<EurekaInstance, ServiceInstance>();
+        var results = new LinkedHashMap<InstanceQuery, List<ServiceInstance>>();
+        for (var query : queries) {
+            results.computeIfAbsent(query, theQuery -> {
+                var vipKey = vipKey(theQuery.getServiceName());
+                var eurekaInstances = instancesByVip.getOrDefault(vipKey, List.of());
+                Function<EurekaInstance, ServiceInstance> convert =
+                        eurekaInstance -> convertedInstances.computeIfAbsent(eurekaInstance, this::toServiceInstance);
+
+                if (nonNull(versionIndexCache)) {
+                    return versionIndexCache.indexFor(vipKey, eurekaInstances).find(theQuery).stream()
+                            .map(convert)
+                            .toList();
+                }
+
+                return ServiceInstanceFilter.filterAndConvert(eurekaInstances, EurekaRegistryClient::versionOf,
+                        convert, theQuery);
+            });
+        }
+
+        return results;
+    }
+
+    private Map<String, List<EurekaInstance>> fetchRunningInstancesByVip(@Nullable Instant deadline) {
+        var response = getAllRegisteredServicesFromEureka(deadline);
+        var eurekaInstances = isNull(response) ? List.<EurekaInstance>of() : parseAllEurekaInstances(response);
+
+        return partitionByVipAddress(eurekaInstances, vipKey -> true);
+    }
+
+    /**
+     * Group the instances by normalized VIP address, keeping only the included VIP addresses. Eureka matches VIP
+     * addresses without regard to case, and an instance can have several VIP addresses separated by commas.
+     */
+    private static Map<String, List<EurekaInstance>> partitionByVipAddress(List<EurekaInstance> eurekaInstances,
+                                                                           Predicate<String> includeVipKey) {
+        var instancesByVip = new HashMap<String, List<EurekaInstance>>();
+
+        for (var eurekaInstance : eurekaInstances) {
+            if (isBlank(eurekaInstance.getVipAddress())) {
+                continue;
+            }
+
+            for (var vipAddress : splitOnCommas(eurekaInstance.getVipAddress())) {
+                var vipKey = vipKey(vipAddress);
+                if (includeVipKey.test(vipKey)) {
+                    instancesByVip.computeIfAbsent(vipKey, key -> new ArrayList<>()).add(eurekaInstance);
+                }
+            }
+        }
+
+        return instancesByVip;
+    }
+
+    private static String vipKey(String vipAddress) {
+        return vipAddress.trim().toUpperCase(Locale.ROOT);
+    }
+
     @Override
     public List<ServiceInstance> retrieveAllRegisteredInstances() {
-        var response = getAllRegisteredServicesFromEureka();
+        var response = getAllRegisteredServicesFromEureka(null);
 
         if (isNull(response)) {
             return List.of();
         }
 
-        var eurekaInstances = parseEurekaInstances(response);
+        var eurekaInstances = parseAllEurekaInstances(response);
         LOG.debug("Received {} eureka instances", lazy(eurekaInstances::size));
 
-        var includeNativeData = config.isIncludeNativeData()
-                ? NativeRegistryData.INCLUDE_NATIVE_DATA : NativeRegistryData.IGNORE_NATIVE_DATA;
-
         return eurekaInstances.stream()
-                .map(eurekaInstance -> eurekaInstance.toServiceInstance(includeNativeData))
+                .map(this::toServiceInstance)
                 .toList();
     }
 
-    private static List<EurekaInstance> parseEurekaInstances(Response response) {
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Instances are parsed and converted one at a time while the response from Eureka is read. Closing the stream
+     * closes the response.
+     */
+    @Override
+    public Stream<ServiceInstance> streamAllRegisteredInstances() {
+        var response = getAllRegisteredServicesFromEureka(null);
+
+        if (isNull(response)) {
+            return Stream.empty();
+        }
+
+        InputStream responseBody;
+        try {
+            responseBody = response.readEntity(InputStream.class);
+        } catch (RuntimeException e) {
+            closeQuietly(response);
+            throw e;
+        }
+
+        return EurekaResponseParser.streamEurekaApplicationsResponse(responseBody, nativeRegistryData())
+                .onClose(() -> closeQuietly(response))
+                .filter(instance -> ServiceInstance.Status.UP.name().equals(instance.getStatus()))
+                .map(this::toServiceInstance);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The summaries are built in a single pass over one fetch of all registered instances, without converting them to
+     * {@link ServiceInstance}s. Unlike {@link #retrieveAllRegisteredInstances()}, instances of every status are
+     * counted.
+     */
+    @Override
+    public List<ServiceSummary> retrieveServiceSummaries() {
+        var response = getAllRegisteredServicesFromEureka(null);
+
+        if (isNull(response)) {
+            return List.of();
+        }
+
+        var eurekaResponse = response.readEntity(KiwiGenericTypes.MAP_OF_STRING_TO_OBJECT_GENERIC_TYPE);
+        return EurekaResponseParser.summarizeEurekaApplicationsResponse(eurekaResponse);
+    }
+
+    /**
+     * Parse a response containing all registered instances, dropping cached conversions of instances that are no
+     * longer registered.
+     */
+    private List<EurekaInstance> parseAllEurekaInstances(Response response) {
+        var eurekaInstances = parseEurekaInstances(response);
+
+        if (nonNull(instanceCache)) {
+            instanceCache.retainOnly(eurekaInstances);
+        }
+
+        return eurekaInstances;
+    }
+
+    /**
+     * The raw data of each instance is only kept when native data is included, since otherwise it would be retained
+     * for as long as the parsed instances are, e.g. in the shared full fetch.
+     */
+    private List<EurekaInstance> parseEurekaInstances(Response response) {
         var eurekaResponse = response.readEntity(KiwiGenericTypes.MAP_OF_STRING_TO_OBJECT_GENERIC_TYPE);
-        return EurekaResponseParser.parseEurekaApplicationsResponse(eurekaResponse)
+        return EurekaResponseParser.parseEurekaApplicationsResponse(eurekaResponse, nativeRegistryData())
                 .stream()
                 .filter(instance -> ServiceInstance.Status.UP.name().equals(instance.getStatus()))
                 .toList();
     }
 
-    private Response getAllRegisteredServicesFromEureka() {
-        return clientRetryer.call(() -> {
+    private Response getAllRegisteredServicesFromEureka(@Nullable Instant deadline) {
+        var retryer = clientRetryer;
+        Function<String, Response> lookupFunction = client::findAllInstances;
+
+        if (nonNull(deadline)) {
+            checkDeadline("lookup of all service instances", deadline);
+
+            retryer = newDeadlineRetryer(deadline);
+            lookupFunction = targetUrl -> client.findAllInstances(targetUrl, readTimeoutMillisBefore(deadline));
+        }
+
+        var uncheckedLookup = lookupFunction;
+        Function<String, Response> lookup = targetUrl -> requireOk(uncheckedLookup.apply(targetUrl));
+
+        return retryer.call(() -> {
             var targetUrl = urlProvider.getCurrentEurekaUrl();
 
             LOG.debug("Attempting to lookup all service instances using base URL {}", targetUrl);
 
+            urlProvider.acquirePermission(targetUrl);
             try {
-                return client.findAllInstances(targetUrl);
+                var startNanos = System.nanoTime();
+                var response = lookup.apply(targetUrl);
+                urlProvider.recordSuccess(targetUrl, System.nanoTime() - startNanos);
+                return response;
             } catch (Exception e) {
-                urlProvider.getNextEurekaUrl();
+                if (isServerFailure(e)) {
+                    urlProvider.recordFailure(targetUrl);
+                    urlProvider.failOverFrom(targetUrl);
+                } else {
+                    urlProvider.releasePermission(targetUrl);
+                }
                 throw e;
             }
         });
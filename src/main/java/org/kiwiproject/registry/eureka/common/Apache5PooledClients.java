@@ -0,0 +1,68 @@
+package org.kiwiproject.registry.eureka.common;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.glassfish.jersey.apache5.connector.Apache5ClientProperties;
+import org.glassfish.jersey.apache5.connector.Apache5ConnectorProvider;
+import org.glassfish.jersey.apache5.connector.Apache5HttpClientBuilderConfigurator;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.message.GZipEncoder;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Creates Jersey clients backed by a pool of keep-alive connections using {@code jersey-apache5-connector}.
+ * <p>
+ * This is the only class that refers to the connector and Apache HttpClient, so that {@link EurekaRestClient} can
+ * check whether the connector is on the classpath before this class is loaded.
+ */
+@UtilityClass
+class Apache5PooledClients {
+
+    static Client newPooledClient(int connectTimeoutMillis,
+                                  int readTimeoutMillis,
+                                  int maxConnections,
+                                  int maxConnectionsPerUrl,
+                                  int keepAliveSeconds,
+                                  int idleConnectionEvictionSeconds,
+                                  SSLContext sslContext) {
+        var connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .build();
+
+        var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerUrl)
+                .setDefaultConnectionConfig(connectionConfig)
+                .setTlsSocketStrategy(new DefaultClientTlsStrategy(sslContext))
+                .build();
+
+        var keepAlive = TimeValue.ofSeconds(keepAliveSeconds);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> keepAlive;
+
+        var idleEviction = TimeValue.ofSeconds(idleConnectionEvictionSeconds);
+        Apache5HttpClientBuilderConfigurator evictionConfigurator = httpClientBuilder -> httpClientBuilder
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEviction);
+
+        var clientConfig = new ClientConfig()
+                .connectorProvider(new Apache5ConnectorProvider())
+                .register(GZipEncoder.class)
+                .register(evictionConfigurator)
+                .property(Apache5ClientProperties.CONNECTION_MANAGER, connectionManager)
+                .property(Apache5ClientProperties.KEEPALIVE_STRATEGY, keepAliveStrategy)
+                .property(ClientProperties.CONNECT_TIMEOUT, connectTimeoutMillis)
+                .property(ClientProperties.READ_TIMEOUT, readTimeoutMillis);
+
+        return ClientBuilder.newClient(clientConfig);
+    }
+}
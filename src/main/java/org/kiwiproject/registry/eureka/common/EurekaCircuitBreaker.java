@@ -0,0 +1,162 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker for a single Eureka server.
+ * <p>
+ * The breaker starts {@link State#CLOSED CLOSED}. After {@code failureThreshold} consecutive failures it
+ * {@link State#OPEN opens}, and calls to the server are not permitted until {@code openDuration} has elapsed. The next
+ * caller to ask for permission after that becomes the single probe and the breaker is
+ * {@link State#HALF_OPEN HALF_OPEN}; if the probe succeeds the breaker closes, and if it fails the breaker opens again.
+ * A probe that never reports its outcome is abandoned after another {@code openDuration}, after which a new probe is
+ * permitted.
+ * <p>
+ * All state is held in a single {@link AtomicReference}, so the breaker is thread-safe without locking, and checking a
+ * closed breaker costs a single volatile read.
+ */
+public class EurekaCircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+
+        /**
+         * Calls are permitted.
+         */
+        CLOSED,
+
+        /**
+         * Calls are not permitted until the open duration has elapsed.
+         */
+        OPEN,
+
+        /**
+         * A single probe call is in progress; other calls are not permitted.
+         */
+        HALF_OPEN
+    }
+
+    private record Snapshot(State state, int consecutiveFailures, long sinceNanos) {
+    }
+
+    private static final Snapshot CLOSED_SNAPSHOT = new Snapshot(State.CLOSED, 0, 0);
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * Create a new, closed circuit breaker.
+     *
+     * @param failureThreshold the number of consecutive failures that opens the breaker
+     * @param openDuration     how long the breaker stays open before a probe call is permitted
+     */
+    public EurekaCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    EurekaCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoTime) {
+        checkArgument(failureThreshold > 0, "failureThreshold must be positive");
+        checkArgumentNotNull(openDuration, "openDuration must not be null");
+        checkArgument(!openDuration.isNegative(), "openDuration must not be negative");
+
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoTime = nanoTime;
+        this.snapshot = new AtomicReference<>(CLOSED_SNAPSHOT);
+    }
+
+    /**
+     * @return the current state of this breaker
+     */
+    public State getState() {
+        return snapshot.get().state();
+    }
+
+    /**
+     * Check whether a call is permitted, without changing the state of the breaker.
+     *
+     * @return true if {@link #tryAcquirePermission()} would currently return true
+     */
+    public boolean isCallPermitted() {
+        var current = snapshot.get();
+        return current.state() == State.CLOSED || windowElapsed(current);
+    }
+
+    /**
+     * Ask for permission to make a call. If the breaker is open and the open duration has elapsed, the caller that
+     * receives permission becomes the probe and the breaker moves to {@link State#HALF_OPEN HALF_OPEN}.
+     *
+     * @return true if the call is permitted
+     */
+    public boolean tryAcquirePermission() {
+        var current = snapshot.get();
+        if (current.state() == State.CLOSED) {
+            return true;
+        }
+
+        if (!windowElapsed(current)) {
+            return false;
+        }
+
+        var probe = new Snapshot(State.HALF_OPEN, current.consecutiveFailures(), nanoTime.getAsLong());
+        return snapshot.compareAndSet(current, probe);
+    }
+
+    /**
+     * Record a successful call, which closes the breaker.
+     */
+    public void recordSuccess() {
+        if (snapshot.get() != CLOSED_SNAPSHOT) {
+            snapshot.set(CLOSED_SNAPSHOT);
+        }
+    }
+
+    /**
+     * Give back the permission for a call whose outcome says nothing about the health of the server, e.g. because it
+     * was answered with a client error. If the breaker is half-open, it opens again with its open duration already
+     * elapsed, so that the next caller to ask for permission becomes the probe instead.
+     */
+    public void releasePermission() {
+        var current = snapshot.get();
+        if (current.state() == State.HALF_OPEN) {
+            var elapsedSinceNanos = nanoTime.getAsLong() - openDurationNanos;
+            snapshot.compareAndSet(current, new Snapshot(State.OPEN, current.consecutiveFailures(), elapsedSinceNanos));
+        }
+    }
+
+    /**
+     * Record a failed call. The breaker opens if it is half-open (i.e. the probe failed) or if the number of
+     * consecutive failures has reached the threshold. Failures of calls made while the breaker is open, e.g. because
+     * no other server permitted calls, do not extend the time until a probe is permitted.
+     */
+    public void recordFailure() {
+        snapshot.updateAndGet(current -> {
+            if (current.state() == State.OPEN) {
+                return current;
+            }
+
+            var failures = current.consecutiveFailures() + 1;
+            if (current.state() == State.HALF_OPEN || failures >= failureThreshold) {
+                return new Snapshot(State.OPEN, failures, nanoTime.getAsLong());
+            }
+
+            return new Snapshot(State.CLOSED, failures, 0);
+        });
+    }
+
+    private boolean windowElapsed(Snapshot current) {
+        return nanoTime.getAsLong() - current.sinceNanos() >= openDurationNanos;
+    }
+}
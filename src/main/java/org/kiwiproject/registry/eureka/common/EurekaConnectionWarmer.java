@@ -0,0 +1,137 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.jaxrs.KiwiResponses.closeQuietly;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Opens connections to every Eureka server ahead of time and keeps them warm, so that the first lookup after startup
+ * (or after {@link EurekaUrlProvider} fails over to another server) does not pay DNS, TCP, and TLS handshake costs on
+ * the request path.
+ * <p>
+ * Connections are warmed once when {@link #start()} is called, again (for all servers) whenever the URL provider
+ * fails over, and then periodically at the configured keep-warm interval. Warming only has a lasting effect when the
+ * {@link EurekaRestClient} is pooled, e.g. one created via {@link EurekaRestClient#shared(EurekaConfig)}.
+ * <p>
+ * Warming only primes the connection pools. Warm-up requests are not lookups, so their outcomes and latencies are not
+ * reported to the {@link EurekaUrlProvider}, and they neither use nor change its circuit breakers, peer statistics, or
+ * retry budget.
+ */
+@Slf4j
+public class EurekaConnectionWarmer implements Closeable {
+
+    private final EurekaRestClient client;
+    private final EurekaUrlProvider urlProvider;
+    private final List<String> eurekaUrls;
+    private final int keepWarmIntervalSeconds;
+    private final ScheduledExecutorService executor;
+    private final Consumer<String> failoverListener;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client                  the client whose connections should be warmed
+     * @param urlProvider             provides the Eureka URLs to warm, and failover notifications
+     * @param keepWarmIntervalSeconds the interval between keep-warm requests; zero disables periodic warming
+     */
+    public EurekaConnectionWarmer(EurekaRestClient client, EurekaUrlProvider urlProvider, int keepWarmIntervalSeconds) {
+        checkArgumentNotNull(client, "client must not be null");
+        checkArgumentNotNull(urlProvider, "urlProvider must not be null");
+        checkArgument(keepWarmIntervalSeconds >= 0, "keepWarmIntervalSeconds must not be negative");
+
+        this.client = client;
+        this.urlProvider = urlProvider;
+        this.eurekaUrls = urlProvider.getEurekaUrls();
+        this.keepWarmIntervalSeconds = keepWarmIntervalSeconds;
+        this.executor = newWarmerExecutor();
+
+        this.failoverListener = newUrl -> warmAllAsync();
+        urlProvider.addFailoverListener(failoverListener);
+    }
+
+    /**
+     * Create and start a new instance if {@link EurekaConfig#isPrewarmConnections()} is true.
+     *
+     * @param config      the Eureka configuration
+     * @param client      the client whose connections should be warmed
+     * @param urlProvider provides the Eureka URLs to warm, and failover notifications
+     * @return an Optional containing the started warmer, or an empty Optional if pre-warming is disabled
+     */
+    public static Optional<EurekaConnectionWarmer> startIfEnabled(EurekaConfig config,
+                                                                  EurekaRestClient client,
+                                                                  EurekaUrlProvider urlProvider) {
+        if (!config.isPrewarmConnections()) {
+            return Optional.empty();
+        }
+
+        var warmer = new EurekaConnectionWarmer(client, urlProvider, config.getKeepWarmIntervalSeconds());
+        warmer.start();
+        return Optional.of(warmer);
+    }
+
+    /**
+     * Warm connections to all Eureka servers in the background, and schedule periodic keep-warm requests if a
+     * keep-warm interval was specified.
+     */
+    public void start() {
+        warmAllAsync();
+
+        if (keepWarmIntervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::warmAll,
+                    keepWarmIntervalSeconds, keepWarmIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void warmAllAsync() {
+        if (!executor.isShutdown()) {
+            executor.execute(this::warmAll);
+        }
+    }
+
+    /**
+     * Synchronously warm connections to all Eureka servers. Failures are logged and otherwise ignored.
+     */
+    public void warmAll() {
+        eurekaUrls.forEach(this::warm);
+    }
+
+    private void warm(String eurekaUrl) {
+        try {
+            var response = client.warmUp(eurekaUrl);
+            LOG.trace("Warmed connection to {} (status {})", eurekaUrl, response.getStatus());
+            closeQuietly(response);
+        } catch (Exception e) {
+            LOG.debug("Unable to warm connection to {}: {}", eurekaUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * Stop warming connections, including after failovers.
+     */
+    @Override
+    public void close() {
+        urlProvider.removeFailoverListener(failoverListener);
+        executor.shutdownNow();
+    }
+
+    private static ScheduledExecutorService newWarmerExecutor() {
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("eureka-connection-warmer-%d")
+                .setDaemon(true)
+                .build();
+
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+}
@@ -0,0 +1,214 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.kiwiproject.json.JsonHelper;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Non-blocking alternative to {@link EurekaRestClient} that is built on the JDK {@link HttpClient}.
+ * <p>
+ * Every operation returns a {@link CompletableFuture}, so no thread is tied up while a call to Eureka is in flight.
+ * HTTP/2 is requested (falling back to HTTP/1.1 when the Eureka server does not support it) which allows lookups and
+ * heartbeats to be multiplexed over a small number of connections. Responses are requested gzip-compressed and are
+ * transparently decompressed.
+ */
+public class EurekaHttpClient {
+
+    /**
+     * Default amount of time to wait when establishing a connection to Eureka.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(1);
+
+    /**
+     * Default amount of time to wait for a response from Eureka once a request has been sent.
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String ACCEPT = "Accept";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String APPLICATION_JSON = "application/json";
+    private static final String GZIP = "gzip";
+    private static final String EMPTY_JSON_OBJECT = "{}";
+
+    private static final JsonHelper JSON_HELPER = new JsonHelper();
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    /**
+     * Create a new instance using the default connect and request timeouts.
+     */
+    public EurekaHttpClient() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Create a new instance using the given connect and request timeouts.
+     *
+     * @param connectTimeout the maximum time to wait when establishing a connection
+     * @param requestTimeout the maximum time to wait for a response after a request is sent
+     */
+    public EurekaHttpClient(Duration connectTimeout, Duration requestTimeout) {
+        this(newHttpClient(connectTimeout), requestTimeout);
+    }
+
+    /**
+     * Create a new instance using the given (pre-configured) {@link HttpClient}.
+     *
+     * @param httpClient     the JDK HTTP client to use for all calls
+     * @param requestTimeout the maximum time to wait for a response after a request is sent
+     */
+    public EurekaHttpClient(HttpClient httpClient, Duration requestTimeout) {
+        this.httpClient = requireNotNull(httpClient, "httpClient must not be null");
+        this.requestTimeout = requireNotNull(requestTimeout, "requestTimeout must not be null");
+    }
+
+    private static HttpClient newHttpClient(Duration connectTimeout) {
+        checkArgumentNotNull(connectTimeout, "connectTimeout must not be null");
+
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public CompletableFuture<HttpResponse<String>> register(String eurekaUrl,
+                                                            String appId,
+                                                            EurekaInstance instanceToRegister) {
+        var body = JSON_HELPER.toJson(Map.of("instance", instanceToRegister));
+        var request = newRequest(eurekaUrl, "/apps/" + encode(appId))
+                .header(CONTENT_TYPE, APPLICATION_JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body, UTF_8))
+                .build();
+
+        return send(request);
+    }
+
+    public CompletableFuture<HttpResponse<String>> findInstance(String eurekaUrl, String appId, String instanceId) {
+        var request = newRequest(eurekaUrl, appInstancePath(appId, instanceId))
+                .GET()
+                .build();
+
+        return send(request);
+    }
+
+    public CompletableFuture<HttpResponse<String>> findAllInstances(String eurekaUrl) {
+        var request = newRequest(eurekaUrl, "/apps")
+                .GET()
+                .build();
+
+        return send(request);
+    }
+
+    public CompletableFuture<HttpResponse<String>> findInstancesByVipAddress(String eurekaUrl, String vipAddress) {
+        var request = newRequest(eurekaUrl, "/vips/" + encode(vipAddress))
+                .GET()
+                .build();
+
+        return send(request);
+    }
+
+    public CompletableFuture<HttpResponse<String>> updateStatus(String eurekaUrl,
+                                                                String appId,
+                                                                String instanceId,
+                                                                ServiceInstance.Status newStatus) {
+        var path = appInstancePath(appId, instanceId) + "/status?value=" + encode(newStatus.name());
+        var request = newRequest(eurekaUrl, path)
+                .header(CONTENT_TYPE, APPLICATION_JSON)
+                .PUT(HttpRequest.BodyPublishers.ofString(EMPTY_JSON_OBJECT, UTF_8))
+                .build();
+
+        return send(request);
+    }
+
+    public CompletableFuture<HttpResponse<String>> unregister(String eurekaUrl, String appId, String instanceId) {
+        var request = newRequest(eurekaUrl, appInstancePath(appId, instanceId))
+                .DELETE()
+                .build();
+
+        return send(request);
+    }
+
+    public CompletableFuture<HttpResponse<String>> sendHeartbeat(String eurekaUrl, String appId, String instanceId) {
+        var request = newRequest(eurekaUrl, appInstancePath(appId, instanceId))
+                .header(CONTENT_TYPE, APPLICATION_JSON)
+                .PUT(HttpRequest.BodyPublishers.ofString(EMPTY_JSON_OBJECT, UTF_8))
+                .build();
+
+        return send(request);
+    }
+
+    /**
+     * Convert the JSON body of the given response into a map, e.g. for use with {@link EurekaResponseParser}.
+     *
+     * @param response the response from Eureka
+     * @return the response body as a map
+     */
+    public static Map<String, Object> readJsonBody(HttpResponse<String> response) {
+        checkArgumentNotNull(response, "response must not be null");
+        return JSON_HELPER.toMap(response.body());
+    }
+
+    private HttpRequest.Builder newRequest(String eurekaUrl, String path) {
+        return HttpRequest.newBuilder(URI.create(eurekaUrl + path))
+                .timeout(requestTimeout)
+                .header(ACCEPT, APPLICATION_JSON)
+                .header(ACCEPT_ENCODING, GZIP);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, EurekaHttpClient::gzipAwareBodySubscriber);
+    }
+
+    private static String appInstancePath(String appId, String instanceId) {
+        return "/apps/" + encode(appId) + "/" + encode(instanceId);
+    }
+
+    private static String encode(String pathSegment) {
+        return URLEncoder.encode(pathSegment, UTF_8).replace("+", "%20");
+    }
+
+    @VisibleForTesting
+    static HttpResponse.BodySubscriber<String> gzipAwareBodySubscriber(HttpResponse.ResponseInfo responseInfo) {
+        var gzipped = responseInfo.headers()
+                .firstValue(CONTENT_ENCODING)
+                .map(GZIP::equalsIgnoreCase)
+                .orElse(false);
+
+        if (gzipped) {
+            return HttpResponse.BodySubscribers.mapping(
+                    HttpResponse.BodySubscribers.ofByteArray(), EurekaHttpClient::gunzip);
+        }
+
+        return HttpResponse.BodySubscribers.ofString(UTF_8);
+    }
+
+    @VisibleForTesting
+    static String gunzip(byte[] compressed) {
+        try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(inputStream.readAllBytes(), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to decompress gzip response from Eureka", e);
+        }
+    }
+}
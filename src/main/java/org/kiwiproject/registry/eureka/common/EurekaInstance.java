@@ -8,7 +8,10 @@ import static org.kiwiproject.registry.util.Ports.findFirstPortPreferSecure;
 import static org.kiwiproject.registry.util.Ports.findPort;
 import static org.kiwiproject.registry.util.ServiceInstancePaths.urlForPath;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
 import lombok.Builder;
 import lombok.Value;
 import lombok.With;
@@ -22,10 +25,11 @@ import org.kiwiproject.registry.model.ServicePaths;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Instant;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -40,7 +44,7 @@ public class EurekaInstance {
     private static final String DESCRIPTION_FIELD = "description";
     private static final String VERSION_FIELD = "version";
 
-    private static final List<String> METADATA_EXCLUDED_KEYS = List.of(COMMIT_REF_FIELD, DESCRIPTION_FIELD, VERSION_FIELD);
+    private static final Set<String> METADATA_EXCLUDED_KEYS = Set.of(COMMIT_REF_FIELD, DESCRIPTION_FIELD, VERSION_FIELD);
 
     @With
     String app;
@@ -57,6 +61,20 @@ public class EurekaInstance {
     @With
     Map<String, Object> rawResponse;
 
+    /**
+     * The time this instance was last changed, in milliseconds since the epoch, as reported by Eureka. This is only
+     * populated for instances parsed from a Eureka response, and is never sent to Eureka.
+     */
+    @JsonIgnore
+    Long lastDirtyTimestamp;
+
+    /**
+     * The last action Eureka took for this instance, e.g. {@code ADDED} or {@code MODIFIED}. This is only populated
+     * for instances parsed from a Eureka response, and is never sent to Eureka.
+     */
+    @JsonIgnore
+    String actionType;
+
     String hostName;
     String ipAddr;
     String vipAddress;
@@ -138,7 +156,12 @@ public class EurekaInstance {
                 buildApplicationPortOrNull(port, Security.NOT_SECURE),
                 buildApplicationPortOrNull(securePort, Security.SECURE));
 
-        var serviceMetadata = filterMetadata();
+        var serviceMetadata = Maps.<String, String>newHashMapWithExpectedSize(metadata.size() + 1);
+        for (var entry : metadata.entrySet()) {
+            if (!METADATA_EXCLUDED_KEYS.contains(entry.getKey())) {
+                serviceMetadata.put(entry.getKey(), entry.getValue());
+            }
+        }
         serviceMetadata.put("registryType", "EUREKA");
 
         var upSince = nonNull(leaseInfo) && leaseInfo.containsKey("serviceUpTimestamp")
@@ -153,7 +176,7 @@ public class EurekaInstance {
                 .commitRef(metadata.get(COMMIT_REF_FIELD))
                 .description(metadata.get(DESCRIPTION_FIELD))
                 .version(metadata.get(VERSION_FIELD))
-                .metadata(serviceMetadata)
+                .metadata(Collections.unmodifiableMap(serviceMetadata))
                 .paths(buildPaths())
                 .ports(ports)
                 .upSince(upSince)
@@ -166,16 +189,18 @@ public class EurekaInstance {
         return instance.withNativeRegistryData(Map.of());
     }
 
-    private Map<String, String> filterMetadata() {
-        return metadata.entrySet().stream()
-                .filter(entry -> !METADATA_EXCLUDED_KEYS.contains(entry.getKey()))
-                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private static List<Port> portListFromPortsIgnoringNulls(Port adminPort, Port applicationPort, Port securePort) {
+        var ports = new ArrayList<Port>(3);
+        addIfNonNull(ports, adminPort);
+        addIfNonNull(ports, applicationPort);
+        addIfNonNull(ports, securePort);
+        return Collections.unmodifiableList(ports);
     }
 
-    private List<Port> portListFromPortsIgnoringNulls(Port... ports) {
-        return Arrays.stream(ports)
-                .filter(Objects::nonNull)
-                .toList();
+    private static void addIfNonNull(List<Port> ports, Port port) {
+        if (nonNull(port)) {
+            ports.add(port);
+        }
     }
 
     private Port buildAdminPortOrNull() {
@@ -213,7 +238,80 @@ public class EurekaInstance {
                 .build();
     }
 
-    private String extractPathOrDefault(String url, String defaultPath) {
+    /**
+     * Eureka URLs are almost always http or https, so their path is found without creating a {@link URL}. Other URLs
+     * are parsed using {@link URL}.
+     */
+    @VisibleForTesting
+    static String extractPathOrDefault(String url, String defaultPath) {
+        if (isNull(url)) {
+            return defaultPath;
+        }
+
+        var authorityStart = httpAuthorityStart(url);
+        if (authorityStart < 0) {
+            return extractPathUsingUrlOrDefault(url, defaultPath);
+        }
+
+        var authorityEnd = indexOfAny(url, authorityStart, "/?#");
+        if (!hasNumericOrNoPort(url, authorityStart, authorityEnd)) {
+            // URL rejects these, so it decides the result
+            return extractPathUsingUrlOrDefault(url, defaultPath);
+        }
+
+        if (authorityEnd == url.length() || url.charAt(authorityEnd) != '/') {
+            return "";
+        }
+
+        var pathEnd = indexOfAny(url, authorityEnd, "?#");
+        return url.substring(authorityEnd, pathEnd);
+    }
+
+    /**
+     * @return the index after "http://" or "https://" (ignoring case), or -1 if the URL has neither scheme
+     */
+    private static int httpAuthorityStart(String url) {
+        if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            return 7;
+        }
+
+        if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            return 8;
+        }
+
+        return -1;
+    }
+
+    private static boolean hasNumericOrNoPort(String url, int authorityStart, int authorityEnd) {
+        for (var i = authorityEnd - 1; i >= authorityStart; i--) {
+            var c = url.charAt(i);
+            if (c == ':') {
+                return true;
+            }
+
+            if (!Character.isDigit(c)) {
+                // Only invalid if the nearest ':' before here separates a port, i.e. is not in user info or IPv6
+                var colonIndex = url.lastIndexOf(':', i);
+                return colonIndex < authorityStart
+                        || url.lastIndexOf(']', i) > colonIndex
+                        || url.lastIndexOf('@', i) > colonIndex;
+            }
+        }
+
+        return true;
+    }
+
+    private static int indexOfAny(String value, int fromIndex, String chars) {
+        for (var i = fromIndex; i < value.length(); i++) {
+            if (chars.indexOf(value.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+
+        return value.length();
+    }
+
+    private static String extractPathUsingUrlOrDefault(String url, String defaultPath) {
         try {
             return new URL(url).getPath();
         } catch (MalformedURLException e) {
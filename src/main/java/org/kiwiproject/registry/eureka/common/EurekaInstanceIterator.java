@@ -0,0 +1,203 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.isNull;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kiwiproject.registry.model.NativeRegistryData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the instances in a Eureka applications ({@code /apps}) response while it is being read, so that only one
+ * instance at a time is held in memory rather than the whole response.
+ * <p>
+ * As with {@link EurekaResponseParser#parseEurekaApplicationsResponse(Map)}, the {@code application} and
+ * {@code instance} values may each be either a single object or an array of objects. Fields other than these are
+ * skipped without being parsed.
+ */
+class EurekaInstanceIterator implements Iterator<EurekaInstance>, Closeable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> INSTANCE_DATA_TYPE = new TypeReference<>() {
+    };
+
+    private final JsonParser parser;
+    private final NativeRegistryData nativeRegistryData;
+    private boolean started;
+    private boolean finished;
+    private boolean inApplicationArray;
+    private boolean inApplication;
+    private boolean applicationHasInstances;
+    private boolean inInstanceArray;
+    private EurekaInstance next;
+
+    EurekaInstanceIterator(InputStream inputStream, NativeRegistryData nativeRegistryData) {
+        this.nativeRegistryData = nativeRegistryData;
+        try {
+            this.parser = OBJECT_MAPPER.createParser(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read Eureka applications response", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (isNull(next) && !finished) {
+            try {
+                next = readNextInstance();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Unable to read Eureka applications response", e);
+            }
+
+            if (isNull(next)) {
+                close();
+            }
+        }
+
+        return !isNull(next);
+    }
+
+    @Override
+    public EurekaInstance next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        var instance = next;
+        next = null;
+        return instance;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close Eureka applications response", e);
+        }
+    }
+
+    private EurekaInstance readNextInstance() throws IOException {
+        if (!started) {
+            started = true;
+            if (!moveToApplications()) {
+                return null;
+            }
+        }
+
+        while (true) {
+            if (inInstanceArray) {
+                var token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    return readInstance();
+                }
+                inInstanceArray = false;
+            } else if (inApplication) {
+                var token = parser.nextToken();
+                if (token == JsonToken.FIELD_NAME) {
+                    var instance = readApplicationField();
+                    if (!isNull(instance)) {
+                        return instance;
+                    }
+                } else {
+                    checkArgument(applicationHasInstances, "Instance data from Eureka can not be null");
+                    inApplication = false;
+                    if (!inApplicationArray) {
+                        return null;
+                    }
+                }
+            } else if (inApplicationArray && parser.nextToken() == JsonToken.START_OBJECT) {
+                startApplication();
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Move to the value of {@code applications.application}.
+     *
+     * @return true if there are applications to read
+     */
+    private boolean moveToApplications() throws IOException {
+        checkState(parser.nextToken() == JsonToken.START_OBJECT && moveToField("applications")
+                        && parser.currentToken() == JsonToken.START_OBJECT,
+                "Eureka data must contain a key 'applications' that contains a Map<String, Object>");
+
+        if (!moveToField("application")) {
+            return false;
+        }
+
+        switch (parser.currentToken()) {
+            case START_ARRAY -> inApplicationArray = true;
+            case START_OBJECT -> startApplication();
+            default -> {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Move to the value of the named field in the current object, skipping any other fields.
+     *
+     * @return true if the field was found, false if the end of the object was reached
+     */
+    private boolean moveToField(String fieldName) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            if (fieldName.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+
+        return false;
+    }
+
+    private void startApplication() {
+        inApplication = true;
+        applicationHasInstances = false;
+    }
+
+    private EurekaInstance readApplicationField() throws IOException {
+        var name = parser.currentName();
+        var token = parser.nextToken();
+
+        if (!"instance".equals(name)) {
+            parser.skipChildren();
+            return null;
+        }
+
+        checkArgument(token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT,
+                "Instance data from Eureka can not be null");
+        applicationHasInstances = true;
+
+        if (token == JsonToken.START_ARRAY) {
+            inInstanceArray = true;
+            return null;
+        }
+
+        return readInstance();
+    }
+
+    private EurekaInstance readInstance() throws IOException {
+        Map<String, Object> instanceData = parser.readValueAs(INSTANCE_DATA_TYPE);
+        return EurekaResponseParser.buildInstance(instanceData, nativeRegistryData);
+    }
+}
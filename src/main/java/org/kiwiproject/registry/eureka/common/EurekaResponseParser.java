@@ -2,10 +2,10 @@ package org.kiwiproject.registry.eureka.common;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
-import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.kiwiproject.base.KiwiObjects.firstNonNullOrNull;
 import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 
@@ -13,18 +13,114 @@ import com.google.common.annotations.VisibleForTesting;
 import lombok.experimental.UtilityClass;
 import org.jspecify.annotations.Nullable;
 import org.kiwiproject.net.KiwiInternetAddresses;
+import org.kiwiproject.registry.model.NativeRegistryData;
+import org.kiwiproject.registry.model.ServiceSummary;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @UtilityClass
 public class EurekaResponseParser {
 
     private static final String INSTANCE_KEY = "instance";
+    private static final String VERSION_KEY = "version";
 
-    @SuppressWarnings("unchecked")
     public static List<EurekaInstance> parseEurekaApplicationsResponse(Map<String, Object> eurekaResponse) {
+        return parseEurekaApplicationsResponse(eurekaResponse, NativeRegistryData.INCLUDE_NATIVE_DATA);
+    }
+
+    /**
+     * Parse a Eureka applications response, keeping the raw data of each instance only if native data is included.
+     * Dropping the raw data lets it be garbage collected along with the response, instead of being retained for as
+     * long as the parsed instances are.
+     *
+     * @param eurekaResponse     the response from the Eureka {@code /apps} endpoint
+     * @param nativeRegistryData whether to keep the raw data of each instance in {@link EurekaInstance#getRawResponse()}
+     * @return the instances in the response
+     */
+    public static List<EurekaInstance> parseEurekaApplicationsResponse(Map<String, Object> eurekaResponse,
+                                                                       NativeRegistryData nativeRegistryData) {
+        var eurekaInstances = new ArrayList<EurekaInstance>();
+        forEachInstance(eurekaResponse,
+                instanceData -> eurekaInstances.add(buildInstance(instanceData, nativeRegistryData)));
+        return eurekaInstances;
+    }
+
+    /**
+     * Parse a Eureka applications response lazily while it is read from the given stream, so that memory use is
+     * proportional to one instance rather than to the whole response.
+     * <p>
+     * The returned stream must be closed, e.g. using try-with-resources, unless it is fully consumed. Closing it closes
+     * the input stream.
+     *
+     * @param eurekaResponse the response body from the Eureka {@code /apps} endpoint
+     * @return a sequential stream of the instances in the response
+     */
+    public static Stream<EurekaInstance> streamEurekaApplicationsResponse(InputStream eurekaResponse) {
+        return streamEurekaApplicationsResponse(eurekaResponse, NativeRegistryData.INCLUDE_NATIVE_DATA);
+    }
+
+    /**
+     * Parse a Eureka applications response lazily while it is read from the given stream, keeping the raw data of
+     * each instance only if native data is included.
+     * <p>
+     * The returned stream must be closed, e.g. using try-with-resources, unless it is fully consumed. Closing it closes
+     * the input stream.
+     *
+     * @param eurekaResponse     the response body from the Eureka {@code /apps} endpoint
+     * @param nativeRegistryData whether to keep the raw data of each instance in {@link EurekaInstance#getRawResponse()}
+     * @return a sequential stream of the instances in the response
+     */
+    public static Stream<EurekaInstance> streamEurekaApplicationsResponse(InputStream eurekaResponse,
+                                                                          NativeRegistryData nativeRegistryData) {
+        checkArgumentNotNull(eurekaResponse, "Eureka applications response must not be null");
+        checkArgumentNotNull(nativeRegistryData, "nativeRegistryData must not be null");
+
+        var iterator = new EurekaInstanceIterator(eurekaResponse, nativeRegistryData);
+        var spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Summarize the services in a Eureka applications response in a single pass over the response, without building
+     * an {@link EurekaInstance} for each instance. Services are identified by VIP address, which is the service name
+     * of the corresponding {@link org.kiwiproject.registry.model.ServiceInstance}s. Instances of every status are
+     * counted.
+     *
+     * @param eurekaResponse the response from the Eureka {@code /apps} endpoint
+     * @return a summary of each service, sorted by service name
+     */
+    public static List<ServiceSummary> summarizeEurekaApplicationsResponse(Map<String, Object> eurekaResponse) {
+        var tallies = new TreeMap<String, ServiceSummary.Tally>();
+
+        forEachInstance(eurekaResponse, instanceData -> {
+            var vipAddress = getStringOrNull(instanceData, "vipAddress");
+            if (isNull(vipAddress)) {
+                return;
+            }
+
+            @SuppressWarnings("unchecked")
+            var metadataMap = (Map<String, String>) instanceData.get("metadata");
+            var version = isNull(metadataMap) ? null : metadataMap.get(VERSION_KEY);
+            var status = firstNonNullOrNull(getStringOrNull(instanceData, "status"), ServiceSummary.UNKNOWN_STATUS);
+
+            tallies.computeIfAbsent(vipAddress, ServiceSummary::tally).add(status, version);
+        });
+
+        return tallies.values().stream().map(ServiceSummary.Tally::toSummary).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void forEachInstance(Map<String, Object> eurekaResponse, Consumer<Map<String, Object>> instanceConsumer) {
         checkArgumentNotNull(eurekaResponse, "Eureka applications response must not be null");
 
         var applications = (Map<String, Object>) eurekaResponse.get("applications");
@@ -33,35 +129,28 @@ public class EurekaResponseParser {
 
         var applicationOrApplicationList = applications.get("application");
 
-        var eurekaInstances = new ArrayList<EurekaInstance>();
-
         if (nonNull(applicationOrApplicationList)) {
             if (applicationOrApplicationList instanceof List<?>) {
                 for (Map<String, Object> application : (List<Map<String, Object>>) applicationOrApplicationList) {
                     var instances = application.get(INSTANCE_KEY);
-                    eurekaInstances.addAll(parseInstances(instances));
+                    forEachInstanceIn(instances, instanceConsumer);
                 }
             } else {
-                eurekaInstances.addAll(parseInstances(((Map<String, Object>) applicationOrApplicationList).get(INSTANCE_KEY)));
+                forEachInstanceIn(((Map<String, Object>) applicationOrApplicationList).get(INSTANCE_KEY), instanceConsumer);
             }
         }
-
-        return eurekaInstances;
     }
 
     @SuppressWarnings("unchecked")
-    private static List<EurekaInstance> parseInstances(Object instanceOrInstanceList) {
+    private static void forEachInstanceIn(Object instanceOrInstanceList, Consumer<Map<String, Object>> instanceConsumer) {
         checkArgumentNotNull(instanceOrInstanceList, "Instance data from Eureka can not be null");
 
         if (instanceOrInstanceList instanceof List<?>) {
-            var instanceList = (List<Map<String, Object>>) instanceOrInstanceList;
-            return instanceList.stream()
-                    .map(EurekaResponseParser::buildInstance)
-                    .toList();
+            ((List<Map<String, Object>>) instanceOrInstanceList).forEach(instanceConsumer);
+            return;
         }
 
-        var instance = (Map<String, Object>) instanceOrInstanceList;
-        return newArrayList(buildInstance(instance));
+        instanceConsumer.accept((Map<String, Object>) instanceOrInstanceList);
     }
 
     public static EurekaInstance parseEurekaInstanceResponse(Map<String, Object> eurekaResponse) {
@@ -76,8 +165,12 @@ public class EurekaResponseParser {
         return buildInstance(instance);
     }
 
+    static EurekaInstance buildInstance(Map<String, Object> instanceData) {
+        return buildInstance(instanceData, NativeRegistryData.INCLUDE_NATIVE_DATA);
+    }
+
     @SuppressWarnings("unchecked")
-    private static EurekaInstance buildInstance(Map<String, Object> instanceData) {
+    static EurekaInstance buildInstance(Map<String, Object> instanceData, NativeRegistryData nativeRegistryData) {
 
         var portMap = (Map<String, Object>) instanceData.get("port");
         var securePortMap = (Map<String, Object>) instanceData.get("securePort");
@@ -106,7 +199,9 @@ public class EurekaResponseParser {
                 .adminPort(adminPort)
                 .leaseInfo(leaseInfo)
                 .metadata(metadataMap)
-                .rawResponse(instanceData)
+                .lastDirtyTimestamp(getLongOrNull(instanceData, "lastDirtyTimestamp"))
+                .actionType(getStringOrNull(instanceData, "actionType"))
+                .rawResponse(nativeRegistryData == NativeRegistryData.INCLUDE_NATIVE_DATA ? instanceData : Map.of())
                 .build();
     }
 
@@ -132,6 +227,27 @@ public class EurekaResponseParser {
         return (String) value;
     }
 
+    /**
+     * Eureka's JSON codec writes some numeric fields, such as {@code lastDirtyTimestamp}, as strings.
+     */
+    private static <K> Long getLongOrNull(final Map<? super K, ?> map, final K key) {
+        var value = map.get(key);
+
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+
+        if (value instanceof String string && isNotBlank(string)) {
+            try {
+                return Long.parseLong(string.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
     @VisibleForTesting
     static int getAdminPort(@Nullable String url) {
         if (isBlank(url)) {
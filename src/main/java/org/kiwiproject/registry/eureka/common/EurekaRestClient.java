@@ -4,18 +4,62 @@ import static jakarta.ws.rs.client.Entity.json;
 import static jakarta.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static java.util.Objects.isNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+import static org.kiwiproject.jaxrs.KiwiResponses.closeQuietly;
 
+import com.google.common.annotations.VisibleForTesting;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.Response;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.message.GZipEncoder;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.registry.config.RegistryCallLimitsConfig;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
 import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.util.RegistryCallLimiter;
+import org.kiwiproject.registry.util.RegistryCallLimiter.Lane;
 
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-@AllArgsConstructor
+/**
+ * Jersey-based client for the Eureka REST API.
+ * <p>
+ * The no-arg constructor creates a client using Jersey's default connector. Use {@link #EurekaRestClient(EurekaConfig)}
+ * or {@link #shared(EurekaConfig)} to create a client backed by a pool of keep-alive connections, which uses
+ * {@code jersey-apache5-connector} when it is on the classpath. Without it, these clients fall back to Jersey's default
+ * connector, which reuses connections through the JDK's keep-alive cache rather than a pool of their own, and a warning
+ * is logged. Pooled clients use their own {@link SSLContext} whose
+ * client session cache is sized using {@link EurekaConfig#getTlsSessionCacheSize()} and
+ * {@link EurekaConfig#getTlsSessionTimeoutSeconds()}, so that new connections to a Eureka server can resume an existing
+ * TLS session rather than performing a full handshake. Unless a context is given, it uses the key store and trust
+ * store named by the standard {@code javax.net.ssl} system properties, as the JDK's default context does, so that
+ * mutual TLS keeps working.
+ * <p>
+ * Pooled clients also enforce the {@link EurekaConfig#getCallLimits() call limits} in the configuration, and send
+ * registration, status updates, unregistration, and heartbeats through a small, separate connection pool, so that a
+ * flood of lookups cannot delay heartbeats until the lease expires.
+ */
+@Slf4j
 public class EurekaRestClient {
 
     @SuppressWarnings("java:S1075")
@@ -23,88 +67,403 @@ public class EurekaRestClient {
 
     private static final String APP_ID = "appId";
     private static final String INSTANCE_ID = "instanceId";
-    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 1_000;
-    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 5_000;
 
+    private static final int REGISTRATION_MAX_CONNECTIONS = 4;
+    private static final int REGISTRATION_MAX_CONNECTIONS_PER_URL = 2;
+
+    private static final ConcurrentMap<PoolSettings, EurekaRestClient> SHARED_CLIENTS = new ConcurrentHashMap<>();
+
+    private static final boolean APACHE5_CONNECTOR_AVAILABLE =
+            isClassPresent("org.glassfish.jersey.apache5.connector.Apache5ConnectorProvider");
+
+    private static final AtomicBoolean MISSING_CONNECTOR_LOGGED = new AtomicBoolean();
+
+    @VisibleForTesting
+    @Getter(AccessLevel.PACKAGE)
     private final Client client;
 
+    @VisibleForTesting
+    @Getter(AccessLevel.PACKAGE)
+    private final Client registrationClient;
+    private final OperationTimeouts timeouts;
+    private final RegistryCallLimiter limiter;
+
     public EurekaRestClient() {
         this(newClient());
     }
 
+    public EurekaRestClient(Client client) {
+        this(client, client, OperationTimeouts.NONE, RegistryCallLimiter.unlimited());
+    }
+
+    private EurekaRestClient(Client client,
+                             Client registrationClient,
+                             OperationTimeouts timeouts,
+                             RegistryCallLimiter limiter) {
+        this.client = client;
+        this.registrationClient = registrationClient;
+        this.timeouts = timeouts;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Create a new client backed by its own pool of keep-alive connections, configured from the given
+     * {@link EurekaConfig}.
+     *
+     * @param config the configuration containing the timeout and connection pool settings
+     * @see #shared(EurekaConfig)
+     */
+    public EurekaRestClient(EurekaConfig config) {
+        this(PoolSettings.from(config, null));
+    }
+
+    /**
+     * Create a new client backed by its own pool of keep-alive connections, configured from the given
+     * {@link EurekaConfig}, which uses the given {@link SSLContext}, e.g. one holding the client certificate for mutual
+     * TLS. The TLS session cache settings in the configuration are applied to the given context.
+     *
+     * @param config     the configuration containing the timeout and connection pool settings
+     * @param sslContext the context used for TLS connections to Eureka
+     * @see #shared(EurekaConfig, SSLContext)
+     */
+    public EurekaRestClient(EurekaConfig config, SSLContext sslContext) {
+        this(PoolSettings.from(config, requireNotNull(sslContext, "sslContext must not be null")));
+    }
+
+    private EurekaRestClient(PoolSettings settings) {
+        this(settings, newSslContext(settings));
+    }
+
+    private EurekaRestClient(PoolSettings settings, SSLContext sslContext) {
+        this(newPooledClient(settings, sslContext, settings.maxConnections(), settings.maxConnectionsPerUrl()),
+                newPooledClient(settings, sslContext, REGISTRATION_MAX_CONNECTIONS, REGISTRATION_MAX_CONNECTIONS_PER_URL),
+                settings.timeouts(),
+                new RegistryCallLimiter(settings.callLimits().toConfig()));
+    }
+
+    /**
+     * Return a pooled client that is shared by all callers in the JVM which use the same timeout and connection
+     * pool settings. Using a shared client allows registration, heartbeats, and lookups from all Eureka components to
+     * reuse the same connections rather than paying TCP and TLS setup on every call.
+     * <p>
+     * Clients returned by this method live for the lifetime of the JVM.
+     *
+     * @param config the configuration containing the timeout and connection pool settings
+     * @return the shared client for the given settings
+     */
+    public static EurekaRestClient shared(EurekaConfig config) {
+        var settings = PoolSettings.from(config, null);
+        return SHARED_CLIENTS.computeIfAbsent(settings, EurekaRestClient::new);
+    }
+
+    /**
+     * Return a pooled client that is shared by all callers in the JVM which use the same timeout and connection
+     * pool settings and the same {@link SSLContext}.
+     *
+     * @param config     the configuration containing the timeout and connection pool settings
+     * @param sslContext the context used for TLS connections to Eureka
+     * @return the shared client for the given settings and context
+     * @see #shared(EurekaConfig)
+     */
+    public static EurekaRestClient shared(EurekaConfig config, SSLContext sslContext) {
+        var settings = PoolSettings.from(config, requireNotNull(sslContext, "sslContext must not be null"));
+        return SHARED_CLIENTS.computeIfAbsent(settings, EurekaRestClient::new);
+    }
+
     private static Client newClient() {
         return ClientBuilder.newClient()
                 .register(GZipEncoder.class)
-                .property(ClientProperties.CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT_MILLIS)
-                .property(ClientProperties.READ_TIMEOUT, DEFAULT_READ_TIMEOUT_MILLIS);
+                .property(ClientProperties.CONNECT_TIMEOUT, EurekaConfig.DEFAULT_CONNECT_TIMEOUT_MILLIS)
+                .property(ClientProperties.READ_TIMEOUT, EurekaConfig.DEFAULT_READ_TIMEOUT_MILLIS);
     }
 
-    public Response register(String eurekaUrl, String appId, EurekaInstance instanceToRegister) {
+    private static Client newPooledClient(PoolSettings settings,
+                                          SSLContext sslContext,
+                                          int maxConnections,
+                                          int maxConnectionsPerUrl) {
+        if (!APACHE5_CONNECTOR_AVAILABLE) {
+            return newDefaultConnectorClient(settings, sslContext);
+        }
+
+        return Apache5PooledClients.newPooledClient(
+                settings.connectTimeoutMillis(),
+                settings.readTimeoutMillis(),
+                maxConnections,
+                maxConnectionsPerUrl,
+                settings.keepAliveSeconds(),
+                settings.idleConnectionEvictionSeconds(),
+                sslContext);
+    }
+
+    private static Client newDefaultConnectorClient(PoolSettings settings, SSLContext sslContext) {
+        if (MISSING_CONNECTOR_LOGGED.compareAndSet(false, true)) {
+            LOG.warn("jersey-apache5-connector is not on the classpath, so Jersey's default connector is used"
+                    + " and connections to Eureka are not pooled");
+        }
+
+        return ClientBuilder.newBuilder()
+                .sslContext(sslContext)
+                .register(GZipEncoder.class)
+                .property(ClientProperties.CONNECT_TIMEOUT, settings.connectTimeoutMillis())
+                .property(ClientProperties.READ_TIMEOUT, settings.readTimeoutMillis())
+                .build();
+    }
+
+    private static boolean isClassPresent(String className) {
+        try {
+            Class.forName(className, false, EurekaRestClient.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static SSLContext newSslContext(PoolSettings settings) {
+        var sslContext = settings.sslContext();
+        if (isNull(sslContext)) {
+            try {
+                sslContext = newDefaultSslContext();
+            } catch (GeneralSecurityException | IOException e) {
+                throw new IllegalStateException("Unable to create SSLContext for Eureka connections", e);
+            }
+        }
+
+        var sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(settings.tlsSessionCacheSize());
+        sessionContext.setSessionTimeout(settings.tlsSessionTimeoutSeconds());
+
+        return sslContext;
+    }
+
+    /**
+     * Create a context with the same key and trust managers as the JDK's default context, but with its own session
+     * cache. Initializing a context with no key managers would leave out the client certificate named by the
+     * {@code javax.net.ssl.keyStore} system property.
+     */
+    private static SSLContext newDefaultSslContext() throws GeneralSecurityException, IOException {
+        var keyStorePassword = System.getProperty("javax.net.ssl.keyStorePassword", "").toCharArray();
+        var keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(systemKeyStoreOrNull(keyStorePassword), keyStorePassword);
+
+        var trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init((KeyStore) null);
+
+        var sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    @Nullable
+    private static KeyStore systemKeyStoreOrNull(char[] password) throws GeneralSecurityException, IOException {
+        var keyStorePath = System.getProperty("javax.net.ssl.keyStore");
+        if (isBlank(keyStorePath)) {
+            return null;
+        }
+
+        var keyStoreType = System.getProperty("javax.net.ssl.keyStoreType", KeyStore.getDefaultType());
+        var keyStore = KeyStore.getInstance(keyStoreType);
+        try (var inputStream = Files.newInputStream(Path.of(keyStorePath))) {
+            keyStore.load(inputStream, password);
+        }
+        return keyStore;
+    }
+
+    /**
+     * The settings that determine whether two configurations can share the same pooled client.
+     */
+    private record PoolSettings(int connectTimeoutMillis,
+                                int readTimeoutMillis,
+                                int maxConnections,
+                                int maxConnectionsPerUrl,
+                                int keepAliveSeconds,
+                                int idleConnectionEvictionSeconds,
+                                int tlsSessionCacheSize,
+                                int tlsSessionTimeoutSeconds,
+                                OperationTimeouts timeouts,
+                                CallLimits callLimits,
+                                @Nullable SSLContext sslContext) {
+
+        static PoolSettings from(EurekaConfig config, @Nullable SSLContext sslContext) {
+            checkArgumentNotNull(config, "config must not be null");
+
+            return new PoolSettings(
+                    config.getConnectTimeoutMillis(),
+                    config.getReadTimeoutMillis(),
+                    config.getMaxConnections(),
+                    config.getMaxConnectionsPerUrl(),
+                    config.getKeepAliveSeconds(),
+                    config.getIdleConnectionEvictionSeconds(),
+                    config.getTlsSessionCacheSize(),
+                    config.getTlsSessionTimeoutSeconds(),
+                    new OperationTimeouts(
+                            config.getLookupTimeoutMillis(),
+                            config.getRegistrationTimeoutMillis(),
+                            config.getHeartbeatTimeoutMillis()),
+                    CallLimits.from(config.getCallLimits()),
+                    sslContext);
+        }
+    }
+
+    /**
+     * An immutable copy of the call limits, so that they can be part of the key for shared clients.
+     */
+    private record CallLimits(int maxConcurrentLookups,
+                              int maxLookupsPerSecond,
+                              int maxConcurrentRegistrationCalls,
+                              int maxRegistrationCallsPerSecond,
+                              int maxWaitMillis) {
+
+        static CallLimits from(RegistryCallLimitsConfig config) {
+            checkArgumentNotNull(config, "callLimits must not be null");
+
+            return new CallLimits(
+                    config.getMaxConcurrentLookups(),
+                    config.getMaxLookupsPerSecond(),
+                    config.getMaxConcurrentRegistrationCalls(),
+                    config.getMaxRegistrationCallsPerSecond(),
+                    config.getMaxWaitMillis());
+        }
+
+        RegistryCallLimitsConfig toConfig() {
+            var config = new RegistryCallLimitsConfig();
+            config.setMaxConcurrentLookups(maxConcurrentLookups);
+            config.setMaxLookupsPerSecond(maxLookupsPerSecond);
+            config.setMaxConcurrentRegistrationCalls(maxConcurrentRegistrationCalls);
+            config.setMaxRegistrationCallsPerSecond(maxRegistrationCallsPerSecond);
+            config.setMaxWaitMillis(maxWaitMillis);
+            return config;
+        }
+    }
+
+    /**
+     * Read timeouts (in milliseconds) for each kind of operation. Zero means use the client's read timeout.
+     */
+    private record OperationTimeouts(int lookupMillis, int registrationMillis, int heartbeatMillis) {
+
+        static final OperationTimeouts NONE = new OperationTimeouts(0, 0, 0);
+    }
+
+    private static Invocation.Builder request(WebTarget target, int readTimeoutMillis) {
+        var builder = target.request().accept(APPLICATION_JSON_TYPE);
+
+        if (readTimeoutMillis > 0) {
+            return builder.property(ClientProperties.READ_TIMEOUT, readTimeoutMillis);
+        }
+
+        return builder;
+    }
+
+    /**
+     * Send a lightweight request to the given Eureka server so that a connection to it is established (or kept alive)
+     * in the connection pool. The request is a HEAD of the Eureka URL itself, which no resource handles, so that Eureka
+     * does not read its registry to answer it; a HEAD of {@code /apps} would build the whole registry response just to
+     * discard it. Any response shows that the connection works, so it is usually a 404 rather than a success. Callers
+     * should close the returned response.
+     * <p>
+     * Pooled clients send registration and heartbeats through a separate pool, so a connection is also established in
+     * that pool, and the response for it is closed here. The returned response is the one for the lookup pool.
+     *
+     * @param eurekaUrl the Eureka server to connect to
+     * @return the response from Eureka
+     */
+    public Response warmUp(String eurekaUrl) {
+        if (registrationClient != client) {
+            closeQuietly(head(registrationClient, eurekaUrl));
+        }
+
+        return head(client, eurekaUrl);
+    }
+
+    private static Response head(Client client, String eurekaUrl) {
         return client.target(eurekaUrl)
-                .path("/apps/{appId}")
-                .resolveTemplate(APP_ID, appId)
                 .request()
-                .accept(APPLICATION_JSON_TYPE)
+                .head();
+    }
+
+    public Response register(String eurekaUrl, String appId, EurekaInstance instanceToRegister) {
+        var target = registrationClient.target(eurekaUrl)
+                .path("/apps/{appId}")
+                .resolveTemplate(APP_ID, appId);
+
+        return limiter.call(Lane.REGISTRATION, () -> request(target, timeouts.registrationMillis())
                 .header(CONTENT_TYPE, APPLICATION_JSON)
-                .post(json(Map.of("instance", instanceToRegister)));
+                .post(json(Map.of("instance", instanceToRegister))));
     }
 
     public Response findInstance(String eurekaUrl, String appId, String instanceId) {
-        return client.target(eurekaUrl)
+        var target = registrationClient.target(eurekaUrl)
                 .path(APP_INSTANCE_PATH_TEMPLATE)
                 .resolveTemplate(APP_ID, appId)
-                .resolveTemplate(INSTANCE_ID, instanceId)
-                .request()
-                .accept(APPLICATION_JSON_TYPE)
-                .get();
+                .resolveTemplate(INSTANCE_ID, instanceId);
+
+        return limiter.call(Lane.REGISTRATION, () -> request(target, timeouts.registrationMillis()).get());
     }
 
     public Response findAllInstances(String eurekaUrl) {
-        return client.target(eurekaUrl)
-                .path("/apps")
-                .request()
-                .accept(APPLICATION_JSON_TYPE)
-                .get();
+        return findAllInstances(eurekaUrl, timeouts.lookupMillis());
+    }
+
+    /**
+     * Find all instances, waiting at most {@code readTimeoutMillis} for a response.
+     *
+     * @param eurekaUrl         the Eureka server to call
+     * @param readTimeoutMillis the read timeout for this request; zero means use the client's read timeout
+     * @return the response from Eureka
+     */
+    public Response findAllInstances(String eurekaUrl, int readTimeoutMillis) {
+        var target = client.target(eurekaUrl)
+                .path("/apps");
+
+        return limiter.call(Lane.LOOKUP, () -> request(target, readTimeoutMillis).get());
     }
 
     public Response findInstancesByVipAddress(String eurekaUrl, String vipAddress) {
-        return client.target(eurekaUrl)
+        return findInstancesByVipAddress(eurekaUrl, vipAddress, timeouts.lookupMillis());
+    }
+
+    /**
+     * Find instances by VIP address, waiting at most {@code readTimeoutMillis} for a response. Useful when the caller
+     * has a deadline that is shorter than the configured timeout.
+     *
+     * @param eurekaUrl         the Eureka server to call
+     * @param vipAddress        the VIP address to look up
+     * @param readTimeoutMillis the read timeout for this request; zero means use the client's read timeout
+     * @return the response from Eureka
+     */
+    public Response findInstancesByVipAddress(String eurekaUrl, String vipAddress, int readTimeoutMillis) {
+        var target = client.target(eurekaUrl)
                 .path("/vips/{vipAddress}")
-                .resolveTemplate("vipAddress", vipAddress)
-                .request()
-                .accept(APPLICATION_JSON_TYPE)
-                .get();
+                .resolveTemplate("vipAddress", vipAddress);
+
+        return limiter.call(Lane.LOOKUP, () -> request(target, readTimeoutMillis).get());
     }
 
     public Response updateStatus(String eurekaUrl, String appId, String instanceId, ServiceInstance.Status newStatus) {
-        return client.target(eurekaUrl)
+        var target = registrationClient.target(eurekaUrl)
                 .path(APP_INSTANCE_PATH_TEMPLATE)
                 .path("status")
                 .resolveTemplate(APP_ID, appId)
                 .resolveTemplate(INSTANCE_ID, instanceId)
-                .queryParam("value", newStatus.name())
-                .request()
-                .accept(APPLICATION_JSON_TYPE)
-                .put(json("{}"));
+                .queryParam("value", newStatus.name());
+
+        return limiter.call(Lane.REGISTRATION, () -> request(target, timeouts.registrationMillis()).put(json("{}")));
     }
 
     public Response unregister(String eurekaUrl, String appId, String instanceId) {
-        return client.target(eurekaUrl)
+        var target = registrationClient.target(eurekaUrl)
                 .path(APP_INSTANCE_PATH_TEMPLATE)
                 .resolveTemplate(APP_ID, appId)
-                .resolveTemplate(INSTANCE_ID, instanceId)
-                .request()
-                .accept(APPLICATION_JSON_TYPE)
-                .delete();
+                .resolveTemplate(INSTANCE_ID, instanceId);
+
+        return limiter.call(Lane.REGISTRATION, () -> request(target, timeouts.registrationMillis()).delete());
     }
 
     public Response sendHeartbeat(String eurekaUrl, String appId, String instanceId) {
-        return client.target(eurekaUrl)
+        var target = registrationClient.target(eurekaUrl)
                 .path(APP_INSTANCE_PATH_TEMPLATE)
                 .resolveTemplate(APP_ID, appId)
-                .resolveTemplate(INSTANCE_ID, instanceId)
-                .request()
-                .accept(APPLICATION_JSON_TYPE)
-                .put(json("{}"));
+                .resolveTemplate(INSTANCE_ID, instanceId);
+
+        return limiter.call(Lane.REGISTRATION, () -> request(target, timeouts.heartbeatMillis()).put(json("{}")));
     }
 }
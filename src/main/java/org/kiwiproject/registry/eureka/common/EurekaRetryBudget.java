@@ -0,0 +1,122 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket that limits how many retries are made against a set of Eureka servers.
+ * <p>
+ * Each successful call deposits {@code retryPercent / 100} of a token, and a further {@code minRetriesPerSecond}
+ * tokens are deposited every second. Each retry withdraws one token, and is not permitted if there is not a whole
+ * token available. The bucket holds at most {@link #MAX_RETRY_BURST} tokens, and starts full.
+ * <p>
+ * When Eureka is healthy, nearly every call succeeds and the bucket stays full. When Eureka is struggling, successes
+ * dry up and so do retries, which keeps callers from multiplying the load on the servers. Tokens are tracked in
+ * thousandths so that fractional deposits do not need floating point, and all state is held in atomic variables so
+ * the budget can be shared by all threads without locking.
+ */
+public class EurekaRetryBudget {
+
+    /**
+     * The maximum number of retries that can be made in a burst.
+     */
+    public static final int MAX_RETRY_BURST = 10;
+
+    private static final long MILLI_TOKENS_PER_RETRY = 1_000;
+    private static final long MAX_MILLI_TOKENS = MAX_RETRY_BURST * MILLI_TOKENS_PER_RETRY;
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long milliTokensPerSuccess;
+    private final int minRetriesPerSecond;
+    private final LongSupplier nanoTime;
+    private final AtomicLong milliTokens;
+    private final AtomicLong lastRefillNanos;
+
+    /**
+     * Create a new, full retry budget.
+     *
+     * @param retryPercent        the number of retries earned per 100 successful calls
+     * @param minRetriesPerSecond the number of retries earned every second regardless of successful calls
+     */
+    public EurekaRetryBudget(int retryPercent, int minRetriesPerSecond) {
+        this(retryPercent, minRetriesPerSecond, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    EurekaRetryBudget(int retryPercent, int minRetriesPerSecond, LongSupplier nanoTime) {
+        checkArgument(retryPercent >= 0 && retryPercent <= 100, "retryPercent must be between 0 and 100");
+        checkArgument(minRetriesPerSecond >= 0, "minRetriesPerSecond must not be negative");
+
+        this.milliTokensPerSuccess = retryPercent * MILLI_TOKENS_PER_RETRY / 100;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.nanoTime = nanoTime;
+        this.milliTokens = new AtomicLong(MAX_MILLI_TOKENS);
+        this.lastRefillNanos = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Record a successful call, which earns part of a retry.
+     */
+    public void recordSuccess() {
+        deposit(milliTokensPerSuccess);
+    }
+
+    /**
+     * Ask for permission to retry a failed call.
+     *
+     * @return true if the retry is permitted, in which case one retry has been withdrawn from the budget
+     */
+    public boolean tryAcquireRetry() {
+        refill();
+
+        while (true) {
+            var tokens = milliTokens.get();
+            if (tokens < MILLI_TOKENS_PER_RETRY) {
+                return false;
+            }
+            if (milliTokens.compareAndSet(tokens, tokens - MILLI_TOKENS_PER_RETRY)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of whole retries currently available
+     */
+    public int availableRetries() {
+        refill();
+        return (int) (milliTokens.get() / MILLI_TOKENS_PER_RETRY);
+    }
+
+    /**
+     * Deposit the tokens earned per second since the last refill. Only the thread that advances the refill time
+     * deposits them, so concurrent callers do not deposit the same tokens twice.
+     */
+    private void refill() {
+        if (minRetriesPerSecond == 0) {
+            return;
+        }
+
+        var last = lastRefillNanos.get();
+        var elapsedMillis = (nanoTime.getAsLong() - last) / NANOS_PER_MILLI;
+        if (elapsedMillis <= 0) {
+            return;
+        }
+
+        // one token per second is one milli-token per millisecond
+        if (lastRefillNanos.compareAndSet(last, last + elapsedMillis * NANOS_PER_MILLI)) {
+            deposit(Math.min(elapsedMillis, MAX_MILLI_TOKENS) * minRetriesPerSecond);
+        }
+    }
+
+    private void deposit(long depositMilliTokens) {
+        if (depositMilliTokens > 0) {
+            milliTokens.updateAndGet(tokens -> Math.min(tokens + depositMilliTokens, MAX_MILLI_TOKENS));
+        }
+    }
+}
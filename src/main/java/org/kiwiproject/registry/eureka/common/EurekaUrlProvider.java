@@ -1,51 +1,543 @@
 package org.kiwiproject.registry.eureka.common;
 
-import static java.util.Objects.isNull;
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 import static org.kiwiproject.base.KiwiStrings.splitOnCommas;
+import static org.kiwiproject.collect.KiwiLists.isNullOrEmpty;
 import static org.kiwiproject.net.KiwiUrls.stripTrailingSlashes;
+import static org.kiwiproject.registry.eureka.config.EurekaConfig.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+import static org.kiwiproject.registry.eureka.config.EurekaConfig.DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS;
+import static org.kiwiproject.registry.eureka.config.EurekaConfig.DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND;
+import static org.kiwiproject.registry.eureka.config.EurekaConfig.DEFAULT_RETRY_BUDGET_PERCENT;
 
-import com.google.common.collect.Iterators;
+import com.google.common.annotations.VisibleForTesting;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
 
-import java.util.Iterator;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+/**
+ * Chooses which Eureka server to talk to.
+ * <p>
+ * Each instance starts on a randomly chosen URL, so that a fleet of clients configured with the same list of URLs is
+ * spread across all the Eureka servers rather than all starting on the first one. Callers report the outcome of each
+ * call using {@link #recordSuccess(String, long)} and {@link #recordFailure(String)}, which maintain an exponentially
+ * weighted moving average (EWMA) of the latency and error rate of each server. After a success, the provider moves to
+ * a measurably faster healthy server if one exists, and {@link #failOverFrom(String)} fails over from a server that
+ * failed to the server with the best score (preferring servers that have not been measured yet).
+ * <p>
+ * Each server also has an {@link EurekaCircuitBreaker}. Servers whose breaker is open are skipped when choosing a
+ * server, until the breaker permits a single probe call and that call succeeds. Use {@link #circuitBreakerStates()} to
+ * monitor the breakers.
+ * <p>
+ * Finally, each instance has an {@link EurekaRetryBudget} that limits retries by all callers sharing the provider.
+ * Every successful call recorded using {@link #recordSuccess(String, long)} earns part of a retry, and callers that
+ * retry lookups should first ask {@link #getRetryBudget()} for permission. Registration and heartbeats do not draw from
+ * the budget, so that a flood of lookups cannot use it up and keep an instance from renewing its lease.
+ * <p>
+ * All state is held in atomic variables, so no locks are taken when selecting or updating servers. Instances are
+ * intended to be shared by lookups, registration, and heartbeats so that they all benefit from the same measurements;
+ * see {@link #shared(EurekaConfig)}.
+ */
 public class EurekaUrlProvider {
 
-    private final Iterator<String> eurekaUrlCycler;
-    private final Lock cyclerLock;
-    private final AtomicReference<String> currentEurekaUrl;
+    /**
+     * Weight given to the newest sample when updating the moving averages.
+     */
+    @VisibleForTesting
+    static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * A server whose error EWMA is at or above this value is not considered healthy.
+     */
+    @VisibleForTesting
+    static final double UNHEALTHY_ERROR_RATE = 0.5;
+
+    /**
+     * A healthy server must be faster than this fraction of the current server's latency before the provider moves to
+     * it. This prevents flapping between servers with similar latencies.
+     */
+    @VisibleForTesting
+    static final double SWITCH_THRESHOLD = 0.8;
+
+    /**
+     * Orders servers from best to worst: healthy before unhealthy, then by score, then by error rate.
+     */
+    private static final Comparator<PeerStats> BEST_FIRST = Comparator
+            .comparing(PeerStats::isHealthy, Comparator.reverseOrder())
+            .thenComparingDouble(PeerStats::score)
+            .thenComparingDouble(PeerStats::errorRate);
+
+    private static final ConcurrentMap<SharedProviderKey, EurekaUrlProvider> SHARED_PROVIDERS =
+            new ConcurrentHashMap<>();
+
     private final List<String> eurekaUrls;
+    private final List<PeerStats> peerStats;
+    private final List<EurekaCircuitBreaker> circuitBreakers;
+    private final AtomicReference<String> currentEurekaUrl;
+    private final List<Consumer<String>> failoverListeners;
+    private final EurekaRetryBudget retryBudget;
 
+    /**
+     * Create a new instance that starts on a randomly chosen URL, using the default circuit breaker and retry budget
+     * settings.
+     *
+     * @param commaSeparatedUrls the Eureka URLs, separated by commas
+     */
     public EurekaUrlProvider(String commaSeparatedUrls) {
-        this.eurekaUrls = stripTrailingSlashes(splitOnCommas(commaSeparatedUrls));
-        this.eurekaUrlCycler = Iterators.cycle(eurekaUrls);
-        this.cyclerLock = new ReentrantLock();
-        this.currentEurekaUrl = new AtomicReference<>();
+        this(commaSeparatedUrls, -1);
+    }
+
+    /**
+     * Create a new instance that starts on a randomly chosen URL, using the URLs, circuit breaker, and retry budget
+     * settings in the given configuration.
+     *
+     * @param config the Eureka configuration
+     */
+    public EurekaUrlProvider(EurekaConfig config) {
+        this(SharedProviderKey.from(config));
+    }
+
+    /**
+     * Create a new instance that starts on the URL at the given index. Intended for tests that need deterministic
+     * ordering.
+     */
+    @VisibleForTesting
+    EurekaUrlProvider(String commaSeparatedUrls, int startIndex) {
+        this(commaSeparatedUrls, startIndex, DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+                DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    EurekaUrlProvider(String commaSeparatedUrls,
+                      int startIndex,
+                      int circuitBreakerFailureThreshold,
+                      int circuitBreakerOpenSeconds,
+                      LongSupplier nanoTime) {
+        this(parseUrls(commaSeparatedUrls), startIndex, circuitBreakerFailureThreshold, circuitBreakerOpenSeconds,
+                nanoTime, new EurekaRetryBudget(DEFAULT_RETRY_BUDGET_PERCENT,
+                        DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND, nanoTime));
+    }
+
+    private EurekaUrlProvider(SharedProviderKey key) {
+        this(key.eurekaUrls(), -1, key.circuitBreakerFailureThreshold(), key.circuitBreakerOpenSeconds(),
+                System::nanoTime,
+                new EurekaRetryBudget(key.retryBudgetPercent(), key.retryBudgetMinRetriesPerSecond()));
+    }
+
+    private EurekaUrlProvider(List<String> eurekaUrls,
+                              int startIndex,
+                              int circuitBreakerFailureThreshold,
+                              int circuitBreakerOpenSeconds,
+                              LongSupplier nanoTime,
+                              EurekaRetryBudget retryBudget) {
+        checkArgument(!isNullOrEmpty(eurekaUrls), "at least one Eureka URL must be provided");
+        checkArgument(startIndex < eurekaUrls.size(), "startIndex must be less than the number of URLs");
+
+        this.eurekaUrls = eurekaUrls;
+        this.peerStats = eurekaUrls.stream().map(url -> new PeerStats()).toList();
+
+        var openDuration = Duration.ofSeconds(circuitBreakerOpenSeconds);
+        this.circuitBreakers = eurekaUrls.stream()
+                .map(url -> new EurekaCircuitBreaker(circuitBreakerFailureThreshold, openDuration, nanoTime))
+                .toList();
+
+        var initialIndex = startIndex < 0 ? ThreadLocalRandom.current().nextInt(eurekaUrls.size()) : startIndex;
+        this.currentEurekaUrl = new AtomicReference<>(eurekaUrls.get(initialIndex));
+        this.failoverListeners = new CopyOnWriteArrayList<>();
+        this.retryBudget = retryBudget;
+    }
+
+    private static List<String> parseUrls(String commaSeparatedUrls) {
+        return List.copyOf(stripTrailingSlashes(splitOnCommas(commaSeparatedUrls)));
+    }
+
+    /**
+     * Return a provider that is shared by all callers in the JVM which use the same Eureka URLs (and the default
+     * circuit breaker and retry budget settings), so that lookups, registration, and heartbeats all use the same
+     * latency and error measurements.
+     *
+     * @param commaSeparatedUrls the Eureka URLs, separated by commas
+     * @return the shared provider for the given URLs
+     */
+    public static EurekaUrlProvider shared(String commaSeparatedUrls) {
+        var key = new SharedProviderKey(parseUrls(commaSeparatedUrls),
+                DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD, DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS,
+                DEFAULT_RETRY_BUDGET_PERCENT, DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND);
+        return SHARED_PROVIDERS.computeIfAbsent(key, EurekaUrlProvider::new);
+    }
+
+    /**
+     * Return a provider that is shared by all callers in the JVM which use the same Eureka URLs, circuit breaker, and
+     * retry budget settings, so that lookups, registration, and heartbeats all use the same latency and error
+     * measurements.
+     *
+     * @param config the Eureka configuration
+     * @return the shared provider for the given configuration
+     */
+    public static EurekaUrlProvider shared(EurekaConfig config) {
+        return SHARED_PROVIDERS.computeIfAbsent(SharedProviderKey.from(config), EurekaUrlProvider::new);
+    }
+
+    private record SharedProviderKey(List<String> eurekaUrls,
+                                     int circuitBreakerFailureThreshold,
+                                     int circuitBreakerOpenSeconds,
+                                     int retryBudgetPercent,
+                                     int retryBudgetMinRetriesPerSecond) {
+
+        static SharedProviderKey from(EurekaConfig config) {
+            checkArgumentNotNull(config, "config must not be null");
+
+            return new SharedProviderKey(parseUrls(config.getRegistryUrls()),
+                    config.getCircuitBreakerFailureThreshold(),
+                    config.getCircuitBreakerOpenSeconds(),
+                    config.getRetryBudgetPercent(),
+                    config.getRetryBudgetMinRetriesPerSecond());
+        }
+    }
+
+    /**
+     * Register a listener to be called with the new current URL each time this provider fails over from one Eureka
+     * URL to the next. Listeners are called on the thread that triggered the failover, so they should not block.
+     *
+     * @param listener the listener to call after a failover
+     */
+    public void addFailoverListener(Consumer<String> listener) {
+        checkArgumentNotNull(listener, "listener must not be null");
+        failoverListeners.add(listener);
+    }
+
+    /**
+     * Remove a listener registered using {@link #addFailoverListener(Consumer)}, e.g. when whatever it notifies is
+     * closed, since a shared provider outlives the clients and services using it.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeFailoverListener(Consumer<String> listener) {
+        failoverListeners.remove(listener);
+    }
+
+    /**
+     * @return an unmodifiable list containing all the Eureka URLs
+     */
+    public List<String> getEurekaUrls() {
+        return eurekaUrls;
     }
 
     public int urlCount() {
         return eurekaUrls.size();
     }
 
+    /**
+     * @return the retry budget shared by all callers using this provider
+     */
+    public EurekaRetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Return the URL that should be used for the next call. If the circuit breaker for the current URL does not
+     * permit calls, this moves to the best URL whose breaker does. If no breaker permits calls, the current URL is
+     * returned anyway.
+     * <p>
+     * Choosing a URL does not change the state of any circuit breaker. Callers must call
+     * {@link #acquirePermission(String)} right before calling the URL.
+     *
+     * @return the Eureka URL to use
+     */
     public String getCurrentEurekaUrl() {
-        if (isNull(currentEurekaUrl.get())) {
-            return getNextEurekaUrl();
+        var current = currentEurekaUrl.get();
+        if (breakerFor(current).isCallPermitted()) {
+            return current;
         }
 
-        return currentEurekaUrl.get();
+        var permitted = candidatesExcluding(current)
+                .filter(index -> circuitBreakers.get(index).isCallPermitted())
+                .findFirst();
+
+        if (permitted.isEmpty()) {
+            return current;
+        }
+
+        var next = eurekaUrls.get(permitted.get());
+        currentEurekaUrl.compareAndSet(current, next);
+        return next;
+    }
+
+    /**
+     * Return the best URL other than the given one whose circuit breaker currently permits calls, without changing
+     * the current URL. Useful for sending a hedged request to a second server.
+     *
+     * @param eurekaUrl the URL to find an alternative to
+     * @return an Optional containing the alternate URL, or an empty Optional if there is none
+     */
+    public Optional<String> getAlternateEurekaUrl(String eurekaUrl) {
+        return candidatesExcluding(eurekaUrl)
+                .filter(index -> circuitBreakers.get(index).isCallPermitted())
+                .findFirst()
+                .map(eurekaUrls::get);
     }
 
+    /**
+     * Fail over from the current URL, recording a failure against it, and return the URL that should be used next.
+     * <p>
+     * Only use this when the URL that failed is not known. Since the provider may be shared, another thread may
+     * already have moved away from the URL that failed, so callers that know which URL they called should instead use
+     * {@link #recordFailure(String)} and {@link #failOverFrom(String)} with that URL.
+     * <p>
+     * If several threads fail over from the same URL concurrently, only one of them chooses the next URL and the others
+     * return the URL it chose.
+     *
+     * @return the Eureka URL to use next
+     */
     public String getNextEurekaUrl() {
-        try {
-            cyclerLock.lock();
-            var next = eurekaUrlCycler.next();
-            currentEurekaUrl.set(next);
-            return next;
-        } finally {
-            cyclerLock.unlock();
+        var failedUrl = currentEurekaUrl.get();
+        recordFailure(failedUrl);
+        return failOverFrom(failedUrl);
+    }
+
+    /**
+     * Fail over from the given URL without recording a failure against it, for callers that have already recorded
+     * the failure using {@link #recordFailure(String)}. If the current URL is no longer {@code failedUrl}, e.g.
+     * because another thread already failed over, the current URL is returned unchanged.
+     *
+     * @param failedUrl the URL to fail over from
+     * @return the Eureka URL to use next
+     */
+    public String failOverFrom(String failedUrl) {
+        var current = currentEurekaUrl.get();
+        if (!current.equals(failedUrl)) {
+            return current;
+        }
+
+        var next = bestUrlExcluding(current);
+        if (!currentEurekaUrl.compareAndSet(current, next)) {
+            return currentEurekaUrl.get();
+        }
+
+        for (var listener : failoverListeners) {
+            listener.accept(next);
+        }
+
+        return next;
+    }
+
+    /**
+     * Acquire permission from the circuit breaker of the given URL right before calling it. If the breaker is open
+     * and its open duration has elapsed, the caller becomes the probe and the breaker moves to
+     * {@link EurekaCircuitBreaker.State#HALF_OPEN HALF_OPEN}.
+     * <p>
+     * Every call made after acquiring permission must be followed by {@link #recordSuccess(String, long)},
+     * {@link #recordFailure(String)} or {@link #releasePermission(String)}, so that a probe always reports its outcome.
+     * The call is made even when permission is not granted, since {@link #getCurrentEurekaUrl()} returns a URL whose
+     * breaker does not permit calls when no breaker does.
+     *
+     * @param eurekaUrl the URL about to be called
+     */
+    public void acquirePermission(String eurekaUrl) {
+        var index = eurekaUrls.indexOf(eurekaUrl);
+        if (index >= 0) {
+            circuitBreakers.get(index).tryAcquirePermission();
+        }
+    }
+
+    /**
+     * Release the permission acquired for a call to the given Eureka URL whose outcome says nothing about the health
+     * of the server, e.g. because it was answered with a client error or rejected before it was sent. Neither the
+     * latency nor the error rate of the URL changes.
+     *
+     * @param eurekaUrl the URL that was called
+     */
+    public void releasePermission(String eurekaUrl) {
+        var index = eurekaUrls.indexOf(eurekaUrl);
+        if (index >= 0) {
+            circuitBreakers.get(index).releasePermission();
+        }
+    }
+
+    /**
+     * Record a successful call to the given Eureka URL, which also earns part of a retry in the
+     * {@link #getRetryBudget() retry budget}, and move to a faster healthy URL if one exists.
+     *
+     * @param eurekaUrl    the URL that was called
+     * @param elapsedNanos how long the call took, in nanoseconds
+     */
+    public void recordSuccess(String eurekaUrl, long elapsedNanos) {
+        var index = eurekaUrls.indexOf(eurekaUrl);
+        if (index >= 0) {
+            var stats = peerStats.get(index);
+            stats.recordLatency(elapsedNanos);
+            stats.recordOutcome(0.0);
+            circuitBreakers.get(index).recordSuccess();
+        }
+
+        retryBudget.recordSuccess();
+        moveToFastestHealthyUrl();
+    }
+
+    /**
+     * Record a failed call to the given Eureka URL.
+     *
+     * @param eurekaUrl the URL that was called
+     */
+    public void recordFailure(String eurekaUrl) {
+        var index = eurekaUrls.indexOf(eurekaUrl);
+        if (index >= 0) {
+            peerStats.get(index).recordOutcome(1.0);
+            circuitBreakers.get(index).recordFailure();
+        }
+    }
+
+    /**
+     * @return the circuit breaker state of each Eureka URL, in the configured order
+     */
+    public Map<String, EurekaCircuitBreaker.State> circuitBreakerStates() {
+        var states = new LinkedHashMap<String, EurekaCircuitBreaker.State>();
+        for (var index = 0; index < eurekaUrls.size(); index++) {
+            states.put(eurekaUrls.get(index), circuitBreakers.get(index).getState());
+        }
+        return Collections.unmodifiableMap(states);
+    }
+
+    private EurekaCircuitBreaker breakerFor(String eurekaUrl) {
+        return circuitBreakers.get(eurekaUrls.indexOf(eurekaUrl));
+    }
+
+    /**
+     * @param eurekaUrl the Eureka URL
+     * @return the latency EWMA of the URL in milliseconds, or zero if no latency has been recorded for it
+     */
+    public double latencyMillis(String eurekaUrl) {
+        return statsFor(eurekaUrl).map(stats -> stats.latencyNanos() / TimeUnit.MILLISECONDS.toNanos(1)).orElse(0.0);
+    }
+
+    /**
+     * @param eurekaUrl the Eureka URL
+     * @return the error EWMA of the URL, between zero (no recent errors) and one (only recent errors)
+     */
+    public double errorRate(String eurekaUrl) {
+        return statsFor(eurekaUrl).map(PeerStats::errorRate).orElse(0.0);
+    }
+
+    private Optional<PeerStats> statsFor(String eurekaUrl) {
+        var index = eurekaUrls.indexOf(eurekaUrl);
+        return index < 0 ? Optional.empty() : Optional.of(peerStats.get(index));
+    }
+
+    private void moveToFastestHealthyUrl() {
+        var current = currentEurekaUrl.get();
+        var currentStats = peerStats.get(eurekaUrls.indexOf(current));
+        if (!currentStats.isMeasured()) {
+            return;
+        }
+
+        var currentScore = currentStats.score();
+        var fastestIndex = IntStream.range(0, eurekaUrls.size())
+                .filter(index -> peerStats.get(index).isMeasured() && peerStats.get(index).isHealthy())
+                .filter(index -> circuitBreakers.get(index).getState() == EurekaCircuitBreaker.State.CLOSED)
+                .boxed()
+                .min(Comparator.comparingDouble(index -> peerStats.get(index).score()));
+
+        fastestIndex
+                .filter(index -> peerStats.get(index).score() < currentScore * SWITCH_THRESHOLD)
+                .ifPresent(index -> currentEurekaUrl.compareAndSet(current, eurekaUrls.get(index)));
+    }
+
+    /**
+     * Choose the best URL other than {@code excludedUrl}, preferring URLs whose circuit breaker permits calls.
+     */
+    private String bestUrlExcluding(String excludedUrl) {
+        return candidatesExcluding(excludedUrl)
+                .findFirst()
+                .map(eurekaUrls::get)
+                .orElse(excludedUrl);
+    }
+
+    /**
+     * Return the indexes of all URLs other than {@code excludedUrl}, best first. URLs whose circuit breaker permits
+     * calls come before those whose breaker does not, followed by the {@link #BEST_FIRST} ordering. Unmeasured healthy
+     * URLs score zero, so they are tried before measured ones. Ties are broken by list order starting after the
+     * excluded URL, which cycles through the URLs in order when nothing has been measured.
+     */
+    private Stream<Integer> candidatesExcluding(String excludedUrl) {
+        var size = eurekaUrls.size();
+        var excludedIndex = eurekaUrls.indexOf(excludedUrl);
+
+        Comparator<Integer> permittedFirst = Comparator.comparing(
+                index -> circuitBreakers.get(index).isCallPermitted(), Comparator.reverseOrder());
+
+        return IntStream.range(1, size)
+                .mapToObj(offset -> (excludedIndex + offset) % size)
+                .sorted(permittedFirst.thenComparing(peerStats::get, BEST_FIRST));
+    }
+
+    /**
+     * Latency and error EWMAs for a single Eureka server. Values are stored as the raw bits of a double inside an
+     * {@link AtomicLong} so that they can be updated without locking.
+     */
+    private static final class PeerStats {
+
+        private static final long UNMEASURED = Double.doubleToRawLongBits(-1.0);
+
+        private final AtomicLong latencyNanosBits = new AtomicLong(UNMEASURED);
+        private final AtomicLong errorRateBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+
+        void recordLatency(long elapsedNanos) {
+            update(latencyNanosBits, previous -> previous < 0 ? elapsedNanos : ewma(previous, elapsedNanos));
+        }
+
+        void recordOutcome(double outcome) {
+            update(errorRateBits, previous -> ewma(previous, outcome));
+        }
+
+        boolean isMeasured() {
+            return latencyNanosBits.get() != UNMEASURED;
+        }
+
+        boolean isHealthy() {
+            return errorRate() < UNHEALTHY_ERROR_RATE;
+        }
+
+        double latencyNanos() {
+            return Math.max(0.0, Double.longBitsToDouble(latencyNanosBits.get()));
+        }
+
+        double errorRate() {
+            return Double.longBitsToDouble(errorRateBits.get());
+        }
+
+        /**
+         * Lower is better. Latency is inflated by the error rate so that a fast server which is failing intermittently
+         * scores worse than a slower server which is not. Unmeasured servers score zero.
+         */
+        double score() {
+            return latencyNanos() * (1.0 + 10.0 * errorRate());
+        }
+
+        private static double ewma(double previous, double sample) {
+            return EWMA_ALPHA * sample + (1.0 - EWMA_ALPHA) * previous;
+        }
+
+        private static void update(AtomicLong bits, DoubleUnaryOperator operator) {
+            bits.updateAndGet(current ->
+                    Double.doubleToRawLongBits(operator.applyAsDouble(Double.longBitsToDouble(current))));
         }
     }
 }
@@ -6,11 +6,16 @@ import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 import static org.kiwiproject.net.KiwiUrls.replaceDomainsIn;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.kiwiproject.jackson.ser.ListToCsvStringDeserializer;
+import org.kiwiproject.registry.config.RegistryCallLimitsConfig;
 import org.slf4j.event.Level;
 
 import java.util.List;
@@ -26,6 +31,101 @@ public class EurekaConfig {
 
     private static final String DEFAULT_RETRY_ID_PREFIX = "EurekaRegistryClient-";
 
+    /**
+     * Default connect timeout (milliseconds).
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 1_000;
+
+    /**
+     * Default read timeout (milliseconds).
+     */
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * Default maximum number of pooled connections across all Eureka servers.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    /**
+     * Default maximum number of pooled connections to a single Eureka server.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_URL = 5;
+
+    /**
+     * Default amount of time a pooled connection is kept alive between requests (seconds).
+     */
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Default amount of time a pooled connection may sit idle before it is evicted from the pool (seconds).
+     */
+    public static final int DEFAULT_IDLE_CONNECTION_EVICTION_SECONDS = 15;
+
+    /**
+     * Default interval between keep-warm requests to each Eureka server when pre-warming is enabled (seconds).
+     */
+    public static final int DEFAULT_KEEP_WARM_INTERVAL_SECONDS = 10;
+
+    /**
+     * Default maximum number of TLS sessions cached for resumption.
+     */
+    public static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 100;
+
+    /**
+     * Default amount of time a cached TLS session may be resumed (seconds).
+     */
+    public static final int DEFAULT_TLS_SESSION_TIMEOUT_SECONDS = 3_600;
+
+    /**
+     * Default number of consecutive failures that opens the circuit breaker for a Eureka server.
+     */
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 3;
+
+    /**
+     * Default amount of time the circuit breaker for a Eureka server stays open before a probe is permitted (seconds).
+     */
+    public static final int DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS = 30;
+
+    /**
+     * Default number of retries permitted per 100 successful calls to Eureka.
+     */
+    public static final int DEFAULT_RETRY_BUDGET_PERCENT = 20;
+
+    /**
+     * Default number of retries per second that are always permitted, regardless of how many calls succeed.
+     */
+    public static final int DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND = 1;
+
+    /**
+     * Default percentile of recent lookup latencies used as the delay before a hedged lookup is sent.
+     */
+    public static final int DEFAULT_HEDGE_DELAY_PERCENTILE = 95;
+
+    /**
+     * Default minimum delay before a hedged lookup is sent (milliseconds).
+     */
+    public static final int DEFAULT_MIN_HEDGE_DELAY_MILLIS = 20;
+
+    /**
+     * Default maximum number of hedged lookups, as a percentage of all lookups.
+     */
+    public static final int DEFAULT_MAX_HEDGE_PERCENT = 5;
+
+    /**
+     * Default number of distinct VIP addresses looked up within the window at which lookups switch to a full fetch.
+     */
+    public static final int DEFAULT_FULL_FETCH_VIP_THRESHOLD = 10;
+
+    /**
+     * Default window in which distinct VIP address lookups are counted (seconds).
+     */
+    public static final int DEFAULT_FULL_FETCH_WINDOW_SECONDS = 60;
+
+    /**
+     * Default maximum age of a full fetch that is shared across VIP address lookups (milliseconds).
+     */
+    public static final int DEFAULT_FULL_FETCH_MAX_AGE_MILLIS = 5_000;
+
     private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger(0);
 
     /**
@@ -61,6 +161,14 @@ public class EurekaConfig {
      */
     private boolean includeNativeData;
 
+    /**
+     * If true, returned ServiceInstances share equal strings, metadata, ports, and paths with each other, which
+     * reduces memory use when many instances are held, e.g. in a cache of the full registry.
+     *
+     * @see org.kiwiproject.registry.util.CompactServiceInstances
+     */
+    private boolean compactInstances;
+
     /**
      * A unique ID that will be used when logging HTTP call attempts to Eureka.
      * <p>
@@ -80,6 +188,184 @@ public class EurekaConfig {
      */
     private Level retryExceptionLogLevel = Level.WARN;
 
+    /**
+     * The maximum amount of time to wait when establishing a connection to a Eureka server (in milliseconds)
+     */
+    @Min(1)
+    private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+    /**
+     * The maximum amount of time to wait for data from a Eureka server once connected (in milliseconds)
+     */
+    @Min(1)
+    private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+    /**
+     * The maximum amount of time to wait for a response to a service lookup (in milliseconds). Zero means use
+     * {@code readTimeoutMillis}. Only used by clients created from configuration, e.g.
+     * {@link org.kiwiproject.registry.eureka.common.EurekaRestClient#shared(EurekaConfig)}.
+     */
+    @Min(0)
+    private int lookupTimeoutMillis;
+
+    /**
+     * The maximum amount of time to wait for a response to a registration, status update, or unregistration call (in
+     * milliseconds). Zero means use {@code readTimeoutMillis}. Only used by clients created from configuration.
+     */
+    @Min(0)
+    private int registrationTimeoutMillis;
+
+    /**
+     * The maximum amount of time to wait for a response to a heartbeat (in milliseconds). Zero means use
+     * {@code readTimeoutMillis}. Only used by clients created from configuration.
+     */
+    @Min(0)
+    private int heartbeatTimeoutMillis;
+
+    /**
+     * The maximum number of pooled connections across all Eureka servers. Only used by pooled clients, e.g.
+     * {@link org.kiwiproject.registry.eureka.common.EurekaRestClient#shared(EurekaConfig)}.
+     */
+    @Min(1)
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * The maximum number of pooled connections to any single Eureka server. Only used by pooled clients.
+     */
+    @Min(1)
+    private int maxConnectionsPerUrl = DEFAULT_MAX_CONNECTIONS_PER_URL;
+
+    /**
+     * The amount of time a pooled connection is kept alive so that it can be reused by later requests, e.g.
+     * heartbeats and lookups (in seconds). Only used by pooled clients.
+     */
+    @Min(1)
+    private int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+
+    /**
+     * The amount of time a pooled connection may sit idle before it is evicted from the pool (in seconds). This
+     * should be less than the idle timeout of the Eureka servers so that the client does not attempt to reuse
+     * connections the server has already closed. Only used by pooled clients.
+     */
+    @Min(1)
+    private int idleConnectionEvictionSeconds = DEFAULT_IDLE_CONNECTION_EVICTION_SECONDS;
+
+    /**
+     * If true, connections to all Eureka servers in {@code registryUrls} are opened when a client is created and after
+     * a failover, and are then kept warm so that lookups do not pay DNS, TCP, and TLS setup on the request path.
+     * The default is false.
+     */
+    private boolean prewarmConnections;
+
+    /**
+     * The interval between keep-warm requests to each Eureka server (in seconds). This should be less than
+     * {@code idleConnectionEvictionSeconds} so warmed connections are not evicted. A value of zero means connections
+     * are only warmed at creation and after failover. Only used when {@code prewarmConnections} is true.
+     */
+    @Min(0)
+    private int keepWarmIntervalSeconds = DEFAULT_KEEP_WARM_INTERVAL_SECONDS;
+
+    /**
+     * The maximum number of TLS sessions cached for resumption by pooled clients. Zero means no limit.
+     */
+    @Min(0)
+    private int tlsSessionCacheSize = DEFAULT_TLS_SESSION_CACHE_SIZE;
+
+    /**
+     * The amount of time a cached TLS session may be resumed by pooled clients (in seconds). Zero means no limit.
+     */
+    @Min(0)
+    private int tlsSessionTimeoutSeconds = DEFAULT_TLS_SESSION_TIMEOUT_SECONDS;
+
+    /**
+     * The number of consecutive failed calls to a Eureka server after which its circuit breaker opens and the server
+     * is skipped.
+     */
+    @Min(1)
+    private int circuitBreakerFailureThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+
+    /**
+     * The amount of time a Eureka server is skipped after its circuit breaker opens, before a single probe call is
+     * permitted (in seconds).
+     */
+    @Min(0)
+    private int circuitBreakerOpenSeconds = DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS;
+
+    /**
+     * Retries of failed lookups, from all clients sharing the same Eureka servers, are limited to this percentage of
+     * successful calls (plus {@code retryBudgetMinRetriesPerSecond}). This stops retries from multiplying the load on
+     * Eureka while it is struggling. Retries of registration, status updates, and unregistration are not limited by
+     * this budget, so that lookups cannot use it up and keep an instance from registering.
+     */
+    @Min(0)
+    @Max(100)
+    private int retryBudgetPercent = DEFAULT_RETRY_BUDGET_PERCENT;
+
+    /**
+     * The number of retries per second that are permitted even when no calls to Eureka are succeeding.
+     */
+    @Min(0)
+    private int retryBudgetMinRetriesPerSecond = DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND;
+
+    /**
+     * If true, a service lookup that has not completed within the hedge delay is also sent to a different Eureka
+     * server, and whichever response arrives first is used. The default is false.
+     */
+    private boolean hedgeLookups;
+
+    /**
+     * The percentile of recent lookup latencies that is used as the hedge delay. Only used when {@code hedgeLookups}
+     * is true.
+     */
+    @Min(1)
+    @Max(99)
+    private int hedgeDelayPercentile = DEFAULT_HEDGE_DELAY_PERCENTILE;
+
+    /**
+     * The minimum hedge delay (in milliseconds). This is also used as the hedge delay until enough lookup latencies
+     * have been recorded. Only used when {@code hedgeLookups} is true.
+     */
+    @Min(1)
+    private int minHedgeDelayMillis = DEFAULT_MIN_HEDGE_DELAY_MILLIS;
+
+    /**
+     * The maximum number of hedged lookups as a percentage of all lookups, which caps the extra load that hedging
+     * places on the Eureka servers. Only used when {@code hedgeLookups} is true.
+     */
+    @Min(0)
+    @Max(100)
+    private int maxHedgePercent = DEFAULT_MAX_HEDGE_PERCENT;
+
+    /**
+     * When at least this many distinct VIP addresses have been looked up within {@code fullFetchWindowSeconds}, service
+     * lookups are answered from a single fetch of all registered instances instead of one lookup per VIP address.
+     * Zero means always look up each VIP address.
+     */
+    @Min(0)
+    private int fullFetchVipThreshold = DEFAULT_FULL_FETCH_VIP_THRESHOLD;
+
+    /**
+     * The window in which distinct VIP address lookups are counted (in seconds).
+     */
+    @Min(1)
+    private int fullFetchWindowSeconds = DEFAULT_FULL_FETCH_WINDOW_SECONDS;
+
+    /**
+     * The maximum age of a fetch of all registered instances that is shared across VIP address lookups (in
+     * milliseconds). Older fetches are replaced by a new fetch.
+     */
+    @Min(0)
+    private int fullFetchMaxAgeMillis = DEFAULT_FULL_FETCH_MAX_AGE_MILLIS;
+
+    /**
+     * Client-side concurrency and rate limits on calls to Eureka. Only used by pooled {@code EurekaRestClient}s,
+     * which also use a separate connection pool for registration and heartbeats so that lookups cannot exhaust the
+     * connections they need.
+     */
+    @Valid
+    @NotNull
+    private RegistryCallLimitsConfig callLimits = new RegistryCallLimitsConfig();
+
     /**
      * @return comma separated list of urls pointing to Eureka servers, with domains replaced if {@code domainOverride}
      * is set
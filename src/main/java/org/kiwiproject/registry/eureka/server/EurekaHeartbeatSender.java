@@ -5,6 +5,7 @@ import static java.time.format.DateTimeFormatter.ISO_INSTANT;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.kiwiproject.jaxrs.KiwiResponses.closeQuietly;
+import static org.kiwiproject.jaxrs.KiwiResponses.serverError;
 import static org.kiwiproject.jaxrs.KiwiResponses.successful;
 import static org.kiwiproject.logging.LazyLogParameterSupplier.lazy;
 import static org.kiwiproject.registry.eureka.server.EurekaHeartbeatSender.FailureHandlerResult.CANNOT_SELF_HEAL;
@@ -23,6 +24,7 @@ import org.kiwiproject.base.KiwiThrowables;
 import org.kiwiproject.registry.eureka.common.EurekaInstance;
 import org.kiwiproject.registry.eureka.common.EurekaRestClient;
 import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.retry.KiwiRetryerPredicates;
 
@@ -66,12 +68,15 @@ class EurekaHeartbeatSender implements Runnable {
     public void run() {
         Response response = null;
         Exception exception = null;
+        var eurekaUrl = urlProvider.getCurrentEurekaUrl();
+        urlProvider.acquirePermission(eurekaUrl);
+        var startNanos = System.nanoTime();
         try {
             LOG.trace("Sending heartbeat at {} for appId {} and instanceId {} ({})",
                     lazy(() -> ISO_INSTANT.format(Instant.now())), registeredInstance.getApp(),
                     registeredInstance.getInstanceId(), this);
 
-            response = client.sendHeartbeat(urlProvider.getCurrentEurekaUrl(), registeredInstance.getApp(),
+            response = client.sendHeartbeat(eurekaUrl, registeredInstance.getApp(),
                     registeredInstance.getInstanceId());
         } catch (Exception e) {
             exception = e;
@@ -81,6 +86,7 @@ class EurekaHeartbeatSender implements Runnable {
         }
 
         if (nonNull(response) && successful(response)) {
+            urlProvider.recordSuccess(eurekaUrl, System.nanoTime() - startNanos);
             logRecoveryIfNecessary();
             heartbeatFailures = 0;
             heartbeatFailureStartedAt = null;
@@ -91,7 +97,16 @@ class EurekaHeartbeatSender implements Runnable {
         // Some error occurred, either an exception or maybe a 404...
 
         heartbeatFailures++;
-        urlProvider.getNextEurekaUrl();
+
+        // A 404 means the lease expired, which self-healing fixes by registering again, so only charge the server
+        // when it could not answer. A heartbeat rejected by the client-side call limits never reached the server.
+        var rejectedLocally = exception instanceof RegistryCallRejectedException;
+        if (!rejectedLocally && (isNull(response) || serverError(response))) {
+            urlProvider.recordFailure(eurekaUrl);
+            urlProvider.failOverFrom(eurekaUrl);
+        } else {
+            urlProvider.releasePermission(eurekaUrl);
+        }
 
         if (heartbeatFailures == 1) {
             LOG.trace("Recording initial heartbeat failure date/time");
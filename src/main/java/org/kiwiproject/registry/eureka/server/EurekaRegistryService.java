@@ -11,6 +11,7 @@ import static org.kiwiproject.base.KiwiStrings.format;
 import static org.kiwiproject.collect.KiwiLists.isNotNullOrEmpty;
 import static org.kiwiproject.jaxrs.KiwiEntities.safeReadEntity;
 import static org.kiwiproject.jaxrs.KiwiResponses.closeQuietly;
+import static org.kiwiproject.jaxrs.KiwiResponses.serverError;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -22,12 +23,14 @@ import org.kiwiproject.base.KiwiEnvironment;
 import org.kiwiproject.base.Optionals;
 import org.kiwiproject.jaxrs.KiwiGenericTypes;
 import org.kiwiproject.registry.config.ServiceInfo;
+import org.kiwiproject.registry.eureka.common.EurekaConnectionWarmer;
 import org.kiwiproject.registry.eureka.common.EurekaInstance;
 import org.kiwiproject.registry.eureka.common.EurekaResponseParser;
 import org.kiwiproject.registry.eureka.common.EurekaRestClient;
 import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
 import org.kiwiproject.registry.eureka.config.EurekaRegistrationConfig;
 import org.kiwiproject.registry.exception.RegistrationException;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
 import org.kiwiproject.registry.model.NativeRegistryData;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.model.ServiceInstance.Status;
@@ -136,6 +139,7 @@ public class EurekaRegistryService implements RegistryService {
     private final SimpleRetryer unregisterRetryer;
     private final KiwiEnvironment environment;
     private final EurekaUrlProvider urlProvider;
+    private final EurekaConnectionWarmer connectionWarmer;
 
     @VisibleForTesting
     @Getter(AccessLevel.PACKAGE)
@@ -149,10 +153,39 @@ public class EurekaRegistryService implements RegistryService {
 
     private final boolean trackHeartbeats;
 
+    /**
+     * Create a new instance that uses the JVM-wide pooled {@link EurekaRestClient} for the given configuration.
+     *
+     * @param config      the Eureka registration configuration
+     * @param environment the environment to use
+     * @see EurekaRestClient#shared(org.kiwiproject.registry.eureka.config.EurekaConfig)
+     */
+    public EurekaRegistryService(EurekaRegistrationConfig config, KiwiEnvironment environment) {
+        this(config, EurekaRestClient.shared(config), environment, EurekaUrlProvider.shared(config));
+    }
+
     public EurekaRegistryService(EurekaRegistrationConfig config, EurekaRestClient client, KiwiEnvironment environment) {
+        this(config, client, environment, new EurekaUrlProvider(config));
+    }
+
+    /**
+     * Create a new instance that selects Eureka servers using the given {@link EurekaUrlProvider}, which may be shared
+     * with other Eureka clients so that registration, heartbeats, and lookups all use the same server latency and
+     * error measurements.
+     *
+     * @param config      the Eureka registration configuration
+     * @param client      the client to use when calling Eureka
+     * @param environment the environment to use
+     * @param urlProvider the provider that chooses which Eureka server to call
+     */
+    public EurekaRegistryService(EurekaRegistrationConfig config,
+                                 EurekaRestClient client,
+                                 KiwiEnvironment environment,
+                                 EurekaUrlProvider urlProvider) {
         this(config,
                 client,
                 environment,
+                urlProvider,
                 SimpleRetryer.builder()
                     .environment(environment)
                     .maxAttempts(MAX_REGISTRATION_ATTEMPTS)
@@ -178,6 +211,7 @@ public class EurekaRegistryService implements RegistryService {
                     .retryDelayUnit(UNREGISTER_RETRY_DELAY_UNIT)
                     .build());
     }
+
     public EurekaRegistryService(EurekaRegistrationConfig config,
                                  EurekaRestClient client,
                                  KiwiEnvironment environment,
@@ -185,10 +219,22 @@ public class EurekaRegistryService implements RegistryService {
                                  SimpleRetryer awaitRetryer,
                                  SimpleRetryer updateStatusRetryer,
                                  SimpleRetryer unregisterRetryer) {
+        this(config, client, environment, new EurekaUrlProvider(config),
+                registerRetryer, awaitRetryer, updateStatusRetryer, unregisterRetryer);
+    }
+
+    public EurekaRegistryService(EurekaRegistrationConfig config,
+                                 EurekaRestClient client,
+                                 KiwiEnvironment environment,
+                                 EurekaUrlProvider urlProvider,
+                                 SimpleRetryer registerRetryer,
+                                 SimpleRetryer awaitRetryer,
+                                 SimpleRetryer updateStatusRetryer,
+                                 SimpleRetryer unregisterRetryer) {
         this.config = config;
         this.client = client;
         this.environment = environment;
-        this.urlProvider = new EurekaUrlProvider(config.getRegistryUrls());
+        this.urlProvider = urlProvider;
         this.registeredInstance = new AtomicReference<>();
         this.heartbeatExecutor = new AtomicReference<>();
 
@@ -202,6 +248,8 @@ public class EurekaRegistryService implements RegistryService {
         if (trackHeartbeats) {
             heartbeatCount = new AtomicLong(0);
         }
+
+        this.connectionWarmer = EurekaConnectionWarmer.startIfEnabled(config, client, urlProvider).orElse(null);
     }
 
     @Override
@@ -328,6 +376,8 @@ public class EurekaRegistryService implements RegistryService {
         return eurekaUrl -> {
             try {
                 return client.register(eurekaUrl, appId, candidate);
+            } catch (RegistryCallRejectedException e) {
+                throw e;
             } catch (Exception e) {
                 LOG.error("Failed to register app {} with body {} to Eureka at {}", appId, candidate, eurekaUrl, e);
                 return null;
@@ -358,6 +408,8 @@ public class EurekaRegistryService implements RegistryService {
         return eurekaUrl -> {
             try {
                 return client.findInstance(eurekaUrl, appId, instanceId);
+            } catch (RegistryCallRejectedException e) {
+                throw e;
             } catch (Exception e) {
                 LOG.error("Failed to get instance with appId {}, instanceId {} from Eureka at {} due to unexpected exception", appId, instanceId, eurekaUrl, e);
                 return null;
@@ -399,6 +451,8 @@ public class EurekaRegistryService implements RegistryService {
         return eurekaUrl -> {
             try {
                 return client.updateStatus(eurekaUrl, appId, instanceId, newStatus);
+            } catch (RegistryCallRejectedException e) {
+                throw e;
             } catch (Exception e) {
                 LOG.error("Failed to update status to {} for instance with appId {}, instanceId {} from Eureka at {} due to unexpected exception",
                         newStatus, appId, instanceId, eurekaUrl, e);
@@ -407,9 +461,15 @@ public class EurekaRegistryService implements RegistryService {
         };
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This also stops warming connections to the Eureka servers, since they are no longer needed for heartbeats.
+     */
     @Override
     public void unregister() {
         shutdownHeartbeat();
+        stopWarmingConnections();
 
         if (isNotRegistered()) {
             LOG.warn("Ignoring un-register request because not currently registered (call register first)");
@@ -419,6 +479,12 @@ public class EurekaRegistryService implements RegistryService {
         unregisterFromEureka();
     }
 
+    private void stopWarmingConnections() {
+        if (nonNull(connectionWarmer)) {
+            connectionWarmer.close();
+        }
+    }
+
     private void unregisterFromEureka() {
         var instanceToUnregister = registeredInstance.get();
 
@@ -445,6 +511,8 @@ public class EurekaRegistryService implements RegistryService {
         return eurekaUrl -> {
             try {
                 return client.unregister(eurekaUrl, appId, instanceId);
+            } catch (RegistryCallRejectedException e) {
+                throw e;
             } catch (Exception e) {
                 LOG.error("Failed to unregister instance with appId {}, instanceId {} from Eureka at {} due to unexpected exception", appId, instanceId, eurekaUrl, e);
                 return null;
@@ -463,6 +531,10 @@ public class EurekaRegistryService implements RegistryService {
     /**
      * The returned Supplier returns the Response if its status code matches successfulStatusCode or null otherwise.
      * <p>
+     * Retries are not drawn from the retry budget of the {@link EurekaUrlProvider}, since that budget is shared with
+     * lookups, which could exhaust it and so keep this instance from registering or renewing its lease. Registration,
+     * status updates, and unregistration are few, and their retries are already limited by their retryers.
+     * <p>
      * <strong>If the Supplier contains a Response, it is the caller's responsibility to ensure it is closed.</strong>
      */
     private Supplier<Response> eurekaCallRetrySupplier(Function<String, Response> restCallFunction, int successfulStatusCode) {
@@ -470,20 +542,41 @@ public class EurekaRegistryService implements RegistryService {
             var eurekaUrl = urlProvider.getCurrentEurekaUrl();
             LOG.debug("Attempting a call to Eureka");
 
-            var response = restCallFunction.apply(eurekaUrl);
+            urlProvider.acquirePermission(eurekaUrl);
+            var startNanos = System.nanoTime();
+            Response response;
+            try {
+                response = restCallFunction.apply(eurekaUrl);
+            } catch (RegistryCallRejectedException e) {
+                // Rejected locally by the call limits, so the server was not called and is not charged
+                urlProvider.releasePermission(eurekaUrl);
+                LOG.warn("Call to Eureka at {} was rejected by the client-side call limits", eurekaUrl, e);
+                return null;
+            }
 
             if (isNull(response)) {
-                urlProvider.getNextEurekaUrl();
+                urlProvider.recordFailure(eurekaUrl);
+                urlProvider.failOverFrom(eurekaUrl);
                 LOG.error("Call to Eureka failed. See previous error for details");
                 return null;
             }
 
             if (successfulStatusCode == response.getStatus()) {
+                urlProvider.recordSuccess(eurekaUrl, System.nanoTime() - startNanos);
+
                 // Caller is responsible for closing the returned Response
                 return response;
             }
 
-            urlProvider.getNextEurekaUrl();
+            // Any other answer, e.g. a 404 while waiting for a registration to show, does not mean that the server
+            // is unhealthy
+            if (serverError(response)) {
+                urlProvider.recordFailure(eurekaUrl);
+                urlProvider.failOverFrom(eurekaUrl);
+            } else {
+                urlProvider.releasePermission(eurekaUrl);
+            }
+
             var entity = safelyReadEntity(response);
             LOG.error("HTTP {} - Call to Eureka at {} failed to respond successfully. Response body: {}",
                     response.getStatus(), eurekaUrl, entity);
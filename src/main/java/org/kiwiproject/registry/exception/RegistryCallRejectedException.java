@@ -0,0 +1,23 @@
+package org.kiwiproject.registry.exception;
+
+/**
+ * Exception used to indicate that a call to the service registry was not made because a client-side concurrency or
+ * rate limit was reached.
+ */
+public class RegistryCallRejectedException extends RuntimeException {
+    public RegistryCallRejectedException() {
+        super();
+    }
+
+    public RegistryCallRejectedException(String message) {
+        super(message);
+    }
+
+    public RegistryCallRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RegistryCallRejectedException(Throwable cause) {
+        super(cause);
+    }
+}
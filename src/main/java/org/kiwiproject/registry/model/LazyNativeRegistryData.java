@@ -0,0 +1,92 @@
+package org.kiwiproject.registry.model;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * An unmodifiable map of native registry data that is computed the first time it is accessed, and then reused for
+ * every later access.
+ * <p>
+ * Converting the native data from a registry into a map can be much more expensive than building the
+ * {@link ServiceInstance} itself, and most callers never look at it. Using this as the
+ * {@link ServiceInstance#getNativeRegistryData() native registry data} defers that cost until the data is actually
+ * used. Once computed, the supplier is released, so it no longer keeps the registry entry it converts reachable.
+ * <p>
+ * Note that {@code equals}, {@code hashCode}, and {@code toString} need the data, so they compute it if it has not
+ * been computed yet.
+ */
+public final class LazyNativeRegistryData extends AbstractMap<String, Object> {
+
+    private Supplier<Map<String, Object>> supplier;
+    private volatile Map<String, Object> data;
+
+    private LazyNativeRegistryData(Supplier<Map<String, Object>> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Create native registry data that will be computed by the given supplier when it is first accessed. The supplier
+     * is called at most once, even when the data is accessed concurrently from several threads.
+     *
+     * @param supplier computes the native registry data; must not return null
+     * @return a map that computes its contents on first access
+     */
+    public static Map<String, Object> of(Supplier<Map<String, Object>> supplier) {
+        checkArgumentNotNull(supplier, "supplier must not be null");
+        return new LazyNativeRegistryData(supplier);
+    }
+
+    @VisibleForTesting
+    boolean isComputed() {
+        return nonNull(data);
+    }
+
+    private Map<String, Object> data() {
+        var current = data;
+        if (isNull(current)) {
+            synchronized (this) {
+                current = data;
+                if (isNull(current)) {
+                    var computed = supplier.get();
+                    checkState(nonNull(computed), "supplier must not return null native registry data");
+
+                    current = Collections.unmodifiableMap(computed);
+                    data = current;
+                    supplier = null;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return data().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return data().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return data().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return data().get(key);
+    }
+}
@@ -0,0 +1,131 @@
+package org.kiwiproject.registry.model;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import lombok.Builder;
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Model containing a summary of the registered instances of a service, without the details of each instance.
+ */
+@Value
+@Builder
+public class ServiceSummary {
+
+    /**
+     * The status used for instances whose status is not known.
+     */
+    public static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    String serviceName;
+
+    /**
+     * The number of registered instances of the service, regardless of status.
+     */
+    int instanceCount;
+
+    /**
+     * The number of instances having each status, keyed by the status reported by the registry, e.g. {@code UP}.
+     */
+    Map<String, Integer> statusCounts;
+
+    /**
+     * The distinct versions of the registered instances, in sorted order. Instances without a version are not included.
+     */
+    Set<String> versions;
+
+    /**
+     * Start a tally of the instances of a service, which can be used to build a summary while reading registry data
+     * without first converting it to {@link ServiceInstance}s.
+     *
+     * @param serviceName the name of the service
+     * @return a new, empty tally
+     */
+    public static Tally tally(String serviceName) {
+        return new Tally(serviceName);
+    }
+
+    /**
+     * A mutable count of the instances of a service. Not thread-safe.
+     */
+    public static final class Tally {
+
+        private final String serviceName;
+        private final Map<String, Integer> statusCounts = new TreeMap<>();
+        private final Set<String> versions = new TreeSet<>();
+        private int instanceCount;
+
+        private Tally(String serviceName) {
+            this.serviceName = serviceName;
+        }
+
+        /**
+         * Count an instance.
+         *
+         * @param status  the status of the instance as reported by the registry
+         * @param version the version of the instance, or null if it does not have one
+         * @return this tally
+         */
+        public Tally add(String status, @Nullable String version) {
+            checkArgumentNotNull(status, "status must not be null");
+
+            instanceCount++;
+            statusCounts.merge(status, 1, Integer::sum);
+            if (nonNull(version)) {
+                versions.add(version);
+            }
+
+            return this;
+        }
+
+        /**
+         * Count an instance. An instance without a status is counted as {@value ServiceSummary#UNKNOWN_STATUS}.
+         *
+         * @param instance the instance to count
+         * @return this tally
+         */
+        public Tally add(ServiceInstance instance) {
+            checkArgumentNotNull(instance, "instance must not be null");
+
+            var status = isNull(instance.getStatus()) ? UNKNOWN_STATUS : instance.getStatus().name();
+            return add(status, instance.getVersion());
+        }
+
+        /**
+         * Count all instances in an existing summary, e.g. when combining summaries from several registries.
+         *
+         * @param summary the summary to add
+         * @return this tally
+         */
+        public Tally add(ServiceSummary summary) {
+            checkArgumentNotNull(summary, "summary must not be null");
+
+            instanceCount += summary.getInstanceCount();
+            summary.getStatusCounts().forEach((status, count) -> statusCounts.merge(status, count, Integer::sum));
+            versions.addAll(summary.getVersions());
+
+            return this;
+        }
+
+        /**
+         * @return an immutable summary of the instances counted so far
+         */
+        public ServiceSummary toSummary() {
+            return ServiceSummary.builder()
+                    .serviceName(serviceName)
+                    .instanceCount(instanceCount)
+                    .statusCounts(Collections.unmodifiableMap(new TreeMap<>(statusCounts)))
+                    .versions(Collections.unmodifiableSet(new TreeSet<>(versions)))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.kiwiproject.registry.util;
+
+import static java.util.Objects.isNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import lombok.experimental.UtilityClass;
+import org.jspecify.annotations.Nullable;
+import org.kiwiproject.registry.model.Port;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServicePaths;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Utility for reducing the memory used by {@link ServiceInstance}s that are held in large numbers, e.g. in a cache of
+ * the full registry.
+ * <p>
+ * Instances of the same service mostly hold equal values in separate objects: the service name, version, commit ref,
+ * and description strings, the metadata keys, and the ports and paths. Compacting an instance replaces these with
+ * canonical, shared objects, using weak interners so that values no longer used by any instance can be garbage
+ * collected. Metadata and port lists are copied into immutable, array-backed collections, and equal metadata maps and
+ * port lists are shared as well.
+ * <p>
+ * Values that are usually unique to each instance, such as the instance ID, host name, and IP address, are not
+ * interned. Native registry data is not changed.
+ */
+@UtilityClass
+public class CompactServiceInstances {
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+    private static final Interner<Map<String, String>> METADATA = Interners.newWeakInterner();
+    private static final Interner<Port> PORTS = Interners.newWeakInterner();
+    private static final Interner<List<Port>> PORT_LISTS = Interners.newWeakInterner();
+    private static final Interner<ServicePaths> PATHS = Interners.newWeakInterner();
+
+    /**
+     * Create a compact copy of the given instance, which is equal to it but shares its common values with other
+     * compacted instances. The metadata and ports of the copy are unmodifiable.
+     *
+     * @param instance the instance to compact
+     * @return an equal instance that shares common values with other compacted instances
+     */
+    public static ServiceInstance compact(ServiceInstance instance) {
+        checkArgumentNotNull(instance, "instance must not be null");
+
+        return instance.toBuilder()
+                .serviceName(intern(instance.getServiceName()))
+                .version(intern(instance.getVersion()))
+                .commitRef(intern(instance.getCommitRef()))
+                .description(intern(instance.getDescription()))
+                .metadata(compactMetadata(instance.getMetadata()))
+                .ports(compactPorts(instance.getPorts()))
+                .paths(isNull(instance.getPaths()) ? null : PATHS.intern(instance.getPaths()))
+                .build();
+    }
+
+    private static String intern(@Nullable String value) {
+        return isNull(value) ? null : STRINGS.intern(value);
+    }
+
+    /**
+     * Immutable maps do not allow null keys or values, so metadata containing them is kept as it is.
+     */
+    private static Map<String, String> compactMetadata(@Nullable Map<String, String> metadata) {
+        if (isNull(metadata) || metadata.entrySet().stream().anyMatch(CompactServiceInstances::hasNull)) {
+            return metadata;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map.Entry<String, String>[] entries = metadata.entrySet().stream()
+                .map(entry -> Map.entry(STRINGS.intern(entry.getKey()), STRINGS.intern(entry.getValue())))
+                .toArray(Map.Entry[]::new);
+
+        return METADATA.intern(Map.ofEntries(entries));
+    }
+
+    private static boolean hasNull(Map.Entry<String, String> entry) {
+        return isNull(entry.getKey()) || isNull(entry.getValue());
+    }
+
+    private static List<Port> compactPorts(@Nullable List<Port> ports) {
+        if (isNull(ports) || ports.stream().anyMatch(Objects::isNull)) {
+            return ports;
+        }
+
+        return PORT_LISTS.intern(ports.stream().map(PORTS::intern).toList());
+    }
+}
@@ -0,0 +1,155 @@
+package org.kiwiproject.registry.util;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.kiwiproject.registry.config.RegistryCallLimitsConfig;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Applies the concurrency and rate limits in a {@link RegistryCallLimitsConfig} to calls to the service registry.
+ * <p>
+ * Each {@link Lane} has its own limits, so calls in one lane never wait on calls in another. A call that cannot start
+ * within the configured maximum wait is rejected with a {@link RegistryCallRejectedException} rather than queueing
+ * indefinitely.
+ * <p>
+ * A call holds its concurrency permit only until the given call returns. For an HTTP call that returns a
+ * {@code Response}, e.g. the Eureka calls, that is once the request is sent and the status and headers are received;
+ * reading the entity happens afterward, without a permit. The permit is not held until the entity is consumed, since
+ * a caller may read a large response lazily, e.g. while streaming all registered instances, and holding permits for
+ * as long as such streams stay open would keep other calls from starting. For calls that return the parsed result,
+ * e.g. the Consul calls, the permit covers reading the response as well.
+ */
+public class RegistryCallLimiter {
+
+    /**
+     * The kinds of registry calls that are limited separately.
+     */
+    public enum Lane {
+
+        /**
+         * Looking up service instances.
+         */
+        LOOKUP,
+
+        /**
+         * Registering, updating status, unregistering, and sending heartbeats.
+         */
+        REGISTRATION
+    }
+
+    private static final RegistryCallLimiter UNLIMITED = new RegistryCallLimiter(new RegistryCallLimitsConfig());
+
+    private final Map<Lane, LaneLimits> lanes;
+    private final long maxWaitNanos;
+
+    /**
+     * Create a new limiter using the given limits.
+     *
+     * @param config the limits to apply
+     */
+    public RegistryCallLimiter(RegistryCallLimitsConfig config) {
+        checkArgumentNotNull(config, "config must not be null");
+
+        this.lanes = new EnumMap<>(Lane.class);
+        lanes.put(Lane.LOOKUP, new LaneLimits(config.getMaxConcurrentLookups(), config.getMaxLookupsPerSecond()));
+        lanes.put(Lane.REGISTRATION,
+                new LaneLimits(config.getMaxConcurrentRegistrationCalls(), config.getMaxRegistrationCallsPerSecond()));
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMillis());
+    }
+
+    /**
+     * @return a limiter that permits every call immediately
+     */
+    public static RegistryCallLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Make a call in the given lane once the lane's limits permit it. The concurrency permit is released as soon as
+     * the call returns, so reading a response it returns is not covered by the limit.
+     *
+     * @param lane the lane the call belongs to
+     * @param call the call to make
+     * @param <T>  the result type
+     * @return the result of the call
+     * @throws RegistryCallRejectedException if the lane's limits do not permit the call within the maximum wait
+     */
+    public <T> T call(Lane lane, Supplier<T> call) {
+        checkArgumentNotNull(lane, "lane must not be null");
+        checkArgumentNotNull(call, "call must not be null");
+
+        var limits = lanes.get(lane);
+        var startNanos = System.nanoTime();
+
+        if (!limits.tryAcquireRate(maxWaitNanos)) {
+            throw new RegistryCallRejectedException("Rate limit reached for registry " + lane + " calls");
+        }
+
+        var remainingNanos = Math.max(0, maxWaitNanos - (System.nanoTime() - startNanos));
+        if (!limits.tryAcquireConcurrency(remainingNanos)) {
+            throw new RegistryCallRejectedException("Concurrency limit reached for registry " + lane + " calls");
+        }
+
+        try {
+            return call.get();
+        } finally {
+            limits.releaseConcurrency();
+        }
+    }
+
+    /**
+     * @param lane the lane
+     * @return the number of additional calls that can currently start in the lane without exceeding its concurrency
+     * limit, or {@link Integer#MAX_VALUE} if the lane has no concurrency limit
+     */
+    public int availableConcurrency(Lane lane) {
+        return lanes.get(lane).availableConcurrency();
+    }
+
+    private static class LaneLimits {
+
+        private final Semaphore concurrency;
+        private final RateLimiter rate;
+
+        LaneLimits(int maxConcurrent, int maxPerSecond) {
+            this.concurrency = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+            this.rate = maxPerSecond > 0 ? RateLimiter.create(maxPerSecond) : null;
+        }
+
+        boolean tryAcquireRate(long timeoutNanos) {
+            return isNull(rate) || rate.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+
+        boolean tryAcquireConcurrency(long timeoutNanos) {
+            if (isNull(concurrency)) {
+                return true;
+            }
+
+            try {
+                return concurrency.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void releaseConcurrency() {
+            if (nonNull(concurrency)) {
+                concurrency.release();
+            }
+        }
+
+        int availableConcurrency() {
+            return isNull(concurrency) ? Integer.MAX_VALUE : concurrency.availablePermits();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.kiwiproject.registry.client;
 
+import static java.util.Map.entry;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.kiwiproject.collect.KiwiLists.first;
@@ -18,6 +19,7 @@ import org.kiwiproject.registry.model.Port.Security;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.model.ServiceInstance.Status;
 import org.kiwiproject.registry.model.ServicePaths;
+import org.kiwiproject.registry.model.ServiceSummary;
 
 import java.util.List;
 
@@ -88,6 +90,45 @@ class FakeRegistryClientTest {
         }
     }
 
+    @Nested
+    class RemoveServiceInstance {
+
+        @Test
+        void shouldRemoveInstance() {
+            var instance1 = newServiceInstance("order-service", "host-1", "1.0.0");
+            var instance2 = newServiceInstance("order-service", "host-2", "2.0.0");
+            fakeClient.addServiceInstances(List.of(instance1, instance2));
+
+            assertThat(fakeClient.removeServiceInstance(instance2)).isTrue();
+
+            var query = InstanceQuery.builder().serviceName("order-service").preferredVersion("2.0.0").build();
+            assertThat(fakeClient.findAllServiceInstancesBy(query)).containsExactly(instance1);
+        }
+
+        @Test
+        void shouldRemoveService_WhenLastInstanceIsRemoved() {
+            var instance = newServiceInstance("order-service", "host-1", "1.0.0");
+            fakeClient.addServiceInstance(instance);
+
+            assertThat(fakeClient.removeServiceInstance(instance)).isTrue();
+
+            assertThat(fakeClient.retrieveServiceSummaries()).isEmpty();
+        }
+
+        @Test
+        void shouldReturnFalse_WhenInstanceIsNotRegistered() {
+            assertThat(fakeClient.removeServiceInstance(newServiceInstance("order-service", "host-1", "1.0.0")))
+                    .isFalse();
+        }
+
+        @Test
+        void shouldRejectNullInstance() {
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> fakeClient.removeServiceInstance(null))
+                    .withMessage("instance must not be null");
+        }
+    }
+
     @Nested
     class AddServiceInstances {
 
@@ -181,6 +222,19 @@ class FakeRegistryClientTest {
         void shouldReturnEmpty_WhenNoInstancesRegistered() {
             assertThat(fakeClient.findServiceInstanceBy("order-service")).isEmpty();
         }
+
+        @Test
+        void shouldReturnFirstInstance_WhenSamplingFirst() {
+            var v1Instance = newServiceInstance("order-service", "host-1", "1.0.0");
+            var v2Instance = newServiceInstance("order-service", "host-2", "2.0.0");
+            fakeClient.addServiceInstances(List.of(v2Instance, v1Instance));
+
+            var query = InstanceQuery.builder()
+                    .serviceName("order-service")
+                    .sampling(InstanceQuery.Sampling.FIRST)
+                    .build();
+            assertThat(fakeClient.findServiceInstanceBy(query)).contains(v1Instance);
+        }
     }
 
     @Nested
@@ -231,6 +285,22 @@ class FakeRegistryClientTest {
             assertThat(fakeClient.findAllServiceInstancesBy(query)).containsExactly(v1Instance);
         }
 
+        @Test
+        void shouldFilterByVersionRange() {
+            var v1Instance = newServiceInstance("order-service", "host-1", "1.0.0");
+            var v2Instance = newServiceInstance("order-service", "host-2", "2.0.0");
+            var v3Instance = newServiceInstance("order-service", "host-3", "3.0.0");
+            fakeClient.addServiceInstances(List.of(v3Instance, v1Instance, v2Instance));
+
+            var query = InstanceQuery.builder()
+                    .serviceName("order-service")
+                    .minimumVersion("1.5.0")
+                    .exclusiveMaximumVersion("3.0.0")
+                    .build();
+
+            assertThat(fakeClient.findAllServiceInstancesBy(query)).containsExactly(v2Instance);
+        }
+
         @Test
         void shouldNotReturnInstancesFromOtherServices() {
             fakeClient.addServiceInstance(newServiceInstance("order-service", "host-1", "1.0.0"));
@@ -242,6 +312,55 @@ class FakeRegistryClientTest {
             assertThat(results).hasSize(1);
             assertThat(first(results).getServiceName()).isEqualTo("order-service");
         }
+
+        @Test
+        void shouldLimitInstances() {
+            var v1Instance = newServiceInstance("order-service", "host-1", "1.0.0");
+            var v2Instance = newServiceInstance("order-service", "host-2", "2.0.0");
+            var v3Instance = newServiceInstance("order-service", "host-3", "3.0.0");
+            fakeClient.addServiceInstances(List.of(v3Instance, v1Instance, v2Instance));
+
+            var randomQuery = InstanceQuery.builder().serviceName("order-service").limit(2).build();
+            assertThat(fakeClient.findAllServiceInstancesBy(randomQuery))
+                    .hasSize(2)
+                    .doesNotHaveDuplicates()
+                    .isSubsetOf(v1Instance, v2Instance, v3Instance);
+
+            var firstQuery = InstanceQuery.builder()
+                    .serviceName("order-service")
+                    .limit(2)
+                    .sampling(InstanceQuery.Sampling.FIRST)
+                    .build();
+            assertThat(fakeClient.findAllServiceInstancesBy(firstQuery)).containsExactly(v1Instance, v2Instance);
+        }
+    }
+
+    @Nested
+    class FindAllServiceInstancesByQueries {
+
+        @Test
+        void shouldReturnResultsForEachQuery_InQueryOrder() {
+            var orderInstance = newServiceInstance("order-service", "host-1", "1.0.0");
+            var invoiceV1Instance = newServiceInstance("invoice-service", "host-2", "1.0.0");
+            var invoiceV2Instance = newServiceInstance("invoice-service", "host-3", "2.0.0");
+            fakeClient.addServiceInstances(List.of(orderInstance, invoiceV1Instance, invoiceV2Instance));
+
+            var invoiceQuery = InstanceQuery.builder().serviceName("invoice-service").minimumVersion("2.0.0").build();
+            var orderQuery = InstanceQuery.builder().serviceName("order-service").build();
+            var unknownQuery = InstanceQuery.builder().serviceName("unknown-service").build();
+
+            var results = fakeClient.findAllServiceInstancesBy(List.of(invoiceQuery, orderQuery, unknownQuery));
+
+            assertThat(results.keySet()).containsExactly(invoiceQuery, orderQuery, unknownQuery);
+            assertThat(results.get(invoiceQuery)).containsExactly(invoiceV2Instance);
+            assertThat(results.get(orderQuery)).containsExactly(orderInstance);
+            assertThat(results.get(unknownQuery)).isEmpty();
+        }
+
+        @Test
+        void shouldReturnEmptyMap_WhenNoQueries() {
+            assertThat(fakeClient.findAllServiceInstancesBy(List.of())).isEmpty();
+        }
     }
 
     @Nested
@@ -264,6 +383,49 @@ class FakeRegistryClientTest {
         }
     }
 
+    @Nested
+    class StreamAllRegisteredInstances {
+
+        @Test
+        void shouldStreamAllInstancesAcrossAllServices() {
+            var instance1 = newServiceInstance("order-service", "host-1", "1.0.0");
+            var instance2 = newServiceInstance("invoice-service", "host-2", "2.0.0");
+            fakeClient.addServiceInstances(List.of(instance1, instance2));
+
+            try (var instances = fakeClient.streamAllRegisteredInstances()) {
+                assertThat(instances).containsExactlyInAnyOrder(instance1, instance2);
+            }
+        }
+    }
+
+    @Nested
+    class RetrieveServiceSummaries {
+
+        @Test
+        void shouldSummarizeEachService_SortedByServiceName() {
+            var instance1 = newServiceInstance("order-service", "host-1", "1.0.0");
+            var instance2 = newServiceInstance("order-service", "host-2", "1.1.0").withStatus(Status.DOWN);
+            var instance3 = newServiceInstance("invoice-service", "host-3", "2.0.0");
+            fakeClient.addServiceInstances(List.of(instance1, instance2, instance3));
+
+            var summaries = fakeClient.retrieveServiceSummaries();
+
+            assertThat(summaries)
+                    .extracting(ServiceSummary::getServiceName)
+                    .containsExactly("invoice-service", "order-service");
+
+            var orderSummary = summaries.get(1);
+            assertThat(orderSummary.getInstanceCount()).isEqualTo(2);
+            assertThat(orderSummary.getStatusCounts()).containsExactly(entry("DOWN", 1), entry("UP", 1));
+            assertThat(orderSummary.getVersions()).containsExactly("1.0.0", "1.1.0");
+        }
+
+        @Test
+        void shouldReturnEmptyList_WhenNoInstancesRegistered() {
+            assertThat(fakeClient.retrieveServiceSummaries()).isEmpty();
+        }
+    }
+
     private static ServiceInstance newServiceInstance(String serviceName, String hostName, String version) {
         return newServiceInstance(serviceName, hostName, version, null);
     }
@@ -1,7 +1,9 @@
 package org.kiwiproject.registry.client;
 
+import static java.util.Map.entry;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.kiwiproject.collect.KiwiLists.first;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -20,12 +22,16 @@ import org.kiwiproject.registry.client.RegistryClient.InstanceQuery;
 import org.kiwiproject.registry.consul.client.ConsulRegistryClient;
 import org.kiwiproject.registry.eureka.client.EurekaRegistryClient;
 import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServiceSummary;
 import org.kiwiproject.registry.util.ServiceInfoHelper;
 import org.testcontainers.shaded.com.google.common.collect.Lists;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 @DisplayName("MultiRegistryClient")
 class MultiRegistryClientTest {
@@ -164,6 +170,100 @@ class MultiRegistryClientTest {
             verify(consulRegistryClient).findAllServiceInstancesBy(query);
             verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
         }
+
+        @Test
+        void shouldApplyLimitOnce_ToServiceInstancesFromAllRegistryClients() {
+            var eurekaServices = List.of(
+                newServiceInstance("order-service", "server-1"),
+                newServiceInstance("order-service", "server-2")
+            );
+
+            var consulServices = List.of(
+                newServiceInstance("order-service", "server-3"),
+                newServiceInstance("order-service", "server-4")
+            );
+
+            var unlimitedQuery = InstanceQuery.builder().serviceName("order-service").build();
+            when(eurekaRegistryClient.findAllServiceInstancesBy(unlimitedQuery)).thenReturn(eurekaServices);
+            when(consulRegistryClient.findAllServiceInstancesBy(unlimitedQuery)).thenReturn(consulServices);
+
+            var query = unlimitedQuery.toBuilder().limit(3).build();
+            var services = multiRegistryClient.findAllServiceInstancesBy(query);
+
+            var allServices = new ArrayList<ServiceInstance>();
+            allServices.addAll(eurekaServices);
+            allServices.addAll(consulServices);
+
+            assertThat(services)
+                    .hasSize(3)
+                    .doesNotHaveDuplicates()
+                    .isSubsetOf(allServices);
+
+            verify(eurekaRegistryClient).findAllServiceInstancesBy(unlimitedQuery);
+            verify(consulRegistryClient).findAllServiceInstancesBy(unlimitedQuery);
+            verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
+        }
+    }
+
+    @Nested
+    class FindAllServiceInstancesInBatch {
+
+        @Test
+        void shouldCombineServiceInstancesForEachQuery_FromOneBatchPerRegistryClient() {
+            var orderQuery = InstanceQuery.builder().serviceName("order-service").build();
+            var invoiceQuery = InstanceQuery.builder().serviceName("invoice-service").build();
+            var queries = List.of(orderQuery, invoiceQuery);
+
+            var eurekaOrderService = newServiceInstance("order-service", "server-1");
+            var consulOrderService = newServiceInstance("order-service", "server-2");
+            var consulInvoiceService = newServiceInstance("invoice-service", "server-3");
+
+            when(eurekaRegistryClient.findAllServiceInstancesBy(queries)).thenReturn(Map.of(
+                    orderQuery, List.of(eurekaOrderService),
+                    invoiceQuery, List.of()));
+            when(consulRegistryClient.findAllServiceInstancesBy(queries)).thenReturn(Map.of(
+                    orderQuery, List.of(consulOrderService),
+                    invoiceQuery, List.of(consulInvoiceService)));
+
+            var results = multiRegistryClient.findAllServiceInstancesBy(queries);
+
+            assertThat(results).containsOnlyKeys(orderQuery, invoiceQuery);
+            assertThat(results.get(orderQuery)).containsExactly(eurekaOrderService, consulOrderService);
+            assertThat(results.get(invoiceQuery)).containsExactly(consulInvoiceService);
+
+            verify(eurekaRegistryClient).findAllServiceInstancesBy(queries);
+            verify(consulRegistryClient).findAllServiceInstancesBy(queries);
+            verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
+        }
+
+        @Test
+        void shouldQueryRegistryClientsWithoutLimits_AndApplyEachLimitOnce() {
+            var unlimitedQuery = InstanceQuery.builder().serviceName("order-service").build();
+            var firstQuery = unlimitedQuery.toBuilder().limit(1).sampling(InstanceQuery.Sampling.FIRST).build();
+            var queries = List.of(firstQuery, unlimitedQuery);
+
+            var eurekaOrderService = newServiceInstance("order-service", "server-1");
+            var consulOrderService = newServiceInstance("order-service", "server-2");
+
+            var unlimitedFirstQuery = firstQuery.toBuilder().limit(null).build();
+            var unlimitedQueries = List.of(unlimitedFirstQuery, unlimitedQuery);
+            when(eurekaRegistryClient.findAllServiceInstancesBy(unlimitedQueries)).thenReturn(Map.of(
+                    unlimitedFirstQuery, List.of(eurekaOrderService),
+                    unlimitedQuery, List.of(eurekaOrderService)));
+            when(consulRegistryClient.findAllServiceInstancesBy(unlimitedQueries)).thenReturn(Map.of(
+                    unlimitedFirstQuery, List.of(consulOrderService),
+                    unlimitedQuery, List.of(consulOrderService)));
+
+            var results = multiRegistryClient.findAllServiceInstancesBy(queries);
+
+            assertThat(results).containsOnlyKeys(firstQuery, unlimitedQuery);
+            assertThat(results.get(firstQuery)).containsExactly(eurekaOrderService);
+            assertThat(results.get(unlimitedQuery)).containsExactly(eurekaOrderService, consulOrderService);
+
+            verify(eurekaRegistryClient).findAllServiceInstancesBy(unlimitedQueries);
+            verify(consulRegistryClient).findAllServiceInstancesBy(unlimitedQueries);
+            verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
+        }
     }
 
     @Nested
@@ -216,6 +316,24 @@ class MultiRegistryClientTest {
             verify(consulRegistryClient).findServiceInstanceBy("test-service", "instance-id");
             verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
         }
+
+        @Test
+        void shouldChooseServiceInstance_FromServiceInstancesOfAllRegistryClients_WhenFindingByQuery() {
+            var consulOrderService = newServiceInstance("order-service", "server-2");
+
+            var unlimitedQuery = InstanceQuery.builder().serviceName("order-service").build();
+            when(eurekaRegistryClient.findAllServiceInstancesBy(unlimitedQuery)).thenReturn(List.of());
+            when(consulRegistryClient.findAllServiceInstancesBy(unlimitedQuery))
+                    .thenReturn(List.of(consulOrderService));
+
+            var serviceOptional = multiRegistryClient.findServiceInstanceBy(unlimitedQuery);
+
+            assertThat(serviceOptional).contains(consulOrderService);
+
+            verify(eurekaRegistryClient).findAllServiceInstancesBy(unlimitedQuery);
+            verify(consulRegistryClient).findAllServiceInstancesBy(unlimitedQuery);
+            verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
+        }
     }
 
     @Nested
@@ -289,6 +407,95 @@ class MultiRegistryClientTest {
         }
     }
 
+    @Nested
+    class StreamAllRegisteredInstances {
+
+        @Test
+        void shouldStreamRegisteredInstances_FromAllRegistryClientsInOrder() {
+            var eurekaServices = List.of(newServiceInstance("order-service", "server-1"));
+            var consulServices = List.of(newServiceInstance("invoice-service", "server-2"));
+
+            when(eurekaRegistryClient.streamAllRegisteredInstances()).thenReturn(eurekaServices.stream());
+            when(consulRegistryClient.streamAllRegisteredInstances()).thenReturn(consulServices.stream());
+
+            try (var services = multiRegistryClient.streamAllRegisteredInstances()) {
+                var expectedServices = new ArrayList<ServiceInstance>();
+                expectedServices.addAll(eurekaServices);
+                expectedServices.addAll(consulServices);
+
+                assertThat(services).containsExactlyElementsOf(expectedServices);
+            }
+        }
+
+        @Test
+        void shouldNotStreamFromLaterRegistryClients_UntilStreamReachesThem() {
+            var eurekaServices = List.of(newServiceInstance("order-service", "server-1"));
+            when(eurekaRegistryClient.streamAllRegisteredInstances()).thenReturn(eurekaServices.stream());
+
+            try (var services = multiRegistryClient.streamAllRegisteredInstances()) {
+                assertThat(services.findFirst()).contains(first(eurekaServices));
+            }
+
+            verify(eurekaRegistryClient).streamAllRegisteredInstances();
+            verifyNoInteractions(consulRegistryClient);
+        }
+
+        @Test
+        void shouldCloseStreamsFromRegistryClients() {
+            var closed = new AtomicBoolean();
+            when(eurekaRegistryClient.streamAllRegisteredInstances())
+                    .thenReturn(Stream.of(newServiceInstance("order-service", "server-1")).onClose(() -> closed.set(true)));
+            when(consulRegistryClient.streamAllRegisteredInstances()).thenReturn(Stream.empty());
+
+            try (var services = multiRegistryClient.streamAllRegisteredInstances()) {
+                assertThat(services).hasSize(1);
+            }
+
+            assertThat(closed).isTrue();
+        }
+    }
+
+    @Nested
+    class RetrieveServiceSummaries {
+
+        @Test
+        void shouldCombineSummariesOfTheSameServiceFromAllRegistryClients() {
+            var eurekaSummaries = List.of(
+                    ServiceSummary.tally("order-service").add("UP", "1.0.0").add("DOWN", "1.0.0").toSummary()
+            );
+            var consulSummaries = List.of(
+                    ServiceSummary.tally("invoice-service").add("UP", "2.0.0").toSummary(),
+                    ServiceSummary.tally("order-service").add("UP", "1.1.0").toSummary()
+            );
+
+            when(eurekaRegistryClient.retrieveServiceSummaries()).thenReturn(eurekaSummaries);
+            when(consulRegistryClient.retrieveServiceSummaries()).thenReturn(consulSummaries);
+
+            var summaries = multiRegistryClient.retrieveServiceSummaries();
+
+            assertThat(summaries)
+                    .extracting(ServiceSummary::getServiceName)
+                    .containsExactly("invoice-service", "order-service");
+
+            var orderSummary = summaries.get(1);
+            assertThat(orderSummary.getInstanceCount()).isEqualTo(3);
+            assertThat(orderSummary.getStatusCounts()).containsExactly(entry("DOWN", 1), entry("UP", 2));
+            assertThat(orderSummary.getVersions()).containsExactly("1.0.0", "1.1.0");
+
+            verify(eurekaRegistryClient).retrieveServiceSummaries();
+            verify(consulRegistryClient).retrieveServiceSummaries();
+            verifyNoMoreInteractions(eurekaRegistryClient, consulRegistryClient);
+        }
+
+        @Test
+        void shouldReturnEmptyList_WhenNoRegistryHasAnyServices() {
+            when(eurekaRegistryClient.retrieveServiceSummaries()).thenReturn(List.of());
+            when(consulRegistryClient.retrieveServiceSummaries()).thenReturn(List.of());
+
+            assertThat(multiRegistryClient.retrieveServiceSummaries()).isEmpty();
+        }
+    }
+
     private static ServiceInstance newServiceInstance(String name, String hostname) {
         return ServiceInstance.fromServiceInfo(ServiceInfoHelper.buildTestServiceInfo(name, hostname));
     }
@@ -67,4 +67,9 @@ class NoOpRegistryClientTest {
     void retrieveAllRegisteredInstances_shouldReturnEmptyList() {
         assertThat(registryClient.retrieveAllRegisteredInstances()).isUnmodifiable().isEmpty();
     }
+
+    @RepeatedTest(5)
+    void retrieveServiceSummaries_shouldReturnEmptyList() {
+        assertThat(registryClient.retrieveServiceSummaries()).isUnmodifiable().isEmpty();
+    }
 }
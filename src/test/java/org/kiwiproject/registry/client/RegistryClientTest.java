@@ -1,11 +1,15 @@
 package org.kiwiproject.registry.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
+
 @DisplayName("RegistryClient")
 class RegistryClientTest {
 
@@ -42,6 +46,64 @@ class RegistryClientTest {
 
                 assertThat(query.hasNoVersionPredicates()).isFalse();
             }
+
+            @Test
+            void shouldReturnFalseWhenOtherVersionPredicatesSet() {
+                assertThat(RegistryClient.InstanceQuery.builder().maximumVersion("0.1.0").build()
+                        .hasNoVersionPredicates()).isFalse();
+                assertThat(RegistryClient.InstanceQuery.builder().exclusiveMaximumVersion("0.1.0").build()
+                        .hasNoVersionPredicates()).isFalse();
+                assertThat(RegistryClient.InstanceQuery.builder().excludedVersion("0.1.0").build()
+                        .hasNoVersionPredicates()).isFalse();
+                assertThat(RegistryClient.InstanceQuery.builder().latestVersionCount(1).build()
+                        .hasNoVersionPredicates()).isFalse();
+            }
+        }
+
+        @Nested
+        class HasNoMetadataPredicates {
+            @Test
+            void shouldReturnTrueWhenNoMetadataPredicatesSet() {
+                var query = RegistryClient.InstanceQuery.builder().minimumVersion("0.1.0").build();
+
+                assertThat(query.hasNoMetadataPredicates()).isTrue();
+            }
+
+            @Test
+            void shouldReturnFalseWhenAnyMetadataPredicateSet() {
+                assertThat(RegistryClient.InstanceQuery.builder().metadataValue("zone", "east").build()
+                        .hasNoMetadataPredicates()).isFalse();
+                assertThat(RegistryClient.InstanceQuery.builder().metadataKey("zone").build()
+                        .hasNoMetadataPredicates()).isFalse();
+                assertThat(RegistryClient.InstanceQuery.builder().tag("canary").build()
+                        .hasNoMetadataPredicates()).isFalse();
+            }
+
+            @Test
+            void shouldNotCountAsVersionPredicates() {
+                var query = RegistryClient.InstanceQuery.builder().tag("canary").build();
+
+                assertThat(query.hasNoVersionPredicates()).isTrue();
+            }
+        }
+
+        @Nested
+        class Limit {
+            @Test
+            void shouldHaveNoLimitAndSampleAtRandom_ByDefault() {
+                var query = RegistryClient.InstanceQuery.builder().build();
+
+                assertThat(query.hasNoLimit()).isTrue();
+                assertThat(query.getSampling()).isEqualTo(RegistryClient.InstanceQuery.Sampling.RANDOM);
+            }
+
+            @Test
+            void shouldHaveLimit_WhenSet() {
+                var query = RegistryClient.InstanceQuery.builder().limit(3).build();
+
+                assertThat(query.hasNoLimit()).isFalse();
+                assertThat(query.getLimit()).isEqualTo(3);
+            }
         }
 
         @Nested
@@ -90,5 +152,53 @@ class RegistryClientTest {
             assertThat(query.getMinimumVersion()).isEqualTo("0.1.0");
             assertThat(query.getPreferredVersion()).isEqualTo("0.1.0");
         }
+
+        @Test
+        void shouldBeEqual_WhenValuesAreEqual() {
+            var query1 = RegistryClient.InstanceQuery.builder().serviceName("test-service").minimumVersion("1.0.0").build();
+            var query2 = RegistryClient.InstanceQuery.builder().serviceName("test-service").minimumVersion("1.0.0").build();
+            var query3 = RegistryClient.InstanceQuery.builder().serviceName("test-service").minimumVersion("2.0.0").build();
+
+            assertThat(query1)
+                    .isEqualTo(query2)
+                    .hasSameHashCodeAs(query2)
+                    .isNotEqualTo(query3);
+        }
+
+        @Nested
+        class Deadline {
+
+            @Test
+            void shouldNotHaveDeadlineByDefault() {
+                var query = RegistryClient.InstanceQuery.builder().serviceName("test-service").build();
+
+                assertThat(query.hasDeadline()).isFalse();
+                assertThat(query.getDeadline()).isNull();
+                assertThatIllegalStateException().isThrownBy(query::remainingTime);
+            }
+
+            @Test
+            void shouldSetDeadlineFromTimeout() {
+                var before = Instant.now();
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("test-service")
+                        .timeout(Duration.ofMillis(200))
+                        .build();
+
+                assertThat(query.hasDeadline()).isTrue();
+                assertThat(query.getDeadline()).isBetween(before.plusMillis(200), Instant.now().plusMillis(200));
+                assertThat(query.remainingTime()).isBetween(Duration.ZERO, Duration.ofMillis(200));
+            }
+
+            @Test
+            void shouldHaveNegativeRemainingTime_WhenDeadlineHasPassed() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("test-service")
+                        .deadline(Instant.now().minusSeconds(1))
+                        .build();
+
+                assertThat(query.remainingTime()).isNegative();
+            }
+        }
     }
 }
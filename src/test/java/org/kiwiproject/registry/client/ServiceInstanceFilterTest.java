@@ -12,7 +12,11 @@ import org.junit.jupiter.api.Test;
 import org.kiwiproject.registry.model.ServiceInstance;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 @DisplayName("ServiceInstanceFilter")
 class ServiceInstanceFilterTest {
@@ -194,4 +198,385 @@ class ServiceInstanceFilterTest {
                     .hasSize(2);
         }
     }
+
+    @Nested
+    class FilterByVersion {
+
+        private record RawInstance(String id, Map<String, String> metadata) {
+            String version() {
+                return metadata.get("version");
+            }
+        }
+
+        private List<RawInstance> rawInstances;
+
+        @BeforeEach
+        void setUp() {
+            rawInstances = List.of(
+                    new RawInstance("a", Map.of("version", "1.0.0")),
+                    new RawInstance("b", Map.of("version", "1.1.0")),
+                    new RawInstance("c", Map.of("version", "1.2.0")),
+                    new RawInstance("d", Map.of("version", "1.2.0"))
+            );
+        }
+
+        @Test
+        void shouldReturnAllInstances_WhenNoPredicates() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().build()))
+                    .containsExactlyElementsOf(rawInstances);
+        }
+
+        @Test
+        void shouldFilterByMinimumVersion() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().minimumVersion("1.1.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("b", "c", "d");
+        }
+
+        @Test
+        void shouldFilterByPreferredVersion() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().preferredVersion("1.1.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("b");
+        }
+
+        @Test
+        void shouldReturnLatestVersion_WhenNoInstancesMatchPreferredVersion() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().preferredVersion("2.0.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("c", "d");
+        }
+
+        @Test
+        void shouldOnlyReadVersions_NotConvertInstances() {
+            var versionsRead = new AtomicInteger();
+
+            ServiceInstanceFilter.filterByVersion(rawInstances, rawInstance -> {
+                versionsRead.incrementAndGet();
+                return rawInstance.version();
+            }, RegistryClient.InstanceQuery.builder().minimumVersion("1.2.0").build());
+
+            assertThat(versionsRead).hasValue(rawInstances.size());
+        }
+
+        @Test
+        void shouldReadEachVersionOnce_WhenFindingLatestVersionInstead() {
+            var versionsRead = new AtomicInteger();
+
+            var filtered = ServiceInstanceFilter.filterByVersion(rawInstances, rawInstance -> {
+                versionsRead.incrementAndGet();
+                return rawInstance.version();
+            }, RegistryClient.InstanceQuery.builder().minimumVersion("1.1.0").preferredVersion("2.0.0").build());
+
+            assertThat(filtered).extracting(RawInstance::id).containsExactly("c", "d");
+            assertThat(versionsRead).hasValue(rawInstances.size());
+        }
+
+        @Test
+        void shouldCompareVersionsInTheSameWayAsKiwi() {
+            var instances = List.of(
+                    new RawInstance("a", Map.of("version", "1.0")),
+                    new RawInstance("b", Map.of("version", "1-0")),
+                    new RawInstance("c", Map.of("version", "1.0-SNAPSHOT")),
+                    new RawInstance("d", Map.of("version", "1.0-snapshot"))
+            );
+
+            assertThat(ServiceInstanceFilter.filterByVersion(instances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().preferredVersion("1.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("a", "b");
+
+            assertThat(ServiceInstanceFilter.filterByVersion(instances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().preferredVersion("1.0-SNAPSHOT").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("c", "d");
+
+            assertThat(ServiceInstanceFilter.filterByVersion(instances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().preferredVersion("2.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("a", "b");
+        }
+
+        @Test
+        void shouldFilterByVersionRange() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().minimumVersion("1.0.0").exclusiveMaximumVersion("1.2.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("a", "b");
+
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().maximumVersion("1.1.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("a", "b");
+        }
+
+        @Test
+        void shouldFilterByExcludedVersions() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().excludedVersion("1.1.0").excludedVersion("1.2.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("a");
+        }
+
+        @Test
+        void shouldFilterByLatestVersionCount() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().latestVersionCount(2).build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("b", "c", "d");
+        }
+
+        @Test
+        void shouldReturnLatestVersionWithinRange_WhenNoInstancesMatchPreferredVersion() {
+            assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version,
+                    RegistryClient.InstanceQuery.builder().maximumVersion("1.1.0").preferredVersion("2.0.0").build()))
+                    .extracting(RawInstance::id)
+                    .containsExactly("b");
+        }
+
+        @Test
+        void shouldMatchFilterInstancesByVersion() {
+            var serviceInstances = rawInstances.stream()
+                    .map(rawInstance -> ServiceInstance.builder()
+                            .instanceId(rawInstance.id())
+                            .version(rawInstance.version())
+                            .build())
+                    .toList();
+
+            var queries = List.of(
+                    RegistryClient.InstanceQuery.builder().minimumVersion("1.1.0").build(),
+                    RegistryClient.InstanceQuery.builder().minimumVersion("1.1.0").preferredVersion("1.0.0").build(),
+                    RegistryClient.InstanceQuery.builder().minimumVersion("3.0.0").build()
+            );
+
+            for (var query : queries) {
+                var expectedIds = ServiceInstanceFilter.filterInstancesByVersion(serviceInstances, query).stream()
+                        .map(ServiceInstance::getInstanceId)
+                        .toList();
+
+                assertThat(ServiceInstanceFilter.filterByVersion(rawInstances, RawInstance::version, query))
+                        .extracting(RawInstance::id)
+                        .containsExactlyElementsOf(expectedIds);
+            }
+        }
+
+        @Test
+        void shouldThrowIllegalArgumentException_WhenInstanceHasNoVersion() {
+            var instances = List.of(new RawInstance("a", Map.of()));
+            var query = RegistryClient.InstanceQuery.builder().minimumVersion("1.0.0").build();
+
+            assertThatThrownBy(() -> ServiceInstanceFilter.filterByVersion(instances, RawInstance::version, query))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("instance version cannot be null");
+        }
+    }
+
+    @Nested
+    class FilterInstancesByMetadata {
+
+        private List<ServiceInstance> serviceInstances;
+
+        @BeforeEach
+        void setUp() {
+            serviceInstances = List.of(
+                    newInstance("a", Map.of("zone", "east", "canary", "canary")),
+                    newInstance("b", Map.of("zone", "east", "weight", "10")),
+                    newInstance("c", Map.of("zone", "west")),
+                    newInstance("d", Map.of())
+            );
+        }
+
+        @Test
+        void shouldReturnAllInstances_WhenNoPredicates() {
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder().build()))
+                    .containsExactlyElementsOf(serviceInstances);
+        }
+
+        @Test
+        void shouldFilterByMetadataValue() {
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder().metadataValue("zone", "east").build()))
+                    .extracting(ServiceInstance::getInstanceId)
+                    .containsExactly("a", "b");
+        }
+
+        @Test
+        void shouldFilterByMetadataKey() {
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder().metadataKey("weight").build()))
+                    .extracting(ServiceInstance::getInstanceId)
+                    .containsExactly("b");
+        }
+
+        @Test
+        void shouldFilterByTag() {
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder().tag("canary").build()))
+                    .extracting(ServiceInstance::getInstanceId)
+                    .containsExactly("a");
+
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder().tag("zone").build()))
+                    .isEmpty();
+        }
+
+        @Test
+        void shouldRequireEveryPredicate() {
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder()
+                            .metadataValue("zone", "east")
+                            .metadataKey("weight")
+                            .build()))
+                    .extracting(ServiceInstance::getInstanceId)
+                    .containsExactly("b");
+
+            assertThat(ServiceInstanceFilter.filterInstancesByMetadata(serviceInstances,
+                    RegistryClient.InstanceQuery.builder()
+                            .metadataValue("zone", "west")
+                            .tag("canary")
+                            .build()))
+                    .isEmpty();
+        }
+
+        private static ServiceInstance newInstance(String instanceId, Map<String, String> metadata) {
+            return ServiceInstance.builder()
+                    .instanceId(instanceId)
+                    .version("1.0.0")
+                    .metadata(metadata)
+                    .build();
+        }
+    }
+
+    @Nested
+    class Limit {
+
+        private List<Integer> instances;
+
+        @BeforeEach
+        void setUp() {
+            instances = IntStream.range(0, 10).boxed().toList();
+        }
+
+        @Test
+        void shouldReturnSameInstances_WhenNoLimit() {
+            assertThat(ServiceInstanceFilter.limit(instances, RegistryClient.InstanceQuery.builder().build()))
+                    .isSameAs(instances);
+        }
+
+        @Test
+        void shouldReturnSameInstances_WhenNoMoreInstancesThanLimit() {
+            assertThat(ServiceInstanceFilter.limit(instances, RegistryClient.InstanceQuery.builder().limit(10).build()))
+                    .isSameAs(instances);
+        }
+
+        @Test
+        void shouldReturnFirstInstances_WhenSamplingFirst() {
+            var query = RegistryClient.InstanceQuery.builder()
+                    .limit(3)
+                    .sampling(RegistryClient.InstanceQuery.Sampling.FIRST)
+                    .build();
+
+            assertThat(ServiceInstanceFilter.limit(instances, query)).containsExactly(0, 1, 2);
+        }
+
+        @RepeatedTest(25)
+        void shouldReturnDistinctInstances_WhenSamplingAtRandom() {
+            var query = RegistryClient.InstanceQuery.builder().limit(7).build();
+
+            assertThat(ServiceInstanceFilter.limit(instances, query))
+                    .hasSize(7)
+                    .doesNotHaveDuplicates()
+                    .isSubsetOf(instances);
+        }
+
+        @Test
+        void shouldChooseEveryInstanceInEveryPosition_WhenSamplingAtRandom() {
+            var query = RegistryClient.InstanceQuery.builder().limit(3).build();
+
+            var instancesChosenFirst = new HashSet<Integer>();
+            var instancesChosenLast = new HashSet<Integer>();
+            for (var i = 0; i < 1_000; i++) {
+                var sample = ServiceInstanceFilter.limit(instances, query);
+                instancesChosenFirst.add(sample.get(0));
+                instancesChosenLast.add(sample.get(2));
+            }
+
+            assertThat(instancesChosenFirst).containsExactlyInAnyOrderElementsOf(instances);
+            assertThat(instancesChosenLast).containsExactlyInAnyOrderElementsOf(instances);
+        }
+
+        @Test
+        void shouldRejectLimitLessThanOne() {
+            var query = RegistryClient.InstanceQuery.builder().limit(0).build();
+
+            assertThatThrownBy(() -> ServiceInstanceFilter.limit(instances, query))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("limit must be positive");
+        }
+    }
+
+    @Nested
+    class FilterAndConvert {
+
+        private List<Map<String, String>> rawInstances;
+
+        @BeforeEach
+        void setUp() {
+            rawInstances = List.of(
+                    Map.of("id", "a", "version", "1.0.0", "zone", "east"),
+                    Map.of("id", "b", "version", "1.1.0", "zone", "west"),
+                    Map.of("id", "c", "version", "1.2.0", "zone", "east"),
+                    Map.of("id", "d", "version", "1.2.0", "zone", "east")
+            );
+        }
+
+        @Test
+        void shouldOnlyConvertInstancesFound_WhenNoMetadataPredicates() {
+            var conversions = new AtomicInteger();
+            var query = RegistryClient.InstanceQuery.builder()
+                    .minimumVersion("1.1.0")
+                    .limit(2)
+                    .sampling(RegistryClient.InstanceQuery.Sampling.FIRST)
+                    .build();
+
+            var serviceInstances = ServiceInstanceFilter.filterAndConvert(rawInstances,
+                    rawInstance -> rawInstance.get("version"),
+                    rawInstance -> {
+                        conversions.incrementAndGet();
+                        return toServiceInstance(rawInstance);
+                    },
+                    query);
+
+            assertThat(serviceInstances).extracting(ServiceInstance::getInstanceId).containsExactly("b", "c");
+            assertThat(conversions).hasValue(2);
+        }
+
+        @Test
+        void shouldLimitInstancesHavingMetadata() {
+            var query = RegistryClient.InstanceQuery.builder()
+                    .minimumVersion("1.1.0")
+                    .metadataValue("zone", "east")
+                    .limit(1)
+                    .sampling(RegistryClient.InstanceQuery.Sampling.FIRST)
+                    .build();
+
+            var serviceInstances = ServiceInstanceFilter.filterAndConvert(rawInstances,
+                    rawInstance -> rawInstance.get("version"), FilterAndConvert::toServiceInstance, query);
+
+            assertThat(serviceInstances).extracting(ServiceInstance::getInstanceId).containsExactly("c");
+        }
+
+        private static ServiceInstance toServiceInstance(Map<String, String> rawInstance) {
+            return ServiceInstance.builder()
+                    .instanceId(rawInstance.get("id"))
+                    .version(rawInstance.get("version"))
+                    .metadata(rawInstance)
+                    .build();
+        }
+    }
 }
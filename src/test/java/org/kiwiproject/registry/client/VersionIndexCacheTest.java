@@ -0,0 +1,138 @@
+package org.kiwiproject.registry.client;
+
+import static java.util.Objects.isNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.client.RegistryClient.InstanceQuery;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("VersionIndexCache")
+class VersionIndexCacheTest {
+
+    private AtomicLong nanoTime;
+    private VersionIndexCache<ServiceInstance> cache;
+
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong();
+
+        // The commit ref stands in for the revision a registry keeps for each instance
+        cache = new VersionIndexCache<>(ServiceInstance::getVersion, ServiceInstance::getMetadata,
+                instance -> isNull(instance.getCommitRef())
+                        ? null : List.of(instance.getInstanceId(), instance.getCommitRef()),
+                new Ticker() {
+                    @Override
+                    public long read() {
+                        return nanoTime.get();
+                    }
+                });
+    }
+
+    @Test
+    void shouldIndexInstances() {
+        var instances = List.of(newInstance("order-1", "2.0.0", "a"), newInstance("order-2", "1.0.0", "a"));
+
+        var index = cache.indexFor("order-service", instances);
+
+        assertThat(index.find(InstanceQuery.builder().minimumVersion("1.5.0").build()))
+                .extracting(ServiceInstance::getInstanceId)
+                .containsExactly("order-1");
+    }
+
+    @Test
+    void shouldReuseIndex_WhenInstancesAreUnchanged() {
+        var index = cache.indexFor("order-service",
+                List.of(newInstance("order-1", "1.0.0", "a"), newInstance("order-2", "2.0.0", "a")));
+
+        var sameInstancesInOtherOrder =
+                List.of(newInstance("order-2", "2.0.0", "a"), newInstance("order-1", "1.0.0", "a"));
+
+        assertThat(cache.indexFor("order-service", sameInstancesInOtherOrder)).isSameAs(index);
+    }
+
+    @Test
+    void shouldReuseFoundInstances_WhenInstancesAreUnchanged() {
+        var query = InstanceQuery.builder().minimumVersion("1.0.0").build();
+        var found = cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a"))).find(query);
+
+        var foundAgain = cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a"))).find(query);
+
+        assertThat(foundAgain).isSameAs(found);
+    }
+
+    @Test
+    void shouldBuildNewIndex_WhenInstanceChanges() {
+        var index = cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a")));
+
+        var newIndex = cache.indexFor("order-service", List.of(newInstance("order-1", "1.1.0", "b")));
+
+        assertThat(newIndex).isNotSameAs(index);
+        assertThat(newIndex.all()).extracting(ServiceInstance::getVersion).containsExactly("1.1.0");
+        assertThat(cache.indexFor("order-service", List.of(newInstance("order-1", "1.1.0", "b")))).isSameAs(newIndex);
+    }
+
+    @Test
+    void shouldBuildNewIndex_WhenInstanceIsAddedOrRemoved() {
+        var index = cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a")));
+
+        var withAddedInstance = cache.indexFor("order-service",
+                List.of(newInstance("order-1", "1.0.0", "a"), newInstance("order-2", "1.0.0", "a")));
+        assertThat(withAddedInstance).isNotSameAs(index);
+        assertThat(withAddedInstance.size()).isEqualTo(2);
+
+        var withRemovedInstance = cache.indexFor("order-service", List.of(newInstance("order-2", "1.0.0", "a")));
+        assertThat(withRemovedInstance).isNotSameAs(withAddedInstance);
+        assertThat(withRemovedInstance.size()).isOne();
+    }
+
+    @Test
+    void shouldKeepIndexOfEachService() {
+        var orderIndex = cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a")));
+        var invoiceIndex = cache.indexFor("invoice-service", List.of(newInstance("invoice-1", "1.0.0", "a")));
+
+        assertThat(cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a")))).isSameAs(orderIndex);
+        assertThat(cache.indexFor("invoice-service", List.of(newInstance("invoice-1", "1.0.0", "a"))))
+                .isSameAs(invoiceIndex);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCacheIndex_WhenAnyInstanceHasNoRevision() {
+        var instances = List.of(newInstance("order-1", "1.0.0", "a"), newInstance("order-2", "1.0.0", null));
+
+        var index = cache.indexFor("order-service", instances);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(cache.indexFor("order-service", instances)).isNotSameAs(index);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldDropIndex_WhenServiceIsNotLookedUp() {
+        var index = cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a")));
+
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.indexFor("order-service", List.of(newInstance("order-1", "1.0.0", "a")))).isNotSameAs(index);
+    }
+
+    private static ServiceInstance newInstance(String instanceId, String version, String commitRef) {
+        return ServiceInstance.builder()
+                .instanceId(instanceId)
+                .serviceName("order-service")
+                .version(version)
+                .commitRef(commitRef)
+                .metadata(Map.of())
+                .build();
+    }
+}
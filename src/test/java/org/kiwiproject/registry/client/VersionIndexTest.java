@@ -0,0 +1,458 @@
+package org.kiwiproject.registry.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.client.RegistryClient.InstanceQuery;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@DisplayName("VersionIndex")
+class VersionIndexTest {
+
+    private static final List<String> VERSIONS =
+            List.of("1.0.0", "1.1.0", "1.1.0", "1.2.0-SNAPSHOT", "1.2.0", "2.0.0", "2.0.0", "2.0.0", "2.1.0", "3.0.0");
+
+    private List<ServiceInstance> instances;
+    private VersionIndex<ServiceInstance> index;
+
+    @BeforeEach
+    void setUp() {
+        instances = new ArrayList<>();
+        for (var i = 0; i < VERSIONS.size(); i++) {
+            instances.add(newInstance("order-" + i, VERSIONS.get(i)));
+        }
+
+        // Added in reverse so that the index cannot rely on the instances being added in order of version
+        index = VersionIndex.ofServiceInstances(Lists.reverse(instances));
+    }
+
+    @Nested
+    class Find {
+
+        @Test
+        void shouldFindSameInstancesAsFilteringThem() {
+            var versions = Stream.concat(Stream.of("0.1.0", "1.1.5", "9.0.0"), VERSIONS.stream()).distinct().toList();
+
+            var queries = new ArrayList<InstanceQuery>();
+            queries.add(query().build());
+            for (var version : versions) {
+                queries.add(query().minimumVersion(version).build());
+                queries.add(query().maximumVersion(version).build());
+                queries.add(query().exclusiveMaximumVersion(version).build());
+                queries.add(query().excludedVersion(version).build());
+                queries.add(query().preferredVersion(version).build());
+                queries.add(query().preferredVersion(version).excludedVersion("3.0.0").build());
+                queries.add(query().preferredVersion(version).latestVersionCount(2).build());
+                for (var otherVersion : versions) {
+                    queries.add(query().minimumVersion(version).exclusiveMaximumVersion(otherVersion).build());
+                    queries.add(query().minimumVersion(version).maximumVersion(otherVersion).build());
+                    queries.add(query().minimumVersion(version).preferredVersion(otherVersion).build());
+                    queries.add(query().maximumVersion(version).exclusiveMaximumVersion(otherVersion).build());
+                    queries.add(query().exclusiveMaximumVersion(version).preferredVersion(otherVersion).build());
+                    queries.add(query().minimumVersion(version).excludedVersion(otherVersion).latestVersionCount(2)
+                            .build());
+                }
+            }
+            for (var latestVersionCount = 1; latestVersionCount <= 8; latestVersionCount++) {
+                queries.add(query().latestVersionCount(latestVersionCount).build());
+                queries.add(query().latestVersionCount(latestVersionCount).excludedVersion("2.1.0").build());
+            }
+
+            for (var query : queries) {
+                assertThat(index.find(query))
+                        .describedAs("find %s", query)
+                        .containsExactlyInAnyOrderElementsOf(
+                                ServiceInstanceFilter.filterInstancesByVersion(instances, query));
+            }
+        }
+
+        @Test
+        void shouldFindInstancesInOrderOfVersion() {
+            assertThat(index.find(query().minimumVersion("2.0.0").build()))
+                    .extracting(ServiceInstance::getVersion)
+                    .containsExactly("2.0.0", "2.0.0", "2.0.0", "2.1.0", "3.0.0");
+        }
+
+        @Test
+        void shouldFindInstancesInHalfOpenRange() {
+            assertThat(index.find(query().minimumVersion("1.1.0").exclusiveMaximumVersion("2.0.0").build()))
+                    .extracting(ServiceInstance::getVersion)
+                    .containsExactly("1.1.0", "1.1.0", "1.2.0-SNAPSHOT", "1.2.0");
+        }
+
+        @Test
+        void shouldFindInstancesOfLatestVersions() {
+            assertThat(index.find(query().latestVersionCount(2).build()))
+                    .extracting(ServiceInstance::getVersion)
+                    .containsExactly("2.1.0", "3.0.0");
+        }
+
+        @Test
+        void shouldNotFindExcludedVersions() {
+            assertThat(index.find(query().latestVersionCount(2).excludedVersion("3.0.0").build()))
+                    .extracting(ServiceInstance::getVersion)
+                    .containsExactly("2.0.0", "2.0.0", "2.0.0", "2.1.0");
+        }
+
+        @Test
+        void shouldFindLatestVersion_WhenPreferredVersionIsNotAmongLatestVersions() {
+            assertThat(index.find(query().latestVersionCount(2).preferredVersion("1.0.0").build()))
+                    .extracting(ServiceInstance::getVersion)
+                    .containsExactly("3.0.0");
+        }
+
+        @Test
+        void shouldFindNothing_WhenRangeIsEmpty() {
+            assertThat(index.find(query().minimumVersion("2.0.0").maximumVersion("1.0.0").build())).isEmpty();
+        }
+
+        @Test
+        void shouldRejectLatestVersionCountLessThanOne() {
+            var query = query().latestVersionCount(0).build();
+
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> index.find(query))
+                    .withMessage("latestVersionCount must be positive");
+        }
+
+        @Test
+        void shouldRejectVersionPredicates_WhenInstancesHaveNoVersion() {
+            index.add(newInstance("order-no-version", null));
+
+            assertThat(index.find(query().build())).hasSize(VERSIONS.size() + 1);
+
+            var query = query().minimumVersion("1.0.0").build();
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> index.find(query))
+                    .withMessage("instance version cannot be null");
+        }
+
+        @Test
+        void shouldReturnSameInstances_WhenQueryIsRepeated() {
+            var instancesFound = index.find(query().minimumVersion("2.0.0").build());
+
+            assertThat(index.find(query().minimumVersion("2.0.0").build())).isSameAs(instancesFound);
+        }
+
+        @Test
+        void shouldReturnSameInstances_WhenOnlyServiceNameOrDeadlineDiffer() {
+            var instancesFound = index.find(query().latestVersionCount(2).build());
+
+            var otherQuery = InstanceQuery.builder()
+                    .serviceName("other-order-service")
+                    .deadline(Instant.now().plusSeconds(5))
+                    .latestVersionCount(2)
+                    .build();
+            assertThat(index.find(otherQuery)).isSameAs(instancesFound);
+        }
+
+        @Test
+        void shouldNotReturnSameInstances_WhenVersionPredicatesDiffer() {
+            var instancesFound = index.find(query().minimumVersion("2.0.0").build());
+
+            assertThat(index.find(query().minimumVersion("2.0.0").excludedVersion("3.0.0").build()))
+                    .isNotSameAs(instancesFound)
+                    .doesNotContainAnyElementsOf(index.find(query().minimumVersion("3.0.0").build()));
+        }
+
+        @Test
+        void shouldFindInstancesAgain_WhenInstancesChange() {
+            var query = query().minimumVersion("2.0.0").build();
+            var instancesFound = index.find(query);
+            var generation = index.generation();
+
+            var newInstance = newInstance("order-new", "4.0.0");
+            index.add(newInstance);
+
+            assertThat(index.generation()).isGreaterThan(generation);
+            assertThat(index.find(query))
+                    .isNotSameAs(instancesFound)
+                    .endsWith(newInstance)
+                    .hasSize(instancesFound.size() + 1);
+
+            generation = index.generation();
+            index.remove(newInstance);
+
+            assertThat(index.generation()).isGreaterThan(generation);
+            assertThat(index.find(query)).containsExactlyElementsOf(instancesFound);
+        }
+
+        @Test
+        void shouldLimitRememberedInstances_WithoutRememberingLimit() {
+            var instancesFound = index.find(query().minimumVersion("2.0.0").build());
+
+            var limitedQuery = query().minimumVersion("2.0.0").limit(2).sampling(InstanceQuery.Sampling.FIRST).build();
+            assertThat(index.find(limitedQuery)).containsExactlyElementsOf(instancesFound.subList(0, 2));
+
+            assertThat(index.find(query().minimumVersion("2.0.0").build())).isSameAs(instancesFound);
+        }
+
+        @Test
+        void shouldSampleRememberedInstancesAtRandom() {
+            var query = query().limit(1).build();
+
+            var instancesChosen = new HashSet<ServiceInstance>();
+            for (var i = 0; i < 500; i++) {
+                instancesChosen.addAll(index.find(query));
+            }
+
+            assertThat(instancesChosen).containsExactlyInAnyOrderElementsOf(instances);
+        }
+
+        @Test
+        void shouldKeepGeneration_WhenRemovingInstanceNotInIndex() {
+            var query = query().minimumVersion("2.0.0").build();
+            var instancesFound = index.find(query);
+            var generation = index.generation();
+
+            index.remove(newInstance("order-other", "1.0.0"));
+
+            assertThat(index.generation()).isEqualTo(generation);
+            assertThat(index.find(query)).isSameAs(instancesFound);
+        }
+
+        @Test
+        void shouldStillFindInstances_WhenManyDifferentQueriesAreRepeated() {
+            for (var count = 1; count <= 200; count++) {
+                var query = query().latestVersionCount(count).build();
+                var instancesFound = index.find(query);
+
+                assertThat(index.find(query)).containsExactlyElementsOf(instancesFound);
+            }
+        }
+
+        private static InstanceQuery.InstanceQueryBuilder query() {
+            return InstanceQuery.builder().serviceName("order-service");
+        }
+    }
+
+    /**
+     * Comparing these versions is not transitive, e.g. 1.0 is higher than 1.0-SNAPSHOT, which is higher than 1.0.1,
+     * but 1.0 is lower than 1.0.1.
+     */
+    @Nested
+    class WithNonNumericVersions {
+
+        private static final List<String> MIXED_VERSIONS = List.of(
+                "1.0", "1.0-SNAPSHOT", "1.0.1", "1.0.1-SNAPSHOT", "1.1", "1.1-rc1", "1.10", "1.a", "9.0", "10.0");
+
+        @BeforeEach
+        void setUp() {
+            instances = new ArrayList<>();
+            for (var i = 0; i < MIXED_VERSIONS.size(); i++) {
+                instances.add(newInstance("order-" + i, MIXED_VERSIONS.get(i)));
+                instances.add(newInstance("order-" + i + "-copy", MIXED_VERSIONS.get(i)));
+            }
+
+            index = VersionIndex.ofServiceInstances(Lists.reverse(instances));
+        }
+
+        @Test
+        void shouldFindSameInstancesAsFilteringThem() {
+            for (var query : queriesUsing(MIXED_VERSIONS)) {
+                assertThat(index.find(query))
+                        .describedAs("find %s", query)
+                        .containsExactlyInAnyOrderElementsOf(
+                                ServiceInstanceFilter.filterInstancesByVersion(instances, query));
+            }
+        }
+
+        @Test
+        void shouldFindSameInstancesAsFilteringThem_WhenOnlyQueryHasNonNumericVersions() {
+            var numericInstances = instances.stream()
+                    .filter(instance -> instance.getVersion().matches("[0-9.]+"))
+                    .toList();
+            var numericIndex = VersionIndex.ofServiceInstances(numericInstances);
+
+            for (var query : queriesUsing(MIXED_VERSIONS)) {
+                assertThat(numericIndex.find(query))
+                        .describedAs("find %s", query)
+                        .containsExactlyInAnyOrderElementsOf(
+                                ServiceInstanceFilter.filterInstancesByVersion(numericInstances, query));
+            }
+        }
+
+        @Test
+        void shouldRemoveInstances() {
+            for (var instance : instances) {
+                assertThat(index.remove(instance)).describedAs("remove %s", instance.getVersion()).isTrue();
+            }
+
+            assertThat(index.isEmpty()).isTrue();
+            assertThat(index.all()).isEmpty();
+        }
+
+        private static List<InstanceQuery> queriesUsing(List<String> versions) {
+            var queries = new ArrayList<InstanceQuery>();
+            for (var version : versions) {
+                queries.add(query().minimumVersion(version).build());
+                queries.add(query().maximumVersion(version).build());
+                queries.add(query().exclusiveMaximumVersion(version).build());
+                queries.add(query().excludedVersion(version).build());
+                queries.add(query().preferredVersion(version).build());
+                queries.add(query().preferredVersion(version).latestVersionCount(2).build());
+                for (var otherVersion : versions) {
+                    queries.add(query().minimumVersion(version).maximumVersion(otherVersion).build());
+                    queries.add(query().minimumVersion(version).exclusiveMaximumVersion(otherVersion).build());
+                    queries.add(query().minimumVersion(version).preferredVersion(otherVersion).build());
+                }
+            }
+            for (var latestVersionCount = 1; latestVersionCount <= versions.size(); latestVersionCount++) {
+                queries.add(query().latestVersionCount(latestVersionCount).build());
+            }
+            return queries;
+        }
+
+        private static InstanceQuery.InstanceQueryBuilder query() {
+            return InstanceQuery.builder().serviceName("order-service");
+        }
+    }
+
+    @Nested
+    class FindByMetadata {
+
+        @BeforeEach
+        void setUp() {
+            instances = new ArrayList<>();
+            for (var i = 0; i < VERSIONS.size(); i++) {
+                var metadata = new HashMap<String, String>();
+                metadata.put("zone", i % 2 == 0 ? "east" : "west");
+                if (i % 3 == 0) {
+                    metadata.put("canary", "canary");
+                }
+                if (i % 4 == 0) {
+                    metadata.put("weight", String.valueOf(i));
+                }
+                instances.add(newInstance("order-" + i, VERSIONS.get(i), metadata));
+            }
+
+            index = VersionIndex.ofServiceInstances(Lists.reverse(instances));
+        }
+
+        @Test
+        void shouldFindSameInstancesAsFilteringThem() {
+            var queries = new ArrayList<InstanceQuery>();
+            List<Supplier<InstanceQuery.InstanceQueryBuilder>> versionQueries = List.of(
+                    FindByMetadata::query,
+                    () -> query().minimumVersion("1.2.0"),
+                    () -> query().latestVersionCount(2));
+            for (var versionQuery : versionQueries) {
+                queries.add(versionQuery.get().metadataValue("zone", "east").build());
+                queries.add(versionQuery.get().metadataKey("weight").build());
+                queries.add(versionQuery.get().tag("canary").build());
+                queries.add(versionQuery.get().metadataValue("zone", "west").tag("canary").build());
+                queries.add(versionQuery.get().metadataValue("zone", "north").build());
+                queries.add(versionQuery.get().metadataKey("other").build());
+            }
+
+            for (var query : queries) {
+                var instancesWithVersion = ServiceInstanceFilter.filterInstancesByVersion(instances, query);
+
+                assertThat(index.find(query))
+                        .describedAs("find %s", query)
+                        .containsExactlyInAnyOrderElementsOf(
+                                ServiceInstanceFilter.filterInstancesByMetadata(instancesWithVersion, query));
+            }
+        }
+
+        @Test
+        void shouldFindInstancesInOrderOfVersion() {
+            assertThat(index.find(query().metadataValue("zone", "east").build()))
+                    .extracting(ServiceInstance::getVersion)
+                    .containsExactly("1.0.0", "1.1.0", "1.2.0", "2.0.0", "2.1.0");
+        }
+
+        @Test
+        void shouldKeepMetadataIndexUpToDate_WhenInstancesChange() {
+            var query = query().tag("canary").build();
+            assertThat(index.find(query)).hasSize(4);
+
+            var newInstance = newInstance("order-new", "4.0.0", Map.of("canary", "canary"));
+            index.add(newInstance);
+            assertThat(index.find(query)).hasSize(5).endsWith(newInstance);
+
+            index.remove(newInstance);
+            index.remove(instances.get(0));
+            assertThat(index.find(query)).hasSize(3).doesNotContain(newInstance, instances.get(0));
+        }
+
+        @Test
+        void shouldThrowIllegalStateException_WhenIndexWasNotGivenMetadata() {
+            var indexWithoutMetadata = VersionIndex.of(instances, ServiceInstance::getVersion);
+            var query = query().tag("canary").build();
+
+            assertThatIllegalStateException()
+                    .isThrownBy(() -> indexWithoutMetadata.find(query))
+                    .withMessage("this index cannot find instances using metadata predicates");
+        }
+
+        private static InstanceQuery.InstanceQueryBuilder query() {
+            return InstanceQuery.builder().serviceName("order-service");
+        }
+    }
+
+    @Nested
+    class AddAndRemove {
+
+        @Test
+        void shouldUpdateIndex() {
+            var newInstance = newInstance("order-new", "4.0.0");
+            index.add(newInstance);
+
+            var latestQuery = InstanceQuery.builder().serviceName("order-service").latestVersionCount(1).build();
+            assertThat(index.find(latestQuery)).containsExactly(newInstance);
+            assertThat(index.size()).isEqualTo(VERSIONS.size() + 1);
+
+            assertThat(index.remove(newInstance)).isTrue();
+
+            assertThat(index.find(latestQuery)).extracting(ServiceInstance::getVersion).containsExactly("3.0.0");
+            assertThat(index.size()).isEqualTo(VERSIONS.size());
+        }
+
+        @Test
+        void shouldReturnFalse_WhenRemovingInstanceNotInIndex() {
+            assertThat(index.remove(newInstance("order-other", "1.0.0"))).isFalse();
+            assertThat(index.remove(newInstance("order-other", "5.0.0"))).isFalse();
+            assertThat(index.remove(newInstance("order-other", null))).isFalse();
+
+            assertThat(index.size()).isEqualTo(VERSIONS.size());
+        }
+
+        @Test
+        void shouldBecomeEmpty_WhenAllInstancesAreRemoved() {
+            instances.forEach(index::remove);
+
+            assertThat(index.isEmpty()).isTrue();
+            assertThat(index.all()).isEmpty();
+            assertThat(index.find(InstanceQuery.builder().serviceName("order-service").build())).isEmpty();
+        }
+    }
+
+    private static ServiceInstance newInstance(String instanceId, String version) {
+        return newInstance(instanceId, version, Map.of());
+    }
+
+    private static ServiceInstance newInstance(String instanceId, String version, Map<String, String> metadata) {
+        return ServiceInstance.builder()
+                .instanceId(instanceId)
+                .serviceName("order-service")
+                .version(version)
+                .metadata(metadata)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package org.kiwiproject.registry.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.kiwiproject.base.Versions;
+
+import java.util.List;
+
+@DisplayName("VersionKey")
+class VersionKeyTest {
+
+    private static final List<String> VERSIONS = List.of(
+            "1", "1.0", "1-0", "1.0.0", "1.0.1", "1.0.10", "1.0.9", "1.1", "1.10", "1.010", "1.010.5", "1.10.3",
+            "2", "2.0.0", "10.0.0", "1.0-SNAPSHOT", "1.0-snapshot", "1.0.0-SNAPSHOT", "1.0.0-RC1", "1.0.0-rc2",
+            "1.0.0-alpha", "1.0.0-beta.2", "2018.11.02-SNAPSHOT", "2018.11.1-SNAPSHOT", "2018.12.01-SNAPSHOT",
+            "1.0.", "1..0", "v1.0", "1.0a", "a.b.c", "1.0.0.0");
+
+    @Test
+    void shouldCompareVersions_InTheSameWayAsKiwi() {
+        for (var left : VERSIONS) {
+            for (var right : VERSIONS) {
+                assertThat(VersionKey.of(left).compareTo(VersionKey.of(right)))
+                        .describedAs("compare %s to %s", left, right)
+                        .isEqualTo(Versions.versionCompare(left, right));
+            }
+        }
+    }
+
+    @Test
+    void shouldParseEachDistinctVersionOnce() {
+        assertThat(VersionKey.of("3.2.1")).isSameAs(VersionKey.of("3.2.1"));
+    }
+
+    @Test
+    void shouldThrowNumberFormatException_WhenComparingSegmentsTooLargeForAnInt_InTheSameWayAsKiwi() {
+        var tooLarge = "1.99999999999";
+        var other = "1.2";
+
+        assertThatThrownBy(() -> Versions.versionCompare(tooLarge, other))
+                .isInstanceOf(NumberFormatException.class);
+
+        assertThatThrownBy(() -> VersionKey.of(tooLarge).compareTo(VersionKey.of(other)))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void shouldNotThrow_WhenSegmentsTooLargeForAnIntAreNotCompared() {
+        assertThat(VersionKey.of("1.99999999999").compareTo(VersionKey.of("2.0"))).isNegative();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1", "1.0", "1-0", "1.010.5", "2018.11.02"})
+    void shouldBeAllNumeric_WhenEverySegmentIsNumeric(String version) {
+        assertThat(VersionKey.of(version).isAllNumeric()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.0-SNAPSHOT", "1.0.0-rc2", "1..0", "v1.0", "1.0a"})
+    void shouldNotBeAllNumeric_WhenAnySegmentIsNotNumeric(String version) {
+        assertThat(VersionKey.of(version).isAllNumeric()).isFalse();
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = " ")
+    void shouldRejectBlankVersions(String version) {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> VersionKey.of(version))
+                .withMessage("version cannot be blank");
+    }
+}
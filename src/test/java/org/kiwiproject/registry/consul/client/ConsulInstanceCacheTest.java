@@ -0,0 +1,97 @@
+package org.kiwiproject.registry.consul.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.model.catalog.CatalogService;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+@DisplayName("ConsulInstanceCache")
+class ConsulInstanceCacheTest {
+
+    private ConsulInstanceCache cache;
+    private AtomicInteger conversionCount;
+    private Function<CatalogService, ServiceInstance> converter;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ConsulInstanceCache();
+        conversionCount = new AtomicInteger();
+        converter = catalogService -> {
+            conversionCount.incrementAndGet();
+            return ServiceInstance.builder()
+                    .serviceName(catalogService.getServiceName())
+                    .instanceId(catalogService.getServiceId())
+                    .build();
+        };
+    }
+
+    @Test
+    void shouldReuseInstance_WhenEntryIsUnchanged() {
+        var first = cache.instanceFor(catalogService("node-1", "order-1", 10L), converter);
+        var second = cache.instanceFor(catalogService("node-1", "order-1", 10L), converter);
+
+        assertThat(second).isSameAs(first);
+        assertThat(conversionCount).hasValue(1);
+    }
+
+    @Test
+    void shouldConvertAgain_WhenModifyIndexChanges() {
+        var first = cache.instanceFor(catalogService("node-1", "order-1", 10L), converter);
+        var second = cache.instanceFor(catalogService("node-1", "order-1", 11L), converter);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(conversionCount).hasValue(2);
+        assertThat(cache.size()).isOne();
+    }
+
+    @Test
+    void shouldCacheEntriesWithSameServiceId_OnDifferentNodesSeparately() {
+        var first = cache.instanceFor(catalogService("node-1", "order-1", 10L), converter);
+        var second = cache.instanceFor(catalogService("node-2", "order-1", 10L), converter);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCache_WhenEntryHasNoModifyIndex() {
+        cache.instanceFor(catalogService("node-1", "order-1", null), converter);
+        cache.instanceFor(catalogService("node-1", "order-1", null), converter);
+
+        assertThat(conversionCount).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldDropInstances_ThatAreNoLongerInTheCatalog() {
+        var order1 = catalogService("node-1", "order-1", 10L);
+        var order2 = catalogService("node-1", "order-2", 10L);
+        cache.instanceFor(order1, converter);
+        cache.instanceFor(order2, converter);
+
+        cache.retainOnly("order-service", List.of(order2));
+        assertThat(cache.size()).isOne();
+
+        cache.retainOnly("order-service", List.of());
+        assertThat(cache.size()).isZero();
+    }
+
+    private static CatalogService catalogService(String node, String serviceId, Long modifyIndex) {
+        var catalogService = mock(CatalogService.class);
+        when(catalogService.getNode()).thenReturn(node);
+        when(catalogService.getServiceName()).thenReturn("order-service");
+        when(catalogService.getServiceId()).thenReturn(serviceId);
+        when(catalogService.getModifyIndex()).thenReturn(Optional.ofNullable(modifyIndex));
+        return catalogService;
+    }
+}
@@ -1,11 +1,14 @@
 package org.kiwiproject.registry.consul.client;
 
+import static java.util.Map.entry;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.kiwiproject.registry.consul.util.ConsulTestcontainers.consulHostAndPort;
 import static org.kiwiproject.registry.consul.util.ConsulTestcontainers.newConsulContainer;
 
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,15 +20,21 @@ import org.kiwiproject.consul.Consul;
 import org.kiwiproject.consul.model.agent.ImmutableRegistration;
 import org.kiwiproject.registry.client.RegistryClient;
 import org.kiwiproject.registry.consul.config.ConsulConfig;
+import org.kiwiproject.registry.model.LazyNativeRegistryData;
 import org.kiwiproject.registry.model.Port;
 import org.kiwiproject.registry.model.ServiceInstance.Status;
 import org.kiwiproject.registry.model.ServicePaths;
+import org.kiwiproject.registry.model.ServiceSummary;
 import org.testcontainers.consul.ConsulContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 @DisplayName("ConsulRegistryClient")
 @Testcontainers
@@ -41,11 +50,11 @@ class ConsulRegistryClientTest {
     void setUp() {
         var consulHostAndPort = consulHostAndPort(CONSUL);
 
-        var consul = Consul.builder()
-                .withHostAndPort(consulHostAndPort)
+        var config = new ConsulConfig();
+        var consul = config.applyTimeoutsTo(Consul.builder()
+                .withHostAndPort(consulHostAndPort))
                 .build();
 
-        var config = new ConsulConfig();
         client = new ConsulRegistryClient(consul, config);
 
         var now = System.currentTimeMillis();
@@ -118,6 +127,31 @@ class ConsulRegistryClientTest {
                 var instance = client.findServiceInstanceBy("NOOP");
                 assertThat(instance).isEmpty();
             }
+
+            @Test
+            void shouldReuseServiceInstance_WhenCatalogEntryIsUnchanged() {
+                var first = client.findServiceInstanceBy("APPID").orElseThrow();
+                var second = client.findServiceInstanceBy("APPID").orElseThrow();
+
+                assertThat(second).isSameAs(first);
+                assertThat(second.getMetadata()).isUnmodifiable();
+            }
+
+            @Test
+            void shouldIncludeNativeRegistryData_WhenConfigured() {
+                var config = new ConsulConfig();
+                config.setIncludeNativeData(true);
+                var nativeDataClient = new ConsulRegistryClient(Consul.builder()
+                        .withHostAndPort(consulHostAndPort(CONSUL))
+                        .build(), config);
+
+                var instance = nativeDataClient.findServiceInstanceBy("APPID").orElseThrow();
+
+                assertThat(instance.getNativeRegistryData())
+                        .isInstanceOf(LazyNativeRegistryData.class)
+                        .containsEntry("ServiceID", "INSTANCEID")
+                        .containsEntry("ServiceName", "APPID");
+            }
         }
 
         @Nested
@@ -169,6 +203,106 @@ class ConsulRegistryClientTest {
                 var instance = client.findAllServiceInstancesBy(RegistryClient.InstanceQuery.builder().serviceName("NOOP").build());
                 assertThat(instance).isEmpty();
             }
+
+            @Test
+            void shouldReturnServiceInstances_MeetingMinimumVersion() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .minimumVersion("41.0.0")
+                        .build();
+
+                assertThat(client.findAllServiceInstancesBy(query))
+                        .extracting("version")
+                        .containsExactly("42.0.0-SNAPSHOT");
+            }
+
+            @Test
+            void shouldReturnEmptyList_WhenNoInstanceMeetsMinimumVersion() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .minimumVersion("43.0.0")
+                        .build();
+
+                assertThat(client.findAllServiceInstancesBy(query)).isEmpty();
+            }
+
+            @Test
+            void shouldReturnServiceInstances_HavingTagsAsMetadataValues() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .metadataValue("category", "CORE")
+                        .metadataKey("service-type")
+                        .build();
+
+                assertThat(client.findAllServiceInstancesBy(query))
+                        .extracting("instanceId")
+                        .containsExactly("INSTANCEID");
+            }
+
+            @Test
+            void shouldReturnEmptyList_WhenNoInstanceHasMetadataValue() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .metadataValue("category", "EDGE")
+                        .build();
+
+                assertThat(client.findAllServiceInstancesBy(query)).isEmpty();
+            }
+
+            @Test
+            void shouldReturnServiceInstances_WhenDeadlineHasNotPassed() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .timeout(Duration.ofSeconds(10))
+                        .build();
+
+                assertThat(client.findAllServiceInstancesBy(query))
+                        .extracting("instanceId")
+                        .containsExactly("INSTANCEID");
+            }
+
+            @Test
+            void shouldThrowUncheckedTimeoutException_WhenDeadlineHasPassed() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .deadline(Instant.now().minusMillis(1))
+                        .build();
+
+                assertThatThrownBy(() -> client.findAllServiceInstancesBy(query))
+                        .isInstanceOf(UncheckedTimeoutException.class)
+                        .hasMessageContaining("lookup of APPID");
+            }
+        }
+
+        @Nested
+        class WithQueries {
+
+            @Test
+            void shouldReturnServiceInstancesForEachQuery_WhenDeadlineHasNotPassed() {
+                var appQuery = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .timeout(Duration.ofSeconds(10))
+                        .build();
+                var consulQuery = RegistryClient.InstanceQuery.builder().serviceName("consul").build();
+
+                var results = client.findAllServiceInstancesBy(List.of(appQuery, consulQuery));
+
+                assertThat(results.get(appQuery)).extracting("instanceId").containsExactly("INSTANCEID");
+                assertThat(results.get(consulQuery)).isNotEmpty();
+            }
+
+            @Test
+            void shouldThrowUncheckedTimeoutException_WhenAnyDeadlineHasPassed() {
+                var appQuery = RegistryClient.InstanceQuery.builder()
+                        .serviceName("APPID")
+                        .deadline(Instant.now().minusMillis(1))
+                        .build();
+                var consulQuery = RegistryClient.InstanceQuery.builder().serviceName("consul").build();
+                var queries = List.of(appQuery, consulQuery);
+
+                assertThatThrownBy(() -> client.findAllServiceInstancesBy(queries))
+                        .isInstanceOf(UncheckedTimeoutException.class);
+            }
         }
     }
 
@@ -186,6 +320,12 @@ class ConsulRegistryClientTest {
             var instance = client.findServiceInstanceBy("NOOP", "INSTANCEID");
             assertThat(instance).isEmpty();
         }
+
+        @Test
+        void shouldReturnOptionalEmpty_WhenInstanceIdDoesNotMatch() {
+            var instance = client.findServiceInstanceBy("APPID", "OTHER-INSTANCEID");
+            assertThat(instance).isEmpty();
+        }
     }
 
     @Nested
@@ -201,6 +341,67 @@ class ConsulRegistryClientTest {
         }
     }
 
+    @Nested
+    class StreamAllRegisteredInstances {
+
+        @Test
+        void shouldStreamAllServiceInstances() {
+            try (var instances = client.streamAllRegisteredInstances()) {
+                assertThat(instances)
+                        .extracting("serviceName")
+                        .contains("APPID", "consul");
+            }
+        }
+    }
+
+    @Nested
+    class RetrieveServiceSummaries {
+
+        @Test
+        void shouldReturnSummaryOfEachService_SortedByServiceName() {
+            var summaries = client.retrieveServiceSummaries();
+
+            assertThat(summaries)
+                    .extracting(ServiceSummary::getServiceName)
+                    .contains("APPID", "consul")
+                    .isSorted();
+
+            var appSummary = summaries.stream()
+                    .filter(summary -> summary.getServiceName().equals("APPID"))
+                    .findFirst()
+                    .orElseThrow();
+
+            assertThat(appSummary.getInstanceCount()).isOne();
+            assertThat(appSummary.getStatusCounts()).containsExactly(entry("UP", 1));
+            assertThat(appSummary.getVersions()).containsExactly("42.0.0-SNAPSHOT");
+        }
+    }
+
+    @Nested
+    class Close {
+
+        @Test
+        void shouldShutDownLookupExecutor() {
+            var executor = Executors.newCachedThreadPool();
+            var closeableClient = new ConsulRegistryClient(Consul.builder()
+                    .withHostAndPort(consulHostAndPort(CONSUL))
+                    .build(), new ConsulConfig(), executor);
+
+            closeableClient.close();
+
+            assertThat(executor.isShutdown()).isTrue();
+        }
+
+        @Test
+        void shouldStillRetrieveServiceSummaries_OnCallingThread() {
+            client.close();
+
+            assertThat(client.retrieveServiceSummaries())
+                    .extracting(ServiceSummary::getServiceName)
+                    .contains("APPID", "consul");
+        }
+    }
+
     @Nested
     class InternalMethods {
 
@@ -219,5 +420,19 @@ class ConsulRegistryClientTest {
                     .withMessage("serviceUpTimestamp is not a number")
                     .withCauseExactlyInstanceOf(NumberFormatException.class);
         }
+
+        @Test
+        void addTagsToMetadata_shouldSplitTagsOnFirstSeparator() {
+            var metadata = new HashMap<String, String>();
+
+            ConsulRegistryClient.addTagsToMetadata(metadata,
+                    List.of("service-type:default", "category:CORE", "plain", "zone:us-east:1", "empty:"));
+
+            assertThat(metadata).containsOnly(
+                    entry("category", "CORE"),
+                    entry("plain", "plain"),
+                    entry("zone", "us-east"),
+                    entry("empty", ""));
+        }
     }
 }
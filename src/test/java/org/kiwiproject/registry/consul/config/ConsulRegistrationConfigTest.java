@@ -1,9 +1,13 @@
 package org.kiwiproject.registry.consul.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.kiwiproject.consul.Consul;
 
 @DisplayName("ConsulRegistrationConfig")
 class ConsulRegistrationConfigTest {
@@ -15,6 +19,25 @@ class ConsulRegistrationConfigTest {
         assertThat(config.getCheckIntervalInSeconds()).isEqualTo(ConsulRegistrationConfig.DEFAULT_CHECK_INTERVAL_IN_SECONDS);
         assertThat(config.getDeregisterIntervalInMinutes()).isEqualTo(ConsulRegistrationConfig.DEFAULT_DEREGISTER_INTERVAL_IN_MINUTES);
         assertThat(config.isIncludeNativeData()).isFalse();
+        assertThat(config.getConnectTimeoutMillis()).isEqualTo(ConsulConfig.DEFAULT_CONNECT_TIMEOUT_MILLIS);
+        assertThat(config.getReadTimeoutMillis()).isEqualTo(ConsulConfig.DEFAULT_READ_TIMEOUT_MILLIS);
+        assertThat(config.getWriteTimeoutMillis()).isEqualTo(ConsulConfig.DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void shouldApplyTimeoutsToConsulBuilder() {
+        var config = new ConsulRegistrationConfig();
+        config.setConnectTimeoutMillis(100);
+        config.setReadTimeoutMillis(200);
+        config.setWriteTimeoutMillis(300);
+
+        var builder = mock(Consul.Builder.class, RETURNS_SELF);
+
+        assertThat(config.applyTimeoutsTo(builder)).isSameAs(builder);
+
+        verify(builder).withConnectTimeoutMillis(100);
+        verify(builder).withReadTimeoutMillis(200);
+        verify(builder).withWriteTimeoutMillis(300);
     }
 
 }
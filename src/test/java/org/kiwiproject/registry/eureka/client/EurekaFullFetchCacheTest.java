@@ -0,0 +1,258 @@
+package org.kiwiproject.registry.eureka.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.client.RegistryClient;
+import org.kiwiproject.registry.client.VersionIndex;
+import org.kiwiproject.registry.eureka.common.EurekaInstance;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+@DisplayName("EurekaFullFetchCache")
+class EurekaFullFetchCacheTest {
+
+    private EurekaConfig config;
+    private AtomicLong nanoTime;
+
+    @BeforeEach
+    void setUp() {
+        config = new EurekaConfig();
+        config.setFullFetchVipThreshold(3);
+        config.setFullFetchWindowSeconds(10);
+        config.setFullFetchMaxAgeMillis(1_000);
+
+        nanoTime = new AtomicLong();
+    }
+
+    @Nested
+    class RecordLookup {
+
+        private EurekaFullFetchCache cache;
+
+        @BeforeEach
+        void setUp() {
+            cache = new EurekaFullFetchCache(config, nanoTime::get);
+        }
+
+        @Test
+        void shouldNotUseFullFetch_UntilThresholdIsReached() {
+            assertThat(cache.recordLookup("VIP-1")).isFalse();
+            assertThat(cache.recordLookup("VIP-2")).isFalse();
+            assertThat(cache.recordLookup("VIP-3")).isTrue();
+        }
+
+        @Test
+        void shouldCountDistinctVipAddresses() {
+            assertThat(cache.recordLookup("VIP-1")).isFalse();
+            assertThat(cache.recordLookup("VIP-1")).isFalse();
+            assertThat(cache.recordLookup("VIP-2")).isFalse();
+            assertThat(cache.recordLookup("VIP-2")).isFalse();
+
+            assertThat(cache.recentVipCount()).isEqualTo(2);
+        }
+
+        @Test
+        void shouldStopUsingFullFetch_WhenVipAddressesAreNoLongerLookedUp() {
+            cache.recordLookup("VIP-1");
+            cache.recordLookup("VIP-2");
+            assertThat(cache.recordLookup("VIP-3")).isTrue();
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+            assertThat(cache.recordLookup("VIP-3")).isFalse();
+            assertThat(cache.recentVipCount()).isOne();
+        }
+    }
+
+    @Nested
+    class VersionIndexFor {
+
+        private EurekaFullFetchCache cache;
+        private AtomicInteger fetchCount;
+        private Function<Instant, Map<String, List<EurekaInstance>>> fetchAll;
+        private BiFunction<String, List<EurekaInstance>, VersionIndex<EurekaInstance>> indexer;
+
+        @BeforeEach
+        void setUp() {
+            cache = new EurekaFullFetchCache(config, nanoTime::get);
+            fetchCount = new AtomicInteger();
+            fetchAll = deadline -> {
+                fetchCount.incrementAndGet();
+                return Map.of(
+                        "VIP-1", List.of(
+                                newEurekaInstance("APP-1", "host-1", "1.0.0"),
+                                newEurekaInstance("APP-1", "host-2", "2.0.0"),
+                                newEurekaInstance("APP-1", "host-3", "3.0.0")),
+                        "VIP-2", List.of(newEurekaInstance("APP-2", "host-4", "1.0.0")));
+            };
+            Function<EurekaInstance, String> versionOf = eurekaInstance -> eurekaInstance.getMetadata().get("version");
+            indexer = (vipKey, instances) -> VersionIndex.of(instances, versionOf, EurekaInstance::getMetadata);
+        }
+
+        @Test
+        void shouldIndexInstancesByVersion() {
+            var index = cache.versionIndexFor("VIP-1", null, fetchAll, indexer);
+
+            var query = RegistryClient.InstanceQuery.builder()
+                    .serviceName("vip-1")
+                    .minimumVersion("2.0.0")
+                    .build();
+            assertThat(index.find(query))
+                    .extracting(EurekaInstance::getHostName)
+                    .containsExactly("host-2", "host-3");
+        }
+
+        @Test
+        void shouldIndexInstancesByMetadata() {
+            var index = cache.versionIndexFor("VIP-1", null, fetchAll, indexer);
+
+            var query = RegistryClient.InstanceQuery.builder()
+                    .serviceName("vip-1")
+                    .minimumVersion("2.0.0")
+                    .metadataValue("version", "3.0.0")
+                    .build();
+            assertThat(index.find(query))
+                    .extracting(EurekaInstance::getHostName)
+                    .containsExactly("host-3");
+        }
+
+        @Test
+        void shouldReturnEmptyIndex_ForUnknownVipAddress() {
+            assertThat(cache.versionIndexFor("VIP-3", null, fetchAll, indexer).isEmpty()).isTrue();
+        }
+
+        @Test
+        void shouldShareOneFetchAcrossVipAddresses() {
+            assertThat(cache.versionIndexFor("VIP-1", null, fetchAll, indexer).all())
+                    .extracting(EurekaInstance::getHostName)
+                    .containsExactlyInAnyOrder("host-1", "host-2", "host-3");
+            assertThat(cache.versionIndexFor("VIP-2", null, fetchAll, indexer).all())
+                    .extracting(EurekaInstance::getApp)
+                    .containsExactly("APP-2");
+            assertThat(cache.versionIndexFor("VIP-3", null, fetchAll, indexer).isEmpty()).isTrue();
+
+            assertThat(fetchCount).hasValue(1);
+        }
+
+        @Test
+        void shouldFetchAgain_WhenFetchIsTooOld() {
+            cache.versionIndexFor("VIP-1", null, fetchAll, indexer);
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+            cache.versionIndexFor("VIP-1", null, fetchAll, indexer);
+            assertThat(fetchCount).hasValue(1);
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            cache.versionIndexFor("VIP-1", null, fetchAll, indexer);
+            assertThat(fetchCount).hasValue(2);
+        }
+
+        @Test
+        void shouldFetchOnce_WhenManyThreadsNeedAFreshFetch() throws InterruptedException {
+            var fetchStarted = new CountDownLatch(1);
+            var releaseFetch = new CountDownLatch(1);
+            Function<Instant, Map<String, List<EurekaInstance>>> slowFetchAll = deadline -> {
+                fetchStarted.countDown();
+                awaitQuietly(releaseFetch);
+                return fetchAll.apply(deadline);
+            };
+
+            var executor = Executors.newFixedThreadPool(4);
+            try {
+                var done = new CountDownLatch(4);
+                for (var i = 0; i < 4; i++) {
+                    executor.execute(() -> {
+                        cache.versionIndexFor("VIP-1", null, slowFetchAll, indexer);
+                        done.countDown();
+                    });
+                }
+
+                assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                releaseFetch.countDown();
+
+                assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+                assertThat(fetchCount).hasValue(1);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void shouldThrow_WhenDeadlineHasPassed() {
+            var deadline = Instant.now().minusMillis(1);
+
+            assertThatThrownBy(() -> cache.versionIndexFor("VIP-1", deadline, fetchAll, indexer))
+                    .isExactlyInstanceOf(UncheckedTimeoutException.class);
+
+            assertThat(fetchCount).hasValue(0);
+        }
+
+        @Test
+        void shouldIndexEachVipAddressOncePerFetch() {
+            var indexedVipKeys = new ArrayList<String>();
+            BiFunction<String, List<EurekaInstance>, VersionIndex<EurekaInstance>> countingIndexer =
+                    (vipKey, instances) -> {
+                        indexedVipKeys.add(vipKey);
+                        return indexer.apply(vipKey, instances);
+                    };
+
+            cache.versionIndexFor("VIP-1", null, fetchAll, countingIndexer);
+            cache.versionIndexFor("VIP-2", null, fetchAll, countingIndexer);
+            cache.versionIndexFor("VIP-1", null, fetchAll, countingIndexer);
+            cache.versionIndexFor("VIP-2", null, fetchAll, countingIndexer);
+            assertThat(indexedVipKeys).containsExactly("VIP-1", "VIP-2");
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+
+            cache.versionIndexFor("VIP-1", null, fetchAll, countingIndexer);
+            cache.versionIndexFor("VIP-1", null, fetchAll, countingIndexer);
+
+            assertThat(indexedVipKeys).containsExactly("VIP-1", "VIP-2", "VIP-1");
+            assertThat(fetchCount).hasValue(2);
+        }
+
+        @Test
+        void shouldBuildIndexOncePerFetch() {
+            var index = cache.versionIndexFor("VIP-1", null, fetchAll, indexer);
+            assertThat(cache.versionIndexFor("VIP-1", null, fetchAll, indexer)).isSameAs(index);
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+
+            assertThat(cache.versionIndexFor("VIP-1", null, fetchAll, indexer)).isNotSameAs(index);
+            assertThat(fetchCount).hasValue(2);
+        }
+
+        private static EurekaInstance newEurekaInstance(String app, String hostName, String version) {
+            return EurekaInstance.builder()
+                    .app(app)
+                    .hostName(hostName)
+                    .metadata(Map.of("version", version))
+                    .build();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.kiwiproject.registry.eureka.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.common.EurekaInstance;
+import org.kiwiproject.registry.model.ServiceInstance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@DisplayName("EurekaInstanceCache")
+class EurekaInstanceCacheTest {
+
+    private AtomicLong nanoTime;
+    private EurekaInstanceCache cache;
+    private AtomicInteger conversionCount;
+    private Function<EurekaInstance, ServiceInstance> converter;
+
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong();
+        cache = new EurekaInstanceCache(new Ticker() {
+            @Override
+            public long read() {
+                return nanoTime.get();
+            }
+        });
+        conversionCount = new AtomicInteger();
+        converter = eurekaInstance -> {
+            conversionCount.incrementAndGet();
+            return ServiceInstance.builder().instanceId(eurekaInstance.getInstanceId()).build();
+        };
+    }
+
+    @Test
+    void shouldReuseInstance_WhenInstanceIsUnchanged() {
+        var first = cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+        var second = cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+
+        assertThat(second).isSameAs(first);
+        assertThat(conversionCount).hasValue(1);
+    }
+
+    @Test
+    void shouldConvertAgain_WhenLastDirtyTimestampChanges() {
+        var first = cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+        var second = cache.instanceFor(eurekaInstance("order-1", 101L, "ADDED", "UP"), converter);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(conversionCount).hasValue(2);
+        assertThat(cache.size()).isOne();
+    }
+
+    @Test
+    void shouldConvertAgain_WhenActionTypeChanges() {
+        cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+        cache.instanceFor(eurekaInstance("order-1", 100L, "MODIFIED", "UP"), converter);
+
+        assertThat(conversionCount).hasValue(2);
+    }
+
+    @Test
+    void shouldConvertAgain_WhenStatusChanges() {
+        cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+        cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "DOWN"), converter);
+
+        assertThat(conversionCount).hasValue(2);
+    }
+
+    @Test
+    void shouldNotCache_WhenInstanceHasNoLastDirtyTimestamp() {
+        cache.instanceFor(eurekaInstance("order-1", null, null, "UP"), converter);
+        cache.instanceFor(eurekaInstance("order-1", null, null, "UP"), converter);
+
+        assertThat(conversionCount).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldDropInstances_ThatAreNoLongerRegistered() {
+        var order1 = eurekaInstance("order-1", 100L, "ADDED", "UP");
+        var order2 = eurekaInstance("order-2", 100L, "ADDED", "UP");
+        cache.instanceFor(order1, converter);
+        cache.instanceFor(order2, converter);
+
+        cache.retainOnly(List.of(order2));
+
+        assertThat(cache.size()).isOne();
+    }
+
+    @Test
+    void shouldDropInstances_ThatAreNotUsedForTenMinutes() {
+        cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        cache.instanceFor(eurekaInstance("order-1", 100L, "ADDED", "UP"), converter);
+        assertThat(cache.size()).isOne();
+
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertThat(cache.size()).isZero();
+    }
+
+    private static EurekaInstance eurekaInstance(String hostName, Long lastDirtyTimestamp, String actionType, String status) {
+        return EurekaInstance.builder()
+                .app("ORDER-SERVICE")
+                .hostName(hostName)
+                .status(status)
+                .lastDirtyTimestamp(lastDirtyTimestamp)
+                .actionType(actionType)
+                .build();
+    }
+}
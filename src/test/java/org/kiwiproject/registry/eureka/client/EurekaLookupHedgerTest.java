@@ -0,0 +1,290 @@
+package org.kiwiproject.registry.eureka.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@DisplayName("EurekaLookupHedger")
+class EurekaLookupHedgerTest {
+
+    private EurekaConfig config;
+    private EurekaUrlProvider urlProvider;
+    private String primaryUrl;
+    private String alternateUrl;
+    private List<String> calledUrls;
+
+    @BeforeEach
+    void setUp() {
+        config = new EurekaConfig();
+        config.setRegistryUrls("http://eureka-1:8761/eureka/v2,http://eureka-2:8761/eureka/v2");
+        config.setMinHedgeDelayMillis(50);
+        config.setMaxHedgePercent(100);
+
+        urlProvider = new EurekaUrlProvider(config);
+        primaryUrl = urlProvider.getCurrentEurekaUrl();
+        alternateUrl = urlProvider.getAlternateEurekaUrl(primaryUrl).orElseThrow();
+        calledUrls = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void shouldNotHedge_WhenPrimaryRespondsWithinDelay() throws Exception {
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+        var response = Response.ok("primary").build();
+
+        var result = hedger.lookup(url -> {
+            calledUrls.add(url);
+            return response;
+        });
+
+        assertThat(result).isSameAs(response);
+        assertThat(calledUrls).containsExactly(primaryUrl);
+    }
+
+    @Test
+    void shouldUseHedgedResponse_WhenPrimaryIsSlow() throws Exception {
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+        var hedgeResponse = Response.ok("hedge").build();
+        var primaryInterrupted = new CountDownLatch(1);
+
+        var result = hedger.lookup(url -> {
+            calledUrls.add(url);
+            if (url.equals(primaryUrl)) {
+                return blockUntilInterrupted(primaryInterrupted);
+            }
+            return hedgeResponse;
+        });
+
+        assertThat(result).isSameAs(hedgeResponse);
+        assertThat(calledUrls).containsExactly(primaryUrl, alternateUrl);
+        assertThat(primaryInterrupted.await(5, TimeUnit.SECONDS))
+                .describedAs("slow primary lookup should have been cancelled")
+                .isTrue();
+    }
+
+    @Test
+    void shouldCloseResponseThatLosesTheRace() throws Exception {
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+        var primaryResponse = mock(Response.class);
+        var hedgeResponse = Response.ok("hedge").build();
+        var hedgeReturned = new CountDownLatch(1);
+
+        var result = hedger.lookup(url -> {
+            if (url.equals(primaryUrl)) {
+                awaitUninterruptibly(hedgeReturned);
+                return primaryResponse;
+            }
+            hedgeReturned.countDown();
+            return hedgeResponse;
+        });
+
+        assertThat(result).isSameAs(hedgeResponse);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(primaryResponse).close());
+    }
+
+    @Test
+    void shouldCloseResponses_WhenInterruptedWhileWaitingForHedgedLookup() throws Exception {
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+        var primaryResponse = mock(Response.class);
+        var hedgeResponse = mock(Response.class);
+        var releaseLookups = new CountDownLatch(1);
+        var thrown = new AtomicReference<Exception>();
+        var interruptedAfterLookup = new AtomicBoolean();
+
+        var caller = new Thread(() -> {
+            try {
+                hedger.lookup(url -> {
+                    calledUrls.add(url);
+                    awaitUninterruptibly(releaseLookups);
+                    return url.equals(primaryUrl) ? primaryResponse : hedgeResponse;
+                });
+            } catch (Exception e) {
+                thrown.set(e);
+            }
+            interruptedAfterLookup.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        await().atMost(Duration.ofSeconds(5)).until(() -> calledUrls.size() == 2);
+
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(5));
+        releaseLookups.countDown();
+
+        assertThat(thrown.get()).isInstanceOf(InterruptedException.class);
+        assertThat(interruptedAfterLookup).isTrue();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            verify(primaryResponse).close();
+            verify(hedgeResponse).close();
+        });
+    }
+
+    @Test
+    void shouldNotHedge_WhenExtraLoadIsCappedAtZero() throws Exception {
+        config.setMaxHedgePercent(0);
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+        var primaryResponse = Response.ok("primary").build();
+
+        var result = hedger.lookup(url -> {
+            calledUrls.add(url);
+            sleep(150);
+            return primaryResponse;
+        });
+
+        assertThat(result).isSameAs(primaryResponse);
+        assertThat(calledUrls).containsExactly(primaryUrl);
+    }
+
+    @Test
+    void shouldThrowPrimaryError_WhenAllLookupsFail() {
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+
+        assertThatThrownBy(() -> hedger.lookup(url -> {
+            if (url.equals(primaryUrl)) {
+                sleep(150);
+                throw new ProcessingException("primary failed");
+            }
+            throw new ProcessingException("hedge failed");
+        }))
+                .isExactlyInstanceOf(ProcessingException.class)
+                .hasMessage("primary failed");
+
+        assertThat(urlProvider.getCurrentEurekaUrl()).isEqualTo(alternateUrl);
+    }
+
+    @Test
+    void shouldShutDownExecutor_WhenClosed() {
+        var executor = Executors.newCachedThreadPool();
+        var hedger = new EurekaLookupHedger(config, urlProvider, executor);
+
+        hedger.close();
+
+        assertThat(executor.isShutdown()).isTrue();
+    }
+
+    @Test
+    void shouldLookUpOnCallingThread_WhenNoThreadIsAvailable() throws Exception {
+        var hedger = new EurekaLookupHedger(config, urlProvider);
+        hedger.close();
+        var response = Response.ok("primary").build();
+        var lookupThreads = new CopyOnWriteArrayList<Thread>();
+
+        var result = hedger.lookup(url -> {
+            calledUrls.add(url);
+            lookupThreads.add(Thread.currentThread());
+            sleep(150);
+            return response;
+        });
+
+        assertThat(result).isSameAs(response);
+        assertThat(calledUrls).containsExactly(primaryUrl);
+        assertThat(lookupThreads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    void shouldNotHedge_WhenNoThreadIsAvailableForHedgedLookup() throws Exception {
+        // The primary lookup takes the only thread, so the hedged lookup is rejected
+        var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        var hedger = new EurekaLookupHedger(config, urlProvider, executor);
+        var response = Response.ok("primary").build();
+
+        var result = hedger.lookup(url -> {
+            calledUrls.add(url);
+            sleep(150);
+            return response;
+        });
+
+        assertThat(result).isSameAs(response);
+        assertThat(calledUrls).containsExactly(primaryUrl);
+        executor.shutdown();
+    }
+
+    @Nested
+    class HedgeDelay {
+
+        private EurekaLookupHedger hedger;
+
+        @BeforeEach
+        void setUp() {
+            hedger = new EurekaLookupHedger(config, urlProvider);
+        }
+
+        @Test
+        void shouldUseMinimumDelay_UntilEnoughLatenciesAreRecorded() {
+            for (var i = 0; i < EurekaLookupHedger.MIN_LATENCY_SAMPLES - 1; i++) {
+                hedger.recordLatency(TimeUnit.SECONDS.toNanos(1));
+            }
+
+            assertThat(hedger.hedgeDelayMillis()).isEqualTo(50);
+        }
+
+        @Test
+        void shouldUseConfiguredPercentileOfRecentLatencies() {
+            for (var millis = 1; millis <= EurekaLookupHedger.LATENCY_SAMPLE_SIZE; millis++) {
+                hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+
+            // ceil(0.95 * 128) = 122, i.e. the 122nd-smallest sample
+            assertThat(hedger.hedgeDelayMillis()).isEqualTo(122);
+        }
+
+        @Test
+        void shouldNotGoBelowMinimumDelay() {
+            for (var i = 0; i < EurekaLookupHedger.LATENCY_SAMPLE_SIZE; i++) {
+                hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+
+            assertThat(hedger.hedgeDelayMillis()).isEqualTo(50);
+        }
+    }
+
+    private static Response blockUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            Thread.currentThread().interrupt();
+        }
+        throw new ProcessingException("interrupted");
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        var done = false;
+        while (!done) {
+            try {
+                done = latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // keep waiting, simulating a blocking call that ignores interruption
+            }
+        }
+        sleep(50);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
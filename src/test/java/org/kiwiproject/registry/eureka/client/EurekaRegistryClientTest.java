@@ -7,12 +7,22 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.kiwiproject.collect.KiwiLists.first;
 import static org.kiwiproject.collect.KiwiLists.isNotNullOrEmpty;
 import static org.kiwiproject.registry.eureka.util.EurekaTestDataHelper.newEurekaContainer;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.ServerErrorException;
 import jakarta.ws.rs.WebApplicationException;
@@ -25,18 +35,24 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.kiwiproject.registry.client.RegistryClient;
 import org.kiwiproject.registry.eureka.common.EurekaRestClient;
+import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
 import org.kiwiproject.registry.eureka.config.EurekaConfig;
 import org.kiwiproject.registry.eureka.util.EurekaTestDataHelper;
 import org.kiwiproject.registry.eureka.util.RegisteredInstanceInfo;
+import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.retry.KiwiRetryerException;
 import org.kiwiproject.retry.RetryException;
 import org.kiwiproject.retry.WaitStrategies;
 import org.kiwiproject.retry.WaitStrategy;
+import org.mockito.ArgumentCaptor;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 @DisplayName("EurekaRegistryClient")
@@ -84,6 +100,15 @@ class EurekaRegistryClientTest {
                 var instance = client.findServiceInstanceBy("NOOP");
                 assertThat(instance).isEmpty();
             }
+
+            @Test
+            void shouldReuseServiceInstance_WhenInstanceIsUnchanged() {
+                var first = client.findServiceInstanceBy(registeredInstanceInfo.vipAddress()).orElseThrow();
+                var second = client.findServiceInstanceBy(registeredInstanceInfo.vipAddress()).orElseThrow();
+
+                assertThat(second).isSameAs(first);
+                assertThat(second.getMetadata()).isUnmodifiable();
+            }
         }
 
         @Nested
@@ -142,6 +167,105 @@ class EurekaRegistryClientTest {
                 assertThat(instance).isEmpty();
             }
         }
+
+        @Nested
+        class WithQueries {
+            @Test
+            void shouldReturnServiceInstancesForEachQuery() {
+                var foundQuery = RegistryClient.InstanceQuery.builder()
+                        .serviceName(registeredInstanceInfo.vipAddress())
+                        .build();
+                var lowerCaseQuery = RegistryClient.InstanceQuery.builder()
+                        .serviceName(registeredInstanceInfo.vipAddress().toLowerCase(Locale.ROOT))
+                        .build();
+                var notFoundQuery = RegistryClient.InstanceQuery.builder().serviceName("NOOP").build();
+
+                var results = client.findAllServiceInstancesBy(List.of(foundQuery, lowerCaseQuery, notFoundQuery));
+
+                assertThat(results.keySet()).containsExactly(foundQuery, lowerCaseQuery, notFoundQuery);
+                assertThat(results.get(foundQuery)).hasSize(1);
+                assertThat(results.get(lowerCaseQuery)).hasSize(1);
+                assertThat(results.get(notFoundQuery)).isEmpty();
+            }
+
+            @Test
+            void shouldReturnEmptyMap_WhenNoQueries() {
+                assertThat(client.findAllServiceInstancesBy(List.of())).isEmpty();
+            }
+
+            @Test
+            void shouldFetchAllInstancesOnce() {
+                var restClient = spy(new EurekaRestClient());
+                var spyingClient = new EurekaRegistryClient(config, restClient);
+
+                var queries = List.of(
+                        RegistryClient.InstanceQuery.builder().serviceName(registeredInstanceInfo.vipAddress()).build(),
+                        RegistryClient.InstanceQuery.builder().serviceName("NOOP").build());
+                spyingClient.findAllServiceInstancesBy(queries);
+
+                verify(restClient).findAllInstances(anyString());
+                verify(restClient, never()).findInstancesByVipAddress(anyString(), anyString());
+            }
+        }
+
+        @Nested
+        class WhenManyVipAddressesAreLookedUp {
+
+            private EurekaRestClient restClient;
+            private EurekaRegistryClient spyingClient;
+
+            @BeforeEach
+            void setUp() {
+                config.setFullFetchVipThreshold(2);
+                restClient = spy(new EurekaRestClient());
+                spyingClient = new EurekaRegistryClient(config, restClient);
+            }
+
+            @Test
+            void shouldLookUpEachVipAddress_UntilThresholdIsReached() {
+                var instances = spyingClient.findAllServiceInstancesBy(registeredInstanceInfo.vipAddress());
+
+                assertThat(instances).hasSize(1);
+                verify(restClient).findInstancesByVipAddress(anyString(), anyString());
+                verify(restClient, never()).findAllInstances(anyString());
+            }
+
+            @Test
+            void shouldShareOneFetchOfAllInstances_OnceThresholdIsReached() {
+                spyingClient.findAllServiceInstancesBy("NOOP");
+
+                assertThat(spyingClient.findAllServiceInstancesBy(registeredInstanceInfo.vipAddress())).hasSize(1);
+                assertThat(spyingClient.findAllServiceInstancesBy("NOOP")).isEmpty();
+                assertThat(spyingClient.findAllServiceInstancesBy(registeredInstanceInfo.vipAddress())).hasSize(1);
+
+                verify(restClient).findInstancesByVipAddress(anyString(), anyString());
+                verify(restClient).findAllInstances(anyString());
+            }
+        }
+    }
+
+    @Nested
+    class WithHedgedLookups {
+
+        @BeforeEach
+        void setUp() {
+            config.setHedgeLookups(true);
+            client = new EurekaRegistryClient(config, new EurekaRestClient());
+        }
+
+        @Test
+        void shouldReturnListOfServiceInstancesWhenMatchFound() {
+            var instances = client.findAllServiceInstancesBy(registeredInstanceInfo.vipAddress());
+
+            assertThat(instances).hasSize(1);
+        }
+
+        @Test
+        void shouldReturnEmptyListWhenNotFound() {
+            var instances = client.findAllServiceInstancesBy("NOOP");
+
+            assertThat(instances).isEmpty();
+        }
     }
 
     @Nested
@@ -161,6 +285,29 @@ class EurekaRegistryClientTest {
         }
     }
 
+    @Nested
+    class Close {
+
+        @Test
+        void shouldStopWarmingConnections() {
+            config.setPrewarmConnections(true);
+            config.setKeepWarmIntervalSeconds(1);
+            var restClient = mock(EurekaRestClient.class);
+            when(restClient.warmUp(anyString())).thenReturn(Response.ok().build());
+
+            client = new EurekaRegistryClient(config, restClient);
+            await().atMost(5, TimeUnit.SECONDS)
+                    .untilAsserted(() -> verify(restClient, atLeastOnce()).warmUp(config.getRegistryUrls()));
+
+            client.close();
+            clearInvocations(restClient);
+
+            await().during(1500, TimeUnit.MILLISECONDS)
+                    .atMost(3, TimeUnit.SECONDS)
+                    .untilAsserted(() -> verify(restClient, never()).warmUp(anyString()));
+        }
+    }
+
     @Nested
     class WithRetry {
 
@@ -268,6 +415,171 @@ class EurekaRegistryClientTest {
 
             verify(restClient).findInstancesByVipAddress(config.getRegistryUrls(), "my-service");
         }
+
+        @Test
+        void shouldRetryOnServiceUnavailableResponse() {
+            var response = mock(Response.class);
+            when(response.getStatus()).thenReturn(Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+            when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class))).thenReturn(response);
+
+            assertThatThrownBy(() -> client.findAllServiceInstancesBy("my-service"))
+                    .isInstanceOf(KiwiRetryerException.class)
+                    .hasCauseInstanceOf(RetryException.class);
+
+            verify(restClient, times(3)).findInstancesByVipAddress(config.getRegistryUrls(), "my-service");
+            verify(response, times(3)).close();
+        }
+
+        @Test
+        void shouldNotTreatNotFoundResponse_AsSuccessfulLookup() {
+            var response = mock(Response.class);
+            when(response.getStatus()).thenReturn(Response.Status.NOT_FOUND.getStatusCode());
+            when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class))).thenReturn(response);
+
+            assertThatThrownBy(() -> client.findAllServiceInstancesBy("my-service"))
+                    .isInstanceOf(KiwiRetryerException.class)
+                    .hasCauseInstanceOf(RetryException.class);
+
+            verify(restClient).findInstancesByVipAddress(config.getRegistryUrls(), "my-service");
+            verify(response).close();
+        }
+
+        @Test
+        void shouldNotRecordFailureOfEurekaServer_WhenResponseIsClientError() {
+            var urlProvider = newUrlProviderWithNoWaitClient();
+
+            var response = mock(Response.class);
+            when(response.getStatus()).thenReturn(Response.Status.NOT_FOUND.getStatusCode());
+            when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class))).thenReturn(response);
+
+            assertThatThrownBy(() -> client.findAllServiceInstancesBy("my-service"))
+                    .isInstanceOf(KiwiRetryerException.class);
+
+            assertThat(urlProvider.errorRate(config.getRegistryUrls())).isZero();
+            verify(response).close();
+        }
+
+        @Test
+        void shouldRecordFailureOfEurekaServer_WhenResponseIsServerError() {
+            var urlProvider = newUrlProviderWithNoWaitClient();
+
+            var response = mock(Response.class);
+            when(response.getStatus()).thenReturn(Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+            when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class))).thenReturn(response);
+
+            assertThatThrownBy(() -> client.findAllServiceInstancesBy("my-service"))
+                    .isInstanceOf(KiwiRetryerException.class);
+
+            assertThat(urlProvider.errorRate(config.getRegistryUrls())).isPositive();
+        }
+
+        @Test
+        void shouldRecordFailureOfEurekaServer_WhenLookupFailsWithIOError() {
+            var urlProvider = newUrlProviderWithNoWaitClient();
+
+            when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class)))
+                    .thenThrow(new ProcessingException("Connection reset"));
+
+            assertThatThrownBy(() -> client.findAllServiceInstancesBy("my-service"))
+                    .isInstanceOf(KiwiRetryerException.class);
+
+            assertThat(urlProvider.errorRate(config.getRegistryUrls())).isPositive();
+        }
+
+        private EurekaUrlProvider newUrlProviderWithNoWaitClient() {
+            var urlProvider = new EurekaUrlProvider(config);
+            client = new EurekaRegistryClient(config, restClient, urlProvider) {
+                @Override
+                WaitStrategy getWaitStrategy() {
+                    return WaitStrategies.noWait();
+                }
+            };
+            return urlProvider;
+        }
+
+        @Test
+        void shouldNotRetry_WhenRetryBudgetIsExhausted() {
+            config.setRetryBudgetPercent(0);
+            config.setRetryBudgetMinRetriesPerSecond(0);
+            var urlProvider = new EurekaUrlProvider(config);
+            var retryBudget = urlProvider.getRetryBudget();
+            while (retryBudget.tryAcquireRetry()) {
+                // use up the initial burst
+            }
+
+            client = new EurekaRegistryClient(config, restClient, urlProvider) {
+                @Override
+                WaitStrategy getWaitStrategy() {
+                    return WaitStrategies.noWait();
+                }
+            };
+
+            when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class)))
+                    .thenThrow(new ServerErrorException(Response.Status.SERVICE_UNAVAILABLE));
+
+            assertThatThrownBy(() -> client.findAllServiceInstancesBy("my-service"))
+                    .isInstanceOf(KiwiRetryerException.class)
+                    .hasCauseInstanceOf(RetryException.class);
+
+            verify(restClient).findInstancesByVipAddress(config.getRegistryUrls(), "my-service");
+        }
+
+        @Nested
+        class WithDeadline {
+
+            @Test
+            void shouldFailFast_WhenDeadlineHasAlreadyPassed() {
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("my-service")
+                        .deadline(Instant.now().minusSeconds(1))
+                        .build();
+
+                assertThatThrownBy(() -> client.findAllServiceInstancesBy(query))
+                        .isExactlyInstanceOf(UncheckedTimeoutException.class);
+
+                verifyNoInteractions(restClient);
+            }
+
+            @Test
+            void shouldStopRetrying_WhenDeadlinePasses() {
+                when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class), anyInt()))
+                        .thenAnswer(invocation -> {
+                            Thread.sleep(150);
+                            throw new ServerErrorException(Response.Status.SERVICE_UNAVAILABLE);
+                        });
+
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("my-service")
+                        .timeout(Duration.ofMillis(200))
+                        .build();
+
+                assertThatThrownBy(() -> client.findAllServiceInstancesBy(query))
+                        .isInstanceOf(KiwiRetryerException.class)
+                        .hasCauseInstanceOf(RetryException.class);
+
+                verify(restClient, atMost(2))
+                        .findInstancesByVipAddress(isA(String.class), isA(String.class), anyInt());
+            }
+
+            @Test
+            void shouldLimitReadTimeout_ToTimeRemainingBeforeDeadline() {
+                when(restClient.findInstancesByVipAddress(isA(String.class), isA(String.class), anyInt()))
+                        .thenThrow(new ProcessingException("not retryable"));
+
+                var query = RegistryClient.InstanceQuery.builder()
+                        .serviceName("my-service")
+                        .timeout(Duration.ofMillis(200))
+                        .build();
+
+                assertThatThrownBy(() -> client.findAllServiceInstancesBy(query))
+                        .isInstanceOf(KiwiRetryerException.class);
+
+                var readTimeout = ArgumentCaptor.forClass(Integer.class);
+                verify(restClient).findInstancesByVipAddress(
+                        eq(config.getRegistryUrls()), eq("my-service"), readTimeout.capture());
+                assertThat(readTimeout.getValue()).isBetween(1, 200);
+            }
+        }
     }
 
     @Nested
@@ -291,4 +603,53 @@ class EurekaRegistryClientTest {
             );
         }
     }
+
+    @Nested
+    class StreamAllRegisteredInstances {
+        @Test
+        void shouldStreamServiceInstances() {
+            await().pollInterval(Duration.ofMillis(500)).atMost(1, TimeUnit.MINUTES).until(() -> {
+                try (var instances = client.streamAllRegisteredInstances()) {
+                    return instances.findAny().isPresent();
+                }
+            });
+
+            List<ServiceInstance> instances;
+            try (var instanceStream = client.streamAllRegisteredInstances()) {
+                instances = instanceStream.toList();
+            }
+
+            assertThat(instances).hasSize(1);
+
+            var instance = first(instances);
+
+            assertAll(
+                    () -> assertThat(instance.getInstanceId()).isEqualTo(registeredInstanceInfo.instanceId()),
+                    () -> assertThat(instance.getServiceName()).isEqualTo(registeredInstanceInfo.vipAddress())
+            );
+        }
+    }
+
+    @Nested
+    class RetrieveServiceSummaries {
+        @Test
+        void shouldReturnSummaryOfEachService() {
+            await().pollInterval(Duration.ofMillis(500)).atMost(1, TimeUnit.MINUTES).until(() -> {
+                var summaries = client.retrieveServiceSummaries();
+                return isNotNullOrEmpty(summaries);
+            });
+
+            var summaries = client.retrieveServiceSummaries();
+
+            assertThat(summaries).hasSize(1);
+
+            var summary = first(summaries);
+
+            assertAll(
+                    () -> assertThat(summary.getServiceName()).isEqualTo(registeredInstanceInfo.vipAddress()),
+                    () -> assertThat(summary.getInstanceCount()).isOne(),
+                    () -> assertThat(summary.getStatusCounts()).containsOnlyKeys("UP")
+            );
+        }
+    }
 }
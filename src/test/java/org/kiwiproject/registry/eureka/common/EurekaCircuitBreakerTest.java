@@ -0,0 +1,170 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.common.EurekaCircuitBreaker.State;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("EurekaCircuitBreaker")
+class EurekaCircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private AtomicLong nanoTime;
+    private EurekaCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong(1_000L);
+        breaker = new EurekaCircuitBreaker(3, OPEN_DURATION, nanoTime::get);
+    }
+
+    @Test
+    void shouldRequirePositiveFailureThreshold() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new EurekaCircuitBreaker(0, OPEN_DURATION))
+                .withMessage("failureThreshold must be positive");
+    }
+
+    @Test
+    void shouldStartClosed() {
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.isCallPermitted()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Nested
+    class WhenClosed {
+
+        @Test
+        void shouldStayClosed_BelowFailureThreshold() {
+            breaker.recordFailure();
+            breaker.recordFailure();
+
+            assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        }
+
+        @Test
+        void shouldOpen_AtFailureThreshold() {
+            recordFailures(3);
+
+            assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        }
+
+        @Test
+        void shouldResetFailureCount_OnSuccess() {
+            recordFailures(2);
+            breaker.recordSuccess();
+            recordFailures(2);
+
+            assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        }
+    }
+
+    @Nested
+    class WhenOpen {
+
+        @BeforeEach
+        void setUp() {
+            recordFailures(3);
+        }
+
+        @Test
+        void shouldNotPermitCalls_BeforeOpenDurationElapses() {
+            nanoTime.addAndGet(OPEN_DURATION.toNanos() - 1);
+
+            assertThat(breaker.isCallPermitted()).isFalse();
+            assertThat(breaker.tryAcquirePermission()).isFalse();
+            assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        }
+
+        @Test
+        void shouldPermitSingleProbe_AfterOpenDurationElapses() {
+            nanoTime.addAndGet(OPEN_DURATION.toNanos());
+
+            assertThat(breaker.isCallPermitted()).isTrue();
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+            assertThat(breaker.tryAcquirePermission()).isFalse();
+        }
+
+        @Test
+        void shouldNotExtendOpenDuration_WhenFailuresAreRecordedWhileOpen() {
+            nanoTime.addAndGet(OPEN_DURATION.toNanos() / 2);
+            recordFailures(5);
+
+            nanoTime.addAndGet(OPEN_DURATION.toNanos() / 2);
+
+            assertThat(breaker.getState()).isEqualTo(State.OPEN);
+            assertThat(breaker.isCallPermitted()).isTrue();
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        }
+
+        @Test
+        void shouldIgnoreReleasedPermission() {
+            breaker.releasePermission();
+
+            assertThat(breaker.getState()).isEqualTo(State.OPEN);
+            assertThat(breaker.isCallPermitted()).isFalse();
+        }
+    }
+
+    @Nested
+    class WhenHalfOpen {
+
+        @BeforeEach
+        void setUp() {
+            recordFailures(3);
+            nanoTime.addAndGet(OPEN_DURATION.toNanos());
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+        }
+
+        @Test
+        void shouldClose_WhenProbeSucceeds() {
+            breaker.recordSuccess();
+
+            assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+        }
+
+        @Test
+        void shouldReopen_WhenProbeFails() {
+            breaker.recordFailure();
+
+            assertThat(breaker.getState()).isEqualTo(State.OPEN);
+            assertThat(breaker.tryAcquirePermission()).isFalse();
+        }
+
+        @Test
+        void shouldPermitAnotherProbe_WhenProbeReleasesPermission() {
+            breaker.releasePermission();
+
+            assertThat(breaker.getState()).isEqualTo(State.OPEN);
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        }
+
+        @Test
+        void shouldPermitAnotherProbe_WhenProbeNeverReportsOutcome() {
+            nanoTime.addAndGet(OPEN_DURATION.toNanos());
+
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        }
+    }
+
+    private void recordFailures(int count) {
+        for (var i = 0; i < count; i++) {
+            breaker.recordFailure();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.time.Duration;
+
+@DisplayName("EurekaConnectionWarmer")
+class EurekaConnectionWarmerTest {
+
+    private static final String URL_1 = "http://eureka-1:8761/eureka/v2";
+    private static final String URL_2 = "http://eureka-2:8761/eureka/v2";
+
+    private EurekaRestClient client;
+    private EurekaUrlProvider urlProvider;
+    private EurekaConnectionWarmer warmer;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(EurekaRestClient.class);
+        when(client.warmUp(anyString())).thenReturn(Response.ok().build());
+
+        urlProvider = new EurekaUrlProvider(URL_1 + "," + URL_2, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (warmer != null) {
+            warmer.close();
+        }
+    }
+
+    @Test
+    void shouldNotAllowNegativeKeepWarmInterval() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new EurekaConnectionWarmer(client, urlProvider, -1))
+                .withMessage("keepWarmIntervalSeconds must not be negative");
+    }
+
+    @Nested
+    class WarmAll {
+
+        @Test
+        void shouldWarmEveryUrl() {
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+
+            warmer.warmAll();
+
+            verify(client).warmUp(URL_1);
+            verify(client).warmUp(URL_2);
+        }
+
+        @Test
+        void shouldNotReportToUrlProvider_WhenServerAnswers() {
+            when(client.warmUp(URL_1)).thenReturn(Response.status(Response.Status.NOT_FOUND).build());
+            when(client.warmUp(URL_2)).thenReturn(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+            urlProvider.recordFailure(URL_1);
+            var errorRate = urlProvider.errorRate(URL_1);
+            var latency = urlProvider.latencyMillis(URL_1);
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+
+            warmer.warmAll();
+
+            assertThat(urlProvider.errorRate(URL_1)).isEqualTo(errorRate);
+            assertThat(urlProvider.latencyMillis(URL_1)).isEqualTo(latency);
+            assertThat(urlProvider.errorRate(URL_2)).isZero();
+        }
+
+        @Test
+        void shouldKeepOpenCircuitBreakerOpen_WhenServerAnswers() {
+            urlProvider = new EurekaUrlProvider(URL_1 + "," + URL_2, 0, 1, 30, System::nanoTime);
+            urlProvider.recordFailure(URL_1);
+            assertThat(urlProvider.circuitBreakerStates()).containsEntry(URL_1, EurekaCircuitBreaker.State.OPEN);
+
+            when(client.warmUp(URL_1)).thenReturn(Response.status(Response.Status.NOT_FOUND).build());
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+
+            warmer.warmAll();
+
+            assertThat(urlProvider.circuitBreakerStates()).containsEntry(URL_1, EurekaCircuitBreaker.State.OPEN);
+        }
+
+        @Test
+        void shouldIgnoreFailures() {
+            when(client.warmUp(URL_1)).thenThrow(new ProcessingException("connection refused"));
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+
+            assertThatCode(() -> warmer.warmAll()).doesNotThrowAnyException();
+
+            verify(client).warmUp(URL_2);
+            assertThat(urlProvider.errorRate(URL_1)).isZero();
+            assertThat(urlProvider.errorRate(URL_2)).isZero();
+        }
+    }
+
+    @Nested
+    class Start {
+
+        @Test
+        void shouldWarmEveryUrlInTheBackground() {
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+
+            warmer.start();
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+                verify(client).warmUp(URL_1);
+                verify(client).warmUp(URL_2);
+            });
+        }
+
+        @Test
+        void shouldKeepConnectionsWarm_WhenIntervalIsSet() {
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 1);
+
+            warmer.start();
+
+            await().atMost(Duration.ofSeconds(5))
+                    .untilAsserted(() -> verify(client, atLeast(2)).warmUp(URL_1));
+        }
+    }
+
+    @Nested
+    class Failover {
+
+        @Test
+        void shouldWarmEveryUrl_WhenUrlProviderFailsOver() {
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+
+            assertThat(urlProvider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+            verifyNoInteractions(client);
+
+            assertThat(urlProvider.getNextEurekaUrl()).isEqualTo(URL_2);
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+                verify(client).warmUp(URL_1);
+                verify(client).warmUp(URL_2);
+            });
+        }
+
+        @Test
+        void shouldNotWarmUrls_WhenUrlProviderFailsOverAfterClose() {
+            warmer = new EurekaConnectionWarmer(client, urlProvider, 0);
+            warmer.close();
+
+            urlProvider.getNextEurekaUrl();
+
+            verifyNoInteractions(client);
+        }
+    }
+
+    @Nested
+    class StartIfEnabled {
+
+        @Test
+        void shouldNotStart_WhenPrewarmingIsDisabled() {
+            var config = new EurekaConfig();
+
+            assertThat(EurekaConnectionWarmer.startIfEnabled(config, client, urlProvider)).isEmpty();
+            verifyNoInteractions(client);
+        }
+
+        @Test
+        void shouldStart_WhenPrewarmingIsEnabled() {
+            var config = new EurekaConfig();
+            config.setPrewarmConnections(true);
+
+            var warmerOptional = EurekaConnectionWarmer.startIfEnabled(config, client, urlProvider);
+            assertThat(warmerOptional).isPresent();
+            warmer = warmerOptional.orElseThrow();
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+                verify(client).warmUp(URL_1);
+                verify(client).warmUp(URL_2);
+            });
+        }
+    }
+}
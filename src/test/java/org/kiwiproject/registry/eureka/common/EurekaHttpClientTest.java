@@ -0,0 +1,229 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.registry.eureka.config.EurekaRegistrationConfig.DEFAULT_LEASE_EXPIRATION_DURATION_SECONDS;
+import static org.kiwiproject.registry.eureka.config.EurekaRegistrationConfig.DEFAULT_LEASE_RENEWAL_INTERVAL_SECONDS;
+import static org.kiwiproject.registry.eureka.server.EurekaRegistryService.DEFAULT_DATA_CENTER_INFO_CLASS;
+import static org.kiwiproject.registry.eureka.server.EurekaRegistryService.DEFAULT_DATA_CENTER_NAME;
+import static org.kiwiproject.registry.eureka.server.EurekaRegistryService.LEASE_DURATION_IN_SECONDS;
+import static org.kiwiproject.registry.eureka.server.EurekaRegistryService.LEASE_RENEWAL_INTERVAL_IN_SECONDS;
+import static org.kiwiproject.registry.eureka.util.EurekaTestDataHelper.newEurekaContainer;
+import static org.kiwiproject.registry.eureka.util.EurekaTestDataHelper.registerInstanceAndAwaitVisibility;
+import static org.kiwiproject.registry.eureka.util.EurekaTestDataHelper.sampleInstance;
+import static org.kiwiproject.registry.util.InstanceIdGenerator.uniqueInstanceId;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.util.EurekaTestDataHelper;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.util.ServiceInfoHelper;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@DisplayName("EurekaHttpClient")
+@Testcontainers
+@Slf4j
+class EurekaHttpClientTest {
+
+    @Container
+    public static final GenericContainer<?> EUREKA = newEurekaContainer(LOG);
+
+    private EurekaHttpClient client;
+    private String eurekaBaseUrl;
+
+    @BeforeEach
+    void setUp() {
+        client = new EurekaHttpClient(Duration.ofSeconds(1), Duration.ofSeconds(5));
+        eurekaBaseUrl = EurekaTestDataHelper.eurekaUrl(EUREKA);
+
+        EurekaTestDataHelper.waitForEurekaToStart(eurekaBaseUrl);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        EurekaTestDataHelper.clearAllInstances(eurekaBaseUrl);
+    }
+
+    @Nested
+    class Register {
+
+        @Test
+        void shouldReturnResponseFromEureka() {
+            var service = ServiceInstance.fromServiceInfo(ServiceInfoHelper.buildTestServiceInfo())
+                    .withStatus(ServiceInstance.Status.STARTING);
+
+            var instance = EurekaInstance.fromServiceInstance(service)
+                    .withApp("appId")
+                    .withDataCenterInfo(Map.of(
+                            "name", DEFAULT_DATA_CENTER_NAME,
+                            "@class", DEFAULT_DATA_CENTER_INFO_CLASS
+                    ))
+                    .withLeaseInfo(Map.of(
+                            LEASE_DURATION_IN_SECONDS, DEFAULT_LEASE_EXPIRATION_DURATION_SECONDS,
+                            LEASE_RENEWAL_INTERVAL_IN_SECONDS, DEFAULT_LEASE_RENEWAL_INTERVAL_SECONDS
+                    ));
+
+            var response = client.register(eurekaBaseUrl, "appId", instance).join();
+
+            assertThat(response.statusCode()).isEqualTo(204);
+        }
+
+    }
+
+    @Nested
+    class FindInstance {
+
+        @Test
+        void shouldReturnResponseFromEurekaWhenFound() {
+            var appId = "APPID";
+            var instanceId = uniqueInstanceId();
+            registerInstanceAndAwaitVisibility(sampleInstance(appId, instanceId, "FOO-SERVICE", ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            var response = client.findInstance(eurekaBaseUrl, appId, instanceId).join();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+
+            var instance = EurekaResponseParser.parseEurekaInstanceResponse(EurekaHttpClient.readJsonBody(response));
+            assertThat(instance.getInstanceId()).isEqualTo(instanceId);
+        }
+
+        @Test
+        void shouldReturn404ResponseFromEurekaWhenNotFound() {
+            var response = client.findInstance(eurekaBaseUrl, "APPID", uniqueInstanceId()).join();
+
+            assertThat(response.statusCode()).isEqualTo(404);
+        }
+
+    }
+
+    @Nested
+    class FindInstanceByVipAddress {
+
+        @Test
+        void shouldReturnResponseFromEurekaWhenFound() {
+            var vipAddress = "foo-service";
+            registerInstanceAndAwaitVisibility(sampleInstance("APPID", uniqueInstanceId(), vipAddress, ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            var response = client.findInstancesByVipAddress(eurekaBaseUrl, vipAddress).join();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+
+            var instances = EurekaResponseParser.parseEurekaApplicationsResponse(EurekaHttpClient.readJsonBody(response));
+            assertThat(instances).extracting(EurekaInstance::getVipAddress).containsOnly(vipAddress);
+        }
+
+    }
+
+    @Nested
+    class UpdateStatus {
+
+        @Test
+        void shouldReturnResponseFromEureka() {
+            var appId = "APPID";
+            var instanceId = uniqueInstanceId();
+            registerInstanceAndAwaitVisibility(sampleInstance(appId, instanceId, "foo-service", ServiceInstance.Status.DOWN), eurekaBaseUrl);
+
+            var response = client.updateStatus(eurekaBaseUrl, appId, instanceId, ServiceInstance.Status.UP).join();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+
+            var instanceResponse = client.findInstance(eurekaBaseUrl, appId, instanceId).join();
+            var instance = EurekaResponseParser.parseEurekaInstanceResponse(EurekaHttpClient.readJsonBody(instanceResponse));
+            assertThat(instance.getStatus()).isEqualTo("UP");
+        }
+
+    }
+
+    @Nested
+    class Unregister {
+
+        @Test
+        void shouldReturnResponseFromEureka() {
+            var appId = "APPID";
+            var instanceId = uniqueInstanceId();
+            registerInstanceAndAwaitVisibility(sampleInstance(appId, instanceId, "foo-service", ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            var response = client.unregister(eurekaBaseUrl, appId, instanceId).join();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+
+            var instanceResponse = client.findInstance(eurekaBaseUrl, appId, instanceId).join();
+            assertThat(instanceResponse.statusCode()).isEqualTo(404);
+        }
+
+    }
+
+    @Nested
+    class SendHeartbeat {
+
+        @Test
+        void shouldReturnResponseFromEureka() {
+            var appId = "APPID";
+            var instanceId = uniqueInstanceId();
+            registerInstanceAndAwaitVisibility(sampleInstance(appId, instanceId, "foo-service", ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            var response = client.sendHeartbeat(eurekaBaseUrl, appId, instanceId).join();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+        }
+
+    }
+
+    @Nested
+    class FindAllInstances {
+
+        @Test
+        void shouldReturnResponseFromEureka() {
+            registerInstanceAndAwaitVisibility(sampleInstance("APPID", uniqueInstanceId(), "foo-service", ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            var response = client.findAllInstances(eurekaBaseUrl).join();
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(EurekaResponseParser.parseEurekaApplicationsResponse(EurekaHttpClient.readJsonBody(response)))
+                    .isNotEmpty();
+        }
+    }
+
+    @Nested
+    class Gunzip {
+
+        @Test
+        void shouldDecompressGzippedContent() {
+            var json = "{\"applications\":{}}";
+
+            assertThat(EurekaHttpClient.gunzip(gzip(json))).isEqualTo(json);
+        }
+
+        @Test
+        void shouldThrowUncheckedIOException_WhenContentIsNotGzipped() {
+            var notGzipped = "not gzip".getBytes(UTF_8);
+
+            assertThatThrownBy(() -> EurekaHttpClient.gunzip(notGzipped))
+                    .isExactlyInstanceOf(UncheckedIOException.class);
+        }
+
+        private static byte[] gzip(String value) {
+            var outputStream = new ByteArrayOutputStream();
+            try (var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+                gzipOutputStream.write(value.getBytes(UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+}
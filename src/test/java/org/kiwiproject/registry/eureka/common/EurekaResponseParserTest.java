@@ -3,6 +3,7 @@ package org.kiwiproject.registry.eureka.common;
 import static java.util.Map.entry;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.kiwiproject.collect.KiwiLists.first;
 import static org.kiwiproject.collect.KiwiMaps.newHashMap;
 import static org.kiwiproject.test.constants.KiwiTestConstants.JSON_HELPER;
@@ -17,10 +18,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.kiwiproject.registry.model.NativeRegistryData;
 import org.kiwiproject.test.util.Fixtures;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @DisplayName("EurekaResponseParser")
 @ExtendWith(SoftAssertionsExtension.class)
@@ -100,6 +106,235 @@ class EurekaResponseParserTest {
 
             assertThat(first(eurekaInstanceList).getLeaseInfo()).isEmpty();
         }
+
+        @Test
+        void shouldParseLastDirtyTimestampAndActionType() {
+            Map<String, Object> data = Map.of(
+                    "applications", Map.of(
+                            "application", Map.of("instance", List.of(
+                                    Map.of("hostName", "order-1", "lastDirtyTimestamp", "1700000000000",
+                                            "actionType", "ADDED"),
+                                    Map.of("hostName", "order-2", "lastDirtyTimestamp", 1700000000001L),
+                                    Map.of("hostName", "order-3", "lastDirtyTimestamp", "not-a-number"),
+                                    Map.of("hostName", "order-4")
+                            ))
+                    )
+            );
+
+            var eurekaInstances = EurekaResponseParser.parseEurekaApplicationsResponse(data);
+
+            assertThat(eurekaInstances)
+                    .extracting(EurekaInstance::getLastDirtyTimestamp, EurekaInstance::getActionType)
+                    .containsExactly(
+                            tuple(1_700_000_000_000L, "ADDED"),
+                            tuple(1_700_000_000_001L, null),
+                            tuple(null, null),
+                            tuple(null, null));
+        }
+
+        @Test
+        void shouldKeepRawResponse_OnlyWhenIncludingNativeData() {
+            var eurekaResponse = JSON_HELPER.toMap(
+                    Fixtures.fixture("EurekaParserTest/eureka-response-as-all-lists.json"));
+
+            var withNativeData = EurekaResponseParser.parseEurekaApplicationsResponse(eurekaResponse,
+                    NativeRegistryData.INCLUDE_NATIVE_DATA);
+            var withoutNativeData = EurekaResponseParser.parseEurekaApplicationsResponse(eurekaResponse,
+                    NativeRegistryData.IGNORE_NATIVE_DATA);
+
+            assertThat(first(withNativeData).getRawResponse()).containsEntry("hostName", "localhost");
+            assertThat(first(withoutNativeData).getRawResponse()).isEmpty();
+            assertThat(first(withoutNativeData).withRawResponse(first(withNativeData).getRawResponse()))
+                    .isEqualTo(first(withNativeData));
+        }
+    }
+
+    @Nested
+    class StreamEurekaApplicationsResponse {
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "EurekaParserTest/eureka-response-as-all-lists.json",
+                "EurekaParserTest/eureka-response-as-application-list-instance-map.json",
+                "EurekaParserTest/eureka-response-as-application-map-instance-list.json",
+                "EurekaParserTest/eureka-response-as-all-maps.json"
+        })
+        void shouldParseSameInstancesAsParseEurekaApplicationsResponse(String sampleJsonFile) {
+            var json = Fixtures.fixture(sampleJsonFile);
+            var expectedInstances = EurekaResponseParser.parseEurekaApplicationsResponse(JSON_HELPER.toMap(json));
+
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf(json))) {
+                assertThat(instances.toList()).isEqualTo(expectedInstances);
+            }
+        }
+
+        @Test
+        void shouldParseEveryInstanceOfEveryApplication() {
+            var json = """
+                    {
+                      "applications": {
+                        "versions__delta": "1",
+                        "application": [
+                          {"name": "ORDER", "instance": [{"hostName": "order-1"}, {"hostName": "order-2"}]},
+                          {"name": "EMPTY", "instance": []},
+                          {"name": "INVOICE", "instance": {"hostName": "invoice-1"}}
+                        ],
+                        "apps__hashcode": "UP_3_"
+                      }
+                    }
+                    """;
+
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf(json))) {
+                assertThat(instances.map(EurekaInstance::getHostName))
+                        .containsExactly("order-1", "order-2", "invoice-1");
+            }
+        }
+
+        @Test
+        void shouldReturnEmptyStream_WhenThereAreNoApplications() {
+            var json = "{\"applications\": {\"versions__delta\": \"1\", \"application\": []}}";
+
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf(json))) {
+                assertThat(instances).isEmpty();
+            }
+        }
+
+        @Test
+        void shouldNotKeepRawResponse_WhenIgnoringNativeData() {
+            var json = "{\"applications\": {\"application\": {\"instance\": {\"hostName\": \"order-1\"}}}}";
+
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf(json),
+                    NativeRegistryData.IGNORE_NATIVE_DATA)) {
+                assertThat(instances.toList())
+                        .singleElement()
+                        .satisfies(instance -> {
+                            assertThat(instance.getHostName()).isEqualTo("order-1");
+                            assertThat(instance.getRawResponse()).isEmpty();
+                        });
+            }
+        }
+
+        @Test
+        void shouldParseLazily() {
+            var json = "{\"applications\": {\"application\": [{\"instance\": [{\"hostName\": \"order-1\"}, {not-json";
+
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf(json))) {
+                assertThat(instances.findFirst())
+                        .map(EurekaInstance::getHostName)
+                        .contains("order-1");
+            }
+        }
+
+        @Test
+        void shouldCloseInputStream_WhenStreamIsClosed() {
+            var closed = new AtomicBoolean();
+            var inputStream = new ByteArrayInputStream(
+                    "{\"applications\": {\"application\": []}}".getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() {
+                    closed.set(true);
+                }
+            };
+
+            EurekaResponseParser.streamEurekaApplicationsResponse(inputStream).close();
+
+            assertThat(closed).isTrue();
+        }
+
+        @Test
+        void shouldThrowIllegalStateException_WhenResponseIsMissingApplicationsElement() {
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf("{}"))) {
+                assertThatThrownBy(instances::toList)
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Eureka data must contain a key 'applications' that contains a Map<String, Object>");
+            }
+        }
+
+        @Test
+        void shouldThrowIllegalArgumentException_WhenApplicationIsMissingInstances() {
+            var json = "{\"applications\": {\"application\": [{\"name\": \"ORDER\", \"instance\": null}]}}";
+
+            try (var instances = EurekaResponseParser.streamEurekaApplicationsResponse(inputStreamOf(json))) {
+                assertThatThrownBy(instances::toList)
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("Instance data from Eureka can not be null");
+            }
+        }
+
+        private static InputStream inputStreamOf(String json) {
+            return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Nested
+    class SummarizeEurekaApplicationsResponse {
+
+        @Test
+        void shouldThrowIllegalArgumentException_WhenResponseMapIsNull() {
+            assertThatThrownBy(() -> EurekaResponseParser.summarizeEurekaApplicationsResponse(null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Eureka applications response must not be null");
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "EurekaParserTest/eureka-response-as-all-lists.json",
+                "EurekaParserTest/eureka-response-as-application-list-instance-map.json",
+                "EurekaParserTest/eureka-response-as-application-map-instance-list.json",
+                "EurekaParserTest/eureka-response-as-all-maps.json"
+        })
+        void shouldSummarizeSuccessfully(String sampleJsonFile) {
+            var eurekaResponse = JSON_HELPER.toMap(Fixtures.fixture(sampleJsonFile));
+
+            var summaries = EurekaResponseParser.summarizeEurekaApplicationsResponse(eurekaResponse);
+
+            assertThat(summaries).hasSize(1);
+
+            var summary = first(summaries);
+            assertThat(summary.getServiceName()).isEqualTo("TEST-SERVICE-LOCALHOST");
+            assertThat(summary.getInstanceCount()).isOne();
+            assertThat(summary.getStatusCounts()).containsExactly(entry("UP", 1));
+            assertThat(summary.getVersions()).containsExactly("2018.01.01");
+        }
+
+        @Test
+        void shouldCountInstancesByServiceStatusAndVersion() {
+            Map<String, Object> data = Map.of(
+                    "applications", Map.of(
+                            "application", List.of(
+                                    Map.of("instance", List.of(
+                                            instanceData("ORDER-SERVICE", "UP", "1.0.0"),
+                                            instanceData("ORDER-SERVICE", "DOWN", "1.0.0"),
+                                            instanceData("ORDER-SERVICE", "UP", "1.1.0"))),
+                                    Map.of("instance", Map.of(
+                                            "vipAddress", "INVOICE-SERVICE",
+                                            "status", "OUT_OF_SERVICE")))
+                    )
+            );
+
+            var summaries = EurekaResponseParser.summarizeEurekaApplicationsResponse(data);
+
+            assertThat(summaries).hasSize(2);
+
+            var invoiceSummary = first(summaries);
+            assertThat(invoiceSummary.getServiceName()).isEqualTo("INVOICE-SERVICE");
+            assertThat(invoiceSummary.getInstanceCount()).isOne();
+            assertThat(invoiceSummary.getStatusCounts()).containsExactly(entry("OUT_OF_SERVICE", 1));
+            assertThat(invoiceSummary.getVersions()).isEmpty();
+
+            var orderSummary = summaries.get(1);
+            assertThat(orderSummary.getServiceName()).isEqualTo("ORDER-SERVICE");
+            assertThat(orderSummary.getInstanceCount()).isEqualTo(3);
+            assertThat(orderSummary.getStatusCounts()).containsExactly(entry("DOWN", 1), entry("UP", 2));
+            assertThat(orderSummary.getVersions()).containsExactly("1.0.0", "1.1.0");
+        }
+
+        private static Map<String, Object> instanceData(String vipAddress, String status, String version) {
+            return Map.of(
+                    "vipAddress", vipAddress,
+                    "status", status,
+                    "metadata", Map.of("version", version));
+        }
     }
 
     @Nested
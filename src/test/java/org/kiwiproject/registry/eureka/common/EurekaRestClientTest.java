@@ -1,6 +1,9 @@
 package org.kiwiproject.registry.eureka.common;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.kiwiproject.registry.eureka.config.EurekaRegistrationConfig.DEFAULT_LEASE_EXPIRATION_DURATION_SECONDS;
 import static org.kiwiproject.registry.eureka.config.EurekaRegistrationConfig.DEFAULT_LEASE_RENEWAL_INTERVAL_SECONDS;
 import static org.kiwiproject.registry.eureka.server.EurekaRegistryService.DEFAULT_DATA_CENTER_INFO_CLASS;
@@ -15,21 +18,34 @@ import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertNoContentResponse
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertNotFoundResponse;
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertOkResponse;
 
+import jakarta.ws.rs.client.Client;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache5.connector.Apache5ClientProperties;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.kiwiproject.jaxrs.KiwiGenericTypes;
+import org.kiwiproject.jaxrs.KiwiResponses;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
 import org.kiwiproject.registry.eureka.util.EurekaTestDataHelper;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.util.ServiceInfoHelper;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import javax.net.ssl.SSLContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
 import java.util.Map;
+import java.util.Properties;
 
 @DisplayName("EurekaRestClient")
 @Testcontainers
@@ -55,6 +71,171 @@ class EurekaRestClientTest {
         EurekaTestDataHelper.clearAllInstances(eurekaBaseUrl);
     }
 
+    @Nested
+    class Shared {
+
+        @Test
+        void shouldReturnSameClient_WhenConnectionSettingsAreEqual() {
+            var config1 = new EurekaConfig();
+            var config2 = new EurekaConfig();
+
+            assertThat(EurekaRestClient.shared(config1)).isSameAs(EurekaRestClient.shared(config2));
+        }
+
+        @Test
+        void shouldReturnDifferentClients_WhenConnectionSettingsDiffer() {
+            var config1 = new EurekaConfig();
+            var config2 = new EurekaConfig();
+            config2.setReadTimeoutMillis(config1.getReadTimeoutMillis() + 1);
+
+            assertThat(EurekaRestClient.shared(config1)).isNotSameAs(EurekaRestClient.shared(config2));
+        }
+
+        @Test
+        void shouldReturnSameClient_OnlyForSameSslContext() throws GeneralSecurityException {
+            var config = new EurekaConfig();
+            var sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, null, null);
+
+            assertThat(EurekaRestClient.shared(config, sslContext))
+                    .isSameAs(EurekaRestClient.shared(config, sslContext))
+                    .isNotSameAs(EurekaRestClient.shared(config));
+        }
+
+        @Test
+        void shouldReuseConnectionsForMultipleCalls() {
+            var config = new EurekaConfig();
+            config.setMaxConnectionsPerUrl(5);
+            var pooledClient = new EurekaRestClient(config);
+            var connectionManager = connectionManagerOf(pooledClient.getClient());
+
+            registerInstanceAndAwaitVisibility(sampleInstance("APPID", uniqueInstanceId(), "foo-service", ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            for (var i = 0; i < 5; i++) {
+                try (var response = pooledClient.findAllInstances(eurekaBaseUrl)) {
+                    assertOkResponse(response);
+                    response.readEntity(String.class);
+                }
+            }
+
+            // Each call was free to open a new connection, but each reused the one connection kept alive in the pool
+            var stats = connectionManager.getTotalStats();
+            assertThat(stats.getLeased()).isZero();
+            assertThat(stats.getAvailable()).isOne();
+        }
+    }
+
+    @Nested
+    class SslContexts {
+
+        @Test
+        void shouldApplyTlsSessionSettings_ToGivenSslContext() throws GeneralSecurityException {
+            var config = new EurekaConfig();
+            config.setTlsSessionCacheSize(42);
+            config.setTlsSessionTimeoutSeconds(600);
+
+            var sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, null, null);
+            new EurekaRestClient(config, sslContext);
+
+            var sessionContext = sslContext.getClientSessionContext();
+            assertThat(sessionContext.getSessionCacheSize()).isEqualTo(42);
+            assertThat(sessionContext.getSessionTimeout()).isEqualTo(600);
+        }
+
+        @Test
+        void shouldLoadKeyStoreNamedBySystemProperties(@TempDir Path tempDir) throws Exception {
+            var keyStorePath = tempDir.resolve("client.p12");
+            var keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(null, null);
+            try (var outputStream = Files.newOutputStream(keyStorePath)) {
+                keyStore.store(outputStream, "secret".toCharArray());
+            }
+
+            var originalProperties = new Properties();
+            originalProperties.putAll(System.getProperties());
+            try {
+                System.setProperty("javax.net.ssl.keyStore", keyStorePath.toString());
+                System.setProperty("javax.net.ssl.keyStoreType", "PKCS12");
+                System.setProperty("javax.net.ssl.keyStorePassword", "secret");
+
+                assertThatCode(() -> new EurekaRestClient(new EurekaConfig())).doesNotThrowAnyException();
+
+                // Proves that the key store is read, since a context without key managers ignores the password
+                System.setProperty("javax.net.ssl.keyStorePassword", "wrong");
+
+                assertThatIllegalStateException()
+                        .isThrownBy(() -> new EurekaRestClient(new EurekaConfig()))
+                        .withMessage("Unable to create SSLContext for Eureka connections");
+            } finally {
+                System.setProperties(originalProperties);
+            }
+        }
+    }
+
+    @Nested
+    class CallLimits {
+
+        @Test
+        void shouldRejectLookups_WhenRateLimitIsReached() {
+            var config = new EurekaConfig();
+            config.getCallLimits().setMaxLookupsPerSecond(1);
+            config.getCallLimits().setMaxWaitMillis(0);
+            var pooledClient = new EurekaRestClient(config);
+
+            try (var response = pooledClient.findAllInstances(eurekaBaseUrl)) {
+                assertOkResponse(response);
+            }
+
+            assertThatThrownBy(() -> pooledClient.findAllInstances(eurekaBaseUrl))
+                    .isExactlyInstanceOf(RegistryCallRejectedException.class);
+        }
+
+        @Test
+        void shouldNotLimitHeartbeats_WhenLookupsAreLimited() {
+            var config = new EurekaConfig();
+            config.getCallLimits().setMaxLookupsPerSecond(1);
+            config.getCallLimits().setMaxWaitMillis(0);
+            var pooledClient = new EurekaRestClient(config);
+
+            var instanceId = uniqueInstanceId();
+            registerInstanceAndAwaitVisibility(sampleInstance("APPID", instanceId, "foo-service", ServiceInstance.Status.UP), eurekaBaseUrl);
+
+            pooledClient.findAllInstances(eurekaBaseUrl).close();
+
+            for (var i = 0; i < 3; i++) {
+                try (var response = pooledClient.sendHeartbeat(eurekaBaseUrl, "APPID", instanceId)) {
+                    assertOkResponse(response);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class WarmUp {
+
+        @Test
+        void shouldReturnResponseFromEureka_WithoutServerError() {
+            var pooledClient = new EurekaRestClient(new EurekaConfig());
+
+            try (var response = pooledClient.warmUp(eurekaBaseUrl)) {
+                assertThat(KiwiResponses.serverError(response)).isFalse();
+            }
+        }
+
+        @Test
+        void shouldConnectLookupAndRegistrationPools() {
+            var pooledClient = new EurekaRestClient(new EurekaConfig());
+
+            pooledClient.warmUp(eurekaBaseUrl).close();
+
+            var lookupStats = connectionManagerOf(pooledClient.getClient()).getTotalStats();
+            var registrationStats = connectionManagerOf(pooledClient.getRegistrationClient()).getTotalStats();
+            assertThat(lookupStats.getAvailable()).isOne();
+            assertThat(registrationStats.getAvailable()).isOne();
+        }
+    }
+
     @Nested
     class Register {
 
@@ -187,4 +368,9 @@ class EurekaRestClientTest {
             assertOkResponse(response);
         }
     }
+
+    private static PoolingHttpClientConnectionManager connectionManagerOf(Client client) {
+        return (PoolingHttpClientConnectionManager) client.getConfiguration()
+                .getProperty(Apache5ClientProperties.CONNECTION_MANAGER);
+    }
 }
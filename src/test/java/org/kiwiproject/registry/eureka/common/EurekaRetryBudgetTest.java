@@ -0,0 +1,177 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("EurekaRetryBudget")
+class EurekaRetryBudgetTest {
+
+    private AtomicLong nanoTime;
+
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    }
+
+    @Test
+    void shouldNotAllowInvalidArguments() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new EurekaRetryBudget(-1, 0))
+                .withMessage("retryPercent must be between 0 and 100");
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new EurekaRetryBudget(101, 0))
+                .withMessage("retryPercent must be between 0 and 100");
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new EurekaRetryBudget(10, -1))
+                .withMessage("minRetriesPerSecond must not be negative");
+    }
+
+    @Test
+    void shouldStartFull() {
+        var budget = new EurekaRetryBudget(20, 0, nanoTime::get);
+
+        assertThat(budget.availableRetries()).isEqualTo(EurekaRetryBudget.MAX_RETRY_BURST);
+    }
+
+    @Test
+    void shouldDenyRetries_WhenBurstIsUsedUp() {
+        var budget = new EurekaRetryBudget(20, 0, nanoTime::get);
+
+        for (var i = 0; i < EurekaRetryBudget.MAX_RETRY_BURST; i++) {
+            assertThat(budget.tryAcquireRetry()).isTrue();
+        }
+
+        assertThat(budget.tryAcquireRetry()).isFalse();
+        assertThat(budget.availableRetries()).isZero();
+    }
+
+    @Nested
+    class Earning {
+
+        private EurekaRetryBudget budget;
+
+        @BeforeEach
+        void setUp() {
+            budget = new EurekaRetryBudget(20, 0, nanoTime::get);
+            drain(budget);
+        }
+
+        @Test
+        void shouldEarnRetries_AsAPercentageOfSuccesses() {
+            for (var i = 0; i < 4; i++) {
+                budget.recordSuccess();
+            }
+            assertThat(budget.tryAcquireRetry()).isFalse();
+
+            budget.recordSuccess();
+            assertThat(budget.tryAcquireRetry()).isTrue();
+            assertThat(budget.tryAcquireRetry()).isFalse();
+        }
+
+        @Test
+        void shouldNotEarnMoreThanMaximumBurst() {
+            for (var i = 0; i < 1_000; i++) {
+                budget.recordSuccess();
+            }
+
+            assertThat(budget.availableRetries()).isEqualTo(EurekaRetryBudget.MAX_RETRY_BURST);
+        }
+
+        @Test
+        void shouldNotEarnRetriesFromSuccesses_WhenPercentIsZero() {
+            var zeroPercentBudget = new EurekaRetryBudget(0, 0, nanoTime::get);
+            drain(zeroPercentBudget);
+
+            for (var i = 0; i < 1_000; i++) {
+                zeroPercentBudget.recordSuccess();
+            }
+
+            assertThat(zeroPercentBudget.tryAcquireRetry()).isFalse();
+        }
+    }
+
+    @Nested
+    class MinRetriesPerSecond {
+
+        @Test
+        void shouldEarnRetriesOverTime() {
+            var budget = new EurekaRetryBudget(0, 2, nanoTime::get);
+            drain(budget);
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(499));
+            assertThat(budget.tryAcquireRetry()).isFalse();
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            assertThat(budget.tryAcquireRetry()).isTrue();
+            assertThat(budget.tryAcquireRetry()).isFalse();
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+            assertThat(budget.availableRetries()).isEqualTo(4);
+        }
+
+        @Test
+        void shouldNotEarnMoreThanMaximumBurst() {
+            var budget = new EurekaRetryBudget(0, 2, nanoTime::get);
+            drain(budget);
+
+            nanoTime.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+            assertThat(budget.availableRetries()).isEqualTo(EurekaRetryBudget.MAX_RETRY_BURST);
+        }
+    }
+
+    @Test
+    void shouldNotGrantMoreRetriesThanAvailable_WhenUsedConcurrently() throws InterruptedException {
+        var budget = new EurekaRetryBudget(0, 0, nanoTime::get);
+        var granted = new AtomicInteger();
+        var threads = 8;
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(threads);
+        var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (var i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        for (var j = 0; j < 100; j++) {
+                            if (budget.tryAcquireRetry()) {
+                                granted.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            start.countDown();
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(granted).hasValue(EurekaRetryBudget.MAX_RETRY_BURST);
+    }
+
+    private static void drain(EurekaRetryBudget budget) {
+        while (budget.tryAcquireRetry()) {
+            // keep withdrawing until empty
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package org.kiwiproject.registry.eureka.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.common.EurekaCircuitBreaker.State;
+import org.kiwiproject.registry.eureka.config.EurekaConfig;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+@DisplayName("EurekaUrlProvider")
+class EurekaUrlProviderTest {
+
+    private static final String URL_1 = "http://eureka-1:8761/eureka/v2";
+    private static final String URL_2 = "http://eureka-2:8761/eureka/v2";
+    private static final String URL_3 = "http://eureka-3:8761/eureka/v2";
+    private static final String ALL_URLS = String.join(",", URL_1, URL_2, URL_3);
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void shouldStripTrailingSlashes() {
+        var provider = new EurekaUrlProvider(URL_1 + "/," + URL_2 + "/");
+
+        assertThat(provider.getEurekaUrls()).containsExactly(URL_1, URL_2);
+        assertThat(provider.urlCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRequireAtLeastOneUrl() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new EurekaUrlProvider(""));
+    }
+
+    @Test
+    void shouldStartOnRandomUrl() {
+        var startingUrls = new HashSet<String>();
+        IntStream.range(0, 100)
+                .mapToObj(i -> new EurekaUrlProvider(ALL_URLS).getCurrentEurekaUrl())
+                .forEach(startingUrls::add);
+
+        assertThat(startingUrls).containsExactlyInAnyOrder(URL_1, URL_2, URL_3);
+    }
+
+    @Test
+    void shouldReturnSameCurrentUrlUntilFailover() {
+        var provider = new EurekaUrlProvider(ALL_URLS, 1);
+
+        assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_2);
+        assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_2);
+    }
+
+    @Nested
+    class Shared {
+
+        @Test
+        void shouldReturnSameProvider_ForSameUrls() {
+            assertThat(EurekaUrlProvider.shared(ALL_URLS)).isSameAs(EurekaUrlProvider.shared(ALL_URLS + "/"));
+        }
+
+        @Test
+        void shouldReturnDifferentProviders_ForDifferentUrls() {
+            assertThat(EurekaUrlProvider.shared(ALL_URLS)).isNotSameAs(EurekaUrlProvider.shared(URL_1));
+        }
+
+        @Test
+        void shouldReturnDifferentProviders_ForDifferentCircuitBreakerSettings() {
+            var config = new EurekaConfig();
+            config.setRegistryUrls(ALL_URLS);
+            config.setCircuitBreakerFailureThreshold(EurekaConfig.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD + 1);
+
+            assertThat(EurekaUrlProvider.shared(config)).isNotSameAs(EurekaUrlProvider.shared(ALL_URLS));
+        }
+
+        @Test
+        void shouldShareRetryBudget() {
+            var config = new EurekaConfig();
+            config.setRegistryUrls(ALL_URLS);
+
+            assertThat(EurekaUrlProvider.shared(config).getRetryBudget())
+                    .isSameAs(EurekaUrlProvider.shared(ALL_URLS).getRetryBudget());
+        }
+    }
+
+    @Nested
+    class GetNextEurekaUrl {
+
+        @Test
+        void shouldCycleThroughUrlsInOrder_WhenNothingHasBeenMeasured() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+
+            assertThat(provider.getNextEurekaUrl()).isEqualTo(URL_2);
+            assertThat(provider.getNextEurekaUrl()).isEqualTo(URL_3);
+        }
+
+        @Test
+        void shouldRecordFailureAgainstUrlBeingFailedOverFrom() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+
+            provider.getNextEurekaUrl();
+
+            assertThat(provider.errorRate(URL_1)).isEqualTo(EurekaUrlProvider.EWMA_ALPHA);
+        }
+
+        @Test
+        void shouldReturnSameUrl_WhenOnlyOneUrl() {
+            var provider = new EurekaUrlProvider(URL_1);
+
+            assertThat(provider.getNextEurekaUrl()).isEqualTo(URL_1);
+        }
+
+        @Test
+        void shouldPreferFastestHealthyUrl() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            provider.recordSuccess(URL_2, SLOW);
+            provider.recordSuccess(URL_3, FAST);
+
+            assertThat(provider.getNextEurekaUrl()).isEqualTo(URL_3);
+        }
+
+        @Test
+        void shouldAvoidUnhealthyUrls() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            provider.recordSuccess(URL_2, SLOW);
+            provider.recordSuccess(URL_3, FAST);
+            IntStream.range(0, 10).forEach(i -> provider.recordFailure(URL_3));
+
+            assertThat(provider.getNextEurekaUrl()).isEqualTo(URL_2);
+        }
+
+        @Test
+        void shouldNotifyFailoverListeners() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            var notifiedUrls = new ArrayList<String>();
+            provider.addFailoverListener(notifiedUrls::add);
+
+            provider.getNextEurekaUrl();
+            provider.getNextEurekaUrl();
+
+            assertThat(notifiedUrls).containsExactly(URL_2, URL_3);
+        }
+
+        @Test
+        void shouldNotNotifyRemovedFailoverListeners() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            var notifiedUrls = new ArrayList<String>();
+            Consumer<String> listener = notifiedUrls::add;
+            provider.addFailoverListener(listener);
+
+            provider.getNextEurekaUrl();
+            provider.removeFailoverListener(listener);
+            provider.getNextEurekaUrl();
+
+            assertThat(notifiedUrls).containsExactly(URL_2);
+        }
+    }
+
+    @Nested
+    class FailOverFrom {
+
+        @Test
+        void shouldFailOverFromGivenUrl() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+
+            assertThat(provider.failOverFrom(URL_1)).isEqualTo(URL_2);
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_2);
+        }
+
+        @Test
+        void shouldKeepCurrentUrl_WhenAnotherCallerAlreadyFailedOver() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            provider.failOverFrom(URL_1);
+
+            provider.recordFailure(URL_1);
+            assertThat(provider.failOverFrom(URL_1)).isEqualTo(URL_2);
+
+            assertThat(provider.errorRate(URL_1)).isEqualTo(EurekaUrlProvider.EWMA_ALPHA);
+            assertThat(provider.errorRate(URL_2)).isZero();
+        }
+    }
+
+    @Nested
+    class RecordSuccess {
+
+        @Test
+        void shouldTrackLatencyEwma() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+
+            provider.recordSuccess(URL_1, TimeUnit.MILLISECONDS.toNanos(10));
+            assertThat(provider.latencyMillis(URL_1)).isEqualTo(10.0);
+
+            provider.recordSuccess(URL_1, TimeUnit.MILLISECONDS.toNanos(20));
+            assertThat(provider.latencyMillis(URL_1)).isCloseTo(12.0, within(0.0001));
+        }
+
+        @Test
+        void shouldDecayErrorRate() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            provider.recordFailure(URL_1);
+
+            provider.recordSuccess(URL_1, FAST);
+
+            assertThat(provider.errorRate(URL_1)).isLessThan(EurekaUrlProvider.EWMA_ALPHA);
+        }
+
+        @Test
+        void shouldMoveToFasterHealthyUrl() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            provider.recordSuccess(URL_2, FAST);
+
+            provider.recordSuccess(URL_1, SLOW);
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_2);
+        }
+
+        @Test
+        void shouldNotMove_WhenOtherUrlIsOnlySlightlyFaster() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+            provider.recordSuccess(URL_2, 95);
+
+            provider.recordSuccess(URL_1, 100);
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+        }
+
+        @Test
+        void shouldIgnoreUnknownUrls() {
+            var provider = new EurekaUrlProvider(ALL_URLS, 0);
+
+            provider.recordSuccess("http://unknown:8761/eureka/v2", FAST);
+            provider.recordFailure("http://unknown:8761/eureka/v2");
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+        }
+
+        @Test
+        void shouldEarnRetryBudget() {
+            var config = new EurekaConfig();
+            config.setRegistryUrls(ALL_URLS);
+            config.setRetryBudgetPercent(100);
+            config.setRetryBudgetMinRetriesPerSecond(0);
+            var provider = new EurekaUrlProvider(config);
+            var retryBudget = provider.getRetryBudget();
+            while (retryBudget.tryAcquireRetry()) {
+                // use up the initial burst
+            }
+
+            provider.recordSuccess(URL_1, FAST);
+
+            assertThat(retryBudget.availableRetries()).isOne();
+        }
+    }
+
+    @Nested
+    class CircuitBreakers {
+
+        private static final int OPEN_SECONDS = 30;
+
+        private AtomicLong nanoTime;
+        private EurekaUrlProvider provider;
+
+        @BeforeEach
+        void setUp() {
+            nanoTime = new AtomicLong();
+            provider = new EurekaUrlProvider(ALL_URLS, 0, 2, OPEN_SECONDS, nanoTime::get);
+        }
+
+        @Test
+        void shouldStartClosed() {
+            assertThat(provider.circuitBreakerStates())
+                    .containsExactly(
+                            entry(URL_1, State.CLOSED),
+                            entry(URL_2, State.CLOSED),
+                            entry(URL_3, State.CLOSED));
+        }
+
+        @Test
+        void shouldSkipUrlWithOpenBreaker() {
+            provider.recordFailure(URL_1);
+            provider.recordFailure(URL_1);
+
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.OPEN);
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_2);
+        }
+
+        @Test
+        void shouldNotFailOverToUrlWithOpenBreaker() {
+            provider.recordFailure(URL_2);
+            provider.recordFailure(URL_2);
+
+            assertThat(provider.getNextEurekaUrl()).isEqualTo(URL_3);
+        }
+
+        @Test
+        void shouldReturnCurrentUrl_WhenAllBreakersAreOpen() {
+            provider.getEurekaUrls().forEach(url -> {
+                provider.recordFailure(url);
+                provider.recordFailure(url);
+            });
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+        }
+
+        @Test
+        void shouldProbeAndClose_AfterOpenDurationElapses() {
+            provider.recordFailure(URL_1);
+            provider.recordFailure(URL_1);
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(OPEN_SECONDS));
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.OPEN);
+
+            provider.acquirePermission(URL_1);
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.HALF_OPEN);
+
+            provider.recordSuccess(URL_1, FAST);
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.CLOSED);
+        }
+
+        @Test
+        void shouldNotUseProbe_WhenOnlyChoosingUrl() {
+            provider.recordFailure(URL_1);
+            provider.recordFailure(URL_1);
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(OPEN_SECONDS));
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_1);
+            assertThat(provider.getAlternateEurekaUrl(URL_2)).contains(URL_1);
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.OPEN);
+        }
+
+        @Test
+        void shouldChooseOtherUrl_WhileProbeIsInProgress() {
+            provider.recordFailure(URL_1);
+            provider.recordFailure(URL_1);
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(OPEN_SECONDS));
+            provider.acquirePermission(URL_1);
+
+            assertThat(provider.getCurrentEurekaUrl()).isEqualTo(URL_2);
+        }
+
+        @Test
+        void shouldPermitAnotherProbe_WhenProbeReleasesPermission() {
+            provider.recordFailure(URL_1);
+            provider.recordFailure(URL_1);
+
+            var errorRate = provider.errorRate(URL_1);
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(OPEN_SECONDS));
+            provider.acquirePermission(URL_1);
+            provider.releasePermission(URL_1);
+
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.OPEN);
+            assertThat(provider.errorRate(URL_1)).isEqualTo(errorRate);
+
+            provider.acquirePermission(URL_1);
+            assertThat(provider.circuitBreakerStates()).containsEntry(URL_1, State.HALF_OPEN);
+        }
+    }
+}
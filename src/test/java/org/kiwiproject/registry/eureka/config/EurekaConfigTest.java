@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 import org.kiwiproject.json.JsonHelper;
+import org.kiwiproject.registry.config.RegistryCallLimitsConfig;
 import org.kiwiproject.test.util.Fixtures;
 import org.kiwiproject.yaml.YamlHelper;
 import org.slf4j.event.Level;
@@ -61,6 +62,84 @@ class EurekaConfigTest {
         assertThat(config.getRetryExceptionLogLevel()).isEqualTo(Level.WARN);
     }
 
+    @Test
+    void shouldDefaultConnectionSettings() {
+        var config = new EurekaConfig();
+
+        assertThat(config.getConnectTimeoutMillis()).isEqualTo(EurekaConfig.DEFAULT_CONNECT_TIMEOUT_MILLIS);
+        assertThat(config.getReadTimeoutMillis()).isEqualTo(EurekaConfig.DEFAULT_READ_TIMEOUT_MILLIS);
+        assertThat(config.getMaxConnections()).isEqualTo(EurekaConfig.DEFAULT_MAX_CONNECTIONS);
+        assertThat(config.getMaxConnectionsPerUrl()).isEqualTo(EurekaConfig.DEFAULT_MAX_CONNECTIONS_PER_URL);
+        assertThat(config.getKeepAliveSeconds()).isEqualTo(EurekaConfig.DEFAULT_KEEP_ALIVE_SECONDS);
+        assertThat(config.getIdleConnectionEvictionSeconds()).isEqualTo(EurekaConfig.DEFAULT_IDLE_CONNECTION_EVICTION_SECONDS);
+        assertThat(config.getTlsSessionCacheSize()).isEqualTo(EurekaConfig.DEFAULT_TLS_SESSION_CACHE_SIZE);
+        assertThat(config.getTlsSessionTimeoutSeconds()).isEqualTo(EurekaConfig.DEFAULT_TLS_SESSION_TIMEOUT_SECONDS);
+    }
+
+    @Test
+    void shouldDefaultOperationTimeoutsToReadTimeout() {
+        var config = new EurekaConfig();
+
+        assertThat(config.getLookupTimeoutMillis()).isZero();
+        assertThat(config.getRegistrationTimeoutMillis()).isZero();
+        assertThat(config.getHeartbeatTimeoutMillis()).isZero();
+    }
+
+    @Test
+    void shouldDefaultCircuitBreakerSettings() {
+        var config = new EurekaConfig();
+
+        assertThat(config.getCircuitBreakerFailureThreshold()).isEqualTo(EurekaConfig.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        assertThat(config.getCircuitBreakerOpenSeconds()).isEqualTo(EurekaConfig.DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS);
+    }
+
+    @Test
+    void shouldDefaultRetryBudgetSettings() {
+        var config = new EurekaConfig();
+
+        assertThat(config.getRetryBudgetPercent()).isEqualTo(EurekaConfig.DEFAULT_RETRY_BUDGET_PERCENT);
+        assertThat(config.getRetryBudgetMinRetriesPerSecond())
+                .isEqualTo(EurekaConfig.DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND);
+    }
+
+    @Test
+    void shouldNotLimitCallsByDefault() {
+        var callLimits = new EurekaConfig().getCallLimits();
+
+        assertThat(callLimits.getMaxConcurrentLookups()).isZero();
+        assertThat(callLimits.getMaxLookupsPerSecond()).isZero();
+        assertThat(callLimits.getMaxConcurrentRegistrationCalls()).isZero();
+        assertThat(callLimits.getMaxRegistrationCallsPerSecond()).isZero();
+        assertThat(callLimits.getMaxWaitMillis()).isEqualTo(RegistryCallLimitsConfig.DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    @Test
+    void shouldNotHedgeLookupsByDefault() {
+        var config = new EurekaConfig();
+
+        assertThat(config.isHedgeLookups()).isFalse();
+        assertThat(config.getHedgeDelayPercentile()).isEqualTo(EurekaConfig.DEFAULT_HEDGE_DELAY_PERCENTILE);
+        assertThat(config.getMinHedgeDelayMillis()).isEqualTo(EurekaConfig.DEFAULT_MIN_HEDGE_DELAY_MILLIS);
+        assertThat(config.getMaxHedgePercent()).isEqualTo(EurekaConfig.DEFAULT_MAX_HEDGE_PERCENT);
+    }
+
+    @Test
+    void shouldDefaultFullFetchSettings() {
+        var config = new EurekaConfig();
+
+        assertThat(config.getFullFetchVipThreshold()).isEqualTo(EurekaConfig.DEFAULT_FULL_FETCH_VIP_THRESHOLD);
+        assertThat(config.getFullFetchWindowSeconds()).isEqualTo(EurekaConfig.DEFAULT_FULL_FETCH_WINDOW_SECONDS);
+        assertThat(config.getFullFetchMaxAgeMillis()).isEqualTo(EurekaConfig.DEFAULT_FULL_FETCH_MAX_AGE_MILLIS);
+    }
+
+    @Test
+    void shouldNotPrewarmConnectionsByDefault() {
+        var config = new EurekaConfig();
+
+        assertThat(config.isPrewarmConnections()).isFalse();
+        assertThat(config.getKeepWarmIntervalSeconds()).isEqualTo(EurekaConfig.DEFAULT_KEEP_WARM_INTERVAL_SECONDS);
+    }
+
     @Nested
     class SetRetryId {
 
@@ -20,9 +20,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.eureka.common.EurekaCircuitBreaker;
 import org.kiwiproject.registry.eureka.common.EurekaInstance;
 import org.kiwiproject.registry.eureka.common.EurekaRestClient;
 import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.util.ServiceInfoHelper;
 import org.mockito.ArgumentCaptor;
@@ -39,6 +41,7 @@ class EurekaHeartbeatSenderTest {
     private EurekaRegistryService service;
     private EurekaHeartbeatSender sender;
     private EurekaRestClient client;
+    private EurekaUrlProvider urlProvider;
 
     private AtomicInteger heartbeatCount;
 
@@ -52,7 +55,8 @@ class EurekaHeartbeatSenderTest {
         var eurekaInstance = EurekaInstance.fromServiceInstance(serviceInstance).withApp("test-service-app");
 
         heartbeatCount = new AtomicInteger(0);
-        sender = new EurekaHeartbeatSender(client, service, eurekaInstance, new EurekaUrlProvider("http://localhost:8764"), () -> heartbeatCount.incrementAndGet());
+        urlProvider = new EurekaUrlProvider("http://localhost:8764");
+        sender = new EurekaHeartbeatSender(client, service, eurekaInstance, urlProvider, () -> heartbeatCount.incrementAndGet());
     }
 
     @Nested
@@ -128,6 +132,49 @@ class EurekaHeartbeatSenderTest {
             assertThat(heartbeatCount).hasValue(0);
         }
 
+        @Test
+        void whenSendCallThrowsExceptionRecordFailureOfEurekaServer() {
+            when(client.sendHeartbeat(anyString(), anyString(), anyString())).thenThrow(new ProcessingException("oops"));
+
+            sender.run();
+
+            assertThat(urlProvider.errorRate("http://localhost:8764")).isPositive();
+        }
+
+        @Test
+        void whenSendCallReturnsServerErrorRecordFailureOfEurekaServer() {
+            when(client.sendHeartbeat(anyString(), anyString(), anyString())).thenReturn(Response.serverError().build());
+
+            sender.run();
+
+            assertThat(sender.getHeartbeatFailures()).isEqualTo(1);
+            assertThat(urlProvider.errorRate("http://localhost:8764")).isPositive();
+        }
+
+        @Test
+        void whenSendCallReturnsNotFoundIncreaseFailureCountsWithoutRecordingFailureOfEurekaServer() {
+            when(client.sendHeartbeat(anyString(), anyString(), anyString()))
+                    .thenReturn(Response.status(Response.Status.NOT_FOUND).build());
+
+            sender.run();
+
+            assertThat(sender.getHeartbeatFailures()).isEqualTo(1);
+            assertThat(urlProvider.errorRate("http://localhost:8764")).isZero();
+            assertThat(urlProvider.circuitBreakerStates()).containsValue(EurekaCircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        void whenSendCallIsRejectedByCallLimitsIncreaseFailureCountsWithoutRecordingFailureOfEurekaServer() {
+            when(client.sendHeartbeat(anyString(), anyString(), anyString()))
+                    .thenThrow(new RegistryCallRejectedException("too many concurrent heartbeats"));
+
+            sender.run();
+
+            assertThat(sender.getHeartbeatFailures()).isEqualTo(1);
+            assertThat(urlProvider.errorRate("http://localhost:8764")).isZero();
+            assertThat(urlProvider.circuitBreakerStates()).containsValue(EurekaCircuitBreaker.State.CLOSED);
+        }
+
         @Test
         void whenSendCallSucceedsResetFailuresAndCallListener() {
             when(client.sendHeartbeat(anyString(), anyString(), anyString())).thenReturn(standardGetResponse(List.of(), "foo"));
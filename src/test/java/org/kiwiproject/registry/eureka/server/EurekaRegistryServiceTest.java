@@ -7,8 +7,14 @@ import static org.kiwiproject.base.KiwiStrings.f;
 import static org.kiwiproject.registry.eureka.server.EurekaRegistryService.APP_TIMESTAMP_FORMATTER;
 import static org.kiwiproject.test.constants.KiwiTestConstants.JSON_HELPER;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import jakarta.ws.rs.core.Response;
@@ -19,10 +25,13 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.kiwiproject.base.KiwiEnvironment;
 import org.kiwiproject.beta.test.jersey.ws.rs.JakartaRestTestHelpers;
+import org.kiwiproject.registry.eureka.common.EurekaCircuitBreaker;
 import org.kiwiproject.registry.eureka.common.EurekaInstance;
 import org.kiwiproject.registry.eureka.common.EurekaRestClient;
+import org.kiwiproject.registry.eureka.common.EurekaUrlProvider;
 import org.kiwiproject.registry.eureka.config.EurekaRegistrationConfig;
 import org.kiwiproject.registry.exception.RegistrationException;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
 import org.kiwiproject.registry.model.Port;
 import org.kiwiproject.registry.model.ServiceInstance;
 import org.kiwiproject.registry.model.ServicePaths;
@@ -104,6 +113,40 @@ class EurekaRegistryServiceTest {
                     .hasMessageContaining("attempts to register (via POST) with Eureka");
         }
 
+        @Test
+        void shouldRetryRegistration_WhenRetryBudgetIsExhausted() {
+            config.setRetryBudgetPercent(0);
+            config.setRetryBudgetMinRetriesPerSecond(0);
+            var urlProvider = new EurekaUrlProvider(config);
+            var retryBudget = urlProvider.getRetryBudget();
+            while (retryBudget.tryAcquireRetry()) {
+                // use up the budget, as a flood of failed lookups would
+            }
+
+            eurekaRegistryService = new EurekaRegistryService(config, eurekaRestClient, kiwiEnvironment, urlProvider,
+                    retryer, retryer, retryer, retryer);
+
+            var now = Instant.now();
+            when(kiwiEnvironment.currentInstant()).thenReturn(now);
+
+            var appId = f("test-service-{}", APP_TIMESTAMP_FORMATTER.format(now)).toUpperCase(Locale.getDefault());
+            when(eurekaRestClient.register(eq(config.getRegistryUrls()), eq(appId), any(EurekaInstance.class)))
+                    .thenAnswer(invocation -> simulateInbound(Response.serverError().build()));
+
+            var instance = ServiceInstance.builder()
+                    .serviceName("test-service")
+                    .status(ServiceInstance.Status.UP)
+                    .ports(List.of(Port.of(8080, Port.PortType.APPLICATION, Port.Security.SECURE)))
+                    .paths(ServicePaths.builder().build())
+                    .build();
+
+            assertThatThrownBy(() -> eurekaRegistryService.register(instance))
+                    .isInstanceOf(RegistrationException.class);
+
+            verify(eurekaRestClient, times(5))
+                    .register(eq(config.getRegistryUrls()), eq(appId), any(EurekaInstance.class));
+        }
+
         @Test
         void shouldThrowRegistrationExceptionWhenRetriesRunOutDueToException() {
             var now = Instant.now();
@@ -159,6 +202,65 @@ class EurekaRegistryServiceTest {
                     .hasMessageContaining("Unable to obtain app " + appId + ", instance localhost from Eureka during registration after");
         }
 
+        @Test
+        void shouldNotRecordFailureOfEurekaServer_WhenRegistrationHasNotShownYet() {
+            var urlProvider = new EurekaUrlProvider(config);
+            eurekaRegistryService = new EurekaRegistryService(config, eurekaRestClient, kiwiEnvironment, urlProvider,
+                    retryer, retryer, retryer, retryer);
+
+            var now = Instant.now();
+            when(kiwiEnvironment.currentInstant()).thenReturn(now);
+
+            var appId = f("test-service-{}", APP_TIMESTAMP_FORMATTER.format(now)).toUpperCase(Locale.getDefault());
+            when(eurekaRestClient.register(eq(config.getRegistryUrls()), eq(appId), any(EurekaInstance.class)))
+                    .thenReturn(simulateInbound(Response.noContent().build()));
+
+            when(eurekaRestClient.findInstance(config.getRegistryUrls(), appId, "localhost"))
+                    .thenAnswer(invocation -> simulateInbound(Response.status(Response.Status.NOT_FOUND).build()));
+
+            var instance = ServiceInstance.builder()
+                    .serviceName("test-service")
+                    .hostName("localhost")
+                    .status(ServiceInstance.Status.UP)
+                    .ports(List.of(Port.of(8080, Port.PortType.APPLICATION, Port.Security.SECURE)))
+                    .paths(ServicePaths.builder().build())
+                    .build();
+
+            assertThatThrownBy(() -> eurekaRegistryService.register(instance))
+                    .isInstanceOf(RegistrationException.class);
+
+            assertThat(urlProvider.errorRate(config.getRegistryUrls())).isZero();
+        }
+
+        @Test
+        void shouldNotRecordFailureOfEurekaServer_WhenRegistrationIsRejectedByCallLimits() {
+            var urlProvider = new EurekaUrlProvider(config);
+            eurekaRegistryService = new EurekaRegistryService(config, eurekaRestClient, kiwiEnvironment, urlProvider,
+                    retryer, retryer, retryer, retryer);
+
+            var now = Instant.now();
+            when(kiwiEnvironment.currentInstant()).thenReturn(now);
+
+            var appId = f("test-service-{}", APP_TIMESTAMP_FORMATTER.format(now)).toUpperCase(Locale.getDefault());
+            when(eurekaRestClient.register(eq(config.getRegistryUrls()), eq(appId), any(EurekaInstance.class)))
+                    .thenThrow(new RegistryCallRejectedException("too many concurrent registration calls"));
+
+            var instance = ServiceInstance.builder()
+                    .serviceName("test-service")
+                    .hostName("localhost")
+                    .status(ServiceInstance.Status.UP)
+                    .ports(List.of(Port.of(8080, Port.PortType.APPLICATION, Port.Security.SECURE)))
+                    .paths(ServicePaths.builder().build())
+                    .build();
+
+            assertThatThrownBy(() -> eurekaRegistryService.register(instance))
+                    .isInstanceOf(RegistrationException.class);
+
+            assertThat(urlProvider.errorRate(config.getRegistryUrls())).isZero();
+            assertThat(urlProvider.circuitBreakerStates())
+                    .containsEntry(config.getRegistryUrls(), EurekaCircuitBreaker.State.CLOSED);
+        }
+
         @Test
         void shouldThrowRegistrationExceptionWhenRetriesRunOutWaitingForRegistrationDueToException() {
             var now = Instant.now();
@@ -313,6 +415,28 @@ class EurekaRegistryServiceTest {
     
     }
 
+    @Nested
+    class Unregister {
+
+        @Test
+        void shouldStopWarmingConnections() {
+            config.setPrewarmConnections(true);
+            config.setKeepWarmIntervalSeconds(1);
+            when(eurekaRestClient.warmUp(anyString())).thenReturn(Response.ok().build());
+
+            eurekaRegistryService = new EurekaRegistryService(config, eurekaRestClient, kiwiEnvironment, retryer, retryer, retryer, retryer);
+            await().atMost(5, TimeUnit.SECONDS)
+                    .untilAsserted(() -> verify(eurekaRestClient, atLeastOnce()).warmUp(config.getRegistryUrls()));
+
+            eurekaRegistryService.unregister();
+            clearInvocations(eurekaRestClient);
+
+            await().during(1500, TimeUnit.MILLISECONDS)
+                    .atMost(3, TimeUnit.SECONDS)
+                    .untilAsserted(() -> verify(eurekaRestClient, never()).warmUp(anyString()));
+        }
+    }
+
     @SuppressWarnings("UnstableApiUsage")
     private static Response simulateInbound(Response outboundResponse) {
         return JakartaRestTestHelpers.toInboundResponse(outboundResponse);
@@ -0,0 +1,18 @@
+package org.kiwiproject.registry.exception;
+
+import static org.kiwiproject.test.junit.jupiter.StandardExceptionTests.standardConstructorTestsFor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.Collection;
+
+@DisplayName("RegistryCallRejectedException")
+class RegistryCallRejectedExceptionTest {
+
+    @TestFactory
+    Collection<DynamicTest> shouldHaveStandardConstructors() {
+        return standardConstructorTestsFor(RegistryCallRejectedException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package org.kiwiproject.registry.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("LazyNativeRegistryData")
+class LazyNativeRegistryDataTest {
+
+    @Test
+    void shouldNotComputeData_UntilAccessed() {
+        var computeCount = new AtomicInteger();
+        var data = (LazyNativeRegistryData) LazyNativeRegistryData.of(() -> {
+            computeCount.incrementAndGet();
+            return Map.of("ServiceId", "order-1");
+        });
+
+        assertThat(data.isComputed()).isFalse();
+        assertThat(computeCount).hasValue(0);
+
+        assertThat(data).containsEntry("ServiceId", "order-1");
+        assertThat(data.isComputed()).isTrue();
+    }
+
+    @Test
+    void shouldComputeDataOnlyOnce() {
+        var computeCount = new AtomicInteger();
+        var data = LazyNativeRegistryData.of(() -> {
+            computeCount.incrementAndGet();
+            return Map.of("ServiceId", "order-1", "ModifyIndex", 42);
+        });
+
+        assertThat(data.get("ServiceId")).isEqualTo("order-1");
+        assertThat(data).hasSize(2);
+        assertThat(data.containsKey("ModifyIndex")).isTrue();
+        assertThat(data.keySet()).containsExactlyInAnyOrder("ServiceId", "ModifyIndex");
+
+        assertThat(computeCount).hasValue(1);
+    }
+
+    @Test
+    void shouldComputeDataOnlyOnce_WhenAccessedConcurrently() throws InterruptedException {
+        var computeCount = new AtomicInteger();
+        var data = LazyNativeRegistryData.of(() -> {
+            computeCount.incrementAndGet();
+            return Map.of("ServiceId", "order-1");
+        });
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var done = new CountDownLatch(8);
+            for (var i = 0; i < 8; i++) {
+                executor.execute(() -> {
+                    data.get("ServiceId");
+                    done.countDown();
+                });
+            }
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(computeCount).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldBeEqualToMapWithSameEntries() {
+        var data = LazyNativeRegistryData.of(() -> Map.of("ServiceId", "order-1"));
+
+        assertThat(data)
+                .isEqualTo(Map.of("ServiceId", "order-1"))
+                .hasSameHashCodeAs(Map.of("ServiceId", "order-1"));
+    }
+
+    @Test
+    void shouldBeUnmodifiable() {
+        var source = new HashMap<String, Object>();
+        source.put("ServiceId", "order-1");
+        var data = LazyNativeRegistryData.of(() -> source);
+
+        assertThatThrownBy(() -> data.put("ServiceId", "order-2"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> data.entrySet().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(source).containsEntry("ServiceId", "order-1");
+    }
+
+    @Test
+    void shouldRejectNullSupplier() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> LazyNativeRegistryData.of(null))
+                .withMessage("supplier must not be null");
+    }
+
+    @Test
+    void shouldThrow_WhenSupplierReturnsNull() {
+        var data = LazyNativeRegistryData.of(() -> null);
+
+        assertThatIllegalStateException()
+                .isThrownBy(data::size)
+                .withMessage("supplier must not return null native registry data");
+    }
+}
@@ -0,0 +1,83 @@
+package org.kiwiproject.registry.model;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ServiceSummary")
+class ServiceSummaryTest {
+
+    @Nested
+    class Tally {
+
+        @Test
+        void shouldSummarizeNothing_WhenNoInstancesAreAdded() {
+            var summary = ServiceSummary.tally("order-service").toSummary();
+
+            assertThat(summary.getServiceName()).isEqualTo("order-service");
+            assertThat(summary.getInstanceCount()).isZero();
+            assertThat(summary.getStatusCounts()).isEmpty();
+            assertThat(summary.getVersions()).isEmpty();
+        }
+
+        @Test
+        void shouldCountInstancesByStatus_AndCollectSortedVersions() {
+            var summary = ServiceSummary.tally("order-service")
+                    .add("UP", "1.1.0")
+                    .add("UP", "1.0.0")
+                    .add("DOWN", "1.0.0")
+                    .add("STARTING", null)
+                    .toSummary();
+
+            assertThat(summary.getInstanceCount()).isEqualTo(4);
+            assertThat(summary.getStatusCounts())
+                    .containsExactly(entry("DOWN", 1), entry("STARTING", 1), entry("UP", 2));
+            assertThat(summary.getVersions()).containsExactly("1.0.0", "1.1.0");
+        }
+
+        @Test
+        void shouldCountServiceInstances_WithUnknownStatusWhenMissing() {
+            var summary = ServiceSummary.tally("order-service")
+                    .add(ServiceInstance.builder().status(ServiceInstance.Status.UP).version("1.0.0").build())
+                    .add(ServiceInstance.builder().version("1.0.0").build())
+                    .toSummary();
+
+            assertThat(summary.getStatusCounts())
+                    .containsExactly(entry(ServiceSummary.UNKNOWN_STATUS, 1), entry("UP", 1));
+            assertThat(summary.getVersions()).containsExactly("1.0.0");
+        }
+
+        @Test
+        void shouldCombineSummaries() {
+            var first = ServiceSummary.tally("order-service").add("UP", "1.0.0").toSummary();
+            var second = ServiceSummary.tally("order-service").add("UP", "1.1.0").add("DOWN", null).toSummary();
+
+            var combined = ServiceSummary.tally("order-service").add(first).add(second).toSummary();
+
+            assertThat(combined.getInstanceCount()).isEqualTo(3);
+            assertThat(combined.getStatusCounts()).containsExactly(entry("DOWN", 1), entry("UP", 2));
+            assertThat(combined.getVersions()).containsExactly("1.0.0", "1.1.0");
+        }
+
+        @Test
+        void shouldCreateImmutableSummaries() {
+            var summary = ServiceSummary.tally("order-service").add("UP", "1.0.0").toSummary();
+
+            assertThat(summary.getStatusCounts()).isUnmodifiable();
+            assertThat(summary.getVersions()).isUnmodifiable();
+        }
+
+        @Test
+        void shouldRejectNullStatus() {
+            var tally = ServiceSummary.tally("order-service");
+
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> tally.add((String) null, "1.0.0"))
+                    .withMessage("status must not be null");
+        }
+    }
+}
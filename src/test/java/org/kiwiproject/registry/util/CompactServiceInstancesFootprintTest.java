@@ -0,0 +1,41 @@
+package org.kiwiproject.registry.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.stream.IntStream;
+
+/**
+ * Measures the retained size of many instances of one service, as held in a cache of the full registry, with and
+ * without compaction.
+ */
+@DisplayName("CompactServiceInstances footprint")
+@Slf4j
+class CompactServiceInstancesFootprintTest {
+
+    private static final int INSTANCE_COUNT = 1_000;
+
+    @Test
+    void shouldUseLessMemoryPerInstance_WhenCompacted() {
+        var instances = IntStream.range(0, INSTANCE_COUNT)
+                .mapToObj(i -> CompactServiceInstancesTest.newInstance("order-" + i))
+                .toArray(ServiceInstance[]::new);
+
+        var compactedInstances = IntStream.range(0, INSTANCE_COUNT)
+                .mapToObj(i -> CompactServiceInstances.compact(CompactServiceInstancesTest.newInstance("order-" + i)))
+                .toArray(ServiceInstance[]::new);
+
+        var bytesPerInstance = GraphLayout.parseInstance((Object[]) instances).totalSize() / INSTANCE_COUNT;
+        var compactedBytesPerInstance =
+                GraphLayout.parseInstance((Object[]) compactedInstances).totalSize() / INSTANCE_COUNT;
+
+        LOG.info("Bytes per instance: {} before compaction, {} after", bytesPerInstance, compactedBytesPerInstance);
+
+        assertThat(compactedBytesPerInstance).isLessThan(bytesPerInstance / 2);
+    }
+}
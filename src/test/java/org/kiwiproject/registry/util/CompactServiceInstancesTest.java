@@ -0,0 +1,116 @@
+package org.kiwiproject.registry.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.model.Port;
+import org.kiwiproject.registry.model.Port.PortType;
+import org.kiwiproject.registry.model.Port.Security;
+import org.kiwiproject.registry.model.ServiceInstance;
+import org.kiwiproject.registry.model.ServicePaths;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+@DisplayName("CompactServiceInstances")
+class CompactServiceInstancesTest {
+
+    @Test
+    void shouldReturnEqualInstance() {
+        var instance = newInstance("order-1");
+
+        assertThat(CompactServiceInstances.compact(instance)).isEqualTo(instance);
+    }
+
+    @Test
+    void shouldShareCommonValues_BetweenCompactedInstances() {
+        var first = CompactServiceInstances.compact(newInstance("order-1"));
+        var second = CompactServiceInstances.compact(newInstance("order-2"));
+
+        assertThat(second.getServiceName()).isSameAs(first.getServiceName());
+        assertThat(second.getVersion()).isSameAs(first.getVersion());
+        assertThat(second.getCommitRef()).isSameAs(first.getCommitRef());
+        assertThat(second.getDescription()).isSameAs(first.getDescription());
+        assertThat(second.getMetadata()).isSameAs(first.getMetadata());
+        assertThat(second.getPorts()).isSameAs(first.getPorts());
+        assertThat(second.getPaths()).isSameAs(first.getPaths());
+
+        assertThat(second.getInstanceId()).isNotEqualTo(first.getInstanceId());
+    }
+
+    @Test
+    void shouldShareMetadataKeys_WhenMetadataDiffers() {
+        var first = CompactServiceInstances.compact(newInstance("order-1")
+                .withMetadata(new HashMap<>(Map.of("serviceUpTimestamp", "1"))));
+        var second = CompactServiceInstances.compact(newInstance("order-2")
+                .withMetadata(new HashMap<>(Map.of("serviceUpTimestamp", "2"))));
+
+        var firstKey = first.getMetadata().keySet().iterator().next();
+        var secondKey = second.getMetadata().keySet().iterator().next();
+        assertThat(secondKey).isSameAs(firstKey);
+    }
+
+    @Test
+    void shouldMakeMetadataAndPortsUnmodifiable() {
+        var compacted = CompactServiceInstances.compact(newInstance("order-1"));
+
+        assertThat(compacted.getMetadata()).isUnmodifiable();
+        assertThat(compacted.getPorts()).isUnmodifiable();
+    }
+
+    @Test
+    void shouldKeepMetadata_ContainingNullValues() {
+        var metadata = new HashMap<String, String>();
+        metadata.put("category", null);
+        var instance = newInstance("order-1").withMetadata(metadata);
+
+        assertThat(CompactServiceInstances.compact(instance).getMetadata()).isSameAs(metadata);
+    }
+
+    @Test
+    void shouldAllowMissingValues() {
+        var instance = ServiceInstance.builder().instanceId("order-1").build();
+
+        assertThat(CompactServiceInstances.compact(instance)).isEqualTo(instance);
+    }
+
+    @Test
+    void shouldRejectNullInstance() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> CompactServiceInstances.compact(null))
+                .withMessage("instance must not be null");
+    }
+
+    /**
+     * Uses {@code new String} so that equal values are separate objects, as they would be when parsed from a
+     * registry response.
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    static ServiceInstance newInstance(String instanceId) {
+        var metadata = new HashMap<String, String>();
+        metadata.put(new String("category"), new String("CORE"));
+        metadata.put(new String("registryType"), new String("CONSUL"));
+
+        var ports = new ArrayList<Port>();
+        ports.add(Port.of(8080, PortType.APPLICATION, Security.SECURE));
+        ports.add(Port.of(8081, PortType.ADMIN, Security.SECURE));
+
+        return ServiceInstance.builder()
+                .instanceId(instanceId)
+                .status(ServiceInstance.Status.UP)
+                .serviceName(new String("order-service"))
+                .hostName(instanceId + ".example.com")
+                .ip("10.0.0.1")
+                .ports(ports)
+                .paths(ServicePaths.builder().build())
+                .commitRef(new String("abcdef"))
+                .description(new String("Order service"))
+                .version(new String("1.0.0"))
+                .metadata(metadata)
+                .nativeRegistryData(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package org.kiwiproject.registry.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.registry.config.RegistryCallLimitsConfig;
+import org.kiwiproject.registry.exception.RegistryCallRejectedException;
+import org.kiwiproject.registry.util.RegistryCallLimiter.Lane;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("RegistryCallLimiter")
+class RegistryCallLimiterTest {
+
+    private RegistryCallLimitsConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new RegistryCallLimitsConfig();
+        config.setMaxWaitMillis(50);
+    }
+
+    @Test
+    void shouldPermitAllCalls_WhenUnlimited() {
+        var limiter = RegistryCallLimiter.unlimited();
+
+        for (var i = 0; i < 100; i++) {
+            assertThat(limiter.call(Lane.LOOKUP, () -> "found")).isEqualTo("found");
+        }
+
+        assertThat(limiter.availableConcurrency(Lane.LOOKUP)).isEqualTo(Integer.MAX_VALUE);
+        assertThat(limiter.availableConcurrency(Lane.REGISTRATION)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Nested
+    class ConcurrencyLimits {
+
+        private ExecutorService executor;
+        private CountDownLatch callStarted;
+        private CountDownLatch releaseCall;
+
+        @BeforeEach
+        void setUp() {
+            executor = Executors.newSingleThreadExecutor();
+            callStarted = new CountDownLatch(1);
+            releaseCall = new CountDownLatch(1);
+        }
+
+        @AfterEach
+        void tearDown() {
+            releaseCall.countDown();
+            executor.shutdownNow();
+        }
+
+        @Test
+        void shouldRejectCall_WhenLaneIsAtConcurrencyLimit() throws Exception {
+            config.setMaxConcurrentLookups(1);
+            var limiter = new RegistryCallLimiter(config);
+
+            var blockedCall = startBlockedCall(limiter, Lane.LOOKUP);
+
+            assertThatThrownBy(() -> limiter.call(Lane.LOOKUP, () -> "found"))
+                    .isExactlyInstanceOf(RegistryCallRejectedException.class)
+                    .hasMessage("Concurrency limit reached for registry LOOKUP calls");
+
+            releaseCall.countDown();
+            assertThat(blockedCall.get(5, TimeUnit.SECONDS)).isEqualTo("blocked");
+            assertThat(limiter.availableConcurrency(Lane.LOOKUP)).isOne();
+        }
+
+        @Test
+        void shouldNotLetLookupsStarveRegistrationCalls() throws Exception {
+            config.setMaxConcurrentLookups(1);
+            config.setMaxConcurrentRegistrationCalls(1);
+            var limiter = new RegistryCallLimiter(config);
+
+            startBlockedCall(limiter, Lane.LOOKUP);
+
+            assertThat(limiter.call(Lane.REGISTRATION, () -> "heartbeat")).isEqualTo("heartbeat");
+            assertThat(limiter.availableConcurrency(Lane.LOOKUP)).isZero();
+            assertThat(limiter.availableConcurrency(Lane.REGISTRATION)).isOne();
+        }
+
+        private Future<String> startBlockedCall(RegistryCallLimiter limiter, Lane lane) throws InterruptedException {
+            var future = executor.submit(() -> limiter.call(lane, () -> {
+                callStarted.countDown();
+                awaitRelease();
+                return "blocked";
+            }));
+
+            assertThat(callStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return future;
+        }
+
+        private void awaitRelease() {
+            try {
+                releaseCall.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Nested
+    class RateLimits {
+
+        @Test
+        void shouldRejectCall_WhenLaneIsAtRateLimit() {
+            config.setMaxLookupsPerSecond(1);
+            config.setMaxWaitMillis(0);
+            var limiter = new RegistryCallLimiter(config);
+
+            assertThat(limiter.call(Lane.LOOKUP, () -> "found")).isEqualTo("found");
+
+            assertThatThrownBy(() -> limiter.call(Lane.LOOKUP, () -> "found"))
+                    .isExactlyInstanceOf(RegistryCallRejectedException.class)
+                    .hasMessage("Rate limit reached for registry LOOKUP calls");
+        }
+
+        @Test
+        void shouldLimitEachLaneSeparately() {
+            config.setMaxLookupsPerSecond(1);
+            config.setMaxWaitMillis(0);
+            var limiter = new RegistryCallLimiter(config);
+
+            limiter.call(Lane.LOOKUP, () -> "found");
+
+            assertThat(limiter.call(Lane.REGISTRATION, () -> "registered")).isEqualTo("registered");
+        }
+    }
+
+    @Test
+    void shouldReleasePermit_WhenCallThrows() {
+        config.setMaxConcurrentRegistrationCalls(1);
+        var limiter = new RegistryCallLimiter(config);
+
+        assertThatThrownBy(() -> limiter.call(Lane.REGISTRATION, () -> {
+            throw new IllegalStateException("registration failed");
+        })).isExactlyInstanceOf(IllegalStateException.class);
+
+        assertThat(limiter.availableConcurrency(Lane.REGISTRATION)).isOne();
+    }
+}